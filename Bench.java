@@ -0,0 +1,151 @@
+///usr/bin/env java "$0" "$@"; exit $?
+
+// Closed-loop benchmark with the LoadTest mix: each worker sends its next request as soon as the
+// previous one answered, so the result is the throughput the server sustains and its latency.
+// Usage: java Bench.java [seconds=60] [warmup seconds=15] [workers=32] [base url]
+
+import java.net.URI;
+import java.net.http.*;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.regex.Pattern;
+
+void main(String... args) throws Exception {
+    int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+    int warmupSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 15;
+    int workers = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+    final String BASE = (args.length > 3 ? args[3] : "http://localhost:8080") + "/api/users";
+
+    var client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    var firstNames = List.of("Alice","Bob","Carlos","Diana","Eve","Frank","Grace",
+            "Hector","Iris","Jack","Karen","Leo","Mia","Nate","Olivia","Paul","Quinn","Rita","Sam","Tina");
+    var lastNames = List.of("Silva","Santos","Oliveira","Souza","Lima","Pereira","Costa","Ferreira");
+    var ids = new CopyOnWriteArrayList<Long>();
+    var emails = new CopyOnWriteArrayList<String>();
+    var seq = new AtomicInteger();
+    var idPattern = Pattern.compile("\"id\":(\\d+)");
+    String run = Long.toString(System.currentTimeMillis(), 36);
+
+    // weighted like LoadTest: reads dominate, a third of the requests write
+    var ops = List.of("create", "create", "create", "update", "update", "delete",
+            "search", "search", "getById", "getById", "getById", "getByEmail", "getCount");
+
+    java.util.function.Supplier<HttpRequest> next = () -> {
+        var rng = ThreadLocalRandom.current();
+        String op = ops.get(rng.nextInt(ops.size()));
+        if (ids.isEmpty() && !op.equals("search") && !op.equals("getCount")) {
+            op = "create";
+        }
+        String name = firstNames.get(rng.nextInt(firstNames.size())) + " "
+                + lastNames.get(rng.nextInt(lastNames.size()));
+        int idx = ids.isEmpty() ? 0 : rng.nextInt(ids.size());
+        try {
+            return switch (op) {
+                case "create" -> {
+                    var email = "b" + run + "-" + seq.incrementAndGet() + "@bench.test";
+                    var json = "{\"name\":\"%s\",\"email\":\"%s\",\"bio\":\"bench\"}".formatted(name, email);
+                    yield HttpRequest.newBuilder(URI.create(BASE))
+                            .POST(HttpRequest.BodyPublishers.ofString(json))
+                            .header("Content-Type", "application/json").build();
+                }
+                case "update" -> {
+                    var json = "{\"name\":\"%s\",\"email\":\"%s\",\"bio\":\"bench\"}".formatted(name, emails.get(idx));
+                    yield HttpRequest.newBuilder(URI.create(BASE + "/" + ids.get(idx)))
+                            .PUT(HttpRequest.BodyPublishers.ofString(json))
+                            .header("Content-Type", "application/json").build();
+                }
+                case "delete" -> HttpRequest.newBuilder(URI.create(BASE + "/" + ids.get(idx))).DELETE().build();
+                case "search" -> HttpRequest.newBuilder(URI.create(BASE + "/search?name=" + name.split(" ")[0])).GET().build();
+                case "getById" -> HttpRequest.newBuilder(URI.create(BASE + "/" + ids.get(idx))).GET().build();
+                case "getByEmail" -> HttpRequest.newBuilder(URI.create(BASE + "/email/" + emails.get(idx))).GET().build();
+                default -> HttpRequest.newBuilder(URI.create(BASE + "/count")).GET().build();
+            };
+        } catch (IndexOutOfBoundsException _) {
+            return HttpRequest.newBuilder(URI.create(BASE + "/count")).GET().build();
+        }
+    };
+
+    long start = System.nanoTime();
+    long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+    long end = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+    var latencies = new ConcurrentLinkedQueue<long[]>();
+    var errors = new AtomicLong();
+
+    System.out.printf("=== Bench: %d workers, %ds warm-up, %ds measured ===%n", workers, warmupSeconds, seconds);
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        for (int w = 0; w < workers; w++) {
+            executor.submit(() -> {
+                long[] mine = new long[1 << 16];
+                int n = 0;
+                while (true) {
+                    long sent = System.nanoTime();
+                    if (sent >= end) {
+                        break;
+                    }
+                    var req = next.get();
+                    int status;
+                    String body = "";
+                    try {
+                        var resp = client.send(req, BodyHandlers.ofString());
+                        status = resp.statusCode();
+                        body = resp.body();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    long took = System.nanoTime() - sent;
+                    if (req.method().equals("POST") && status == 201) {
+                        var m = idPattern.matcher(body);
+                        if (m.find()) {
+                            // both lists are only appended to here and removed from below, in step
+                            synchronized (ids) {
+                                ids.add(Long.parseLong(m.group(1)));
+                                emails.add(body.replaceAll(".*\"email\":\"([^\"]*)\".*", "$1"));
+                            }
+                        }
+                    } else if (req.method().equals("DELETE") && status == 204) {
+                        synchronized (ids) {
+                            int at = ids.indexOf(Long.parseLong(req.uri().getPath().replaceAll(".*/", "")));
+                            if (at >= 0) {
+                                ids.remove(at);
+                                emails.remove(at);
+                            }
+                        }
+                    }
+                    if (sent < measureFrom) {
+                        continue;
+                    }
+                    if (status < 0 || status >= 500) {
+                        errors.incrementAndGet();
+                    }
+                    if (n == mine.length) {
+                        latencies.add(mine);
+                        mine = new long[mine.length];
+                        n = 0;
+                    }
+                    mine[n++] = took;
+                }
+                latencies.add(Arrays.copyOf(mine, n));
+                return null;
+            });
+        }
+    }
+
+    long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+    if (all.length == 0) {
+        System.out.println("RESULT requests=0");
+        return;
+    }
+    double rps = all.length / (double) seconds;
+    double p50 = all[all.length / 2] / 1e6;
+    double p99 = all[(int) Math.min(all.length - 1, Math.ceil(all.length * 0.99) - 1)] / 1e6;
+    System.out.printf("  requests %d, errors %d%n", all.length, errors.get());
+    System.out.printf("  throughput %.1f req/s, p50 %.2f ms, p99 %.2f ms%n", rps, p50, p99);
+    System.out.printf(Locale.ROOT, "RESULT requests=%d errors=%d rps=%.1f p50_ms=%.2f p99_ms=%.2f%n",
+            all.length, errors.get(), rps, p50, p99);
+}
@@ -0,0 +1,47 @@
+#!/bin/sh
+# Training run for the JDK AOT cache. Starts the JVM image against a throwaway MySQL with
+# -XX:AOTCacheOutput, lets the JIT warm-up and LoadTest.java exercise it, then stops it; the JVM
+# writes the cache on exit and it is copied to aot/app.aot.
+#
+# Usage: scripts/aot-train.sh <image> [training seconds]
+set -eu
+
+IMAGE=${1:?image}
+SECONDS_TRAINING=${2:-60}
+NETWORK=otel-aot-training
+DB=otel-aot-mysql
+APP=otel-aot-app
+
+cleanup() {
+    docker rm -f "$APP" "$DB" >/dev/null 2>&1 || true
+    docker network rm "$NETWORK" >/dev/null 2>&1 || true
+}
+trap cleanup EXIT
+cleanup
+
+docker network create "$NETWORK" >/dev/null
+docker run -d --name "$DB" --network "$NETWORK" \
+    -e MYSQL_ROOT_PASSWORD=root -e MYSQL_DATABASE=userdb \
+    -e MYSQL_USER=user -e MYSQL_PASSWORD=password mysql:8.0 >/dev/null
+until docker exec "$DB" mysql -uuser -ppassword -e 'select 1' userdb >/dev/null 2>&1; do
+    sleep 1
+done
+
+docker run -d --name "$APP" --network "$NETWORK" -p 8080:8080 \
+    -e DB_HOST="$DB" -e JIT_WARMUP_ENABLED=true \
+    --entrypoint java "$IMAGE" \
+    -XX:AOTCacheOutput=/tmp/app.aot -jar quarkus-run.jar >/dev/null
+
+echo "Waiting for the JIT warm-up to finish"
+until curl -fs http://localhost:8080/q/health/ready >/dev/null; do
+    sleep 1
+done
+
+echo "Running LoadTest.java for ${SECONDS_TRAINING}s"
+timeout "$SECONDS_TRAINING" java LoadTest.java >/dev/null || true
+
+# A graceful stop lets the JVM assemble the cache; that takes a while on its own
+docker stop -t 300 "$APP" >/dev/null
+mkdir -p aot
+docker cp "$APP:/tmp/app.aot" aot/app.aot
+ls -l aot/app.aot
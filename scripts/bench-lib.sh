@@ -0,0 +1,42 @@
+# Helpers for scripts/bench.sh and scripts/pgo-build.sh: run one build of the application on this
+# host, in the prod profile against MySQL on DB_HOST:DB_PORT (localhost:3306 by default).
+
+BENCH_DIR=target/bench
+BASE_URL=http://localhost:8080
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+# start_app <name> <command...>: start in the background, logging to target/bench/<name>.log
+start_app() {
+    name=$1
+    shift
+    mkdir -p "$BENCH_DIR"
+    APP_STARTED=$(now_ms)
+    "$@" >"$BENCH_DIR/$name.log" 2>&1 &
+    APP_PID=$!
+}
+
+# wait_ready: wait for the first successful request and print the time since start_app, in ms
+wait_ready() {
+    until curl -fs -o /dev/null "$BASE_URL/api/users/count"; do
+        if ! kill -0 "$APP_PID" 2>/dev/null; then
+            echo "Application exited, see $BENCH_DIR/*.log" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    echo $(($(now_ms) - APP_STARTED))
+}
+
+# rss_mb: resident memory of the running application, in MB
+rss_mb() {
+    echo $(($(ps -o rss= -p "$APP_PID") / 1024))
+}
+
+# stop_app: stop gracefully and wait, so JVMs and instrumented binaries write their profiles
+stop_app() {
+    kill -TERM "$APP_PID"
+    wait "$APP_PID" || true
+}
@@ -0,0 +1,60 @@
+#!/bin/sh
+# Compares the JVM, JVM with an AOT cache, native and native+PGO builds, run directly on this host:
+# time to first request, RSS after it and after load, and steady-state throughput and latency from
+# Bench.java. Builds missing from target/bench are made first (delete it to rebuild); the JVM runs
+# need JDK 25 as `java`, the native ones GraalVM as GRAALVM_HOME (Oracle GraalVM for PGO).
+#
+# Usage: scripts/bench.sh [measured seconds] [workers] [training seconds]
+set -eu
+. "$(dirname "$0")/bench-lib.sh"
+
+SECONDS_MEASURED=${1:-60}
+WORKERS=${2:-32}
+TRAINING_SECONDS=${3:-120}
+
+if [ ! -d "$BENCH_DIR/jvm" ]; then
+    mvn -B package -DskipTests
+    mkdir -p "$BENCH_DIR"
+    cp -r target/quarkus-app "$BENCH_DIR/jvm"
+fi
+if [ ! -f "$BENCH_DIR/jvm/app.aot" ]; then
+    start_app jvm-training java -XX:AOTCacheOutput="$BENCH_DIR/jvm/app.aot" \
+        -jar "$BENCH_DIR/jvm/quarkus-run.jar"
+    wait_ready >/dev/null
+    echo "Training the AOT cache with LoadTest.java for ${TRAINING_SECONDS}s"
+    timeout "$TRAINING_SECONDS" java LoadTest.java >/dev/null || true
+    stop_app
+fi
+if [ ! -x "$BENCH_DIR/native" ]; then
+    mvn -B package -Pnative -DskipTests
+    cp target/*-runner "$BENCH_DIR/native"
+fi
+if [ ! -x "$BENCH_DIR/native-pgo" ]; then
+    "$(dirname "$0")/pgo-build.sh" "$TRAINING_SECONDS"
+fi
+
+REPORT="$BENCH_DIR/report.txt"
+printf '%-10s %12s %13s %14s %9s %8s %8s\n' \
+    VARIANT FIRST_REQ_MS RSS_START_MB RSS_LOADED_MB REQ_S P50_MS P99_MS | tee "$REPORT"
+
+# measure <name> <command...>
+measure() {
+    name=$1
+    shift
+    start_app "$name" "$@"
+    first=$(wait_ready)
+    rss_start=$(rss_mb)
+    result=$(java Bench.java "$SECONDS_MEASURED" 15 "$WORKERS" "$BASE_URL" | grep '^RESULT')
+    rss_loaded=$(rss_mb)
+    stop_app
+    rps=$(echo "$result" | sed 's/.* rps=\([^ ]*\).*/\1/')
+    p50=$(echo "$result" | sed 's/.* p50_ms=\([^ ]*\).*/\1/')
+    p99=$(echo "$result" | sed 's/.* p99_ms=\([^ ]*\).*/\1/')
+    printf '%-10s %12d %13d %14d %9s %8s %8s\n' \
+        "$name" "$first" "$rss_start" "$rss_loaded" "$rps" "$p50" "$p99" | tee -a "$REPORT"
+}
+
+measure jvm java -jar "$BENCH_DIR/jvm/quarkus-run.jar"
+measure jvm-aot java -XX:AOTCache="$BENCH_DIR/jvm/app.aot" -jar "$BENCH_DIR/jvm/quarkus-run.jar"
+measure native "$BENCH_DIR/native"
+measure native-pgo "$BENCH_DIR/native-pgo"
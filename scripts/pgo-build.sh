@@ -0,0 +1,24 @@
+#!/bin/sh
+# Profile-guided native build, which needs Oracle GraalVM as GRAALVM_HOME: an instrumented build,
+# a training run with the LoadTest mix, then an optimized build using the recorded profile. The
+# result is target/bench/native-pgo.
+#
+# Usage: scripts/pgo-build.sh [training seconds]
+set -eu
+. "$(dirname "$0")/bench-lib.sh"
+
+TRAINING_SECONDS=${1:-120}
+
+mvn -B package -Pnative,pgo-instrument -DskipTests
+mkdir -p "$BENCH_DIR" target/pgo
+cp target/*-runner "$BENCH_DIR/native-instrumented"
+
+start_app native-instrumented "$BENCH_DIR/native-instrumented" \
+    -XX:ProfilesDumpFile=target/pgo/default.iprof
+wait_ready >/dev/null
+echo "Training the instrumented build with LoadTest.java for ${TRAINING_SECONDS}s"
+timeout "$TRAINING_SECONDS" java LoadTest.java >/dev/null || true
+stop_app
+
+mvn -B package -Pnative,pgo -DskipTests -Dpgo.profile="$PWD/target/pgo/default.iprof"
+cp target/*-runner "$BENCH_DIR/native-pgo"
@@ -0,0 +1,44 @@
+#!/bin/sh
+# Reports time-to-first-request and resident memory of each image, started against a throwaway
+# MySQL. Time is measured from `docker run` to the first 200 from GET /api/users/count; RSS is read
+# from /proc once that request was served.
+#
+# Usage: scripts/startup-report.sh <image>...
+set -eu
+
+NETWORK=otel-aot-report
+DB=otel-aot-report-mysql
+APP=otel-aot-report-app
+
+cleanup() {
+    docker rm -f "$APP" "$DB" >/dev/null 2>&1 || true
+    docker network rm "$NETWORK" >/dev/null 2>&1 || true
+}
+trap cleanup EXIT
+cleanup
+
+docker network create "$NETWORK" >/dev/null
+docker run -d --name "$DB" --network "$NETWORK" \
+    -e MYSQL_ROOT_PASSWORD=root -e MYSQL_DATABASE=userdb \
+    -e MYSQL_USER=user -e MYSQL_PASSWORD=password mysql:8.0 >/dev/null
+until docker exec "$DB" mysql -uuser -ppassword -e 'select 1' userdb >/dev/null 2>&1; do
+    sleep 1
+done
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+printf '%-40s %12s %10s\n' IMAGE FIRST_REQ_MS RSS_MB
+for image in "$@"; do
+    start=$(now_ms)
+    docker run -d --name "$APP" --network "$NETWORK" -p 8080:8080 \
+        -e DB_HOST="$DB" "$image" >/dev/null
+    until curl -fs -o /dev/null http://localhost:8080/api/users/count; do
+        sleep 0.02
+    done
+    elapsed=$(($(now_ms) - start))
+    rss_kb=$(docker exec "$APP" sh -c "awk '/VmRSS/ {print \$2}' /proc/1/status")
+    printf '%-40s %12d %10d\n' "$image" "$elapsed" $((rss_kb / 1024))
+    docker rm -f "$APP" >/dev/null
+done
@@ -0,0 +1,100 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read model of a {@link User} for caches and indexes. Where the entity holds boxed {@code Long}s,
+ * three {@code String}s, two {@code LocalDateTime}s (each a date and a time object) and Hibernate's
+ * enhancement fields, this holds primitive longs and UTF-8 byte arrays: less than half the memory
+ * per user (see {@code UserFootprintTest}). Timestamps are UTC microseconds, the precision
+ * the columns store, so a cached user reads back exactly as loaded.
+ *
+ * <p>A compact user without name, email and bio is a fence: a marker that the user reached {@code
+ * version}, used by {@link UserCache} to reject older copies. Instances are immutable apart from
+ * a CLOCK reference bit, which {@link UserCache} reads and writes under the lock of its stripe.
+ */
+public final class CompactUser {
+
+    private final long id;
+    private final long version;
+    private final long createdAt;
+    private final long updatedAt;
+    private final byte[] name;
+    private final byte[] email;
+    private final byte[] bio;
+    private boolean referenced;
+
+    private CompactUser(
+            long id,
+            long version,
+            long createdAt,
+            long updatedAt,
+            byte[] name,
+            byte[] email,
+            byte[] bio) {
+        this.id = id;
+        this.version = version;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.name = name;
+        this.email = email;
+        this.bio = bio;
+    }
+
+    /**
+     * @param user User with an id and a version
+     * @param names Interner for names, or null to keep every name apart
+     */
+    public static CompactUser of(User user, NameInterner names) {
+        byte[] name = user.name.getBytes(StandardCharsets.UTF_8);
+        return new CompactUser(
+                user.id,
+                user.version,
+                UserCodec.micros(user.createdAt),
+                UserCodec.micros(user.updatedAt),
+                names != null ? names.intern(name) : name,
+                user.email.getBytes(StandardCharsets.UTF_8),
+                user.bio != null ? user.bio.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    /** A fence for a user that reached {@code version}. */
+    public static CompactUser fence(long id, long version) {
+        return new CompactUser(id, version, UserCodec.NO_TIME, UserCodec.NO_TIME, null, null, null);
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public boolean isFence() {
+        return name == null;
+    }
+
+    /** Whether the entry was read since the bit was last cleared. */
+    boolean isReferenced() {
+        return referenced;
+    }
+
+    void setReferenced(boolean referenced) {
+        this.referenced = referenced;
+    }
+
+    /** Decode into a new, detached user. */
+    public User toUser() {
+        User user =
+                new User(
+                        new String(name, StandardCharsets.UTF_8),
+                        new String(email, StandardCharsets.UTF_8),
+                        bio != null ? new String(bio, StandardCharsets.UTF_8) : null);
+        user.id = id;
+        user.version = version;
+        user.createdAt = UserCodec.time(createdAt);
+        user.updatedAt = UserCodec.time(updatedAt);
+        return user;
+    }
+}
@@ -0,0 +1,169 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Map from primitive {@code long} keys to values, without boxing a {@code Long} or allocating a
+ * node per entry. Keys and values live in two parallel arrays addressed by open addressing with
+ * linear probing; removals shift the rest of the probe run back, so no tombstones accumulate. The
+ * arrays double once two thirds full. Key 0 is reserved to mark empty cells, which user ids never
+ * are.
+ *
+ * <p>Not thread-safe; {@link UserCache} guards each map with a lock.
+ *
+ * @param <V> Value type
+ */
+public final class LongObjectMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public LongObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /** Sized for {@code expected} entries without growing. */
+    public LongObjectMap(int expected) {
+        allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(expected * 3 / 2) << 1));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public V get(long key) {
+        for (int i = home(key); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return value(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Map a key to a value
+     *
+     * @return The previous value, or null if there was none
+     */
+    public V put(long key, V value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int i = home(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                V previous = value(i);
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > keys.length * 2 / 3) {
+            resize();
+        }
+        return null;
+    }
+
+    /**
+     * Remove a key
+     *
+     * @return The removed value, or null if the key was absent
+     */
+    public V remove(long key) {
+        int gap = home(key);
+        while (keys[gap] != key) {
+            if (keys[gap] == 0) {
+                return null;
+            }
+            gap = (gap + 1) & mask;
+        }
+        V removed = value(gap);
+        for (int i = (gap + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (canShiftBack(gap, i, home(keys[i]))) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Find a key at or after a position in the table, e.g. to evict arbitrary entries in turn
+     *
+     * @param position Any int; successive positions visit every cell
+     * @return A key, or 0 if the map is empty
+     */
+    public long keyNear(int position) {
+        if (size == 0) {
+            return 0;
+        }
+        int i = position & mask;
+        while (keys[i] == 0) {
+            i = (i + 1) & mask;
+        }
+        return keys[i];
+    }
+
+    public void forEachValue(Consumer<? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(value(i));
+            }
+        }
+    }
+
+    /**
+     * Whether backward-shift deletion may move the cell at {@code cell} into the gap at {@code
+     * gap}: only if that does not put it before its home cell, on a table that wraps around. Shared
+     * with {@link OffHeapUserStore}'s index tables.
+     *
+     * @param gap Emptied cell
+     * @param cell Later cell of the same probe run
+     * @param home Home cell of the entry at {@code cell}
+     */
+    static boolean canShiftBack(int gap, int cell, int home) {
+        return gap <= cell ? home <= gap || home > cell : home <= gap && home > cell;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int j = home(oldKeys[i]);
+                while (keys[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private int home(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int index) {
+        return (V) values[index];
+    }
+}
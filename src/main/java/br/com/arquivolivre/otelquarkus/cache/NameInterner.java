@@ -0,0 +1,35 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import java.util.Arrays;
+
+/**
+ * Shares one {@code byte[]} between equal names, so a popular name is held once instead of once
+ * per cached user. The table is direct-mapped by hash and a colliding name simply replaces the
+ * previous one, so memory stays fixed and interning never blocks; two threads racing on a cell at
+ * worst keep a duplicate. Interned arrays must never be modified.
+ */
+public final class NameInterner {
+
+    private final byte[][] table;
+    private final int mask;
+
+    /**
+     * @param capacity Number of names remembered, rounded up to a power of two
+     */
+    public NameInterner(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.table = new byte[size][];
+        this.mask = size - 1;
+    }
+
+    public byte[] intern(byte[] name) {
+        int hash = Arrays.hashCode(name);
+        int index = (hash ^ (hash >>> 16)) & mask;
+        byte[] known = table[index];
+        if (known != null && Arrays.equals(known, name)) {
+            return known;
+        }
+        table[index] = name;
+        return name;
+    }
+}
@@ -0,0 +1,453 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Optional;
+
+/**
+ * Second cache tier that keeps users outside the Java heap, so millions of them cost the garbage
+ * collector nothing. Memory is a fixed set of direct buffers cut into {@code slotSize} slots; a
+ * user is serialized with {@link UserCodec} into a record that spans as many chained slots as it
+ * needs. Lookups go through two open-addressing indexes held in primitive arrays: id to first
+ * slot, and email hash to id. When full, entries are evicted with the CLOCK algorithm, which
+ * approximates LRU with one reference bit per entry.
+ *
+ * <p>All operations hold the store's lock; a lookup only copies the record's bytes under it.
+ * Records carry the version they were read at, and the store applies the same rules as {@link
+ * UserCache} on its own: a put never replaces a newer record, and an invalidation leaves a fence,
+ * kept on heap for up to one entry per slot, that rejects older copies. A reader that loaded a
+ * user before it changed can therefore not write the stale copy here after the newer one, even
+ * once the heap tier has evicted that user.
+ */
+public final class OffHeapUserStore {
+
+    private static final AttributeKey<String> RESULT = AttributeKey.stringKey("result");
+    private static final Attributes HIT = Attributes.of(RESULT, "hit");
+    private static final Attributes MISS = Attributes.of(RESULT, "miss");
+
+    /** Smallest slot that holds the record header in its first slot. */
+    static final int MIN_SLOT_SIZE = 64;
+
+    private static final int NO_SLOT = -1;
+    private static final int MAX_BUFFER_SIZE = 1 << 30;
+    // Slot: next slot index, then payload. First payload bytes: record length and email hash
+    private static final int NEXT_SIZE = Integer.BYTES;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private final int slotSize;
+    private final int slotCount;
+    private final int slotsPerBuffer;
+    private final ByteBuffer[] buffers;
+    private final int[] freeSlots;
+    private final BitSet heads;
+    private final BitSet referenced;
+    private final ProbeTable byId;
+    private final ProbeTable byEmail;
+    private final LongObjectMap<Long> fences = new LongObjectMap<>();
+    private int fenceHand;
+    private volatile int freeCount;
+    private volatile int entryCount;
+    private int hand;
+    private final LongCounter requestsCounter;
+    private final LongCounter evictionsCounter;
+    private final ObservableLongGauge usedGauge;
+    private final ObservableLongGauge entriesGauge;
+
+    /**
+     * @param capacity Bytes of off-heap memory to reserve, counted against {@code
+     *     -XX:MaxDirectMemorySize}
+     * @param slotSize Bytes per slot; records larger than a slot are chained over several
+     * @param meter Meter for the tier's metrics
+     */
+    public OffHeapUserStore(long capacity, int slotSize, Meter meter) {
+        if (slotSize < MIN_SLOT_SIZE) {
+            throw new IllegalArgumentException(
+                    "users.cache.off-heap.slot-size must be at least " + MIN_SLOT_SIZE);
+        }
+        long slots = capacity / slotSize;
+        if (slots < 1 || slots > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException(
+                    "users.cache.off-heap.capacity must hold between 1 and "
+                            + Integer.MAX_VALUE / 2
+                            + " slots");
+        }
+        this.slotSize = slotSize;
+        this.slotCount = (int) slots;
+        this.slotsPerBuffer = MAX_BUFFER_SIZE / slotSize;
+        this.buffers = new ByteBuffer[(slotCount + slotsPerBuffer - 1) / slotsPerBuffer];
+        for (int i = 0; i < buffers.length; i++) {
+            int bufferSlots = Math.min(slotsPerBuffer, slotCount - i * slotsPerBuffer);
+            buffers[i] = ByteBuffer.allocateDirect(bufferSlots * slotSize);
+        }
+        this.freeSlots = new int[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            freeSlots[i] = slotCount - 1 - i;
+        }
+        this.freeCount = slotCount;
+        this.heads = new BitSet(slotCount);
+        this.referenced = new BitSet(slotCount);
+        this.byId = new ProbeTable(slotCount);
+        this.byEmail = new ProbeTable(slotCount);
+
+        this.requestsCounter =
+                meter.counterBuilder("users.cache.off_heap.requests.total")
+                        .setDescription("Off-heap user cache lookups, by result")
+                        .setUnit("1")
+                        .build();
+
+        this.evictionsCounter =
+                meter.counterBuilder("users.cache.off_heap.evictions.total")
+                        .setDescription("Users evicted from the off-heap cache to make room")
+                        .setUnit("1")
+                        .build();
+
+        this.usedGauge =
+                meter.gaugeBuilder("users.cache.off_heap.used")
+                        .ofLongs()
+                        .setDescription("Off-heap cache memory holding users")
+                        .setUnit("By")
+                        .buildWithCallback(m -> m.record(usedBytes()));
+
+        this.entriesGauge =
+                meter.gaugeBuilder("users.cache.off_heap.entries")
+                        .ofLongs()
+                        .setDescription("Users held by the off-heap cache")
+                        .setUnit("1")
+                        .buildWithCallback(m -> m.record(entryCount));
+    }
+
+    /**
+     * Look a user up by id
+     *
+     * @param id User ID
+     * @return The user, decoded into a new object, or empty if not held
+     */
+    public Optional<User> get(long id) {
+        byte[] record;
+        synchronized (this) {
+            int head = byId.get(idHash(id), id);
+            if (head == NO_SLOT) {
+                requestsCounter.add(1, MISS);
+                return Optional.empty();
+            }
+            referenced.set(head);
+            record = read(head);
+        }
+        requestsCounter.add(1, HIT);
+        return Optional.of(UserCodec.decode(record));
+    }
+
+    /**
+     * Look a user up by email
+     *
+     * @param email Email address
+     * @return The user, decoded into a new object, or empty if not held
+     */
+    public synchronized Optional<User> getByEmail(String email) {
+        int hash = emailHash(email);
+        for (long id : byEmail.keys(hash)) {
+            int head = byId.get(idHash(id), id);
+            if (head == NO_SLOT) {
+                continue;
+            }
+            User user = UserCodec.decode(read(head));
+            if (email.equals(user.email)) {
+                referenced.set(head);
+                requestsCounter.add(1, HIT);
+                return Optional.of(user);
+            }
+        }
+        requestsCounter.add(1, MISS);
+        return Optional.empty();
+    }
+
+    /**
+     * Store a user, replacing any older record for the same id and evicting others if needed. A
+     * user older than the record or fence held for its id is not stored, nor is a user too large
+     * for the whole store.
+     *
+     * @param user User with an id and a version
+     */
+    public void put(User user) {
+        byte[] record = UserCodec.encode(user);
+        int hash = emailHash(user.email);
+        int payload = slotSize - NEXT_SIZE;
+        int needed = (HEADER_SIZE + record.length + payload - 1) / payload;
+        if (needed > slotCount) {
+            return;
+        }
+        synchronized (this) {
+            Long fence = fences.get(user.id);
+            if (fence != null && fence > user.version) {
+                return;
+            }
+            int current = byId.get(idHash(user.id), user.id);
+            if (current != NO_SLOT) {
+                if (versionAt(current) > user.version) {
+                    return;
+                }
+                free(current);
+            }
+            fences.remove(user.id);
+            while (freeCount < needed) {
+                evictOne();
+            }
+            int head = write(hash, record, needed);
+            heads.set(head);
+            byId.put(idHash(user.id), user.id, head);
+            byEmail.put(hash, user.id, head);
+            entryCount++;
+        }
+    }
+
+    /**
+     * Drop the user if it is held at a version older than {@code version}, and reject older copies
+     * from now on
+     *
+     * @param id User ID
+     * @param version Version the user reached
+     */
+    public synchronized void invalidate(long id, long version) {
+        int head = byId.get(idHash(id), id);
+        if (head != NO_SLOT) {
+            if (versionAt(head) >= version) {
+                return;
+            }
+            free(head);
+        }
+        Long fence = fences.get(id);
+        if (fence == null || fence < version) {
+            if (fence == null && fences.size() >= slotCount) {
+                fences.remove(fences.keyNear(fenceHand++));
+            }
+            fences.put(id, version);
+        }
+    }
+
+    /**
+     * Drop the user, whatever its version
+     *
+     * @param id User ID
+     */
+    public synchronized void remove(long id) {
+        int head = byId.get(idHash(id), id);
+        if (head != NO_SLOT) {
+            free(head);
+        }
+    }
+
+    int entryCount() {
+        return entryCount;
+    }
+
+    long usedBytes() {
+        return (long) (slotCount - freeCount) * slotSize;
+    }
+
+    // CLOCK: skip entries referenced since the hand last passed them, clearing their bit
+    private void evictOne() {
+        while (true) {
+            int head = heads.nextSetBit(hand);
+            if (head < 0) {
+                head = heads.nextSetBit(0);
+            }
+            hand = head + 1;
+            if (!referenced.get(head)) {
+                free(head);
+                evictionsCounter.add(1);
+                return;
+            }
+            referenced.clear(head);
+        }
+    }
+
+    private void free(int head) {
+        ByteBuffer first = buffer(head);
+        int offset = offset(head) + NEXT_SIZE;
+        int hash = first.getInt(offset + Integer.BYTES);
+        long id = first.getLong(offset + HEADER_SIZE);
+        byId.remove(idHash(id), id);
+        byEmail.remove(hash, id);
+        heads.clear(head);
+        referenced.clear(head);
+        int slot = head;
+        int free = freeCount;
+        while (slot != NO_SLOT) {
+            int next = buffer(slot).getInt(offset(slot));
+            freeSlots[free++] = slot;
+            slot = next;
+        }
+        freeCount = free;
+        entryCount--;
+    }
+
+    private long versionAt(int head) {
+        return buffer(head).getLong(offset(head) + NEXT_SIZE + HEADER_SIZE + Long.BYTES);
+    }
+
+    private int write(int emailHash, byte[] record, int slots) {
+        int free = freeCount;
+        int head = freeSlots[free - 1];
+        byte[] header =
+                ByteBuffer.allocate(HEADER_SIZE).putInt(record.length).putInt(emailHash).array();
+        int slot = head;
+        int position = 0;
+        int total = HEADER_SIZE + record.length;
+        for (int i = 0; i < slots; i++) {
+            free--;
+            int next = i + 1 < slots ? freeSlots[free - 1] : NO_SLOT;
+            ByteBuffer buffer = buffer(slot);
+            int offset = offset(slot);
+            buffer.putInt(offset, next);
+            int length = Math.min(slotSize - NEXT_SIZE, total - position);
+            copyIn(buffer, offset + NEXT_SIZE, header, record, position, length);
+            position += length;
+            slot = next;
+        }
+        freeCount = free;
+        return head;
+    }
+
+    /** Copy bytes {@code [from, from + length)} of header followed by record into a slot. */
+    private static void copyIn(
+            ByteBuffer buffer, int offset, byte[] header, byte[] record, int from, int length) {
+        int fromHeader = Math.max(0, Math.min(length, header.length - from));
+        if (fromHeader > 0) {
+            buffer.put(offset, header, from, fromHeader);
+        }
+        if (length > fromHeader) {
+            buffer.put(
+                    offset + fromHeader,
+                    record,
+                    from + fromHeader - header.length,
+                    length - fromHeader);
+        }
+    }
+
+    private byte[] read(int head) {
+        ByteBuffer first = buffer(head);
+        int length = first.getInt(offset(head) + NEXT_SIZE);
+        byte[] record = new byte[length];
+        int slot = head;
+        int skip = HEADER_SIZE;
+        int position = 0;
+        while (position < length) {
+            ByteBuffer buffer = buffer(slot);
+            int offset = offset(slot);
+            int available = slotSize - NEXT_SIZE - skip;
+            int count = Math.min(available, length - position);
+            buffer.get(offset + NEXT_SIZE + skip, record, position, count);
+            position += count;
+            skip = 0;
+            slot = buffer.getInt(offset);
+        }
+        return record;
+    }
+
+    private ByteBuffer buffer(int slot) {
+        return buffers[slot / slotsPerBuffer];
+    }
+
+    private int offset(int slot) {
+        return (slot % slotsPerBuffer) * slotSize;
+    }
+
+    private static int idHash(long id) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private static int emailHash(String email) {
+        return email.hashCode();
+    }
+
+    /**
+     * Open-addressing table of {@code (hash, key) -> value} in primitive arrays, with linear
+     * probing and backward-shift deletion so no tombstones accumulate. Key 0 marks an empty cell,
+     * which user ids never are. Several keys may share a hash.
+     *
+     * <p>It probes like {@link LongObjectMap} and shares its shift rule, but is kept apart: cells
+     * are found by a caller-supplied hash, so the email index can hold several ids per hash, and
+     * slot values stay {@code int}s in a table sized once for the store, with no boxing or
+     * resizing.
+     */
+    static final class ProbeTable {
+
+        private final int[] hashes;
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+
+        /** Sized for up to {@code maxEntries} at a load factor of at most one half. */
+        ProbeTable(int maxEntries) {
+            int capacity = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1;
+            this.hashes = new int[capacity];
+            this.keys = new long[capacity];
+            this.values = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        int get(int hash, long key) {
+            for (int i = home(hash); keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key && hashes[i] == hash) {
+                    return values[i];
+                }
+            }
+            return NO_SLOT;
+        }
+
+        long[] keys(int hash) {
+            long[] found = new long[4];
+            int count = 0;
+            for (int i = home(hash); keys[i] != 0; i = (i + 1) & mask) {
+                if (hashes[i] == hash) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = keys[i];
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }
+
+        void put(int hash, long key, int value) {
+            int i = home(hash);
+            while (keys[i] != 0 && !(keys[i] == key && hashes[i] == hash)) {
+                i = (i + 1) & mask;
+            }
+            hashes[i] = hash;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        void remove(int hash, long key) {
+            int gap = home(hash);
+            while (keys[gap] != key || hashes[gap] != hash) {
+                if (keys[gap] == 0) {
+                    return;
+                }
+                gap = (gap + 1) & mask;
+            }
+            for (int i = (gap + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+                if (LongObjectMap.canShiftBack(gap, i, home(hashes[i]))) {
+                    hashes[gap] = hashes[i];
+                    keys[gap] = keys[i];
+                    values[gap] = values[i];
+                    gap = i;
+                }
+            }
+            keys[gap] = 0;
+        }
+
+        private int home(int hash) {
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.model.UserInvalidation;
+import br.com.arquivolivre.otelquarkus.service.UserMutation;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * In-process cache of users by id, enabled with {@code users.cache.enabled}. Entries are versioned
+ * with {@link User#version}: an entry is only replaced by a newer version, and an invalidation
+ * for version {@code v} leaves a fence that rejects any copy older than {@code v}. A read that
+ * loaded a user just before it changed can therefore not put the stale copy back after the
+ * invalidation, and an invalidation that arrives late never evicts a newer entry.
+ *
+ * <p>Local changes are applied after their transaction commits; changes made by other instances
+ * arrive through {@link UserCacheInvalidator}. Callers get their own copy of a cached user. When
+ * {@code users.cache.max-size} entries (including fences) are reached, entries are evicted with
+ * the CLOCK algorithm: a hit sets the entry's reference bit, and the eviction hand skips entries
+ * with the bit set once, clearing it. The same bit lets {@link #users(int)} prefer users read
+ * recently.
+ *
+ * <p>Users are held as {@link CompactUser}s in {@link LongObjectMap}s, one per lock stripe, so a
+ * cached user costs no boxed key, map node or entity. With {@code users.cache.dedupe-names}, equal
+ * names share one array.
+ *
+ * <p>With {@code users.cache.off-heap.enabled}, an {@link OffHeapUserStore} of {@code
+ * users.cache.off-heap.capacity} sits behind this cache as a larger second tier: every accepted put
+ * is written to it, invalidations drop its older copies, and a miss here that hits there promotes
+ * the user back. It also serves lookups by email.
+ */
+@ApplicationScoped
+public class UserCache {
+
+    private static final AttributeKey<String> RESULT = AttributeKey.stringKey("result");
+    private static final Attributes HIT = Attributes.of(RESULT, "hit");
+    private static final Attributes MISS = Attributes.of(RESULT, "miss");
+
+    private static final int STRIPES = 64;
+    private static final int INTERNED_NAMES = 1 << 16;
+
+    /** One lock stripe. */
+    private static final class Stripe {
+        final LongObjectMap<CompactUser> entries = new LongObjectMap<>();
+        int hand;
+    }
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger evictionHand = new AtomicInteger();
+    private final NameInterner names;
+    private final OffHeapUserStore offHeap;
+    private final LongCounter requestsCounter;
+    private final ObservableLongGauge sizeGauge;
+
+    @Inject
+    public UserCache(
+            Meter meter,
+            @ConfigProperty(name = "users.cache.enabled", defaultValue = "false") boolean enabled,
+            @ConfigProperty(name = "users.cache.max-size", defaultValue = "10000") int maxSize,
+            @ConfigProperty(name = "users.cache.dedupe-names", defaultValue = "true")
+                    boolean dedupeNames,
+            @ConfigProperty(name = "users.cache.off-heap.enabled", defaultValue = "false")
+                    boolean offHeapEnabled,
+            @ConfigProperty(name = "users.cache.off-heap.capacity", defaultValue = "256M")
+                    MemorySize offHeapCapacity,
+            @ConfigProperty(name = "users.cache.off-heap.slot-size", defaultValue = "256")
+                    int offHeapSlotSize) {
+        this(
+                meter,
+                enabled,
+                maxSize,
+                dedupeNames,
+                enabled && offHeapEnabled
+                        ? new OffHeapUserStore(
+                                offHeapCapacity.asLongValue(), offHeapSlotSize, meter)
+                        : null);
+    }
+
+    /** A cache without an off-heap tier. */
+    public UserCache(Meter meter, boolean enabled, int maxSize) {
+        this(meter, enabled, maxSize, true, null);
+    }
+
+    UserCache(
+            Meter meter,
+            boolean enabled,
+            int maxSize,
+            boolean dedupeNames,
+            OffHeapUserStore offHeap) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.names = dedupeNames ? new NameInterner(INTERNED_NAMES) : null;
+        this.offHeap = offHeap;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        this.requestsCounter =
+                meter.counterBuilder("users.cache.requests.total")
+                        .setDescription("User cache lookups, by result")
+                        .setUnit("1")
+                        .build();
+
+        this.sizeGauge =
+                meter.gaugeBuilder("users.cache.size")
+                        .ofLongs()
+                        .setDescription("Users and invalidation fences held by the user cache")
+                        .setUnit("1")
+                        .buildWithCallback(m -> m.record(size.get()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Look a user up
+     *
+     * @param id User ID
+     * @return A copy of the cached user, or empty if not cached or invalidated
+     */
+    public Optional<User> get(Long id) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Stripe stripe = stripe(id);
+        CompactUser entry;
+        synchronized (stripe) {
+            entry = stripe.entries.get(id);
+            if (entry != null) {
+                entry.setReferenced(true);
+            }
+        }
+        if (entry != null && !entry.isFence()) {
+            requestsCounter.add(1, HIT);
+            return Optional.of(entry.toUser());
+        }
+        requestsCounter.add(1, MISS);
+        if (offHeap == null) {
+            return Optional.empty();
+        }
+        // Promote, unless a newer version or fence arrived meanwhile
+        return offHeap.get(id).filter(this::putOnHeap);
+    }
+
+    /**
+     * Look a user up by email, in the off-heap tier only
+     *
+     * @param email Email address
+     * @return The cached user, or empty if not cached or there is no off-heap tier
+     */
+    public Optional<User> getByEmail(String email) {
+        if (!enabled || offHeap == null) {
+            return Optional.empty();
+        }
+        return offHeap.getByEmail(email).filter(this::putOnHeap);
+    }
+
+    /**
+     * Cache a user, unless a newer version or a fence for a newer version is already cached
+     *
+     * @param user User as loaded from the database
+     */
+    public void put(User user) {
+        if (!enabled || user.id == null || user.version == null) {
+            return;
+        }
+        if (putOnHeap(user) && offHeap != null) {
+            offHeap.put(user);
+        }
+    }
+
+    /**
+     * Drop the cached user if it is older than {@code version}, and reject older copies from now on
+     *
+     * @param id User ID
+     * @param version Version the user reached, or {@link UserInvalidation#DELETED}
+     */
+    public void invalidate(Long id, long version) {
+        if (!enabled) {
+            return;
+        }
+        Stripe stripe = stripe(id);
+        synchronized (stripe) {
+            CompactUser current = stripe.entries.get(id);
+            if (current == null || current.version() < version) {
+                store(stripe, CompactUser.fence(id, version));
+            }
+        }
+        evictIfFull(id);
+        if (offHeap != null) {
+            offHeap.invalidate(id, version);
+        }
+    }
+
+    /** Apply local changes once committed: keep updated users, fence deleted ones. */
+    void onMutation(@Observes(during = TransactionPhase.AFTER_SUCCESS) UserMutation mutation) {
+        switch (mutation.type()) {
+            case UPDATED -> put(mutation.user());
+            case DELETED -> invalidate(mutation.id(), UserInvalidation.DELETED);
+            case CREATED -> {
+                // Nothing cached can be older than a new user
+            }
+        }
+    }
+
+    /**
+     * Copy the cached users, e.g. to snapshot them. Users read since the eviction hand last passed
+     * them come first, so a limit below the cache size keeps the recently used ones.
+     *
+     * @param limit Maximum number of users
+     * @return Up to {@code limit} cached users, fences excluded
+     */
+    public List<User> users(int limit) {
+        List<CompactUser> cached = new ArrayList<>(Math.min(limit, size.get()));
+        collect(cached, limit, true);
+        collect(cached, limit, false);
+        return cached.stream().map(CompactUser::toUser).toList();
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    private void collect(List<CompactUser> cached, int limit, boolean referenced) {
+        for (Stripe stripe : stripes) {
+            if (cached.size() >= limit) {
+                return;
+            }
+            synchronized (stripe) {
+                stripe.entries.forEachValue(
+                        entry -> {
+                            if (cached.size() < limit
+                                    && !entry.isFence()
+                                    && entry.isReferenced() == referenced) {
+                                cached.add(entry);
+                            }
+                        });
+            }
+        }
+    }
+
+    /** Returns whether the user was kept, i.e. no newer version or fence was already cached. */
+    private boolean putOnHeap(User user) {
+        CompactUser loaded = CompactUser.of(user, names);
+        Stripe stripe = stripe(user.id);
+        synchronized (stripe) {
+            CompactUser current = stripe.entries.get(user.id);
+            if (current != null && current.version() > loaded.version()) {
+                return false;
+            }
+            loaded.setReferenced(current != null && current.isReferenced());
+            store(stripe, loaded);
+        }
+        evictIfFull(user.id);
+        return true;
+    }
+
+    /** Store an entry in a stripe whose lock is held. */
+    private void store(Stripe stripe, CompactUser entry) {
+        if (stripe.entries.put(entry.id(), entry) == null) {
+            size.incrementAndGet();
+        }
+    }
+
+    /**
+     * Evict entries other than {@code keep}, one stripe at a time, until not full. An entry whose
+     * reference bit is set gets a second chance: the bit is cleared and the hand moves on.
+     */
+    private void evictIfFull(long keep) {
+        int misses = 0;
+        while (size.get() > maxSize && misses < STRIPES) {
+            Stripe stripe = stripes[Math.floorMod(evictionHand.getAndIncrement(), STRIPES)];
+            synchronized (stripe) {
+                long victim = stripe.entries.keyNear(stripe.hand++);
+                if (victim == 0 || victim == keep) {
+                    misses++;
+                    continue;
+                }
+                CompactUser entry = stripe.entries.get(victim);
+                if (entry.isReferenced()) {
+                    entry.setReferenced(false);
+                    misses = 0;
+                    continue;
+                }
+                stripe.entries.remove(victim);
+                size.decrementAndGet();
+                misses = 0;
+            }
+        }
+    }
+
+    private Stripe stripe(long id) {
+        return stripes[(int) ((id * 0xC2B2AE3D27D4EB4FL) >>> 58)];
+    }
+}
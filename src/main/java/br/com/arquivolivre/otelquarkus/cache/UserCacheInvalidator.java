@@ -0,0 +1,200 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import br.com.arquivolivre.otelquarkus.datasource.RequestContexts;
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.model.UserInvalidation;
+import br.com.arquivolivre.otelquarkus.repository.UserInvalidationRepository;
+import br.com.arquivolivre.otelquarkus.service.UserMutation;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Keeps the {@link UserCache} of every instance consistent through a database-polled invalidation
+ * log. Each update or delete writes a {@link UserInvalidation} in its own transaction, so an
+ * invalidation exists if and only if the change committed. Every instance polls the log every
+ * {@code users.cache.invalidation.poll-interval} and applies the other instances' entries in one
+ * batch.
+ *
+ * <p>Entries are read by creation time, and each poll reaches back {@code
+ * users.cache.invalidation.overlap} before the newest entry it has seen, so an entry whose
+ * transaction committed late, or whose instance clock is slightly behind, is still picked up.
+ * Entries seen within the overlap are skipped, and applying one twice is harmless anyway, since
+ * invalidations are versioned. Entry ids are only unique within a shard, so an entry is known by
+ * the shard of its user and its id.
+ */
+@ApplicationScoped
+public class UserCacheInvalidator {
+
+    private static final Logger LOG = Logger.getLogger(UserCacheInvalidator.class);
+
+    private final UserInvalidationRepository repository;
+    private final UserCache cache;
+    private final ShardRouter shardRouter;
+    private final Duration pollInterval;
+    private final Duration overlap;
+    private final Duration retention;
+    private final String origin = UUID.randomUUID().toString();
+    private final Map<EntryKey, LocalDateTime> seen = new HashMap<>();
+    private final LongCounter receivedCounter;
+    private final LongHistogram delayHistogram;
+    private LocalDateTime newestSeen = LocalDateTime.now();
+    private LocalDateTime lastPurge = LocalDateTime.now();
+    private Thread poller;
+
+    @Inject
+    public UserCacheInvalidator(
+            UserInvalidationRepository repository,
+            UserCache cache,
+            ShardRouter shardRouter,
+            Meter meter,
+            @ConfigProperty(name = "users.cache.invalidation.poll-interval", defaultValue = "500ms")
+                    Duration pollInterval,
+            @ConfigProperty(name = "users.cache.invalidation.overlap", defaultValue = "5s")
+                    Duration overlap,
+            @ConfigProperty(name = "users.cache.invalidation.retention", defaultValue = "10m")
+                    Duration retention) {
+        this.repository = repository;
+        this.cache = cache;
+        this.shardRouter = shardRouter;
+        this.pollInterval = pollInterval;
+        this.overlap = overlap;
+        this.retention = retention;
+
+        this.receivedCounter =
+                meter.counterBuilder("users.cache.invalidations.received.total")
+                        .setDescription("Cache invalidations received from other instances")
+                        .setUnit("1")
+                        .build();
+
+        this.delayHistogram =
+                meter.histogramBuilder("users.cache.invalidation.delay")
+                        .ofLongs()
+                        .setDescription(
+                                "Time from a change on another instance to its invalidation here")
+                        .setUnit("ms")
+                        .build();
+    }
+
+    /** Log an update or delete in the transaction that made it. */
+    void onMutation(@Observes UserMutation mutation) {
+        if (!cache.isEnabled() || mutation.type() == UserMutation.Type.CREATED) {
+            return;
+        }
+        repository.persist(
+                new UserInvalidation(
+                        mutation.id(), mutation.version(), origin, LocalDateTime.now()));
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!cache.isEnabled()) {
+            return;
+        }
+        LOG.infof("Polling user cache invalidations every %s as %s", pollInterval, origin);
+        poller = new Thread(this::pollLoop, "user-cache-invalidation");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    /**
+     * Apply the entries logged by other instances since the last poll
+     *
+     * @return Number of entries applied
+     */
+    int poll() {
+        List<UserInvalidation> batch = repository.findSince(newestSeen.minus(overlap));
+        LocalDateTime now = LocalDateTime.now();
+        int applied = 0;
+        for (UserInvalidation invalidation : batch) {
+            if (invalidation.createdAt.isAfter(newestSeen)) {
+                newestSeen = invalidation.createdAt;
+            }
+            EntryKey key =
+                    new EntryKey(shardRouter.shardForId(invalidation.userId), invalidation.id);
+            if (seen.putIfAbsent(key, invalidation.createdAt) != null
+                    || origin.equals(invalidation.origin)) {
+                continue;
+            }
+            cache.invalidate(invalidation.userId, invalidation.version);
+            delayHistogram.record(
+                    Math.max(0, Duration.between(invalidation.createdAt, now).toMillis()));
+            applied++;
+        }
+        LocalDateTime horizon = newestSeen.minus(overlap);
+        seen.values().removeIf(createdAt -> createdAt.isBefore(horizon));
+        if (applied > 0) {
+            receivedCounter.add(applied);
+            LOG.debugf("Applied %d user cache invalidations", applied);
+        }
+        return applied;
+    }
+
+    String origin() {
+        return origin;
+    }
+
+    private void pollLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                RequestContexts.run(
+                        () -> {
+                            poll();
+                            purgeIfDue();
+                        });
+            } catch (RuntimeException e) {
+                LOG.error("Polling user cache invalidations failed, retrying", e);
+            }
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Every instance purges old entries about once a minute; the deletes are idempotent. */
+    private void purgeIfDue() {
+        LocalDateTime now = LocalDateTime.now();
+        if (now.isBefore(lastPurge.plusMinutes(1))) {
+            return;
+        }
+        lastPurge = now;
+        LocalDateTime cutoff = now.minus(retention);
+        int shards = shardRouter.isSharded() ? shardRouter.shardCount() : 1;
+        long purged = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            purged +=
+                    shardRouter.isSharded()
+                            ? shardRouter.onShard(shard, () -> purge(cutoff))
+                            : purge(cutoff);
+        }
+        LOG.debugf("Purged %d user cache invalidations", purged);
+    }
+
+    private long purge(LocalDateTime cutoff) {
+        return QuarkusTransaction.requiringNew().call(() -> repository.deleteOlderThan(cutoff));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (poller != null) {
+            poller.interrupt();
+        }
+    }
+
+    private record EntryKey(int shard, long id) {}
+}
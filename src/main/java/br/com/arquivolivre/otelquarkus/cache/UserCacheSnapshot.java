@@ -0,0 +1,236 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.repository.UserRepository;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Warm restarts for the {@link UserCache}, enabled with {@code users.cache.snapshot.enabled}. On
+ * graceful shutdown up to {@code users.cache.snapshot.max-users} cached users, those read most
+ * recently first (see {@link UserCache#users(int)}), are written to {@code
+ * users.cache.snapshot.file} through a memory mapping, in the {@link UserCodec} format. On startup
+ * the file is mapped again and only indexed; a user is decoded the first time it is looked up, and
+ * served if the database still holds the same version, which is one indexed column read instead of
+ * loading the row. The version rises on every change, so unlike {@code updatedAt} it cannot miss
+ * two changes within the clock's resolution.
+ *
+ * <p>The file is written to a temporary file and moved into place, so a crash mid-write leaves the
+ * previous snapshot, whose stale entries fail validation.
+ */
+@ApplicationScoped
+public class UserCacheSnapshot {
+
+    private static final Logger LOG = Logger.getLogger(UserCacheSnapshot.class);
+
+    private static final AttributeKey<String> RESULT = AttributeKey.stringKey("result");
+    private static final Attributes VALID = Attributes.of(RESULT, "valid");
+    private static final Attributes STALE = Attributes.of(RESULT, "stale");
+
+    // Header: magic, format, save time in epoch millis, user count. Then per user: length, record
+    private static final int MAGIC = 0x55435350;
+    private static final int FORMAT = 1;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES + Long.BYTES;
+
+    private final UserCache cache;
+    private final UserRepository repository;
+    private final boolean enabled;
+    private final Path file;
+    private final int maxUsers;
+    private final ConcurrentHashMap<Long, Integer> pending = new ConcurrentHashMap<>();
+    private volatile MappedByteBuffer mapped;
+    private final LongCounter restoredCounter;
+    private final LongHistogram restoreDuration;
+    private final ObservableLongGauge pendingGauge;
+
+    @Inject
+    public UserCacheSnapshot(
+            UserCache cache,
+            UserRepository repository,
+            Meter meter,
+            @ConfigProperty(name = "users.cache.snapshot.enabled", defaultValue = "false")
+                    boolean enabled,
+            @ConfigProperty(
+                            name = "users.cache.snapshot.file",
+                            defaultValue = "cache/user-cache.snapshot")
+                    String file,
+            @ConfigProperty(name = "users.cache.snapshot.max-users", defaultValue = "100000")
+                    int maxUsers) {
+        this.cache = cache;
+        this.repository = repository;
+        this.enabled = enabled;
+        this.file = Path.of(file);
+        this.maxUsers = maxUsers;
+
+        this.restoredCounter =
+                meter.counterBuilder("users.cache.snapshot.restored.total")
+                        .setDescription("Snapshot users looked up after a restart, by result")
+                        .setUnit("1")
+                        .build();
+
+        this.restoreDuration =
+                meter.histogramBuilder("users.cache.snapshot.restore.duration")
+                        .ofLongs()
+                        .setDescription("Time to map and index the user cache snapshot at startup")
+                        .setUnit("ms")
+                        .build();
+
+        this.pendingGauge =
+                meter.gaugeBuilder("users.cache.snapshot.pending")
+                        .ofLongs()
+                        .setDescription("Snapshot users not looked up since the restart")
+                        .setUnit("1")
+                        .buildWithCallback(m -> m.record(pending.size()));
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled || !cache.isEnabled()) {
+            return;
+        }
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            LOG.warnf(e, "Ignoring unreadable user cache snapshot %s", file);
+            pending.clear();
+            mapped = null;
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (!enabled || !cache.isEnabled()) {
+            return;
+        }
+        try {
+            save();
+        } catch (IOException e) {
+            LOG.errorf(e, "Writing user cache snapshot %s failed", file);
+        }
+    }
+
+    /**
+     * Serve a user from the snapshot, once: if its version is still current it is put back in the
+     * cache and returned, otherwise it is dropped
+     *
+     * @param id User ID
+     * @return The snapshot copy of the user, or empty if not in the snapshot or stale
+     */
+    public Optional<User> restore(Long id) {
+        if (pending.isEmpty()) {
+            return Optional.empty();
+        }
+        // Read the mapping first: it is only released after the last pending id is removed
+        MappedByteBuffer buffer = mapped;
+        Integer offset = pending.remove(id);
+        if (pending.isEmpty()) {
+            mapped = null;
+        }
+        if (offset == null) {
+            return Optional.empty();
+        }
+        byte[] record = new byte[buffer.getInt(offset)];
+        buffer.get(offset + Integer.BYTES, record, 0, record.length);
+        User user = UserCodec.decode(record);
+        if (!repository.findVersion(id).map(user.version::equals).orElse(false)) {
+            restoredCounter.add(1, STALE);
+            return Optional.empty();
+        }
+        restoredCounter.add(1, VALID);
+        cache.put(user);
+        return Optional.of(user);
+    }
+
+    /**
+     * Map the snapshot file and index its users by id
+     *
+     * @return Number of users indexed
+     */
+    int load() throws IOException {
+        if (!Files.exists(file)) {
+            LOG.infof("No user cache snapshot at %s, starting cold", file);
+            return 0;
+        }
+        long start = System.nanoTime();
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid once the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < HEADER_SIZE
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(Integer.BYTES) != FORMAT) {
+            LOG.warnf("Ignoring %s: not a user cache snapshot", file);
+            return 0;
+        }
+        Instant savedAt = Instant.ofEpochMilli(buffer.getLong(2 * Integer.BYTES));
+        int count = buffer.getInt(2 * Integer.BYTES + Long.BYTES);
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt(offset);
+            // Each record starts with the user's id
+            pending.put(buffer.getLong(offset + Integer.BYTES), offset);
+            offset += Integer.BYTES + length;
+        }
+        mapped = buffer;
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        restoreDuration.record(elapsed);
+        LOG.infof(
+                "Mapped %d cached users from %s (saved at %s) in %d ms",
+                count, file, savedAt, elapsed);
+        return count;
+    }
+
+    /**
+     * Write the cached users to the snapshot file
+     *
+     * @return Number of users written
+     */
+    int save() throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        long size = HEADER_SIZE;
+        for (User user : cache.users(maxUsers)) {
+            byte[] record = UserCodec.encode(user);
+            records.add(record);
+            size += Integer.BYTES + record.length;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try (FileChannel channel =
+                FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(MAGIC).putInt(FORMAT).putLong(System.currentTimeMillis());
+            out.putInt(records.size());
+            for (byte[] record : records) {
+                out.putInt(record.length).put(record);
+            }
+            out.force();
+        }
+        Files.move(
+                temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOG.infof("Saved %d cached users to %s (%d bytes)", records.size(), file, size);
+        return records.size();
+    }
+}
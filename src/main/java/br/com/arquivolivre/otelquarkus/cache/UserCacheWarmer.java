@@ -0,0 +1,212 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import br.com.arquivolivre.otelquarkus.datasource.RequestContexts;
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.repository.UserRepository;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Warms the {@link UserCache} up at startup, enabled with {@code users.cache.warmup.enabled}. The
+ * ids of the {@code users.cache.warmup.users} most recently created or updated users are read from
+ * the {@code updated_at} index, grouped by shard, sorted and cut into chunks of {@code
+ * users.cache.warmup.chunk-size} neighbouring ids. The chunks are loaded in parallel, one query
+ * each, on {@code users.cache.warmup.threads} threads.
+ *
+ * <p>Warm-up runs in the background; {@link UserCacheWarmupCheck} keeps the instance out of
+ * readiness until it completes, fails, or runs longer than {@code users.cache.warmup.timeout}, so
+ * traffic only arrives once the hot users are cached.
+ */
+@ApplicationScoped
+public class UserCacheWarmer {
+
+    private static final Logger LOG = Logger.getLogger(UserCacheWarmer.class);
+
+    /** Progress of the warm-up. */
+    public enum State {
+        DISABLED,
+        RUNNING,
+        COMPLETED,
+        TIMED_OUT,
+        FAILED
+    }
+
+    private final UserRepository repository;
+    private final UserCache cache;
+    private final ShardRouter shardRouter;
+    private final int users;
+    private final int chunkSize;
+    private final int threads;
+    private final Duration timeout;
+    private final AtomicLong loaded = new AtomicLong();
+    private final LongCounter loadedCounter;
+    private final LongHistogram durationHistogram;
+    private volatile State state;
+
+    @Inject
+    public UserCacheWarmer(
+            UserRepository repository,
+            UserCache cache,
+            ShardRouter shardRouter,
+            Meter meter,
+            @ConfigProperty(name = "users.cache.warmup.enabled", defaultValue = "false")
+                    boolean enabled,
+            @ConfigProperty(name = "users.cache.warmup.users", defaultValue = "10000") int users,
+            @ConfigProperty(name = "users.cache.warmup.chunk-size", defaultValue = "500")
+                    int chunkSize,
+            @ConfigProperty(name = "users.cache.warmup.threads", defaultValue = "4") int threads,
+            @ConfigProperty(name = "users.cache.warmup.timeout", defaultValue = "60s")
+                    Duration timeout) {
+        this.repository = repository;
+        this.cache = cache;
+        this.shardRouter = shardRouter;
+        this.users = users;
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+        this.timeout = timeout;
+        // Not ready from the start, not only once the startup event arrives
+        this.state = enabled && cache.isEnabled() ? State.RUNNING : State.DISABLED;
+
+        this.loadedCounter =
+                meter.counterBuilder("users.cache.warmup.loaded.total")
+                        .setDescription("Users loaded into the user cache by the startup warm-up")
+                        .setUnit("1")
+                        .build();
+
+        this.durationHistogram =
+                meter.histogramBuilder("users.cache.warmup.duration")
+                        .ofLongs()
+                        .setDescription("Time the startup warm-up of the user cache took")
+                        .setUnit("ms")
+                        .build();
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (state != State.RUNNING) {
+            return;
+        }
+        Thread coordinator = new Thread(this::warmUp, "user-cache-warmup");
+        coordinator.setDaemon(true);
+        coordinator.start();
+    }
+
+    public State state() {
+        return state;
+    }
+
+    /** Whether readiness may be reported: the warm-up is over, or was never needed. */
+    public boolean isFinished() {
+        return state != State.RUNNING;
+    }
+
+    public long loaded() {
+        return loaded.get();
+    }
+
+    /**
+     * Group ids by shard and cut each group, sorted, into chunks of neighbouring ids
+     *
+     * @param ids User IDs
+     * @return Chunks of at most {@code users.cache.warmup.chunk-size} ids on one shard
+     */
+    List<List<Long>> chunks(List<Long> ids) {
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        for (Long id : ids) {
+            int shard = shardRouter.isSharded() ? shardRouter.shardForId(id) : 0;
+            byShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(id);
+        }
+        List<List<Long>> chunks = new ArrayList<>();
+        for (List<Long> shardIds : byShard.values()) {
+            shardIds.sort(null);
+            for (int from = 0; from < shardIds.size(); from += chunkSize) {
+                chunks.add(
+                        List.copyOf(
+                                shardIds.subList(
+                                        from, Math.min(from + chunkSize, shardIds.size()))));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Load one chunk into the cache
+     *
+     * @param chunk IDs on one shard
+     * @return Number of users loaded
+     */
+    int load(List<Long> chunk) {
+        List<User> found = repository.findByIds(chunk);
+        found.forEach(cache::put);
+        loaded.addAndGet(found.size());
+        loadedCounter.add(found.size());
+        return found.size();
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        AtomicInteger workers = new AtomicInteger();
+        ExecutorService executor =
+                Executors.newFixedThreadPool(
+                        threads,
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(
+                                            runnable,
+                                            "user-cache-warmup-" + workers.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        State outcome;
+        try {
+            List<List<Long>> chunks =
+                    RequestContexts.call(() -> chunks(repository.findRecentlyUpdatedIds(users)));
+            List<Future<Integer>> futures = new ArrayList<>(chunks.size());
+            for (List<Long> chunk : chunks) {
+                futures.add(executor.submit(() -> RequestContexts.call(() -> load(chunk))));
+            }
+            executor.shutdown();
+            if (executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                for (Future<Integer> future : futures) {
+                    future.get();
+                }
+                outcome = State.COMPLETED;
+            } else {
+                LOG.warnf("User cache warm-up did not finish within %s, giving up", timeout);
+                outcome = State.TIMED_OUT;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = State.FAILED;
+        } catch (ExecutionException | RuntimeException e) {
+            LOG.error("User cache warm-up failed", e);
+            outcome = State.FAILED;
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        durationHistogram.record(elapsed);
+        LOG.infof("User cache warm-up %s: %d users in %d ms", outcome, loaded.get(), elapsed);
+        state = outcome;
+    }
+}
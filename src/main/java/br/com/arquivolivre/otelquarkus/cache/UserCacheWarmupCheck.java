@@ -0,0 +1,29 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+/** Reports the instance not ready while {@link UserCacheWarmer} is still warming the cache up. */
+@Readiness
+@ApplicationScoped
+public class UserCacheWarmupCheck implements HealthCheck {
+
+    private final UserCacheWarmer warmer;
+
+    @Inject
+    public UserCacheWarmupCheck(UserCacheWarmer warmer) {
+        this.warmer = warmer;
+    }
+
+    @Override
+    public HealthCheckResponse call() {
+        return HealthCheckResponse.named("user-cache-warmup")
+                .status(warmer.isFinished())
+                .withData("state", warmer.state().name())
+                .withData("loaded", warmer.loaded())
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary form of a {@link User}, shared by the {@link OffHeapUserStore} and the {@link
+ * UserCacheSnapshot} file: id, version, created and updated time (UTC microseconds) as longs, then
+ * name, email and bio as UTF-8 with a short length prefix (-1 for null). A record therefore starts
+ * with the user's id, then its version.
+ */
+final class UserCodec {
+
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    private UserCodec() {}
+
+    static byte[] encode(User user) {
+        byte[] name = user.name.getBytes(StandardCharsets.UTF_8);
+        byte[] email = user.email.getBytes(StandardCharsets.UTF_8);
+        byte[] bio = user.bio != null ? user.bio.getBytes(StandardCharsets.UTF_8) : null;
+        int size = 4 * Long.BYTES + 3 * Short.BYTES + name.length + email.length;
+        ByteBuffer out = ByteBuffer.allocate(size + (bio != null ? bio.length : 0));
+        out.putLong(user.id).putLong(user.version);
+        out.putLong(micros(user.createdAt)).putLong(micros(user.updatedAt));
+        out.putShort((short) name.length).put(name);
+        out.putShort((short) email.length).put(email);
+        out.putShort(bio != null ? (short) bio.length : -1);
+        if (bio != null) {
+            out.put(bio);
+        }
+        return out.array();
+    }
+
+    static User decode(byte[] record) {
+        ByteBuffer in = ByteBuffer.wrap(record);
+        long id = in.getLong();
+        long version = in.getLong();
+        LocalDateTime createdAt = time(in.getLong());
+        LocalDateTime updatedAt = time(in.getLong());
+        String name = string(in);
+        String email = string(in);
+        String bio = string(in);
+        User user = new User(name, email, bio);
+        user.id = id;
+        user.version = version;
+        user.createdAt = createdAt;
+        user.updatedAt = updatedAt;
+        return user;
+    }
+
+    private static String string(ByteBuffer in) {
+        short length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    /** UTC microseconds since the epoch, or {@link #NO_TIME} for null. */
+    static long micros(LocalDateTime time) {
+        if (time == null) {
+            return NO_TIME;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime time(long micros) {
+        if (micros == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000,
+                ZoneOffset.UTC);
+    }
+}
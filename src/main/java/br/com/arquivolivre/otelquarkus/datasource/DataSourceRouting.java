@@ -0,0 +1,54 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+/**
+ * Holds the datasource the current thread should use when Hibernate opens a session. The value is
+ * read by {@link RoutingTenantResolver}, so it must be bound before the first query of a request
+ * and is only meaningful for the thread that bound it.
+ */
+public final class DataSourceRouting {
+
+    /** Tenant id of the default (read-write) datasource. */
+    public static final String PRIMARY = "primary";
+
+    /** Tenant id of the read-only replica datasource ({@code quarkus.datasource.replica}). */
+    public static final String REPLICA = "replica";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private DataSourceRouting() {}
+
+    /**
+     * Datasource bound to the current thread
+     *
+     * @return The bound datasource, or {@link #PRIMARY} when nothing is bound
+     */
+    public static String current() {
+        String dataSource = CURRENT.get();
+        return dataSource != null ? dataSource : PRIMARY;
+    }
+
+    /**
+     * Bind a datasource to the current thread
+     *
+     * @param dataSource Datasource (tenant id) to bind
+     * @return The previously bound datasource, to be passed to {@link #restore(String)}
+     */
+    public static String bind(String dataSource) {
+        String previous = CURRENT.get();
+        CURRENT.set(dataSource);
+        return previous;
+    }
+
+    /**
+     * Restore the binding returned by {@link #bind(String)}
+     *
+     * @param previous Previously bound datasource, may be null
+     */
+    public static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import jakarta.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only method whose queries may be served by the replica datasource. Only applies
+ * outside a transaction; see {@link ReadReplicaRouter} for the full routing rules.
+ */
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface ReadReplica {}
@@ -0,0 +1,36 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+/**
+ * Binds the datasource chosen by {@link ReadReplicaRouter} around {@link ReadReplica} methods and
+ * tags the enclosing span with it. Runs at application priority, i.e. inside the {@code @WithSpan}
+ * span of the intercepted method.
+ */
+@ReadReplica
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class ReadReplicaInterceptor {
+
+    static final AttributeKey<String> DB_DATASOURCE = AttributeKey.stringKey("db.datasource");
+
+    @Inject ReadReplicaRouter router;
+
+    @AroundInvoke
+    Object route(InvocationContext context) throws Exception {
+        String dataSource = router.route();
+        Span.current().setAttribute(DB_DATASOURCE, dataSource);
+        String previous = DataSourceRouting.bind(dataSource);
+        try {
+            return context.proceed();
+        } finally {
+            DataSourceRouting.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import io.quarkus.arc.Arc;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.TransactionManager;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Decides which datasource serves a {@link ReadReplica} method. Reads go to the replica unless
+ * routing is disabled, a transaction is already running (its session is bound to the primary), or
+ * the calling client wrote recently and read-your-writes is enabled. A request whose session is
+ * already open keeps that session's datasource, since Hibernate resolves it only once: the read is
+ * reported on the datasource that really serves it, with a warning if that is not the one chosen.
+ */
+@ApplicationScoped
+public class ReadReplicaRouter {
+
+    private static final Logger LOG = Logger.getLogger(ReadReplicaRouter.class);
+
+    private final boolean enabled;
+    private final boolean readYourWrites;
+    private final TransactionManager transactionManager;
+    private final RequestRouting requestRouting;
+
+    @Inject
+    public ReadReplicaRouter(
+            @ConfigProperty(name = "users.read-replica.enabled", defaultValue = "false")
+                    boolean enabled,
+            @ConfigProperty(name = "users.read-replica.read-your-writes", defaultValue = "true")
+                    boolean readYourWrites,
+            TransactionManager transactionManager,
+            RequestRouting requestRouting) {
+        this.enabled = enabled;
+        this.readYourWrites = readYourWrites;
+        this.transactionManager = transactionManager;
+        this.requestRouting = requestRouting;
+    }
+
+    /**
+     * Whether replica routing is enabled
+     *
+     * @return true if reads may be sent to the replica
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether clients are pinned to the primary right after they write
+     *
+     * @return true if read-your-writes pinning is active
+     */
+    public boolean isReadYourWrites() {
+        return enabled && readYourWrites;
+    }
+
+    /**
+     * Datasource that should serve the current read
+     *
+     * @return {@link DataSourceRouting#REPLICA} or {@link DataSourceRouting#PRIMARY}
+     */
+    public String route() {
+        if (!enabled || inTransaction()) {
+            return DataSourceRouting.PRIMARY;
+        }
+        String chosen = pinnedToPrimary() ? DataSourceRouting.PRIMARY : DataSourceRouting.REPLICA;
+        String open = sessionTenant();
+        if (open != null && !open.equals(chosen)) {
+            LOG.warnf(
+                    "Request session is already open on the %s datasource, not routing to %s",
+                    open, chosen);
+            return open;
+        }
+        return chosen;
+    }
+
+    private boolean inTransaction() {
+        try {
+            return transactionManager.getStatus() != Status.STATUS_NO_TRANSACTION;
+        } catch (SystemException e) {
+            return true;
+        }
+    }
+
+    /** Primary or replica the request's session is open on; shard sessions are left alone. */
+    private String sessionTenant() {
+        if (!Arc.container().requestContext().isActive()) {
+            return null;
+        }
+        String tenant = requestRouting.getSessionTenant();
+        return DataSourceRouting.PRIMARY.equals(tenant) || DataSourceRouting.REPLICA.equals(tenant)
+                ? tenant
+                : null;
+    }
+
+    private boolean pinnedToPrimary() {
+        return readYourWrites
+                && Arc.container().requestContext().isActive()
+                && requestRouting.isPrimaryPinned();
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.net.SocketAddress;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.core.Response;
+import java.util.Set;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+import org.jboss.resteasy.reactive.server.ServerResponseFilter;
+
+/**
+ * Pins a client's reads to the primary for a short window after it writes. Clients are identified
+ * by the {@value #CLIENT_ID_HEADER} header, falling back to the remote address.
+ */
+public class ReadYourWritesFilter {
+
+    static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    @Inject ReadReplicaRouter router;
+
+    @Inject ReadYourWritesTracker tracker;
+
+    @Inject RequestRouting requestRouting;
+
+    @ServerRequestFilter
+    public void pinRecentWriters(
+            ContainerRequestContext requestContext, HttpServerRequest request) {
+        if (!router.isReadYourWrites()) {
+            return;
+        }
+        String clientKey = clientKey(requestContext, request);
+        requestRouting.setClientKey(clientKey);
+        requestRouting.setPrimaryPinned(tracker.wroteRecently(clientKey));
+    }
+
+    @ServerResponseFilter
+    public void recordWrites(
+            ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (router.isReadYourWrites()
+                && WRITE_METHODS.contains(requestContext.getMethod())
+                && responseContext.getStatusInfo().getFamily()
+                        == Response.Status.Family.SUCCESSFUL) {
+            tracker.recordWrite(requestRouting.getClientKey());
+        }
+    }
+
+    static String clientKey(ContainerRequestContext requestContext, HttpServerRequest request) {
+        String clientId = requestContext.getHeaderString(CLIENT_ID_HEADER);
+        if (clientId != null && !clientId.isBlank()) {
+            return clientId;
+        }
+        SocketAddress remote = request.remoteAddress();
+        return remote != null ? remote.host() : null;
+    }
+}
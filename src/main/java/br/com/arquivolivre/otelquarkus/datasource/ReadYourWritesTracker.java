@@ -0,0 +1,79 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Remembers which clients wrote within the replication-lag window, so their next reads can be
+ * pinned to the primary. Entries expire on their own; the map is swept once it grows past {@link
+ * #SWEEP_THRESHOLD} clients.
+ */
+@ApplicationScoped
+public class ReadYourWritesTracker {
+
+    static final int SWEEP_THRESHOLD = 10_000;
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+
+    @Inject
+    public ReadYourWritesTracker(
+            @ConfigProperty(
+                            name = "users.read-replica.read-your-writes-window",
+                            defaultValue = "5s")
+                    Duration window) {
+        this(window, System::nanoTime);
+    }
+
+    ReadYourWritesTracker(Duration window, LongSupplier nanoClock) {
+        this.windowNanos = window.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Record that a client just wrote
+     *
+     * @param clientKey Client identifier, ignored when null
+     */
+    public void recordWrite(String clientKey) {
+        if (clientKey == null) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        lastWrites.put(clientKey, now);
+        if (lastWrites.size() > SWEEP_THRESHOLD) {
+            lastWrites.values().removeIf(writtenAt -> now - writtenAt > windowNanos);
+        }
+    }
+
+    /**
+     * Check whether a client wrote within the window
+     *
+     * @param clientKey Client identifier
+     * @return true if the client's reads should go to the primary
+     */
+    public boolean wroteRecently(String clientKey) {
+        if (clientKey == null) {
+            return false;
+        }
+        Long writtenAt = lastWrites.get(clientKey);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (nanoClock.getAsLong() - writtenAt > windowNanos) {
+            lastWrites.remove(clientKey, writtenAt);
+            return false;
+        }
+        return true;
+    }
+
+    int trackedClients() {
+        return lastWrites.size();
+    }
+}
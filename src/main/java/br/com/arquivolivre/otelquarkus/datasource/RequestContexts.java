@@ -0,0 +1,46 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import java.util.function.Supplier;
+
+/**
+ * Runs work of a background thread (a flusher, relay, poller or warm-up task) in a request context
+ * of its own. Those threads are not request threads, but with multitenancy Quarkus only opens a
+ * Hibernate session, and asks {@link RoutingTenantResolver} for its datasource, inside an active
+ * request context. The context is activated and terminated around each call, so the session and
+ * other request-scoped beans do not outlive one unit of work.
+ */
+public final class RequestContexts {
+
+    private RequestContexts() {}
+
+    /**
+     * Run work in a new request context
+     *
+     * @param work Work to run
+     */
+    public static void run(Runnable work) {
+        call(
+                () -> {
+                    work.run();
+                    return null;
+                });
+    }
+
+    /**
+     * Run work in a new request context
+     *
+     * @param work Work to run
+     * @return What the work returned
+     */
+    public static <T> T call(Supplier<T> work) {
+        ManagedContext requestContext = Arc.container().requestContext();
+        requestContext.activate();
+        try {
+            return work.get();
+        } finally {
+            requestContext.terminate();
+        }
+    }
+}
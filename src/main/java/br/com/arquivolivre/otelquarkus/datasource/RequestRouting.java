@@ -0,0 +1,44 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import jakarta.enterprise.context.RequestScoped;
+
+/**
+ * Per-request routing state filled in by {@link ReadYourWritesFilter}, and by {@link
+ * RoutingTenantResolver} with the datasource of the request's session.
+ */
+@RequestScoped
+public class RequestRouting {
+
+    private String clientKey;
+    private boolean primaryPinned;
+    private String sessionTenant;
+
+    public String getClientKey() {
+        return clientKey;
+    }
+
+    public void setClientKey(String clientKey) {
+        this.clientKey = clientKey;
+    }
+
+    public boolean isPrimaryPinned() {
+        return primaryPinned;
+    }
+
+    public void setPrimaryPinned(boolean primaryPinned) {
+        this.primaryPinned = primaryPinned;
+    }
+
+    /**
+     * Datasource the request's session was opened on, which it keeps until the request ends
+     *
+     * @return Tenant id, or null if no query ran outside a transaction yet
+     */
+    public String getSessionTenant() {
+        return sessionTenant;
+    }
+
+    public void setSessionTenant(String sessionTenant) {
+        this.sessionTenant = sessionTenant;
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import io.quarkus.hibernate.orm.runtime.customized.QuarkusConnectionProvider;
+import io.quarkus.hibernate.orm.runtime.tenant.TenantConnectionResolver;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Default;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+
+/**
+ * Maps tenant ids to Agroal datasources: {@link DataSourceRouting#PRIMARY} is the default
+ * datasource and every other tenant id is the name of a configured named datasource. Hibernate
+ * caches the returned provider per tenant, so this runs once per datasource.
+ */
+@PersistenceUnitExtension
+@ApplicationScoped
+public class RoutingTenantConnectionResolver implements TenantConnectionResolver {
+
+    private final Instance<AgroalDataSource> dataSources;
+
+    @Inject
+    public RoutingTenantConnectionResolver(@Any Instance<AgroalDataSource> dataSources) {
+        this.dataSources = dataSources;
+    }
+
+    @Override
+    public ConnectionProvider resolve(String tenantId) {
+        return new QuarkusConnectionProvider(dataSource(tenantId));
+    }
+
+    private AgroalDataSource dataSource(String tenantId) {
+        if (DataSourceRouting.PRIMARY.equals(tenantId)) {
+            return dataSources.select(Default.Literal.INSTANCE).get();
+        }
+        return dataSources.select(new DataSource.DataSourceLiteral(tenantId)).get();
+    }
+}
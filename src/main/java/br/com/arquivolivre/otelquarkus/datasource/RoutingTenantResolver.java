@@ -0,0 +1,55 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import io.quarkus.hibernate.orm.runtime.tenant.TenantResolver;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.TransactionManager;
+
+/**
+ * Resolves the Hibernate tenant (which is the datasource when {@code
+ * quarkus.hibernate-orm.multitenant=DATABASE}) from the binding in {@link DataSourceRouting}.
+ * Hibernate calls this once per session: a transaction keeps the datasource bound when its first
+ * query ran, and so does the session a request uses outside transactions. A binding made after
+ * that session has opened has no effect, so the request's session tenant is recorded in {@link
+ * RequestRouting} for {@link ReadReplicaRouter} to honour.
+ */
+@PersistenceUnitExtension
+@ApplicationScoped
+public class RoutingTenantResolver implements TenantResolver {
+
+    private final TransactionManager transactionManager;
+    private final RequestRouting requestRouting;
+
+    @Inject
+    public RoutingTenantResolver(
+            TransactionManager transactionManager, RequestRouting requestRouting) {
+        this.transactionManager = transactionManager;
+        this.requestRouting = requestRouting;
+    }
+
+    @Override
+    public String getDefaultTenantId() {
+        return DataSourceRouting.PRIMARY;
+    }
+
+    @Override
+    public String resolveTenantId() {
+        String tenant = DataSourceRouting.current();
+        if (Arc.container().requestContext().isActive() && !inTransaction()) {
+            requestRouting.setSessionTenant(tenant);
+        }
+        return tenant;
+    }
+
+    private boolean inTransaction() {
+        try {
+            return transactionManager.getStatus() != Status.STATUS_NO_TRANSACTION;
+        } catch (SystemException e) {
+            return true;
+        }
+    }
+}
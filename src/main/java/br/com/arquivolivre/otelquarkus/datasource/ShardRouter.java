@@ -0,0 +1,161 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Locale;
+import java.util.function.Supplier;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Maps users to shards. A user lives on the shard picked by the hash of its email, and its id
+ * carries that shard in the bits above {@link #SHARD_ID_SHIFT} (each shard's id counter starts at
+ * {@link #firstIdOf(int)}). Both email and id lookups therefore resolve to one shard.
+ *
+ * <p>Shard 0 is the default datasource (and follows replica routing); shard {@code n > 0} is the
+ * datasource named {@code shard-n}. With a shard count of 1 nothing is bound and routing is left to
+ * {@link ReadReplicaRouter}.
+ */
+@ApplicationScoped
+public class ShardRouter {
+
+    /** Number of low id bits available to each shard. */
+    public static final int SHARD_ID_SHIFT = 48;
+
+    static final int MAX_SHARDS = 1 << (Long.SIZE - 1 - SHARD_ID_SHIFT);
+
+    private static final String SHARD_TENANT_PREFIX = "shard-";
+
+    private final int shardCount;
+
+    @Inject
+    public ShardRouter(
+            @ConfigProperty(name = "users.sharding.shard-count", defaultValue = "1")
+                    int shardCount) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException(
+                    "users.sharding.shard-count must be between 1 and " + MAX_SHARDS);
+        }
+        this.shardCount = shardCount;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    /**
+     * Shard that owns an email address. Emails are lower-cased first because MySQL compares them
+     * case-insensitively.
+     *
+     * @param email Email address
+     * @return Shard index
+     */
+    public int shardForEmail(String email) {
+        int hash = email.toLowerCase(Locale.ROOT).hashCode();
+        // murmur3 finalizer, so that similar addresses spread across shards
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, shardCount);
+    }
+
+    /**
+     * Shard that owns an id
+     *
+     * @param id User ID
+     * @return Shard index, or -1 if the id cannot belong to any configured shard
+     */
+    public int shardForId(long id) {
+        long shard = id >>> SHARD_ID_SHIFT;
+        return id > 0 && shard < shardCount ? (int) shard : -1;
+    }
+
+    /**
+     * First id handed out by a shard's sequence
+     *
+     * @param shard Shard index
+     * @return Lowest id of the shard's range
+     */
+    public static long firstIdOf(int shard) {
+        return ((long) shard << SHARD_ID_SHIFT) + 1;
+    }
+
+    /**
+     * Tenant (datasource) id of a shard
+     *
+     * @param shard Shard index
+     * @return Tenant id understood by {@link RoutingTenantConnectionResolver}
+     */
+    public String tenantFor(int shard) {
+        if (shard == 0) {
+            return DataSourceRouting.REPLICA.equals(DataSourceRouting.current())
+                    ? DataSourceRouting.REPLICA
+                    : DataSourceRouting.PRIMARY;
+        }
+        return SHARD_TENANT_PREFIX + shard;
+    }
+
+    /**
+     * Shard served by a tenant (datasource) id
+     *
+     * @param tenant Tenant id, as returned by {@link #tenantFor(int)}
+     * @return Shard index; the primary and the replica are shard 0
+     */
+    public int shardOfTenant(String tenant) {
+        if (tenant != null && tenant.startsWith(SHARD_TENANT_PREFIX)) {
+            return Integer.parseInt(tenant.substring(SHARD_TENANT_PREFIX.length()));
+        }
+        return 0;
+    }
+
+    /**
+     * Run work against the shard that owns an email
+     *
+     * @param email Email address
+     * @param work Repository work to run
+     * @return Result of the work
+     */
+    public <T> T onEmailShard(String email, Supplier<T> work) {
+        if (!isSharded()) {
+            return work.get();
+        }
+        return onShard(shardForEmail(email), work);
+    }
+
+    /**
+     * Run work against the shard that owns an id
+     *
+     * @param id User ID
+     * @param work Repository work to run
+     * @param missing Result when the id cannot belong to any shard
+     * @return Result of the work, or {@code missing}
+     */
+    public <T> T onIdShard(Long id, Supplier<T> work, T missing) {
+        if (!isSharded()) {
+            return work.get();
+        }
+        int shard = id != null ? shardForId(id) : -1;
+        return shard < 0 ? missing : onShard(shard, work);
+    }
+
+    /**
+     * Run work against a given shard, e.g. to visit every shard in turn
+     *
+     * @param shard Shard index
+     * @param work Repository work to run
+     * @return Result of the work
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        String previous = DataSourceRouting.bind(tenantFor(shard));
+        try {
+            return work.get();
+        } finally {
+            DataSourceRouting.restore(previous);
+        }
+    }
+}
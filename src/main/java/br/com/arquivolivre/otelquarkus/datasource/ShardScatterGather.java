@@ -0,0 +1,114 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import io.opentelemetry.context.Context;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+/**
+ * Runs a query on every shard in parallel, each in its own short-lived session opened directly on
+ * the shard's tenant. Used for queries that cannot be routed to a single shard.
+ */
+@ApplicationScoped
+public class ShardScatterGather {
+
+    private final SessionFactory sessionFactory;
+    private final ShardRouter shardRouter;
+    private final ExecutorService executor;
+
+    @Inject
+    public ShardScatterGather(SessionFactory sessionFactory, ShardRouter shardRouter) {
+        this.sessionFactory = sessionFactory;
+        this.shardRouter = shardRouter;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor =
+                Executors.newFixedThreadPool(
+                        shardRouter.shardCount(),
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(
+                                            runnable,
+                                            "shard-query-" + threads.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+    }
+
+    /**
+     * Run a list query on every shard and concatenate the results in shard order
+     *
+     * @param query Query to run against one shard's session
+     * @return Results of all shards
+     */
+    public <T> List<T> gatherList(Function<Session, List<T>> query) {
+        List<T> merged = new ArrayList<>();
+        for (List<T> shardResult : scatter(query)) {
+            merged.addAll(shardResult);
+        }
+        return merged;
+    }
+
+    /**
+     * Run a count query on every shard and add the results up
+     *
+     * @param query Count query to run against one shard's session
+     * @return Sum over all shards
+     */
+    public long gatherSum(Function<Session, Long> query) {
+        long total = 0;
+        for (Long shardCount : scatter(query)) {
+            total += shardCount;
+        }
+        return total;
+    }
+
+    <T> List<T> scatter(Function<Session, T> query) {
+        Context context = Context.current();
+        List<Future<T>> futures = new ArrayList<>(shardRouter.shardCount());
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            String tenant = shardRouter.tenantFor(shard);
+            futures.add(executor.submit(context.wrap(() -> runOn(tenant, query))));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    private <T> T runOn(String tenant, Function<Session, T> query) {
+        try (Session session =
+                sessionFactory.withOptions().tenantIdentifier(tenant).openSession()) {
+            return query.apply(session);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shard query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
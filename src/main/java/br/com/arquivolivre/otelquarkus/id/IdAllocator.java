@@ -0,0 +1,18 @@
+package br.com.arquivolivre.otelquarkus.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * Source of user ids. Implementations must be thread-safe and should not hit the database on
+ * every call. Selected through {@code users.id.strategy}, see {@link IdAllocatorProducer}.
+ */
+public interface IdAllocator {
+
+    /**
+     * Allocate the next id
+     *
+     * @param session Session inserting the entity; its tenant decides the shard
+     * @return A new, unique id
+     */
+    long nextId(SharedSessionContractImplementor session);
+}
@@ -0,0 +1,60 @@
+package br.com.arquivolivre.otelquarkus.id;
+
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import java.util.Optional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Produces the {@link IdAllocator} selected by {@code users.id.strategy}:
+ *
+ * <ul>
+ *   <li>{@code pooled-lo} (default) - blocks of {@code users.id.block-size} ids per database round
+ *       trip, with per-shard counters so ids keep encoding their shard
+ *   <li>{@code snowflake} - time-based ids built from {@code users.id.node-id}, never touching the
+ *       database; not usable with sharding, since the id would not carry the shard. The node id
+ *       has no default: two pods sharing one would hand out the same ids
+ * </ul>
+ */
+@ApplicationScoped
+public class IdAllocatorProducer {
+
+    private static final Logger LOG = Logger.getLogger(IdAllocatorProducer.class);
+
+    static final String POOLED_LO = "pooled-lo";
+    static final String SNOWFLAKE = "snowflake";
+
+    @Produces
+    @ApplicationScoped
+    IdAllocator idAllocator(
+            @ConfigProperty(name = "users.id.strategy", defaultValue = POOLED_LO) String strategy,
+            @ConfigProperty(name = "users.id.block-size", defaultValue = "1000") long blockSize,
+            @ConfigProperty(name = "users.id.node-id") Optional<Long> nodeId,
+            ShardRouter shardRouter) {
+        LOG.infof("Using '%s' user id strategy", strategy);
+        return switch (strategy) {
+            case POOLED_LO ->
+                    new PooledLoIdAllocator(
+                            blockSize,
+                            tenant -> ShardRouter.firstIdOf(shardRouter.shardOfTenant(tenant)));
+            case SNOWFLAKE -> {
+                if (shardRouter.isSharded()) {
+                    throw new IllegalStateException(
+                            "users.id.strategy=snowflake cannot be combined with sharding");
+                }
+                if (nodeId.isEmpty()) {
+                    throw new IllegalStateException(
+                            "users.id.node-id is required with users.id.strategy=snowflake");
+                }
+                yield new SnowflakeIdAllocator(nodeId.get());
+            }
+            default ->
+                    throw new IllegalArgumentException(
+                            "Unknown users.id.strategy '"
+                                    + strategy
+                                    + "', expected pooled-lo or snowflake");
+        };
+    }
+}
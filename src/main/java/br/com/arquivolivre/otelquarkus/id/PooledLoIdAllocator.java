@@ -0,0 +1,128 @@
+package br.com.arquivolivre.otelquarkus.id;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.jdbc.AbstractReturningWork;
+
+/**
+ * Pooled-lo allocator: reserves blocks of {@code blockSize} ids from the single-row {@code
+ * user_id_blocks} table and hands them out from memory, so only one insert in {@code blockSize}
+ * touches the database. The block is reserved in its own transaction (Hibernate's isolation
+ * delegate suspends the caller's), so the counter row is never locked for the whole insert.
+ *
+ * <p>Blocks are kept per tenant, since every shard has its own counter. A missing counter row is
+ * seeded above both the shard's first id and the highest existing id.
+ */
+public class PooledLoIdAllocator implements IdAllocator {
+
+    static final String COUNTER_NAME = "users";
+
+    private final long blockSize;
+    private final ToLongFunction<String> firstIdOfTenant;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * @param blockSize Number of ids reserved per database round trip
+     * @param firstIdOfTenant Lowest id a tenant (shard) may hand out
+     */
+    public PooledLoIdAllocator(long blockSize, ToLongFunction<String> firstIdOfTenant) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("users.id.block-size must be positive");
+        }
+        this.blockSize = blockSize;
+        this.firstIdOfTenant = firstIdOfTenant;
+    }
+
+    @Override
+    public long nextId(SharedSessionContractImplementor session) {
+        String tenant = String.valueOf(session.getTenantIdentifierValue());
+        Block block = blocks.computeIfAbsent(tenant, key -> new Block());
+        synchronized (block) {
+            if (block.next >= block.end) {
+                long start = reserve(session, firstIdOfTenant.applyAsLong(tenant));
+                block.next = start;
+                block.end = start + blockSize;
+            }
+            return block.next++;
+        }
+    }
+
+    private long reserve(SharedSessionContractImplementor session, long firstId) {
+        return session.getTransactionCoordinator()
+                .createIsolationDelegate()
+                .delegateWork(
+                        new AbstractReturningWork<Long>() {
+                            @Override
+                            public Long execute(Connection connection) throws SQLException {
+                                return reserveBlock(connection, firstId);
+                            }
+                        },
+                        true);
+    }
+
+    /**
+     * Reserve the next block on the given connection
+     *
+     * @param connection Connection in its own transaction
+     * @param firstId Lowest id the counter may start at
+     * @return First id of the reserved block
+     */
+    long reserveBlock(Connection connection, long firstId) throws SQLException {
+        for (int attempt = 0; ; attempt++) {
+            try (PreparedStatement update =
+                    connection.prepareStatement(
+                            "UPDATE user_id_blocks SET next_val = next_val + ? WHERE name = ?")) {
+                update.setLong(1, blockSize);
+                update.setString(2, COUNTER_NAME);
+                if (update.executeUpdate() == 1) {
+                    return readCounter(connection) - blockSize;
+                }
+            }
+            long start = Math.max(firstId, maxExistingId(connection) + 1);
+            try (PreparedStatement insert =
+                    connection.prepareStatement(
+                            "INSERT INTO user_id_blocks (name, next_val) VALUES (?, ?)")) {
+                insert.setString(1, COUNTER_NAME);
+                insert.setLong(2, start + blockSize);
+                insert.executeUpdate();
+                return start;
+            } catch (SQLException e) {
+                // Another node seeded the counter concurrently: retry the update once
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static long readCounter(Connection connection) throws SQLException {
+        try (PreparedStatement select =
+                connection.prepareStatement("SELECT next_val FROM user_id_blocks WHERE name = ?")) {
+            select.setString(1, COUNTER_NAME);
+            try (ResultSet resultSet = select.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    private static long maxExistingId(Connection connection) throws SQLException {
+        try (PreparedStatement select =
+                        connection.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM users");
+                ResultSet resultSet = select.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static final class Block {
+        private long next;
+        private long end;
+    }
+}
@@ -0,0 +1,58 @@
+package br.com.arquivolivre.otelquarkus.id;
+
+import java.time.Instant;
+import java.util.function.LongSupplier;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * Coordination-free 64-bit ids: 41 bits of milliseconds since {@link #EPOCH}, 10 bits of node id
+ * and 12 bits of per-millisecond sequence. When the sequence overflows, or the wall clock steps
+ * back, the generator moves on to the next logical millisecond instead of waiting.
+ */
+public class SnowflakeIdAllocator implements IdAllocator {
+
+    /** Custom epoch (2024-01-01T00:00:00Z), leaving about 69 years of timestamps. */
+    public static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    private long lastTimestamp = -1;
+    private long sequence;
+
+    public SnowflakeIdAllocator(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdAllocator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException(
+                    "users.id.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId(SharedSessionContractImplementor session) {
+        return next();
+    }
+
+    synchronized long next() {
+        long timestamp = Math.max(clock.getAsLong() - EPOCH, lastTimestamp);
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                timestamp++;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastTimestamp = timestamp;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+}
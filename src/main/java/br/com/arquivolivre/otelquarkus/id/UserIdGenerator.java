@@ -0,0 +1,39 @@
+package br.com.arquivolivre.otelquarkus.id;
+
+import io.quarkus.arc.Arc;
+import java.util.EnumSet;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+
+/**
+ * Hibernate generator behind {@link UserId}. Hibernate instantiates it outside CDI, so it looks the
+ * {@link IdAllocator} bean up on first use.
+ */
+public class UserIdGenerator implements BeforeExecutionGenerator {
+
+    private transient volatile IdAllocator allocator;
+
+    @Override
+    public Object generate(
+            SharedSessionContractImplementor session,
+            Object owner,
+            Object currentValue,
+            EventType eventType) {
+        return allocator().nextId(session);
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EnumSet.of(EventType.INSERT);
+    }
+
+    private IdAllocator allocator() {
+        IdAllocator current = allocator;
+        if (current == null) {
+            current = Arc.container().instance(IdAllocator.class).get();
+            allocator = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,173 @@
+package br.com.arquivolivre.otelquarkus.logging;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import org.jboss.logmanager.ExtHandler;
+import org.jboss.logmanager.ExtLogRecord;
+
+/**
+ * Hands log records to the wrapped handlers on a background writer thread, so formatting and
+ * writing JSON, and exporting through OpenTelemetry, happen off the request thread. Records wait in
+ * a bounded queue; when it is full, records below {@code blockLevel} are dropped and counted, and
+ * records at or above it make the caller wait, so errors are never lost.
+ *
+ * <p>Records below {@code blockLevel} first pass the optional {@link LogRateLimiter}, before
+ * anything is copied or queued; records at or above it are never suppressed. Each queued record
+ * carries the caller's MDC and OpenTelemetry context, so trace ids still appear on records written
+ * by the writer thread. The caller's class and method are only resolved, by walking its stack, when
+ * a wrapped handler prints them; the message is formatted by the writer thread. With a queue length
+ * of 0 there is no writer thread and records are written on the caller's thread, for rate limiting
+ * alone.
+ */
+public final class AsyncLogHandler extends ExtHandler {
+
+    private record Entry(ExtLogRecord record, Context context) {}
+
+    private final Handler[] delegates;
+    private final BlockingQueue<Entry> queue;
+    private final int blockLevel;
+    private final LogRateLimiter rateLimiter;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running;
+
+    /**
+     * @param delegates Handlers records are written to
+     * @param queueLength Records that may wait for the writer thread, 0 to write synchronously
+     * @param blockLevel Lowest level that waits for room instead of being dropped
+     * @param rateLimiter Limiter applied before queueing, or {@code null} for none
+     */
+    public AsyncLogHandler(
+            Handler[] delegates, int queueLength, Level blockLevel, LogRateLimiter rateLimiter) {
+        this.delegates = delegates.clone();
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueLength, 1));
+        this.blockLevel = blockLevel.intValue();
+        this.rateLimiter = rateLimiter;
+        this.running = queueLength > 0;
+        this.writer = new Thread(this::drain, "async-log-writer");
+        this.writer.setDaemon(true);
+        if (running) {
+            this.writer.start();
+        }
+    }
+
+    @Override
+    protected void doPublish(ExtLogRecord record) {
+        boolean blocking = record.getLevel().intValue() >= blockLevel;
+        if (!blocking
+                && rateLimiter != null
+                && !rateLimiter.tryAcquire(callSite(record), System.nanoTime())) {
+            return;
+        }
+        // Records logged while writing (e.g. by the exporter) must not wait for the writer itself
+        if (!running || Thread.currentThread() == writer) {
+            write(record);
+            return;
+        }
+        // The thread name is taken when the record is created; the MDC must be copied before the
+        // caller moves on, and so must the caller's frame, unless no delegate prints it
+        if (isCallerCalculationRequired()) {
+            record.copyAll();
+        } else {
+            record.disableCallerCalculation();
+            record.copyMdc();
+        }
+        Entry entry = new Entry(record, Context.current());
+        if (!blocking) {
+            if (!queue.offer(entry)) {
+                dropped.increment();
+            }
+            return;
+        }
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write(record);
+        }
+    }
+
+    /** Whether a wrapped handler prints the caller's class, method or line. */
+    @Override
+    public boolean isCallerCalculationRequired() {
+        for (Handler delegate : delegates) {
+            if (!(delegate instanceof ExtHandler ext) || ext.isCallerCalculationRequired()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Records dropped because the queue was full. */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /** Records waiting for the writer thread. */
+    public int queued() {
+        return queue.size();
+    }
+
+    @Override
+    public void flush() {
+        for (Handler delegate : delegates) {
+            delegate.flush();
+        }
+    }
+
+    /**
+     * Stop the writer thread once it has written every queued record; later records are written
+     * on the caller's thread. The wrapped handlers are not closed, they are handed back.
+     */
+    @Override
+    public void close() {
+        running = false;
+        writer.interrupt();
+        try {
+            if (writer.isAlive()) {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            write(entry);
+        }
+        flush();
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                write(queue.take());
+            } catch (InterruptedException e) {
+                // close() wakes the writer up; it writes what is left itself
+                return;
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        try (Scope scope = entry.context().makeCurrent()) {
+            write(entry.record());
+        }
+    }
+
+    private void write(ExtLogRecord record) {
+        for (Handler delegate : delegates) {
+            delegate.publish(record);
+        }
+    }
+
+    private static String callSite(ExtLogRecord record) {
+        // The message is still the unformatted template here; parameters are kept apart
+        return record.getLoggerName() + '\u0000' + record.getMessage();
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.arquivolivre.otelquarkus.logging;
+
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongCounter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logmanager.LogContext;
+import org.jboss.logmanager.Logger;
+
+/**
+ * Moves the root logger's handlers (console, file, OpenTelemetry) behind an {@link
+ * AsyncLogHandler} at startup when {@code users.logging.async.enabled} is set, and limits every
+ * call site to {@code users.logging.rate-limit.per-second} records per second when that is
+ * positive. On shutdown the queue is written out and the original handlers are put back.
+ */
+@ApplicationScoped
+public class AsyncLogging {
+
+    private final boolean async;
+    private final int queueLength;
+    private final Level blockLevel;
+    private final LogRateLimiter rateLimiter;
+    private final ObservableLongCounter droppedCounter;
+    private final ObservableLongCounter suppressedCounter;
+    private final ObservableLongGauge queueGauge;
+    private volatile AsyncLogHandler handler;
+    private Handler[] original;
+
+    @Inject
+    public AsyncLogging(
+            Meter meter,
+            @ConfigProperty(name = "users.logging.async.enabled", defaultValue = "false")
+                    boolean async,
+            @ConfigProperty(name = "users.logging.async.queue-length", defaultValue = "8192")
+                    int queueLength,
+            @ConfigProperty(name = "users.logging.async.block-level", defaultValue = "ERROR")
+                    String blockLevel,
+            @ConfigProperty(name = "users.logging.rate-limit.per-second", defaultValue = "0")
+                    int perSecond) {
+        this.async = async;
+        this.queueLength = queueLength;
+        this.blockLevel = LogContext.getLogContext().getLevelForName(blockLevel);
+        this.rateLimiter = perSecond > 0 ? new LogRateLimiter(perSecond) : null;
+
+        this.droppedCounter =
+                meter.counterBuilder("logging.records.dropped.total")
+                        .setDescription("Log records dropped because the async log queue was full")
+                        .setUnit("1")
+                        .buildWithCallback(
+                                m -> {
+                                    AsyncLogHandler current = handler;
+                                    m.record(current != null ? current.dropped() : 0);
+                                });
+
+        this.suppressedCounter =
+                meter.counterBuilder("logging.records.suppressed.total")
+                        .setDescription("Log records suppressed by the per-call-site rate limit")
+                        .setUnit("1")
+                        .buildWithCallback(
+                                m -> m.record(rateLimiter != null ? rateLimiter.suppressed() : 0));
+
+        this.queueGauge =
+                meter.gaugeBuilder("logging.queue.size")
+                        .ofLongs()
+                        .setDescription("Log records waiting for the async log writer")
+                        .setUnit("1")
+                        .buildWithCallback(
+                                m -> {
+                                    AsyncLogHandler current = handler;
+                                    m.record(current != null ? current.queued() : 0);
+                                });
+    }
+
+    synchronized void onStart(@Observes StartupEvent event) {
+        if (!async && rateLimiter == null) {
+            return;
+        }
+        Logger root = LogContext.getLogContext().getLogger("");
+        original = root.getHandlers();
+        handler = new AsyncLogHandler(original, async ? queueLength : 0, blockLevel, rateLimiter);
+        root.setHandlers(new Handler[] {handler});
+    }
+
+    synchronized void onStop(@Observes ShutdownEvent event) {
+        if (handler == null) {
+            return;
+        }
+        LogContext.getLogContext().getLogger("").setHandlers(original);
+        handler.close();
+    }
+}
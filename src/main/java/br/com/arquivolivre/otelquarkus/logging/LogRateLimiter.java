@@ -0,0 +1,66 @@
+package br.com.arquivolivre.otelquarkus.logging;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets at most {@code perSecond} records per call site through in each second and counts the rest.
+ * A call site is identified by its logger and message template ({@code "User not found: %d"}), so
+ * a repetitive message is limited however its parameters vary.
+ *
+ * <p>Messages built by concatenation have no stable template; to keep memory bounded, only the
+ * first {@value #MAX_CALL_SITES} call sites seen are limited and later ones always pass.
+ */
+public final class LogRateLimiter {
+
+    static final int MAX_CALL_SITES = 4096;
+
+    private final int perSecond;
+    private final ConcurrentHashMap<String, CallSite> callSites = new ConcurrentHashMap<>();
+    private final LongAdder suppressed = new LongAdder();
+
+    public LogRateLimiter(int perSecond) {
+        this.perSecond = perSecond;
+    }
+
+    /**
+     * Take one record of a call site, if its allowance for the current second is not used up
+     *
+     * @param callSite Logger name and message template
+     * @param nowNanos Current {@link System#nanoTime()}
+     * @return Whether the record may be logged
+     */
+    public boolean tryAcquire(String callSite, long nowNanos) {
+        CallSite site = callSites.get(callSite);
+        if (site == null) {
+            if (callSites.size() >= MAX_CALL_SITES) {
+                return true;
+            }
+            site = callSites.computeIfAbsent(callSite, k -> new CallSite());
+        }
+        if (site.tryAcquire(nowNanos / 1_000_000_000L, perSecond)) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    /** Records suppressed since startup. */
+    public long suppressed() {
+        return suppressed.sum();
+    }
+
+    private static final class CallSite {
+
+        private long second = Long.MIN_VALUE;
+        private int taken;
+
+        synchronized boolean tryAcquire(long now, int perSecond) {
+            if (now != second) {
+                second = now;
+                taken = 0;
+            }
+            return taken++ < perSecond;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.arquivolivre.otelquarkus.metrics;
+
+import io.opentelemetry.sdk.autoconfigure.AutoConfiguredOpenTelemetrySdkBuilder;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentSelector;
+import io.opentelemetry.sdk.metrics.SdkMeterProviderBuilder;
+import io.opentelemetry.sdk.metrics.View;
+import io.quarkus.opentelemetry.runtime.AutoConfiguredOpenTelemetrySdkBuilderCustomizer;
+import jakarta.inject.Singleton;
+
+/**
+ * Aggregates {@code users.operation.duration} into a base-2 exponential histogram instead of the
+ * SDK's default explicit buckets, whose boundaries (0, 5, 10, ...) would put almost every call,
+ * measured in seconds, into one bucket. Other histograms keep their buckets, which the dashboards
+ * query by {@code le}.
+ */
+@Singleton
+public class ExponentialHistogramCustomizer
+        implements AutoConfiguredOpenTelemetrySdkBuilderCustomizer {
+
+    @Override
+    public void customize(AutoConfiguredOpenTelemetrySdkBuilder builder) {
+        builder.addMeterProviderCustomizer((meterProvider, config) -> registerViews(meterProvider));
+    }
+
+    static SdkMeterProviderBuilder registerViews(SdkMeterProviderBuilder meterProvider) {
+        return meterProvider.registerView(
+                InstrumentSelector.builder().setName(TimedInterceptor.DURATION).build(),
+                View.builder()
+                        .setAggregation(Aggregation.base2ExponentialBucketHistogram())
+                        .build());
+    }
+}
@@ -0,0 +1,16 @@
+package br.com.arquivolivre.otelquarkus.metrics;
+
+import jakarta.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Records the duration of every public method of the annotated bean, or of the annotated method,
+ * in {@code users.operation.duration}; see {@link TimedInterceptor}.
+ */
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Timed {}
@@ -0,0 +1,75 @@
+package br.com.arquivolivre.otelquarkus.metrics;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the duration of {@link Timed} methods, in seconds measured with {@link
+ * System#nanoTime()}, with the method name as {@code operation} and {@code success} or {@code
+ * error} as {@code outcome}. The histogram is aggregated into base-2 exponential buckets (see
+ * {@link ExponentialHistogramCustomizer}), so sub-millisecond calls keep their resolution.
+ *
+ * <p>Runs inside the {@code @WithSpan} span, which is what the measurement is attached to as an
+ * exemplar when it is sampled, and outside {@code @Transactional}, so the commit is included.
+ */
+@Timed
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE + 100)
+public class TimedInterceptor {
+
+    static final String DURATION = "users.operation.duration";
+    static final AttributeKey<String> OPERATION = AttributeKey.stringKey("operation");
+    static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("outcome");
+
+    private record OperationAttributes(Attributes success, Attributes error) {}
+
+    private final DoubleHistogram duration;
+    private final Map<Method, OperationAttributes> attributes = new ConcurrentHashMap<>();
+
+    @Inject
+    public TimedInterceptor(Meter meter) {
+        this.duration =
+                meter.histogramBuilder(DURATION)
+                        .setDescription("Duration of UserService operations")
+                        .setUnit("s")
+                        .build();
+    }
+
+    @AroundInvoke
+    Object time(InvocationContext context) throws Exception {
+        Method method = context.getMethod();
+        if (!Modifier.isPublic(method.getModifiers())) {
+            // Startup observers and metric callbacks are not operations
+            return context.proceed();
+        }
+        OperationAttributes operation = attributes.computeIfAbsent(method, this::attributesOf);
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = context.proceed();
+            success = true;
+            return result;
+        } finally {
+            duration.record(
+                    (System.nanoTime() - start) / 1e9,
+                    success ? operation.success() : operation.error());
+        }
+    }
+
+    private OperationAttributes attributesOf(Method method) {
+        return new OperationAttributes(
+                Attributes.of(OPERATION, method.getName(), OUTCOME, "success"),
+                Attributes.of(OPERATION, method.getName(), OUTCOME, "error"));
+    }
+}
@@ -1,24 +1,44 @@
 package br.com.arquivolivre.otelquarkus.model;
 
-import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import br.com.arquivolivre.otelquarkus.id.UserId;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import java.time.LocalDateTime;
 import java.util.Objects;
+import java.util.Set;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 /**
  * User entity representing a user in the system. Uses Panache Entity pattern for simplified
- * database operations.
+ * database operations. Ids come from the configured {@link UserId} strategy instead of a database
+ * sequence, so inserting a user does not wait on the database for its id. The {@link #version}
+ * column guards updates against lost writes: a client that sends back the version it read only
+ * overwrites the row if nobody changed it in between. Updates only write the columns that changed.
+ * The {@code (updated_at, id)} index serves the changes feed.
  */
 @Entity
-@Table(name = "users")
-public class User extends PanacheEntity {
+@DynamicUpdate
+@Table(
+        name = "users",
+        indexes = @Index(name = "idx_users_updated_at", columnList = "updated_at, id"))
+public class User extends PanacheEntityBase {
+
+    /** Fields a client may change after creation, e.g. through a merge patch. */
+    public static final Set<String> UPDATABLE_FIELDS = Set.of("name", "email", "bio");
+
+    @Id
+    @UserId
+    public Long id;
 
     @NotBlank(message = "Name is required")
     @Size(min = 2, max = 100, message = "Name must be between 2 and 100 characters")
@@ -42,6 +62,10 @@ public class User extends PanacheEntity {
     @Column(name = "updated_at", nullable = false)
     public LocalDateTime updatedAt;
 
+    @Version
+    @Column(nullable = false)
+    public Long version;
+
     /** Default constructor */
     public User() {}
 
@@ -84,6 +108,8 @@ public class User extends PanacheEntity {
                 + createdAt
                 + ", updatedAt="
                 + updatedAt
+                + ", version="
+                + version
                 + '}';
     }
 }
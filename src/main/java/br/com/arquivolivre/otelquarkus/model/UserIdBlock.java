@@ -0,0 +1,22 @@
+package br.com.arquivolivre.otelquarkus.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Counter row for the pooled-lo user id allocator. Mapped so that schema generation creates the
+ * table; the allocator itself reads and updates it with plain JDBC in a separate transaction.
+ */
+@Entity
+@Table(name = "user_id_blocks")
+public class UserIdBlock {
+
+    @Id
+    @Column(length = 64)
+    public String name;
+
+    @Column(name = "next_val", nullable = false)
+    public long nextVal;
+}
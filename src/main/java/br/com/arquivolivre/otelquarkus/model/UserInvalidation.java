@@ -0,0 +1,56 @@
+package br.com.arquivolivre.otelquarkus.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Entry of the cache invalidation log: user {@link #userId} is now at {@link #version}, so cached
+ * copies at older versions are stale. Written in the transaction of the update or delete, on the
+ * user's shard, and polled by every instance by {@code created_at}. Rows are purged after {@code
+ * users.cache.invalidation.retention}. Ids are an identity column of the shard's own table, so
+ * invalidations do not use up user ids.
+ */
+@Entity
+@Table(
+        name = "user_invalidations",
+        indexes = @Index(name = "idx_user_invalidations_created_at", columnList = "created_at"))
+public class UserInvalidation {
+
+    /** Version of a deleted user, newer than any real version. */
+    public static final long DELETED = Long.MAX_VALUE;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public Long id;
+
+    @Column(name = "user_id", nullable = false)
+    public Long userId;
+
+    /** Version the user reached, or {@link #DELETED}. */
+    @Column(nullable = false)
+    public Long version;
+
+    /** Instance that made the change; it skips its own entries when polling. */
+    @Column(nullable = false, length = 36)
+    public String origin;
+
+    @Column(name = "created_at", nullable = false)
+    public LocalDateTime createdAt;
+
+    /** Default constructor */
+    public UserInvalidation() {}
+
+    /** Constructor with all fields but the generated id */
+    public UserInvalidation(Long userId, Long version, String origin, LocalDateTime createdAt) {
+        this.userId = userId;
+        this.version = version;
+        this.origin = origin;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,53 @@
+package br.com.arquivolivre.otelquarkus.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * A user change waiting to be published. Written in the same transaction as the change, on the
+ * same shard, so it exists if and only if the change committed. The relay deletes it once the
+ * sink has accepted it. Ids are an identity column of the shard's own table, so outbox events do
+ * not use up user ids. They grow in insertion order rather than commit order, so the relay claims
+ * events by {@code (createdAt, id)}.
+ */
+@Entity
+@Table(
+        name = "user_outbox",
+        indexes = @Index(name = "idx_user_outbox_created_at", columnList = "created_at, id"))
+public class UserOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public Long id;
+
+    @Column(name = "user_id", nullable = false)
+    public Long userId;
+
+    /** {@code CREATED}, {@code UPDATED} or {@code DELETED}. */
+    @Column(nullable = false, length = 16)
+    public String type;
+
+    /** The change as JSON. */
+    @Column(nullable = false, length = 2000)
+    public String payload;
+
+    @Column(name = "created_at", nullable = false)
+    public LocalDateTime createdAt;
+
+    /** Default constructor */
+    public UserOutboxEvent() {}
+
+    /** Constructor with all fields but the generated id */
+    public UserOutboxEvent(Long userId, String type, String payload, LocalDateTime createdAt) {
+        this.userId = userId;
+        this.type = type;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.arquivolivre.otelquarkus.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Marker left behind when a user is deleted, so the changes feed can report the deletion. Lives on
+ * the same shard the user did, and is written in the same transaction that deletes the user.
+ */
+@Entity
+@Table(
+        name = "user_tombstones",
+        indexes = @Index(name = "idx_user_tombstones_deleted_at", columnList = "deleted_at, id"))
+public class UserTombstone {
+
+    /** Id of the deleted user. */
+    @Id public Long id;
+
+    @Column(name = "deleted_at", nullable = false)
+    public LocalDateTime deletedAt;
+
+    /** Default constructor */
+    public UserTombstone() {}
+
+    /** Constructor with all fields */
+    public UserTombstone(Long id, LocalDateTime deletedAt) {
+        this.id = id;
+        this.deletedAt = deletedAt;
+    }
+}
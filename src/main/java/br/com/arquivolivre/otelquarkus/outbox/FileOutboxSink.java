@@ -0,0 +1,69 @@
+package br.com.arquivolivre.otelquarkus.outbox;
+
+import br.com.arquivolivre.otelquarkus.model.UserOutboxEvent;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Appends events to a local file, one JSON line each. A batch is written with one call and forced
+ * to disk once, so the cost of the sync is shared by the whole batch.
+ */
+public class FileOutboxSink implements OutboxSink, Closeable {
+
+    /** An event as written to the file; the payload is embedded as JSON, not as a string. */
+    @RegisterForReflection
+    record Line(
+            Long id,
+            Long userId,
+            String type,
+            LocalDateTime createdAt,
+            @JsonRawValue String payload) {}
+
+    private final ObjectMapper mapper;
+    private final FileChannel channel;
+
+    /**
+     * @param file File to append to; created with its directory if missing
+     * @param mapper Mapper for the lines
+     */
+    public FileOutboxSink(Path file, ObjectMapper mapper) throws IOException {
+        this.mapper = mapper;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel =
+                FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void publish(List<UserOutboxEvent> events) throws IOException {
+        StringBuilder batch = new StringBuilder(events.size() * 256);
+        for (UserOutboxEvent event : events) {
+            Line line =
+                    new Line(event.id, event.userId, event.type, event.createdAt, event.payload);
+            batch.append(mapper.writeValueAsString(line)).append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,30 @@
+package br.com.arquivolivre.otelquarkus.outbox;
+
+import br.com.arquivolivre.otelquarkus.model.UserOutboxEvent;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/** Keeps published events in memory, for tests and local runs. */
+public class MemoryOutboxSink implements OutboxSink {
+
+    private final List<UserOutboxEvent> published = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<UserOutboxEvent> events) {
+        published.addAll(events);
+    }
+
+    /**
+     * Events published so far
+     *
+     * @return Snapshot of the published events, oldest first
+     */
+    public List<UserOutboxEvent> published() {
+        return List.copyOf(published);
+    }
+
+    /** Forget the events published so far. */
+    public void clear() {
+        published.clear();
+    }
+}
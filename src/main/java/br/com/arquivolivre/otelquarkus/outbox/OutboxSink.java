@@ -0,0 +1,22 @@
+package br.com.arquivolivre.otelquarkus.outbox;
+
+import br.com.arquivolivre.otelquarkus.model.UserOutboxEvent;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the user outbox relay. Selected through {@code users.outbox.sink}, see {@link
+ * OutboxSinkProducer}. Delivery is at least once: a batch whose transaction fails after {@link
+ * #publish} returned is published again, so consumers should deduplicate on the user id and the
+ * version in the payload. Event ids are only unique within a shard.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publish a batch of events. The events are only deleted from the outbox once this returns.
+     *
+     * @param events Events in outbox order
+     * @throws IOException if the batch could not be published; it is retried later
+     */
+    void publish(List<UserOutboxEvent> events) throws IOException;
+}
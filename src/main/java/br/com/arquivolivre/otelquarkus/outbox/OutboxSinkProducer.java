@@ -0,0 +1,63 @@
+package br.com.arquivolivre.otelquarkus.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.arc.DefaultBean;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Produces the {@link OutboxSink} selected by {@code users.outbox.sink}:
+ *
+ * <ul>
+ *   <li>{@code file} (default) - JSON lines appended to {@code users.outbox.file}
+ *   <li>{@code memory} - kept in memory, for tests and local runs
+ * </ul>
+ *
+ * <p>Another destination, such as a message broker, can replace it with its own {@link
+ * OutboxSink} bean.
+ */
+@ApplicationScoped
+public class OutboxSinkProducer {
+
+    private static final Logger LOG = Logger.getLogger(OutboxSinkProducer.class);
+
+    static final String FILE = "file";
+    static final String MEMORY = "memory";
+
+    @Produces
+    @DefaultBean
+    @ApplicationScoped
+    OutboxSink outboxSink(
+            @ConfigProperty(name = "users.outbox.sink", defaultValue = FILE) String sink,
+            @ConfigProperty(name = "users.outbox.file", defaultValue = "outbox/user-events.jsonl")
+                    String file,
+            ObjectMapper mapper) {
+        LOG.infof("Using '%s' outbox sink", sink);
+        return switch (sink) {
+            case FILE -> {
+                try {
+                    yield new FileOutboxSink(Path.of(file), mapper);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot open outbox file " + file, e);
+                }
+            }
+            case MEMORY -> new MemoryOutboxSink();
+            default ->
+                    throw new IllegalArgumentException(
+                            "Unknown users.outbox.sink '" + sink + "', expected file or memory");
+        };
+    }
+
+    void close(@Disposes OutboxSink sink) throws IOException {
+        if (sink instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package br.com.arquivolivre.otelquarkus.repository;
+
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.datasource.ShardScatterGather;
+import br.com.arquivolivre.otelquarkus.model.UserInvalidation;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for the cache invalidation log. Entries are written through the transaction session
+ * of the change they describe, so they land on the user's shard; reads cover all shards.
+ */
+@ApplicationScoped
+public class UserInvalidationRepository implements PanacheRepository<UserInvalidation> {
+
+    @Inject ShardRouter shardRouter;
+
+    @Inject ShardScatterGather scatterGather;
+
+    /**
+     * Find entries written after a time, over all shards. Served by the {@code
+     * idx_user_invalidations_created_at} index.
+     *
+     * @param since Only entries created after this time
+     * @return Matching entries, ordered by creation time within each shard
+     */
+    public List<UserInvalidation> findSince(LocalDateTime since) {
+        if (shardRouter.isSharded()) {
+            return scatterGather.gatherList(
+                    session ->
+                            session.createSelectionQuery(
+                                            "from UserInvalidation where createdAt > :since"
+                                                    + " order by createdAt",
+                                            UserInvalidation.class)
+                                    .setParameter("since", since)
+                                    .list());
+        }
+        return list("createdAt > ?1 order by createdAt", since);
+    }
+
+    /**
+     * Delete entries older than a cutoff on the current shard. Must run in a transaction.
+     *
+     * @param cutoff Entries created before this time are deleted
+     * @return Number of entries deleted
+     */
+    public long deleteOlderThan(LocalDateTime cutoff) {
+        return delete("createdAt < ?1", cutoff);
+    }
+}
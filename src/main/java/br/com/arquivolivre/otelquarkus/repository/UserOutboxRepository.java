@@ -0,0 +1,76 @@
+package br.com.arquivolivre.otelquarkus.repository;
+
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.datasource.ShardScatterGather;
+import br.com.arquivolivre.otelquarkus.model.UserOutboxEvent;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Collection;
+import java.util.List;
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+
+/**
+ * Repository for the user outbox. Rows are written through the transaction session of the change
+ * they describe, so they land on the same shard; claiming and purging run on whichever shard the
+ * caller has bound.
+ */
+@ApplicationScoped
+public class UserOutboxRepository implements PanacheRepository<UserOutboxEvent> {
+
+    @Inject ShardRouter shardRouter;
+
+    @Inject ShardScatterGather scatterGather;
+
+    /**
+     * Lock the oldest unpublished events for the current transaction, in {@code (createdAt, id)}
+     * order: ids come from per-node blocks, so they do not follow the order changes were made in
+     * across nodes. Consumers that need the exact order of one user's changes use the version in
+     * each payload. Rows already locked by
+     * another relay are skipped ({@code FOR UPDATE SKIP LOCKED}), so relays on several nodes claim
+     * disjoint batches instead of waiting on each other. Databases without {@code SKIP LOCKED},
+     * such as H2, fall back to a plain {@code FOR UPDATE}.
+     *
+     * @param limit Maximum events to claim
+     * @return Claimed events, oldest first
+     */
+    public List<UserOutboxEvent> claimBatch(int limit) {
+        return getEntityManager()
+                .unwrap(Session.class)
+                .createSelectionQuery(
+                        "from UserOutboxEvent order by createdAt, id", UserOutboxEvent.class)
+                .setHibernateLockMode(LockMode.UPGRADE_SKIPLOCKED)
+                .setMaxResults(limit)
+                .list();
+    }
+
+    /**
+     * Delete published events with one statement
+     *
+     * @param ids Ids of the events
+     * @return Number of rows deleted
+     */
+    public long deleteByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return delete("id in ?1", ids);
+    }
+
+    /**
+     * Count unpublished events, over all shards
+     *
+     * @return Outbox depth
+     */
+    public long countPending() {
+        if (shardRouter.isSharded()) {
+            return scatterGather.gatherSum(
+                    session ->
+                            session.createSelectionQuery(
+                                            "select count(*) from UserOutboxEvent", Long.class)
+                                    .getSingleResult());
+        }
+        return count();
+    }
+}
@@ -1,18 +1,127 @@
 package br.com.arquivolivre.otelquarkus.repository;
 
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.datasource.ShardScatterGather;
 import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.model.UserTombstone;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Parameters;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 
 /**
  * Repository for User entity operations. Uses Panache Repository pattern for database operations.
+ *
+ * <p>When {@code users.sharding.shard-count} is greater than 1, id-based methods run on the shard
+ * encoded in the id, email-based methods on the shard owning the email hash, and the remaining
+ * queries are scattered to all shards in parallel and merged. Write methods rely on the transaction
+ * session being opened by their first (routed) query.
  */
 @ApplicationScoped
 public class UserRepository implements PanacheRepository<User> {
 
+    @Inject ShardRouter shardRouter;
+
+    @Inject ShardScatterGather scatterGather;
+
+    @Inject SessionFactory sessionFactory;
+
+    /**
+     * Find user by ID
+     *
+     * @param id User ID
+     * @return Optional containing user if found
+     */
+    @Override
+    public Optional<User> findByIdOptional(Long id) {
+        return shardRouter.onIdShard(
+                id, () -> Optional.ofNullable(findById(id)), Optional.<User>empty());
+    }
+
+    /**
+     * Find a user's current version without loading the row, e.g. to check a copy is still fresh
+     *
+     * @param id User ID
+     * @return Optional containing the version if the user exists
+     */
+    public Optional<Long> findVersion(Long id) {
+        return shardRouter.onIdShard(
+                id,
+                () ->
+                        getEntityManager()
+                                .createQuery("select version from User where id = :id", Long.class)
+                                .setParameter("id", id)
+                                .getResultStream()
+                                .findFirst(),
+                Optional.<Long>empty());
+    }
+
+    /**
+     * List all users
+     *
+     * @return List of all users
+     */
+    @Override
+    public List<User> listAll() {
+        if (shardRouter.isSharded()) {
+            return scatterGather.gatherList(
+                    session -> session.createSelectionQuery("from User", User.class).list());
+        }
+        return findAll().list();
+    }
+
+    /**
+     * Stream every user, ordered by id within each shard, through a forward-only cursor. Each shard
+     * is read in its own stateless session, so rows are neither cached nor tracked and memory use
+     * does not grow with the table. The users handed to {@code action} are detached.
+     *
+     * @param fetchSize Rows the driver fetches per round trip
+     * @param action Called once per user, on the calling thread
+     * @return Number of users streamed
+     */
+    public long forEachUser(int fetchSize, Consumer<User> action) {
+        int shards = shardRouter.isSharded() ? shardRouter.shardCount() : 1;
+        long rows = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            try (StatelessSession session =
+                            sessionFactory
+                                    .withStatelessOptions()
+                                    .tenantIdentifier(shardRouter.tenantFor(shard))
+                                    .openStatelessSession();
+                    ScrollableResults<User> results =
+                            session.createSelectionQuery("from User order by id", User.class)
+                                    .setFetchSize(fetchSize)
+                                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    action.accept(results.get());
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
     /**
      * Find user by email
      *
@@ -20,7 +129,7 @@ public class UserRepository implements PanacheRepository<User> {
      * @return Optional containing user if found
      */
     public Optional<User> findByEmail(String email) {
-        return find("email", email).firstResultOptional();
+        return shardRouter.onEmailShard(email, () -> find("email", email).firstResultOptional());
     }
 
     /**
@@ -30,7 +139,17 @@ public class UserRepository implements PanacheRepository<User> {
      * @return List of matching users
      */
     public List<User> searchByName(String name) {
-        return list("LOWER(name) LIKE LOWER(?1)", "%" + name + "%");
+        String pattern = "%" + name + "%";
+        if (shardRouter.isSharded()) {
+            return scatterGather.gatherList(
+                    session ->
+                            session.createSelectionQuery(
+                                            "from User where LOWER(name) LIKE LOWER(:pattern)",
+                                            User.class)
+                                    .setParameter("pattern", pattern)
+                                    .list());
+        }
+        return list("LOWER(name) LIKE LOWER(?1)", pattern);
     }
 
     /**
@@ -41,9 +160,57 @@ public class UserRepository implements PanacheRepository<User> {
      */
     public List<User> findRecentUsers(int days) {
         LocalDateTime cutoffDate = LocalDateTime.now().minusDays(days);
+        if (shardRouter.isSharded()) {
+            return scatterGather.gatherList(
+                    session ->
+                            session.createSelectionQuery(
+                                            "from User where createdAt >= :cutoff", User.class)
+                                    .setParameter("cutoff", cutoffDate)
+                                    .list());
+        }
         return list("createdAt >= ?1", cutoffDate);
     }
 
+    /**
+     * Find the ids of the most recently created or updated users, newest first, through the {@code
+     * idx_users_updated_at} index. When sharded, each shard's newest ids are merged.
+     *
+     * @param limit Maximum number of ids
+     * @return Ids of the newest users
+     */
+    public List<Long> findRecentlyUpdatedIds(int limit) {
+        Function<Session, List<Object[]>> newest =
+                session ->
+                        session.createSelectionQuery(
+                                        "select id, updatedAt from User"
+                                                + " order by updatedAt desc, id desc",
+                                        Object[].class)
+                                .setMaxResults(limit)
+                                .list();
+        List<Object[]> rows;
+        if (shardRouter.isSharded()) {
+            rows = scatterGather.gatherList(newest);
+            rows.sort(
+                    Comparator.comparing((Object[] row) -> (LocalDateTime) row[1]).reversed());
+        } else {
+            rows = newest.apply(getEntityManager().unwrap(Session.class));
+        }
+        return rows.stream().limit(limit).map(row -> (Long) row[0]).toList();
+    }
+
+    /**
+     * Find users by id in one query
+     *
+     * @param ids User IDs, all on the same shard
+     * @return The users found, in no particular order
+     */
+    public List<User> findByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return shardRouter.onIdShard(ids.get(0), () -> list("id in ?1", ids), List.<User>of());
+    }
+
     /**
      * Check if email already exists
      *
@@ -51,7 +218,34 @@ public class UserRepository implements PanacheRepository<User> {
      * @return true if email exists, false otherwise
      */
     public boolean existsByEmail(String email) {
-        return count("email", email) > 0;
+        return shardRouter.onEmailShard(email, () -> count("email", email) > 0);
+    }
+
+    /**
+     * Find which of the given emails are already taken, with one query per shard involved
+     *
+     * @param emails Emails to check
+     * @return The subset of emails that exist
+     */
+    public List<String> findExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return List.of();
+        }
+        if (!shardRouter.isSharded()) {
+            return queryExistingEmails(emails);
+        }
+        Map<Integer, List<String>> byShard = new LinkedHashMap<>();
+        for (String email : emails) {
+            byShard.computeIfAbsent(shardRouter.shardForEmail(email), s -> new ArrayList<>())
+                    .add(email);
+        }
+        List<String> existing = new ArrayList<>();
+        for (List<String> shardEmails : byShard.values()) {
+            existing.addAll(
+                    shardRouter.onEmailShard(
+                            shardEmails.get(0), () -> queryExistingEmails(shardEmails)));
+        }
+        return existing;
     }
 
     /**
@@ -60,9 +254,121 @@ public class UserRepository implements PanacheRepository<User> {
      * @param email Email to check
      * @param excludeId ID to exclude from check
      * @return true if email exists for a different user
+     * @throws IllegalArgumentException if sharded and the email belongs to another shard than the
+     *     user, since changing it would require moving the user
      */
     public boolean existsByEmailAndIdNot(String email, Long excludeId) {
-        return count("email = ?1 and id != ?2", email, excludeId) > 0;
+        requireSameShard(email, excludeId);
+        return shardRouter.onEmailShard(
+                email, () -> count("email = ?1 and id != ?2", email, excludeId) > 0);
+    }
+
+    /**
+     * Update name, email and bio with a single conditional statement. The row is only written when
+     * at least one of the values differs and, when {@code expectedVersion} is given, the stored
+     * version still matches it. A write increments the version. Values are compared exactly, so a
+     * change in case alone is written even where the column collation ignores case.
+     *
+     * @param id User ID
+     * @param expectedVersion Version the caller based its changes on, or null to skip the check
+     * @param changes New name, email and bio
+     * @return true if the row was written, false if it is missing, unchanged or at another version
+     * @throws IllegalArgumentException if sharded and the new email belongs to another shard than
+     *     the user
+     */
+    public boolean updateIfChanged(Long id, Long expectedVersion, User changes) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("name", changes.name);
+        fields.put("email", changes.email);
+        fields.put("bio", changes.bio);
+        return patchIfChanged(id, expectedVersion, fields);
+    }
+
+    /**
+     * Like {@link #updateIfChanged(Long, Long, User)}, but the generated UPDATE only sets the given
+     * fields. Nothing is executed when {@code fields} is empty.
+     *
+     * @param id User ID
+     * @param expectedVersion Version the caller based its changes on, or null to skip the check
+     * @param fields New values keyed by field name, a subset of {@link User#UPDATABLE_FIELDS}
+     * @return true if the row was written, false if it is missing, unchanged or at another version
+     * @throws IllegalArgumentException if a field is not updatable, or if sharded and the new email
+     *     belongs to another shard than the user
+     */
+    public boolean patchIfChanged(Long id, Long expectedVersion, Map<String, Object> fields) {
+        if (fields.isEmpty()) {
+            return false;
+        }
+        if (fields.containsKey("email")) {
+            requireSameShard((String) fields.get("email"), id);
+        }
+        StringBuilder query = new StringBuilder();
+        StringJoiner changed = new StringJoiner(" or ", " and (", ")");
+        Parameters params = Parameters.with("id", id).and("now", LocalDateTime.now());
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            String name = field.getKey();
+            if (!User.UPDATABLE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Field cannot be updated: " + name);
+            }
+            query.append(name).append(" = :").append(name).append(", ");
+            changed.add(name + " is distinct from :" + name);
+            params.and(name, field.getValue());
+        }
+        query.append("updatedAt = :now, version = version + 1 where id = :id");
+        String assignments = query.toString();
+        if (expectedVersion != null) {
+            query.append(" and version = :version");
+            params.and("version", expectedVersion);
+        }
+        query.append(changed);
+        return shardRouter.onIdShard(
+                id,
+                () ->
+                        update(query.toString(), params) > 0
+                                || writeIfChangedExactly(id, expectedVersion, fields, assignments),
+                false);
+    }
+
+    /**
+     * Second look after the conditional UPDATE matched no row. Its change guard compares with the
+     * column collation, which on MySQL ignores case, so a change like {@code Ana} to {@code ana}
+     * looks unchanged to the database. Compare the stored values exactly here and, if one differs,
+     * write the row guarded by the version just read.
+     */
+    private boolean writeIfChangedExactly(
+            Long id, Long expectedVersion, Map<String, Object> fields, String assignments) {
+        User current = findById(id);
+        if (current == null
+                || (expectedVersion != null && !expectedVersion.equals(current.version))
+                || !differsExactly(current, fields)) {
+            return false;
+        }
+        Parameters params =
+                Parameters.with("id", id)
+                        .and("now", LocalDateTime.now())
+                        .and("version", current.version);
+        fields.forEach(params::and);
+        if (update(assignments + " and version = :version", params) == 0) {
+            return false;
+        }
+        // The session holds the row as read above; later reads in it must see the write
+        getEntityManager().refresh(current);
+        return true;
+    }
+
+    private static boolean differsExactly(User current, Map<String, Object> fields) {
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            Object stored =
+                    switch (field.getKey()) {
+                        case "name" -> current.name;
+                        case "email" -> current.email;
+                        default -> current.bio;
+                    };
+            if (!Objects.equals(stored, field.getValue())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -71,16 +377,172 @@ public class UserRepository implements PanacheRepository<User> {
      * @return Total user count
      */
     public long countUsers() {
+        if (shardRouter.isSharded()) {
+            return scatterGather.gatherSum(
+                    session ->
+                            session.createSelectionQuery("select count(*) from User", Long.class)
+                                    .getSingleResult());
+        }
         return count();
     }
 
     /**
-     * Delete user by ID
+     * Estimate the number of users from table statistics, without scanning the table. MySQL and H2
+     * keep a row count estimate in {@code information_schema.tables}; other databases, or a table
+     * without statistics yet, fall back to an exact count.
+     *
+     * @return Estimated number of users
+     */
+    public long estimateUserCount() {
+        if (shardRouter.isSharded()) {
+            return scatterGather.gatherSum(
+                    session -> session.doReturningWork(UserRepository::estimateRows));
+        }
+        return getEntityManager()
+                .unwrap(Session.class)
+                .doReturningWork(UserRepository::estimateRows);
+    }
+
+    /**
+     * Delete user by ID, leaving a {@link UserTombstone} for the changes feed
      *
      * @param id User ID
      * @return true if deleted, false if not found
      */
     public boolean deleteUser(Long id) {
-        return deleteById(id);
+        return shardRouter.onIdShard(
+                id,
+                () -> {
+                    if (!deleteById(id)) {
+                        return false;
+                    }
+                    getEntityManager().persist(new UserTombstone(id, LocalDateTime.now()));
+                    return true;
+                },
+                false);
+    }
+
+    /**
+     * Delete tombstones older than a cutoff on the current shard. Must run in a transaction.
+     *
+     * @param cutoff Tombstones of users deleted before this time are deleted
+     * @return Number of tombstones deleted
+     */
+    public long deleteTombstonesOlderThan(LocalDateTime cutoff) {
+        return getEntityManager()
+                .createQuery("delete from UserTombstone where deletedAt < :cutoff")
+                .setParameter("cutoff", cutoff)
+                .executeUpdate();
+    }
+
+    /**
+     * Find users created or updated after a position, in {@code (updatedAt, id)} order. Served by
+     * the {@code idx_users_updated_at} index. When sharded, each shard returns up to {@code limit}
+     * users and the caller merges them.
+     *
+     * @param after Only users updated after this time, or at this time with a greater id
+     * @param afterId Id tie-breaker for {@code after}
+     * @param until Only users updated at or before this time
+     * @param limit Maximum users per shard
+     * @return Matching users, ordered within each shard
+     */
+    public List<User> findChangedSince(
+            LocalDateTime after, long afterId, LocalDateTime until, int limit) {
+        return changesSince(
+                User.class,
+                "from User where (updatedAt > :after or (updatedAt = :after and id > :afterId))"
+                        + " and updatedAt <= :until order by updatedAt, id",
+                after,
+                afterId,
+                until,
+                limit);
+    }
+
+    /**
+     * Find tombstones of users deleted after a position, in {@code (deletedAt, id)} order. When
+     * sharded, each shard returns up to {@code limit} tombstones and the caller merges them.
+     *
+     * @param after Only users deleted after this time, or at this time with a greater id
+     * @param afterId Id tie-breaker for {@code after}
+     * @param until Only users deleted at or before this time
+     * @param limit Maximum tombstones per shard
+     * @return Matching tombstones, ordered within each shard
+     */
+    public List<UserTombstone> findDeletedSince(
+            LocalDateTime after, long afterId, LocalDateTime until, int limit) {
+        return changesSince(
+                UserTombstone.class,
+                "from UserTombstone where (deletedAt > :after"
+                        + " or (deletedAt = :after and id > :afterId))"
+                        + " and deletedAt <= :until order by deletedAt, id",
+                after,
+                afterId,
+                until,
+                limit);
+    }
+
+    private <T> List<T> changesSince(
+            Class<T> type,
+            String query,
+            LocalDateTime after,
+            long afterId,
+            LocalDateTime until,
+            int limit) {
+        Function<Session, List<T>> page =
+                session ->
+                        session.createSelectionQuery(query, type)
+                                .setParameter("after", after)
+                                .setParameter("afterId", afterId)
+                                .setParameter("until", until)
+                                .setMaxResults(limit)
+                                .list();
+        if (shardRouter.isSharded()) {
+            return scatterGather.gatherList(page);
+        }
+        return page.apply(getEntityManager().unwrap(Session.class));
+    }
+
+    private List<String> queryExistingEmails(Collection<String> emails) {
+        return getEntityManager()
+                .createQuery("select email from User where email in :emails", String.class)
+                .setParameter("emails", emails)
+                .getResultList();
+    }
+
+    private void requireSameShard(String email, Long id) {
+        if (shardRouter.isSharded()) {
+            int shard = shardRouter.shardForId(id);
+            if (shard >= 0 && shard != shardRouter.shardForEmail(email)) {
+                throw new IllegalArgumentException(
+                        "Email change would move user to another shard: " + email);
+            }
+        }
+    }
+
+    private static long estimateRows(Connection connection) throws SQLException {
+        String estimate =
+                switch (connection.getMetaData().getDatabaseProductName()) {
+                    case "MySQL" ->
+                            "select table_rows from information_schema.tables"
+                                    + " where table_schema = database() and table_name = 'users'";
+                    case "H2" ->
+                            "select row_count_estimate from information_schema.tables"
+                                    + " where table_schema = current_schema"
+                                    + " and table_name = 'USERS'";
+                    default -> null;
+                };
+        try (Statement statement = connection.createStatement()) {
+            if (estimate != null) {
+                try (ResultSet rows = statement.executeQuery(estimate)) {
+                    if (rows.next() && rows.getObject(1) != null) {
+                        return rows.getLong(1);
+                    }
+                }
+            }
+            try (ResultSet rows = statement.executeQuery("select count(*) from users")) {
+                rows.next();
+                return rows.getLong(1);
+            }
+        }
     }
 }
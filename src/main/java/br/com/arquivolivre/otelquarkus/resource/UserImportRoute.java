@@ -0,0 +1,160 @@
+package br.com.arquivolivre.otelquarkus.resource;
+
+import br.com.arquivolivre.otelquarkus.service.UserImportService;
+import io.quarkus.vertx.http.runtime.RouteConstants;
+import io.vertx.core.Vertx;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.nio.file.Path;
+import org.jboss.logging.Logger;
+
+/**
+ * Receives CSV uploads for {@code POST /api/users/import}. Quarkus applies {@code
+ * quarkus.http.limits.max-body-size} to every route alike, and the import is the only one that
+ * takes bodies larger than that, so this route is registered ahead of the limit and streams the
+ * upload to a temporary file itself, stopping at {@code users.import.max-size}. It then hands the
+ * file to {@link UserImportService}. A body without a {@code Content-Length} (chunked, HTTP/2) is
+ * counted as it arrives, the same as one with.
+ */
+@ApplicationScoped
+public class UserImportRoute {
+
+    static final String IMPORT_PATH = "/api/users/import";
+
+    private static final Logger LOG = Logger.getLogger(UserImportRoute.class);
+
+    private final Vertx vertx;
+    private final UserImportService importService;
+
+    @Inject
+    public UserImportRoute(Vertx vertx, UserImportService importService) {
+        this.vertx = vertx;
+        this.importService = importService;
+    }
+
+    void register(@Observes Router router) {
+        router.post(IMPORT_PATH)
+                .consumes(UserResource.TEXT_CSV)
+                .consumes("application/octet-stream")
+                .order(RouteConstants.ROUTE_ORDER_UPLOAD_LIMIT - 1)
+                .handler(this::upload);
+    }
+
+    private void upload(RoutingContext ctx) {
+        LOG.info("POST /api/users/import - Importing users from CSV");
+        HttpServerRequest request = ctx.request();
+        long maxBytes = importService.maxBytes();
+        String length = request.getHeader(HttpHeaders.CONTENT_LENGTH);
+        if (length != null && isLongerThan(length, maxBytes)) {
+            tooLarge(ctx, maxBytes);
+            return;
+        }
+        request.pause();
+        FileSystem fs = vertx.fileSystem();
+        fs.createTempFile("users-import-", ".csv")
+                .compose(
+                        path ->
+                                fs.open(path, new OpenOptions().setWrite(true))
+                                        .onSuccess(
+                                                file -> spool(ctx, Path.of(path), file, maxBytes)))
+                .onFailure(
+                        e -> {
+                            LOG.error("Cannot create import spool file", e);
+                            error(ctx, 500, "Cannot create import spool file");
+                        });
+    }
+
+    /** Copy the upload to the spool file, stopping as soon as it passes the size cap. */
+    private void spool(RoutingContext ctx, Path path, AsyncFile file, long maxBytes) {
+        HttpServerRequest request = ctx.request();
+        long[] total = {0};
+        request.handler(
+                buffer -> {
+                    total[0] += buffer.length();
+                    if (total[0] > maxBytes) {
+                        request.handler(null).endHandler(null).exceptionHandler(null);
+                        discard(path, file);
+                        tooLarge(ctx, maxBytes);
+                        return;
+                    }
+                    file.write(buffer);
+                    if (file.writeQueueFull()) {
+                        request.pause();
+                        file.drainHandler(v -> request.resume());
+                    }
+                });
+        request.exceptionHandler(
+                e -> {
+                    LOG.warn("Error receiving CSV upload", e);
+                    discard(path, file);
+                    error(ctx, 400, "Cannot read CSV upload: " + e.getMessage());
+                });
+        request.endHandler(
+                v ->
+                        file.close()
+                                .onSuccess(done -> accepted(ctx, importService.submit(path)))
+                                .onFailure(
+                                        e -> {
+                                            LOG.error("Cannot write import spool file", e);
+                                            discard(path, file);
+                                            error(ctx, 500, "Cannot write import spool file");
+                                        }));
+        request.resume();
+    }
+
+    private void discard(Path path, AsyncFile file) {
+        file.close().onComplete(closed -> vertx.fileSystem().delete(path.toString()));
+    }
+
+    private static boolean isLongerThan(String length, long maxBytes) {
+        try {
+            return Long.parseLong(length.trim()) > maxBytes;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static void accepted(RoutingContext ctx, UserImportService.Status status) {
+        String statusUrl = IMPORT_PATH + "/" + status.jobId();
+        ctx.response()
+                .setStatusCode(202)
+                .putHeader(HttpHeaders.LOCATION, statusUrl)
+                .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                .end(
+                        new JsonObject()
+                                .put("jobId", status.jobId())
+                                .put("status", status.state().name())
+                                .put("statusUrl", statusUrl)
+                                .encode());
+    }
+
+    private static void tooLarge(RoutingContext ctx, long maxBytes) {
+        LOG.warnf("CSV upload exceeds the import limit of %d bytes", maxBytes);
+        // The rest of the body is not read, so the connection cannot be reused
+        ctx.response().putHeader(HttpHeaders.CONNECTION, "close");
+        error(ctx, 413, "CSV upload exceeds the import limit of " + maxBytes + " bytes");
+    }
+
+    private static void error(RoutingContext ctx, int status, String message) {
+        if (ctx.response().ended()) {
+            return;
+        }
+        ctx.response()
+                .setStatusCode(status)
+                .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                .end(
+                        new JsonObject()
+                                .put("error", message)
+                                .put("timestamp", String.valueOf(System.currentTimeMillis()))
+                                .encode());
+    }
+}
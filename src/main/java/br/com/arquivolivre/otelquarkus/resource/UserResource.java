@@ -1,15 +1,31 @@
 package br.com.arquivolivre.otelquarkus.resource;
 
 import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.service.UserChangeFeed;
+import br.com.arquivolivre.otelquarkus.service.UserCreateBatcher;
+import br.com.arquivolivre.otelquarkus.service.UserEventBroadcaster;
+import br.com.arquivolivre.otelquarkus.service.UserExportService;
+import br.com.arquivolivre.otelquarkus.service.UserImportService;
 import br.com.arquivolivre.otelquarkus.service.UserService;
+import br.com.arquivolivre.otelquarkus.service.UserWriteBehind;
 import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.net.URI;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
@@ -30,8 +46,28 @@ public class UserResource {
 
     private static final Logger LOG = Logger.getLogger(UserResource.class);
 
+    /** Media type of a JSON Merge Patch document (RFC 7396). */
+    public static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
+    /** Media type of a CSV document (RFC 4180). */
+    public static final String TEXT_CSV = "text/csv";
+
     @Inject UserService userService;
 
+    @Inject UserCreateBatcher createBatcher;
+
+    @Inject UserWriteBehind writeBehind;
+
+    @Inject UserImportService importService;
+
+    @Inject UserExportService exportService;
+
+    @Inject UserChangeFeed changeFeed;
+
+    @Inject UserEventBroadcaster eventBroadcaster;
+
+    @Inject Validator validator;
+
     @GET
     @Operation(summary = "Get all users", description = "Retrieve a list of all users")
     @APIResponse(
@@ -105,23 +141,187 @@ public class UserResource {
                     @Content(
                             mediaType = MediaType.APPLICATION_JSON,
                             schema = @Schema(implementation = User.class)))
+    @APIResponse(
+            responseCode = "202",
+            description = "User accepted for asynchronous creation (write-behind mode)")
     @APIResponse(responseCode = "400", description = "Invalid input or email already exists")
+    @APIResponse(
+            responseCode = "503",
+            description = "Write-behind queue is full, or group commit timed out")
     public Response createUser(@Valid User user) {
         LOG.infof("POST /api/users - Creating user with email: %s", user.email);
+        if (writeBehind.isEnabled()) {
+            return acceptForWriteBehind(user);
+        }
         try {
-            User createdUser = userService.createUser(user);
+            User createdUser =
+                    createBatcher.isEnabled()
+                            ? createBatcher.createUser(user)
+                            : userService.createUser(user);
             return Response.status(Response.Status.CREATED).entity(createdUser).build();
         } catch (IllegalArgumentException e) {
-            LOG.error("Error creating user", e);
+            LOG.warnf("Error creating user: %s", e.getMessage());
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(createErrorResponse(e.getMessage()))
                     .build();
+        } catch (IllegalStateException e) {
+            LOG.warnf("Group commit unavailable: %s", e.getMessage());
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity(createErrorResponse(e.getMessage()))
+                    .build();
         }
     }
 
+    @GET
+    @Path("/pending/{ticket}")
+    @Operation(
+            summary = "Get write-behind status",
+            description = "Check whether a user accepted with 202 has been created yet")
+    @APIResponse(
+            responseCode = "200",
+            description = "Status found",
+            content =
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            schema = @Schema(implementation = UserWriteBehind.Status.class)))
+    @APIResponse(responseCode = "404", description = "Unknown or expired ticket")
+    public Response getPendingUser(
+            @Parameter(description = "Ticket returned by POST", required = true)
+                    @PathParam("ticket")
+                    String ticket) {
+        LOG.infof("GET /api/users/pending/%s - Fetching write-behind status", ticket);
+        return writeBehind
+                .status(ticket)
+                .map(status -> Response.ok(status).build())
+                .orElse(
+                        Response.status(Response.Status.NOT_FOUND)
+                                .entity(createErrorResponse("Unknown ticket: " + ticket))
+                                .build());
+    }
+
+    @GET
+    @Path("/import/{jobId}")
+    @Operation(
+            summary = "Get import status",
+            description = "Progress, throughput and rejected rows of a CSV import job")
+    @APIResponse(
+            responseCode = "200",
+            description = "Job found",
+            content =
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            schema = @Schema(implementation = UserImportService.Status.class)))
+    @APIResponse(responseCode = "404", description = "Unknown or expired job")
+    public Response getImportStatus(
+            @Parameter(description = "Job ID returned by the import", required = true)
+                    @PathParam("jobId")
+                    String jobId) {
+        LOG.infof("GET /api/users/import/%s - Fetching import status", jobId);
+        return importService
+                .status(jobId)
+                .map(status -> Response.ok(status).build())
+                .orElse(
+                        Response.status(Response.Status.NOT_FOUND)
+                                .entity(createErrorResponse("Unknown import job: " + jobId))
+                                .build());
+    }
+
+    @POST
+    @Path("/exports")
+    @Operation(
+            summary = "Export users to CSV",
+            description = "Write a snapshot of all users to a CSV file in the background")
+    @APIResponse(responseCode = "202", description = "Export queued")
+    public Response exportUsers() {
+        LOG.info("POST /api/users/exports - Exporting users to CSV");
+        UserExportService.Status status = exportService.submit();
+        URI statusUrl = URI.create("/api/users/exports/" + status.exportId());
+        Map<String, String> body = new HashMap<>();
+        body.put("exportId", status.exportId());
+        body.put("status", status.state().name());
+        body.put("statusUrl", statusUrl.toString());
+        return Response.accepted(body).location(statusUrl).build();
+    }
+
+    @GET
+    @Path("/exports")
+    @Operation(summary = "List exports", description = "Known exports, newest first")
+    @APIResponse(
+            responseCode = "200",
+            description = "Success",
+            content =
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            schema = @Schema(implementation = UserExportService.Status.class)))
+    public Response getExports() {
+        LOG.info("GET /api/users/exports - Listing exports");
+        return Response.ok(exportService.list()).build();
+    }
+
+    @GET
+    @Path("/exports/{exportId}")
+    @Operation(
+            summary = "Get export status",
+            description = "Progress, throughput and file name of a CSV export")
+    @APIResponse(
+            responseCode = "200",
+            description = "Export found",
+            content =
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            schema = @Schema(implementation = UserExportService.Status.class)))
+    @APIResponse(responseCode = "404", description = "Unknown or expired export")
+    public Response getExportStatus(
+            @Parameter(description = "Export ID", required = true) @PathParam("exportId")
+                    String exportId) {
+        LOG.infof("GET /api/users/exports/%s - Fetching export status", exportId);
+        return exportService
+                .status(exportId)
+                .map(status -> Response.ok(status).build())
+                .orElse(
+                        Response.status(Response.Status.NOT_FOUND)
+                                .entity(createErrorResponse("Unknown export: " + exportId))
+                                .build());
+    }
+
+    @GET
+    @Path("/exports/{exportId}/file")
+    @Produces({TEXT_CSV, MediaType.APPLICATION_JSON})
+    @Operation(
+            summary = "Download export",
+            description = "Download a completed export; the file is sent zero-copy from disk")
+    @APIResponse(responseCode = "200", description = "CSV file")
+    @APIResponse(responseCode = "404", description = "Unknown export or not completed yet")
+    public Response downloadExport(
+            @Parameter(description = "Export ID", required = true) @PathParam("exportId")
+                    String exportId) {
+        LOG.infof("GET /api/users/exports/%s/file - Downloading export", exportId);
+        // Returning a Path lets Vert.x send the file with sendfile instead of copying it
+        return exportService
+                .file(exportId)
+                .map(
+                        file ->
+                                Response.ok(file, TEXT_CSV)
+                                        .header(
+                                                "Content-Disposition",
+                                                "attachment; filename=\""
+                                                        + file.getFileName()
+                                                        + "\"")
+                                        .build())
+                .orElse(
+                        Response.status(Response.Status.NOT_FOUND)
+                                .type(MediaType.APPLICATION_JSON)
+                                .entity(createErrorResponse("Export not ready: " + exportId))
+                                .build());
+    }
+
     @PUT
     @Path("/{id}")
-    @Operation(summary = "Update user", description = "Update an existing user")
+    @Operation(
+            summary = "Update user",
+            description =
+                    "Update an existing user. Include the version from a previous read to reject"
+                            + " the update if the user changed in the meantime.")
     @APIResponse(
             responseCode = "200",
             description = "User updated",
@@ -131,6 +331,7 @@ public class UserResource {
                             schema = @Schema(implementation = User.class)))
     @APIResponse(responseCode = "400", description = "Invalid input or email conflict")
     @APIResponse(responseCode = "404", description = "User not found")
+    @APIResponse(responseCode = "409", description = "User was modified since the given version")
     public Response updateUser(
             @Parameter(description = "User ID", required = true) @PathParam("id") Long id,
             @Valid User user) {
@@ -138,13 +339,70 @@ public class UserResource {
         try {
             User updatedUser = userService.updateUser(id, user);
             return Response.ok(updatedUser).build();
-        } catch (IllegalArgumentException e) {
-            LOG.error("Error updating user", e);
-            Response.Status status =
-                    e.getMessage().contains("not found")
-                            ? Response.Status.NOT_FOUND
-                            : Response.Status.BAD_REQUEST;
-            return Response.status(status).entity(createErrorResponse(e.getMessage())).build();
+        } catch (IllegalArgumentException | OptimisticLockException e) {
+            return updateFailed(e);
+        }
+    }
+
+    @PATCH
+    @Path("/{id}")
+    @Consumes({MERGE_PATCH_JSON, MediaType.APPLICATION_JSON})
+    @Operation(
+            summary = "Patch user",
+            description =
+                    "Apply a JSON Merge Patch (RFC 7396) to name, email and bio. Only the fields in"
+                            + " the patch are validated and written. Include the version from a"
+                            + " previous read to reject the patch if the user changed in the"
+                            + " meantime.")
+    @APIResponse(
+            responseCode = "200",
+            description = "User patched",
+            content =
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            schema = @Schema(implementation = User.class)))
+    @APIResponse(responseCode = "400", description = "Invalid patch or email conflict")
+    @APIResponse(responseCode = "404", description = "User not found")
+    @APIResponse(responseCode = "409", description = "User was modified since the given version")
+    public Response patchUser(
+            @Parameter(description = "User ID", required = true) @PathParam("id") Long id,
+            Map<String, Object> patch) {
+        LOG.infof("PATCH /api/users/%d - Patching user", id);
+        if (patch == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(createErrorResponse("Patch body is required"))
+                    .build();
+        }
+
+        Map<String, Object> fields = new LinkedHashMap<>();
+        Long version = null;
+        for (Map.Entry<String, Object> entry : patch.entrySet()) {
+            String field = entry.getKey();
+            Object value = entry.getValue();
+            if ("version".equals(field) && value instanceof Number number) {
+                version = number.longValue();
+            } else if (User.UPDATABLE_FIELDS.contains(field)
+                    && (value == null || value instanceof String)) {
+                Set<ConstraintViolation<User>> violations =
+                        validator.validateValue(User.class, field, value);
+                if (!violations.isEmpty()) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(createErrorResponse(violations.iterator().next().getMessage()))
+                            .build();
+                }
+                fields.put(field, value);
+            } else {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(createErrorResponse("Field cannot be patched: " + field))
+                        .build();
+            }
+        }
+
+        try {
+            User patchedUser = userService.patchUser(id, version, fields);
+            return Response.ok(patchedUser).build();
+        } catch (IllegalArgumentException | OptimisticLockException e) {
+            return updateFailed(e);
         }
     }
 
@@ -216,6 +474,59 @@ public class UserResource {
         return Response.ok(users).build();
     }
 
+    @GET
+    @Path("/changes")
+    @Operation(
+            summary = "Get changes",
+            description =
+                    "Users created, updated or deleted since a token; start without one and pass"
+                            + " the returned next token to the following call")
+    @APIResponse(
+            responseCode = "200",
+            description = "Success",
+            content =
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            schema = @Schema(implementation = UserChangeFeed.Page.class)))
+    @APIResponse(responseCode = "400", description = "Invalid token or limit")
+    public Response getChanges(
+            @Parameter(description = "Token returned by the previous call", required = false)
+                    @QueryParam("since")
+                    String since,
+            @Parameter(description = "Maximum number of changes", required = false)
+                    @QueryParam("limit")
+                    @DefaultValue("100")
+                    int limit) {
+        LOG.infof("GET /api/users/changes?limit=%d - Fetching changes", limit);
+        try {
+            return Response.ok(changeFeed.changesSince(since, limit)).build();
+        } catch (IllegalArgumentException e) {
+            LOG.warnf("Invalid changes request: %s", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(createErrorResponse(e.getMessage()))
+                    .build();
+        }
+    }
+
+    @GET
+    @Path("/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @Operation(
+            summary = "Stream changes",
+            description =
+                    "Server-Sent Events for every committed create, update and delete; reconnect"
+                            + " with Last-Event-ID to receive the events missed meanwhile")
+    @APIResponse(responseCode = "200", description = "Event stream")
+    public void streamEvents(
+            @Context SseEventSink sink,
+            @Context Sse sse,
+            @Parameter(description = "Id of the last event received", required = false)
+                    @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER)
+                    String lastEventId) {
+        LOG.infof("GET /api/users/events - Subscribing (Last-Event-ID: %s)", lastEventId);
+        eventBroadcaster.subscribe(sink, sse, lastEventId);
+    }
+
     @GET
     @Path("/count")
     @Operation(summary = "Get user count", description = "Get the total number of users")
@@ -240,6 +551,46 @@ public class UserResource {
         return Response.ok(health).build();
     }
 
+    /** Helper method to queue a user in write-behind mode and answer with its status URL */
+    private Response acceptForWriteBehind(User user) {
+        UserWriteBehind.Status status;
+        try {
+            status = writeBehind.submit(user);
+        } catch (IllegalArgumentException e) {
+            LOG.warnf("Error accepting user: %s", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(createErrorResponse(e.getMessage()))
+                    .build();
+        } catch (IllegalStateException e) {
+            LOG.warn("Write-behind queue is full, rejecting user");
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity(createErrorResponse(e.getMessage()))
+                    .build();
+        }
+        URI statusUrl = URI.create("/api/users/pending/" + status.ticket());
+        Map<String, String> body = new HashMap<>();
+        body.put("ticket", status.ticket());
+        body.put("status", status.state().name());
+        body.put("statusUrl", statusUrl.toString());
+        return Response.accepted(body).location(statusUrl).build();
+    }
+
+    /** Helper method to map a failed update or patch to its error response */
+    private Response updateFailed(RuntimeException e) {
+        Response.Status status;
+        if (e instanceof OptimisticLockException) {
+            LOG.warnf("Version conflict updating user: %s", e.getMessage());
+            status = Response.Status.CONFLICT;
+        } else {
+            LOG.warnf("Error updating user: %s", e.getMessage());
+            status =
+                    e.getMessage().contains("not found")
+                            ? Response.Status.NOT_FOUND
+                            : Response.Status.BAD_REQUEST;
+        }
+        return Response.status(status).entity(createErrorResponse(e.getMessage())).build();
+    }
+
     /** Helper method to create error response */
     private Map<String, String> createErrorResponse(String message) {
         Map<String, String> error = new HashMap<>();
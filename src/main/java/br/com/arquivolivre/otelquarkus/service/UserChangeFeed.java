@@ -0,0 +1,232 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import br.com.arquivolivre.otelquarkus.datasource.RequestContexts;
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.model.UserTombstone;
+import br.com.arquivolivre.otelquarkus.repository.UserRepository;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Incremental sync of users. A consumer starts without a token, then passes the {@code next} token
+ * of each page to fetch what was created, updated or deleted since. The token is an opaque {@code
+ * (time, id)} position over {@code users.updated_at} and {@code user_tombstones.deleted_at}, so
+ * paging never skips or repeats a change even when many share a timestamp.
+ *
+ * <p>Changes younger than {@code users.changes.safety-lag} are held back: a transaction may commit
+ * a timestamp taken a little earlier, and a token that had already moved past it would miss it.
+ * A user changed several times between two polls is reported once, in its latest state.
+ *
+ * <p>Tombstones older than {@code users.changes.tombstone-retention} are purged by a background
+ * thread, so a consumer that has not fetched a page for longer than that may have missed deletions
+ * and must start over without a token.
+ */
+@ApplicationScoped
+public class UserChangeFeed {
+
+    private static final Logger LOG = Logger.getLogger(UserChangeFeed.class);
+    private static final Position START = new Position(LocalDateTime.of(1970, 1, 1, 0, 0), 0);
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(10);
+
+    /** Kind of change. */
+    public enum ChangeType {
+        UPSERT,
+        DELETE
+    }
+
+    /**
+     * One created, updated or deleted user
+     *
+     * @param type Whether the user now exists or was deleted
+     * @param id User ID
+     * @param changedAt When the change happened
+     * @param user Current state of the user, or null when deleted
+     */
+    @RegisterForReflection
+    public record Change(ChangeType type, Long id, LocalDateTime changedAt, User user) {}
+
+    /**
+     * A page of changes
+     *
+     * @param changes Changes in the order they happened
+     * @param next Token to pass as {@code since} for the following page
+     * @param hasMore Whether more changes are already available after this page
+     */
+    @RegisterForReflection
+    public record Page(List<Change> changes, String next, boolean hasMore) {}
+
+    /** Position in the feed: the last change returned. */
+    record Position(LocalDateTime at, long id) implements Comparable<Position> {
+
+        private static final Comparator<Position> ORDER =
+                Comparator.comparing(Position::at).thenComparingLong(Position::id);
+
+        @Override
+        public int compareTo(Position other) {
+            return ORDER.compare(this, other);
+        }
+
+        String encode() {
+            byte[] raw = (at + "|" + id).getBytes(StandardCharsets.UTF_8);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+        }
+
+        static Position decode(String token) {
+            if (token == null || token.isBlank()) {
+                return START;
+            }
+            try {
+                String raw =
+                        new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new Position(
+                        LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException
+                    | IndexOutOfBoundsException
+                    | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid change token: " + token);
+            }
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final Duration safetyLag;
+    private final int maxPageSize;
+    private final Duration tombstoneRetention;
+    private Thread purger;
+
+    @Inject
+    public UserChangeFeed(
+            UserRepository userRepository,
+            ShardRouter shardRouter,
+            @ConfigProperty(name = "users.changes.safety-lag", defaultValue = "5s")
+                    Duration safetyLag,
+            @ConfigProperty(name = "users.changes.max-page-size", defaultValue = "1000")
+                    int maxPageSize,
+            @ConfigProperty(name = "users.changes.tombstone-retention", defaultValue = "7d")
+                    Duration tombstoneRetention) {
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+        this.safetyLag = safetyLag;
+        this.maxPageSize = maxPageSize;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        LOG.infof("Purging user tombstones older than %s", tombstoneRetention);
+        purger = new Thread(this::purgeLoop, "user-tombstone-purge");
+        purger.setDaemon(true);
+        purger.start();
+    }
+
+    /**
+     * Fetch the changes after a token
+     *
+     * @param since Token from a previous page, or null to start from the beginning
+     * @param limit Maximum changes to return, capped at {@code users.changes.max-page-size}
+     * @return The next page of changes
+     * @throws IllegalArgumentException if the token is malformed or the limit is not positive
+     */
+    @WithSpan("UserChangeFeed.changesSince")
+    public Page changesSince(String since, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        int pageSize = Math.min(limit, maxPageSize);
+        Position after = Position.decode(since);
+        LocalDateTime until = LocalDateTime.now().minus(safetyLag);
+
+        // One extra row from each source tells whether there is more after this page
+        List<Change> merged = new ArrayList<>();
+        for (User user :
+                userRepository.findChangedSince(after.at(), after.id(), until, pageSize + 1)) {
+            merged.add(new Change(ChangeType.UPSERT, user.id, user.updatedAt, user));
+        }
+        for (UserTombstone tombstone :
+                userRepository.findDeletedSince(after.at(), after.id(), until, pageSize + 1)) {
+            merged.add(new Change(ChangeType.DELETE, tombstone.id, tombstone.deletedAt, null));
+        }
+        merged.sort(Comparator.comparing(UserChangeFeed::positionOf));
+
+        boolean hasMore = merged.size() > pageSize;
+        List<Change> changes = hasMore ? merged.subList(0, pageSize) : merged;
+        Position next = changes.isEmpty() ? after : positionOf(changes.get(changes.size() - 1));
+
+        Span span = Span.current();
+        span.setAttribute("changes.count", changes.size());
+        span.setAttribute("changes.has_more", hasMore);
+        LOG.debugf("Returning %d changes after %s", changes.size(), after);
+        return new Page(List.copyOf(changes), next.encode(), hasMore);
+    }
+
+    private static Position positionOf(Change change) {
+        return new Position(change.changedAt(), change.id());
+    }
+
+    /**
+     * Delete tombstones older than {@code users.changes.tombstone-retention} on every shard. Every
+     * instance purges; the deletes are idempotent.
+     *
+     * @return Number of tombstones deleted
+     */
+    long purgeTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(tombstoneRetention);
+        int shards = shardRouter.isSharded() ? shardRouter.shardCount() : 1;
+        long purged = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            purged +=
+                    shardRouter.isSharded()
+                            ? shardRouter.onShard(shard, () -> purge(cutoff))
+                            : purge(cutoff);
+        }
+        LOG.debugf("Purged %d user tombstones", purged);
+        return purged;
+    }
+
+    private long purge(LocalDateTime cutoff) {
+        return QuarkusTransaction.requiringNew()
+                .call(() -> userRepository.deleteTombstonesOlderThan(cutoff));
+    }
+
+    private void purgeLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                RequestContexts.run(this::purgeTombstones);
+            } catch (RuntimeException e) {
+                LOG.error("Purging user tombstones failed, retrying", e);
+            }
+            try {
+                Thread.sleep(PURGE_INTERVAL.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (purger != null) {
+            purger.interrupt();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import br.com.arquivolivre.otelquarkus.datasource.RequestContexts;
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.model.User;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.trace.Span;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Group commit for user creation. When {@code users.group-commit.enabled=true}, concurrent create
+ * requests are queued for up to {@code users.group-commit.window} and written by a single flusher
+ * thread through {@link UserService#createUsers}, one transaction (and one redo log flush) per
+ * batch of at most {@code users.group-commit.max-batch-size} users.
+ *
+ * <p>Every caller still gets its own outcome: users whose email is taken fail with the same {@link
+ * IllegalArgumentException} as {@link UserService#createUser}. If a batch fails as a whole, its
+ * users are retried one by one so a single bad row cannot fail its neighbours. When sharded, a
+ * batch is split into one transaction per shard.
+ *
+ * <p>A caller waits at most the window plus the transaction timeout for its batch, and fails fast
+ * if the flusher thread has died, instead of hanging a request thread forever.
+ */
+@ApplicationScoped
+public class UserCreateBatcher {
+
+    private static final Logger LOG = Logger.getLogger(UserCreateBatcher.class);
+    private static final List<Double> QUEUE_WAIT_BUCKETS =
+            List.of(0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25);
+
+    private final UserService userService;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final long timeoutNanos;
+    private final int maxBatchSize;
+    private final LongHistogram batchSize;
+    private final DoubleHistogram queueWait;
+    private final BlockingQueue<PendingCreate> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+
+    @Inject
+    public UserCreateBatcher(
+            UserService userService,
+            ShardRouter shardRouter,
+            Meter meter,
+            @ConfigProperty(name = "users.group-commit.enabled", defaultValue = "false")
+                    boolean enabled,
+            @ConfigProperty(name = "users.group-commit.window", defaultValue = "5ms")
+                    Duration window,
+            @ConfigProperty(name = "users.group-commit.max-batch-size", defaultValue = "100")
+                    int maxBatchSize,
+            @ConfigProperty(
+                            name = "quarkus.transaction-manager.default-transaction-timeout",
+                            defaultValue = "60s")
+                    Duration transactionTimeout) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("users.group-commit.max-batch-size must be >= 1");
+        }
+        this.userService = userService;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.timeoutNanos = window.plus(transactionTimeout).toNanos();
+        this.maxBatchSize = maxBatchSize;
+
+        this.batchSize =
+                meter.histogramBuilder("users.create.batch.size")
+                        .ofLongs()
+                        .setDescription("Number of users written per group-commit transaction")
+                        .setUnit("1")
+                        .build();
+
+        this.queueWait =
+                meter.histogramBuilder("users.create.queue.wait")
+                        .setDescription("Time a create request waited for its group commit")
+                        .setUnit("s")
+                        // Waits are bounded by the window, a few ms: the default buckets start at 5
+                        .setExplicitBucketBoundariesAdvice(QUEUE_WAIT_BUCKETS)
+                        .build();
+
+        if (enabled) {
+            this.flusher = new Thread(this::drainLoop, "user-group-commit");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Whether create requests should go through {@link #createUser} instead of {@link
+     * UserService#createUser}
+     *
+     * @return true if group commit is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a user for the next batch and wait until that batch is committed
+     *
+     * @param user User to create
+     * @return Created user
+     * @throws IllegalArgumentException if email already exists
+     * @throws IllegalStateException if the flusher is not running or the batch is not committed in
+     *     time
+     */
+    public User createUser(User user) {
+        Span.current().setAttribute("user.group_commit", true);
+        PendingCreate pending = enqueue(user);
+        try {
+            return pending.result().get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            // Still queued means it will not be written; otherwise its batch is in flight
+            String outcome = queue.remove(pending) ? "not created" : "may still be created";
+            throw new IllegalStateException("Group commit timed out, user " + outcome);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queue.remove(pending);
+            throw new IllegalStateException("Interrupted waiting for group commit");
+        }
+    }
+
+    PendingCreate enqueue(User user) {
+        if (flusher != null && !flusher.isAlive()) {
+            throw new IllegalStateException("Group commit flusher is not running");
+        }
+        PendingCreate pending =
+                new PendingCreate(user, System.nanoTime(), new CompletableFuture<>());
+        queue.add(pending);
+        return pending;
+    }
+
+    /**
+     * Wait for the first queued request, then collect more until the window measured from its
+     * arrival closes or the batch is full.
+     */
+    List<PendingCreate> nextBatch() throws InterruptedException {
+        PendingCreate first = queue.take();
+        List<PendingCreate> batch = new ArrayList<>(maxBatchSize);
+        batch.add(first);
+        long deadline = first.enqueuedNanos() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            PendingCreate next =
+                    remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    /** Record batch metrics, then write the batch. */
+    void flush(List<PendingCreate> batch) {
+        long now = System.nanoTime();
+        for (PendingCreate pending : batch) {
+            queueWait.record((now - pending.enqueuedNanos()) / 1e9);
+        }
+        batchSize.record(batch.size());
+        write(batch);
+    }
+
+    /**
+     * Insert queued users, one transaction per shard, and complete every caller's future. Never
+     * throws. Also used by {@link UserWriteBehind} to drain its log.
+     */
+    void write(List<PendingCreate> batch) {
+        Map<Integer, List<PendingCreate>> byShard = new LinkedHashMap<>();
+        for (PendingCreate pending : batch) {
+            int shard =
+                    shardRouter.isSharded() ? shardRouter.shardForEmail(pending.user().email) : 0;
+            byShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(pending);
+        }
+        byShard.values().forEach(this::writeShard);
+    }
+
+    private void writeShard(List<PendingCreate> batch) {
+        List<User> users = new ArrayList<>(batch.size());
+        for (PendingCreate pending : batch) {
+            users.add(pending.user());
+        }
+        Set<User> created = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            created.addAll(userService.createUsers(users));
+        } catch (RuntimeException e) {
+            LOG.warnf(e, "Group commit of %d users failed, retrying one by one", batch.size());
+            batch.forEach(this::writeAlone);
+            return;
+        }
+        for (PendingCreate pending : batch) {
+            if (created.contains(pending.user())) {
+                pending.result().complete(pending.user());
+            } else {
+                pending.result()
+                        .completeExceptionally(
+                                new IllegalArgumentException(
+                                        "Email already exists: " + pending.user().email));
+            }
+        }
+    }
+
+    private void writeAlone(PendingCreate pending) {
+        // The failed batch assigned ids and versions that were rolled back with it
+        pending.user().id = null;
+        pending.user().version = null;
+        try {
+            pending.result().complete(userService.createUser(pending.user()));
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    private void drainLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<PendingCreate> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            try {
+                RequestContexts.run(() -> flush(batch));
+            } catch (RuntimeException e) {
+                LOG.errorf(e, "Group commit of %d users failed", batch.size());
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+        PendingCreate pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result()
+                    .completeExceptionally(new IllegalStateException("Application shutting down"));
+        }
+    }
+
+    record PendingCreate(User user, long enqueuedNanos, CompletableFuture<User> result) {}
+}
@@ -0,0 +1,258 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Pushes committed {@link UserMutation}s to Server-Sent Events subscribers. Events are named
+ * {@code created}, {@code updated} or {@code deleted} and carry the mutation as JSON.
+ *
+ * <p>The last {@code users.events.replay-size} events are kept in a ring buffer, so a subscriber
+ * that reconnects with {@code Last-Event-ID} gets what it missed. Event ids start with a value
+ * unique to this process, so an id from before a restart, or one already evicted from the ring,
+ * is answered with a {@code reset} event instead: the subscriber cannot tell what it missed and
+ * should resync, e.g. from {@code GET /api/users/changes}.
+ *
+ * <p>Each subscriber may have {@code users.events.subscriber-buffer} events written but not yet
+ * flushed. A subscriber at that limit is too slow for the stream: with the {@code DISCONNECT}
+ * policy it is closed and can resume from its last id, with {@code DROP} the events are skipped
+ * and it gets a {@code reset} event once it catches up.
+ */
+@ApplicationScoped
+public class UserEventBroadcaster {
+
+    private static final Logger LOG = Logger.getLogger(UserEventBroadcaster.class);
+    private static final AttributeKey<String> POLICY = AttributeKey.stringKey("policy");
+    static final String RESET = "reset";
+
+    /** What to do with a subscriber whose buffer is full. */
+    public enum SlowConsumerPolicy {
+        DROP,
+        DISCONNECT
+    }
+
+    /** A published event, as kept in the ring buffer. */
+    record Entry(long sequence, String name, String data, long publishedNanos) {}
+
+    /** One connected client. */
+    private static final class Subscriber {
+        final SseEventSink sink;
+        final Sse sse;
+        final AtomicInteger pending = new AtomicInteger();
+        volatile boolean missed;
+
+        Subscriber(SseEventSink sink, Sse sse) {
+            this.sink = sink;
+            this.sse = sse;
+        }
+    }
+
+    private final ObjectMapper mapper;
+    private final int bufferSize;
+    private final SlowConsumerPolicy policy;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Entry[] ring;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final LongCounter publishedCounter;
+    private final LongCounter droppedCounter;
+    private final LongHistogram lagHistogram;
+    private final ObservableLongGauge subscribersGauge;
+    private long nextSequence = 1;
+
+    @Inject
+    public UserEventBroadcaster(
+            ObjectMapper mapper,
+            Meter meter,
+            @ConfigProperty(name = "users.events.replay-size", defaultValue = "1000")
+                    int replaySize,
+            @ConfigProperty(name = "users.events.subscriber-buffer", defaultValue = "256")
+                    int bufferSize,
+            @ConfigProperty(name = "users.events.slow-consumer", defaultValue = "DISCONNECT")
+                    SlowConsumerPolicy policy) {
+        this.mapper = mapper;
+        this.ring = new Entry[replaySize];
+        this.bufferSize = bufferSize;
+        this.policy = policy;
+
+        this.publishedCounter =
+                meter.counterBuilder("users.events.published.total")
+                        .setDescription("User mutations published to SSE subscribers")
+                        .setUnit("1")
+                        .build();
+
+        this.droppedCounter =
+                meter.counterBuilder("users.events.dropped.total")
+                        .setDescription("Events not delivered because a subscriber was too slow")
+                        .setUnit("1")
+                        .build();
+
+        this.lagHistogram =
+                meter.histogramBuilder("users.events.lag")
+                        .ofLongs()
+                        .setDescription("Time from publishing an event to it being written out")
+                        .setUnit("ms")
+                        .build();
+
+        this.subscribersGauge =
+                meter.gaugeBuilder("users.events.subscribers")
+                        .ofLongs()
+                        .setDescription("Connected SSE subscribers")
+                        .setUnit("1")
+                        .buildWithCallback(m -> m.record(subscribers.size()));
+    }
+
+    /** Publish a mutation once its transaction has committed. */
+    void onMutation(@Observes(during = TransactionPhase.AFTER_SUCCESS) UserMutation mutation) {
+        String data;
+        try {
+            data = mapper.writeValueAsString(mutation);
+        } catch (JsonProcessingException e) {
+            LOG.errorf(e, "Cannot serialize %s event for user %d", mutation.type(), mutation.id());
+            return;
+        }
+        publish(mutation.type().name().toLowerCase(Locale.ROOT), data);
+    }
+
+    /**
+     * Add a subscriber, first replaying the events after {@code lastEventId}
+     *
+     * @param sink Connection to the client
+     * @param sse Factory for the events
+     * @param lastEventId Id of the last event the client received, or null for live events only
+     */
+    public synchronized void subscribe(SseEventSink sink, Sse sse, String lastEventId) {
+        Subscriber subscriber = new Subscriber(sink, sse);
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            replay(subscriber, lastEventId);
+        }
+        subscribers.add(subscriber);
+        LOG.infof("SSE subscriber connected, %d connected", subscribers.size());
+    }
+
+    synchronized void publish(String name, String data) {
+        Entry entry = new Entry(nextSequence, name, data, System.nanoTime());
+        ring[(int) (nextSequence % ring.length)] = entry;
+        nextSequence++;
+        publishedCounter.add(1);
+        for (Subscriber subscriber : subscribers) {
+            deliver(subscriber, entry);
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.sink.close();
+        }
+        subscribers.clear();
+    }
+
+    /** Send the ring entries after the client's last id, or a reset if they are gone. */
+    private void replay(Subscriber subscriber, String lastEventId) {
+        long after = sequenceOf(lastEventId);
+        long oldest = Math.max(1, nextSequence - ring.length);
+        if (after < oldest - 1 || after >= nextSequence) {
+            LOG.infof("Cannot resume SSE subscriber from %s, sending reset", lastEventId);
+            send(subscriber, resetEntry());
+            return;
+        }
+        for (long sequence = after + 1; sequence < nextSequence; sequence++) {
+            send(subscriber, ring[(int) (sequence % ring.length)]);
+        }
+    }
+
+    private void deliver(Subscriber subscriber, Entry entry) {
+        if (subscriber.sink.isClosed()) {
+            remove(subscriber);
+            return;
+        }
+        if (subscriber.pending.get() >= bufferSize) {
+            droppedCounter.add(1, Attributes.of(POLICY, policy.name().toLowerCase(Locale.ROOT)));
+            if (policy == SlowConsumerPolicy.DISCONNECT) {
+                LOG.warnf("Disconnecting slow SSE subscriber after %d unsent events", bufferSize);
+                remove(subscriber);
+                subscriber.sink.close();
+            } else {
+                subscriber.missed = true;
+            }
+            return;
+        }
+        if (subscriber.missed) {
+            subscriber.missed = false;
+            send(subscriber, resetEntry());
+        }
+        send(subscriber, entry);
+    }
+
+    private void send(Subscriber subscriber, Entry entry) {
+        subscriber.pending.incrementAndGet();
+        subscriber
+                .sink
+                .send(
+                        subscriber
+                                .sse
+                                .newEventBuilder()
+                                .id(epoch + "-" + entry.sequence())
+                                .name(entry.name())
+                                .data(entry.data())
+                                .build())
+                .whenComplete(
+                        (ignored, failure) -> {
+                            subscriber.pending.decrementAndGet();
+                            if (failure != null) {
+                                LOG.debugf("SSE subscriber went away: %s", failure.getMessage());
+                                remove(subscriber);
+                            } else {
+                                lagHistogram.record(
+                                        (System.nanoTime() - entry.publishedNanos()) / 1_000_000);
+                            }
+                        });
+    }
+
+    /** A reset carries the latest id, so resuming from it picks up right after. */
+    private Entry resetEntry() {
+        return new Entry(nextSequence - 1, RESET, "{}", System.nanoTime());
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            LOG.infof("SSE subscriber disconnected, %d connected", subscribers.size());
+        }
+    }
+
+    /** Sequence in an event id from this process, or -1 for any other id. */
+    private long sequenceOf(String eventId) {
+        String prefix = epoch + "-";
+        if (!eventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.repository.UserRepository;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Full snapshots of the users table as CSV files on local disk. An export streams users from
+ * {@link UserRepository#forEachUser} and encodes them into a reusable buffer that is written to a
+ * {@link FileChannel}, so memory use does not depend on the number of users. The file is written
+ * under a temporary name and moved into {@code users.export.dir} once complete, where it can be
+ * served zero-copy.
+ *
+ * <p>Exports run one at a time, on demand through {@link #submit} and, when {@code
+ * users.export.interval} is set, periodically. Only the newest {@code users.export.keep} completed
+ * files are kept.
+ */
+@ApplicationScoped
+public class UserExportService {
+
+    private static final Logger LOG = Logger.getLogger(UserExportService.class);
+    private static final String HEADER = "id,name,email,bio,createdAt,updatedAt,version\n";
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    /** Lifecycle of an export. */
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    /**
+     * Progress of an export, as served at its status URL
+     *
+     * @param exportId Id returned when the export was submitted
+     * @param state Current state
+     * @param rows Users written so far
+     * @param bytes Bytes written so far
+     * @param rowsPerSecond Users written per second since the export started
+     * @param fileName Name of the finished file, once completed
+     * @param submittedAt When the export was requested or scheduled
+     * @param startedAt When the export started reading users
+     * @param completedAt When the export completed or failed
+     * @param error Reason the export failed, if it did
+     */
+    @RegisterForReflection
+    public record Status(
+            String exportId,
+            State state,
+            long rows,
+            long bytes,
+            double rowsPerSecond,
+            String fileName,
+            Instant submittedAt,
+            Instant startedAt,
+            Instant completedAt,
+            String error) {}
+
+    private final UserRepository userRepository;
+    private final Path directory;
+    private final int fetchSize;
+    private final int bufferSize;
+    private final int keep;
+    private final Optional<Duration> interval;
+    private final Map<String, Export> exports = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ScheduledExecutorService executor;
+    private final LongCounter rowsCounter;
+    private final LongCounter bytesCounter;
+    private final LongHistogram durationHistogram;
+    private final DoubleHistogram throughputHistogram;
+
+    @Inject
+    public UserExportService(
+            UserRepository userRepository,
+            Meter meter,
+            @ConfigProperty(name = "users.export.dir", defaultValue = "exports") String directory,
+            @ConfigProperty(name = "users.export.fetch-size", defaultValue = "1000") int fetchSize,
+            @ConfigProperty(name = "users.export.buffer-size", defaultValue = "262144")
+                    int bufferSize,
+            @ConfigProperty(name = "users.export.keep", defaultValue = "3") int keep,
+            @ConfigProperty(name = "users.export.interval") Optional<Duration> interval) {
+        this.userRepository = userRepository;
+        this.directory = Path.of(directory);
+        this.fetchSize = fetchSize;
+        this.bufferSize = bufferSize;
+        this.keep = Math.max(1, keep);
+        this.interval = interval;
+        this.executor =
+                Executors.newSingleThreadScheduledExecutor(
+                        task -> {
+                            Thread thread = new Thread(task, "user-export");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+
+        this.rowsCounter =
+                meter.counterBuilder("users.export.rows.total")
+                        .setDescription("Users written to export files")
+                        .setUnit("1")
+                        .build();
+
+        this.bytesCounter =
+                meter.counterBuilder("users.export.bytes.total")
+                        .setDescription("Bytes written to export files")
+                        .setUnit("By")
+                        .build();
+
+        this.durationHistogram =
+                meter.histogramBuilder("users.export.duration")
+                        .ofLongs()
+                        .setDescription("Time to write one complete export file")
+                        .setUnit("ms")
+                        .build();
+
+        this.throughputHistogram =
+                meter.histogramBuilder("users.export.throughput")
+                        .setDescription("Users written per second by each completed export")
+                        .setUnit("{user}/s")
+                        .build();
+    }
+
+    /** Schedule periodic exports, if configured. */
+    void onStart(@Observes StartupEvent event) {
+        interval.ifPresent(
+                period -> {
+                    LOG.infof("Exporting users every %s", period);
+                    executor.scheduleWithFixedDelay(
+                            () -> run(newExport()),
+                            period.toMillis(),
+                            period.toMillis(),
+                            TimeUnit.MILLISECONDS);
+                });
+    }
+
+    /**
+     * Queue an export of all users
+     *
+     * @return The queued export's status, carrying the id to poll
+     */
+    public Status submit() {
+        Export export = newExport();
+        executor.execute(() -> run(export));
+        LOG.infof("Queued export %s", export.id);
+        return export.status();
+    }
+
+    /**
+     * Look up the progress of an export
+     *
+     * @param exportId Id returned by {@link #submit}
+     * @return Status, or empty if unknown or already cleaned up
+     */
+    public Optional<Status> status(String exportId) {
+        return Optional.ofNullable(exports.get(exportId)).map(Export::status);
+    }
+
+    /**
+     * List known exports, newest first
+     *
+     * @return Status of every export still tracked
+     */
+    public List<Status> list() {
+        return exports.values().stream()
+                .sorted(Comparator.comparingLong((Export e) -> e.sequence).reversed())
+                .map(Export::status)
+                .toList();
+    }
+
+    /**
+     * Locate the file of a completed export
+     *
+     * @param exportId Id returned by {@link #submit}
+     * @return Path of the finished file, or empty if the export is unknown or not completed
+     */
+    public Optional<Path> file(String exportId) {
+        Export export = exports.get(exportId);
+        if (export == null || export.file == null || !Files.exists(export.file)) {
+            return Optional.empty();
+        }
+        return Optional.of(export.file);
+    }
+
+    Export newExport() {
+        Export export =
+                new Export(UUID.randomUUID().toString(), sequence.incrementAndGet(), Instant.now());
+        exports.put(export.id, export);
+        return export;
+    }
+
+    /** Write one export and record its outcome. Never throws. */
+    void run(Export export) {
+        export.startedAt = Instant.now();
+        long started = System.nanoTime();
+        Path part = directory.resolve(export.id + ".csv.part");
+        try {
+            Files.createDirectories(directory);
+            write(export, part);
+            // The id suffix keeps two exports started within the same second apart
+            String name =
+                    "users-%s-%s.csv"
+                            .formatted(
+                                    FILE_TIMESTAMP.format(export.startedAt),
+                                    export.id.substring(0, 8));
+            Path file = directory.resolve(name);
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+            export.file = file;
+            export.completedAt = Instant.now();
+        } catch (IOException | RuntimeException e) {
+            LOG.errorf(e, "Export %s failed", export.id);
+            export.error = e.getMessage();
+            export.completedAt = Instant.now();
+            deleteQuietly(part);
+            return;
+        }
+        long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        durationHistogram.record(millis);
+        throughputHistogram.record(export.rows.get() * 1000.0 / millis);
+        LOG.infof(
+                "Export %s completed: %d users, %d bytes in %d ms",
+                export.id, export.rows.get(), export.bytes.get(), millis);
+        prune();
+    }
+
+    private void write(Export export, Path part) throws IOException {
+        try (FileChannel channel =
+                FileChannel.open(
+                        part,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+            StringBuilder line = new StringBuilder(256);
+            put(channel, buffer, export, HEADER);
+            try {
+                userRepository.forEachUser(
+                        fetchSize,
+                        user -> {
+                            line.setLength(0);
+                            appendRow(line, user);
+                            try {
+                                put(channel, buffer, export, line);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            export.rows.incrementAndGet();
+                            rowsCounter.add(1);
+                        });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            drain(channel, buffer, export);
+            channel.force(true);
+        }
+    }
+
+    private void put(FileChannel channel, ByteBuffer buffer, Export export, CharSequence text)
+            throws IOException {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > buffer.remaining()) {
+            drain(channel, buffer, export);
+        }
+        if (bytes.length > buffer.capacity()) {
+            ByteBuffer large = ByteBuffer.wrap(bytes);
+            while (large.hasRemaining()) {
+                channel.write(large);
+            }
+            count(export, bytes.length);
+            return;
+        }
+        buffer.put(bytes);
+    }
+
+    private void drain(FileChannel channel, ByteBuffer buffer, Export export) throws IOException {
+        buffer.flip();
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        count(export, length);
+    }
+
+    private void count(Export export, long length) {
+        export.bytes.addAndGet(length);
+        bytesCounter.add(length);
+    }
+
+    static void appendRow(StringBuilder line, User user) {
+        line.append(user.id).append(',');
+        appendField(line, user.name).append(',');
+        appendField(line, user.email).append(',');
+        appendField(line, user.bio).append(',');
+        line.append(user.createdAt != null ? user.createdAt : "").append(',');
+        line.append(user.updatedAt != null ? user.updatedAt : "").append(',');
+        line.append(user.version != null ? user.version : "").append('\n');
+    }
+
+    private static StringBuilder appendField(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        boolean quote =
+                value.indexOf(',') >= 0
+                        || value.indexOf('"') >= 0
+                        || value.indexOf('\n') >= 0
+                        || value.indexOf('\r') >= 0;
+        if (!quote) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    /** Forget old exports and delete their files, keeping the newest completed ones. */
+    private void prune() {
+        List<Export> completed =
+                exports.values().stream()
+                        .filter(e -> e.completedAt != null)
+                        .sorted(Comparator.comparingLong((Export e) -> e.sequence).reversed())
+                        .toList();
+        long kept = 0;
+        for (Export export : completed) {
+            if (export.file != null && kept < keep) {
+                kept++;
+                continue;
+            }
+            exports.remove(export.id);
+            if (export.file != null) {
+                deleteQuietly(export.file);
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.warnf(e, "Cannot delete export file %s", file);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Mutable progress of one export; written only by the export thread. */
+    static final class Export {
+
+        final String id;
+        final long sequence;
+        final Instant submittedAt;
+        final AtomicLong rows = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        volatile Instant startedAt;
+        volatile Instant completedAt;
+        volatile Path file;
+        volatile String error;
+
+        Export(String id, long sequence, Instant submittedAt) {
+            this.id = id;
+            this.sequence = sequence;
+            this.submittedAt = submittedAt;
+        }
+
+        Status status() {
+            Instant started = startedAt;
+            Instant completed = completedAt;
+            State state;
+            if (started == null) {
+                state = State.QUEUED;
+            } else if (completed == null) {
+                state = State.RUNNING;
+            } else {
+                state = error == null ? State.COMPLETED : State.FAILED;
+            }
+            double rowsPerSecond = 0;
+            if (started != null) {
+                Instant end = completed != null ? completed : Instant.now();
+                long millis = Math.max(1, Duration.between(started, end).toMillis());
+                rowsPerSecond = rows.get() * 1000.0 / millis;
+            }
+            Path finished = file;
+            return new Status(
+                    id,
+                    state,
+                    rows.get(),
+                    bytes.get(),
+                    rowsPerSecond,
+                    finished != null ? finished.getFileName().toString() : null,
+                    submittedAt,
+                    started,
+                    completed,
+                    error);
+        }
+    }
+}
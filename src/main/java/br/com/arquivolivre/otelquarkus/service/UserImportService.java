@@ -0,0 +1,420 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import br.com.arquivolivre.otelquarkus.datasource.RequestContexts;
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.service.UserCreateBatcher.PendingCreate;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Bulk user import from CSV. The upload is spooled to a temporary file as it arrives (see {@code
+ * UserImportRoute}), so neither the request nor the job ever holds the whole file in memory, and a
+ * background job then parses it one record at a time. Rows are validated with the same constraints
+ * as {@link User} and inserted through the group-commit writer in chunks of {@code
+ * users.import.chunk-size}, one transaction per chunk and shard. Jobs run one at a time, in the
+ * order they were submitted.
+ *
+ * <p>The CSV needs a header row with {@code name} and {@code email} columns, and optionally {@code
+ * bio}. Rows that fail validation or whose email is taken are rejected without failing the job.
+ */
+@ApplicationScoped
+public class UserImportService {
+
+    private static final Logger LOG = Logger.getLogger(UserImportService.class);
+    private static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("outcome");
+    private static final Attributes IMPORTED = Attributes.of(OUTCOME, "imported");
+    private static final Attributes REJECTED = Attributes.of(OUTCOME, "rejected");
+    private static final Attributes FAILED = Attributes.of(OUTCOME, "failed");
+
+    /** Lifecycle of an import job. */
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    /**
+     * A row that was not imported
+     *
+     * @param line Line of the CSV on which the row starts
+     * @param reason Why the row was not imported
+     */
+    @RegisterForReflection
+    public record Rejection(long line, String reason) {}
+
+    /**
+     * Progress of an import job, as served at its status URL
+     *
+     * @param jobId Id returned when the import was submitted
+     * @param state Current state
+     * @param rowsRead Data rows parsed so far
+     * @param imported Rows inserted
+     * @param rejected Rows rejected by validation or because their email is taken
+     * @param failed Rows that could not be written for other reasons
+     * @param rowsPerSecond Rows processed per second since the job started
+     * @param submittedAt When the upload was accepted
+     * @param startedAt When the job started parsing
+     * @param completedAt When the job completed or failed
+     * @param error Reason the job failed, if it did
+     * @param rejections The first rejected or failed rows
+     */
+    @RegisterForReflection
+    public record Status(
+            String jobId,
+            State state,
+            long rowsRead,
+            long imported,
+            long rejected,
+            long failed,
+            double rowsPerSecond,
+            Instant submittedAt,
+            Instant startedAt,
+            Instant completedAt,
+            String error,
+            List<Rejection> rejections) {}
+
+    private final UserCreateBatcher writer;
+    private final Validator validator;
+    private final int chunkSize;
+    private final int maxReportedRejections;
+    private final Duration statusRetention;
+    private final long maxBytes;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final LongCounter rowsCounter;
+    private final LongHistogram chunkDuration;
+    private final ObservableLongGauge activeJobsGauge;
+
+    @Inject
+    public UserImportService(
+            UserCreateBatcher writer,
+            Validator validator,
+            Meter meter,
+            @ConfigProperty(name = "users.import.chunk-size", defaultValue = "1000") int chunkSize,
+            @ConfigProperty(name = "users.import.max-reported-rejections", defaultValue = "100")
+                    int maxReportedRejections,
+            @ConfigProperty(name = "users.import.status-retention", defaultValue = "24h")
+                    Duration statusRetention,
+            @ConfigProperty(name = "users.import.max-size", defaultValue = "10G")
+                    MemorySize maxSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("users.import.chunk-size must be >= 1");
+        }
+        this.writer = writer;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.maxReportedRejections = maxReportedRejections;
+        this.statusRetention = statusRetention;
+        this.maxBytes = maxSize.asLongValue();
+        this.executor =
+                Executors.newSingleThreadExecutor(
+                        task -> {
+                            Thread thread = new Thread(task, "user-import");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+
+        this.rowsCounter =
+                meter.counterBuilder("users.import.rows.total")
+                        .setDescription("CSV rows processed by import jobs, by outcome")
+                        .setUnit("1")
+                        .build();
+
+        this.chunkDuration =
+                meter.histogramBuilder("users.import.chunk.duration")
+                        .ofLongs()
+                        .setDescription("Time to validate and write one chunk of imported rows")
+                        .setUnit("ms")
+                        .build();
+
+        this.activeJobsGauge =
+                meter.gaugeBuilder("users.import.jobs.active")
+                        .ofLongs()
+                        .setDescription("Import jobs queued or running")
+                        .setUnit("1")
+                        .buildWithCallback(m -> m.record(activeJobs()));
+    }
+
+    /**
+     * Queue a job to import a CSV upload that has been spooled to a file
+     *
+     * @param file Spooled upload, deleted by the job once it is done
+     * @return The queued job's status, carrying the id to poll
+     */
+    public Status submit(Path file) {
+        sweepJobs();
+        Job job = new Job(UUID.randomUUID().toString(), Instant.now());
+        jobs.put(job.id, job);
+        executor.execute(() -> run(job, file));
+        LOG.infof("Queued import job %s", job.id);
+        return job.status();
+    }
+
+    /**
+     * Largest upload an import accepts
+     *
+     * @return {@code users.import.max-size} in bytes
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Look up the progress of an import job
+     *
+     * @param jobId Id returned by {@link #submit}
+     * @return Status, or empty if unknown or expired
+     */
+    public Optional<Status> status(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::status);
+    }
+
+    long activeJobs() {
+        return jobs.values().stream().filter(job -> job.completedAt == null).count();
+    }
+
+    private void run(Job job, Path file) {
+        try {
+            RequestContexts.run(
+                    () -> {
+                        try (Reader reader =
+                                Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                            importRows(job, reader);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof UncheckedIOException ? e.getCause() : e;
+            LOG.errorf(cause, "Import job %s failed", job.id);
+            job.fail(cause.getMessage());
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    /** Parse, validate and write every row, updating the job as it goes. */
+    void importRows(Job job, Reader reader) throws IOException {
+        job.start();
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            job.complete();
+            return;
+        }
+        int nameColumn = column(header, "name");
+        int emailColumn = column(header, "email");
+        int bioColumn = column(header, "bio");
+        if (nameColumn < 0 || emailColumn < 0) {
+            throw new IllegalArgumentException("CSV header must have name and email columns");
+        }
+
+        List<PendingCreate> chunk = new ArrayList<>(chunkSize);
+        List<Long> lines = new ArrayList<>(chunkSize);
+        long chunkStart = System.nanoTime();
+        List<String> row;
+        while ((row = csv.next()) != null) {
+            job.rowsRead.incrementAndGet();
+            String bio = field(row, bioColumn);
+            User user =
+                    new User(
+                            field(row, nameColumn),
+                            field(row, emailColumn),
+                            bio == null || bio.isEmpty() ? null : bio);
+            Set<ConstraintViolation<User>> violations = validator.validate(user);
+            if (!violations.isEmpty()) {
+                reject(job, csv.recordLine(), violations.iterator().next().getMessage());
+                continue;
+            }
+            chunk.add(new PendingCreate(user, System.nanoTime(), new CompletableFuture<>()));
+            lines.add(csv.recordLine());
+            if (chunk.size() == chunkSize) {
+                writeChunk(job, chunk, lines, chunkStart);
+                chunk.clear();
+                lines.clear();
+                chunkStart = System.nanoTime();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(job, chunk, lines, chunkStart);
+        }
+        job.complete();
+        LOG.infof(
+                "Import job %s completed: %d imported, %d rejected, %d failed",
+                job.id, job.imported.get(), job.rejected.get(), job.failed.get());
+    }
+
+    private void writeChunk(Job job, List<PendingCreate> chunk, List<Long> lines, long started) {
+        writer.write(chunk);
+        long imported = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            CompletableFuture<User> result = chunk.get(i).result();
+            if (!result.isCompletedExceptionally()) {
+                imported++;
+                continue;
+            }
+            Throwable error = result.handle((user, e) -> e).join();
+            if (error instanceof IllegalArgumentException) {
+                reject(job, lines.get(i), error.getMessage());
+            } else {
+                job.failed.incrementAndGet();
+                job.report(lines.get(i), error.getMessage());
+                rowsCounter.add(1, FAILED);
+            }
+        }
+        job.imported.addAndGet(imported);
+        rowsCounter.add(imported, IMPORTED);
+        chunkDuration.record((System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void reject(Job job, long line, String reason) {
+        job.rejected.incrementAndGet();
+        job.report(line, reason);
+        rowsCounter.add(1, REJECTED);
+    }
+
+    private static int column(List<String> header, String name) {
+        for (int i = 0; i < header.size(); i++) {
+            // Strip a UTF-8 byte order mark left in front of the first column
+            String column = header.get(i).replace("\uFEFF", "").trim();
+            if (column.toLowerCase(Locale.ROOT).equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String field(List<String> row, int column) {
+        return column >= 0 && column < row.size() ? row.get(column).trim() : null;
+    }
+
+    private void sweepJobs() {
+        Instant cutoff = Instant.now().minus(statusRetention);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(cutoff));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.warnf(e, "Cannot delete import spool file %s", file);
+        }
+    }
+
+    /** Track a job whose rows are fed to {@link #importRows} directly instead of spooled. */
+    Job newJob() {
+        Job job = new Job(UUID.randomUUID().toString(), Instant.now());
+        jobs.put(job.id, job);
+        return job;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Mutable progress of one import; written only by the import thread. */
+    final class Job {
+
+        final String id;
+        final Instant submittedAt;
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong imported = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final List<Rejection> rejections = new CopyOnWriteArrayList<>();
+        volatile Instant startedAt;
+        volatile Instant completedAt;
+        volatile String error;
+
+        private Job(String id, Instant submittedAt) {
+            this.id = id;
+            this.submittedAt = submittedAt;
+        }
+
+        void start() {
+            startedAt = Instant.now();
+        }
+
+        void complete() {
+            completedAt = Instant.now();
+        }
+
+        void fail(String message) {
+            error = message;
+            completedAt = Instant.now();
+        }
+
+        void report(long line, String reason) {
+            if (rejections.size() < maxReportedRejections) {
+                rejections.add(new Rejection(line, reason));
+            }
+        }
+
+        Status status() {
+            Instant completed = completedAt;
+            State state;
+            if (startedAt == null) {
+                state = State.QUEUED;
+            } else if (completed == null) {
+                state = State.RUNNING;
+            } else {
+                state = error == null ? State.COMPLETED : State.FAILED;
+            }
+            double rowsPerSecond = 0;
+            if (startedAt != null) {
+                Instant end = completed != null ? completed : Instant.now();
+                long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+                rowsPerSecond = rowsRead.get() * 1000.0 / millis;
+            }
+            return new Status(
+                    id,
+                    state,
+                    rowsRead.get(),
+                    imported.get(),
+                    rejected.get(),
+                    failed.get(),
+                    rowsPerSecond,
+                    submittedAt,
+                    startedAt,
+                    completed,
+                    error,
+                    List.copyOf(rejections));
+        }
+    }
+}
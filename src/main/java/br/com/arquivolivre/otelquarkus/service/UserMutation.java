@@ -0,0 +1,41 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.model.UserInvalidation;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.time.Instant;
+
+/**
+ * CDI event fired by {@link UserService} for every user it creates, updates or deletes. Observers
+ * that only care about committed changes observe it with {@code TransactionPhase.AFTER_SUCCESS}.
+ * Its {@code version} orders the changes of one user, whatever order they are delivered in.
+ *
+ * @param type What happened to the user
+ * @param id User ID
+ * @param version Version the user reached, or {@link UserInvalidation#DELETED} when deleted
+ * @param user State of the user after the change, or null when deleted
+ * @param at When the change was made
+ */
+@RegisterForReflection
+public record UserMutation(Type type, Long id, Long version, User user, Instant at) {
+
+    /** Kind of mutation. */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    static UserMutation created(User user) {
+        return new UserMutation(Type.CREATED, user.id, user.version, user, Instant.now());
+    }
+
+    static UserMutation updated(User user) {
+        return new UserMutation(Type.UPDATED, user.id, user.version, user, Instant.now());
+    }
+
+    static UserMutation deleted(Long id) {
+        return new UserMutation(
+                Type.DELETED, id, UserInvalidation.DELETED, null, Instant.now());
+    }
+}
@@ -0,0 +1,128 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import br.com.arquivolivre.otelquarkus.model.UserOutboxEvent;
+import br.com.arquivolivre.otelquarkus.outbox.OutboxSink;
+import br.com.arquivolivre.otelquarkus.repository.UserOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Transactional outbox for user changes. Each {@link UserMutation} is written to {@code
+ * user_outbox} by the transaction that made it, so the event is stored if and only if the change
+ * commits, and the write itself costs one more insert instead of a call to a broker. {@link
+ * UserOutboxRelay} later publishes the rows with {@link #publishBatch}.
+ */
+@ApplicationScoped
+public class UserOutbox {
+
+    private static final Logger LOG = Logger.getLogger(UserOutbox.class);
+
+    private final UserOutboxRepository repository;
+    private final OutboxSink sink;
+    private final ObjectMapper mapper;
+    private final boolean enabled;
+    private final int batchSize;
+    private final LongCounter publishedCounter;
+    private final LongHistogram lagHistogram;
+
+    @Inject
+    public UserOutbox(
+            UserOutboxRepository repository,
+            OutboxSink sink,
+            ObjectMapper mapper,
+            Meter meter,
+            @ConfigProperty(name = "users.outbox.enabled", defaultValue = "false") boolean enabled,
+            @ConfigProperty(name = "users.outbox.batch-size", defaultValue = "500")
+                    int batchSize) {
+        this.repository = repository;
+        this.sink = sink;
+        this.mapper = mapper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+
+        this.publishedCounter =
+                meter.counterBuilder("users.outbox.published.total")
+                        .setDescription("User change events published from the outbox")
+                        .setUnit("1")
+                        .build();
+
+        this.lagHistogram =
+                meter.histogramBuilder("users.outbox.relay.lag")
+                        .ofLongs()
+                        .setDescription("Time from a change being written to its event published")
+                        .setUnit("ms")
+                        .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Store a mutation in the transaction that made it. The observer is synchronous, so a failure
+     * here rolls the change back rather than losing its event.
+     */
+    void onMutation(@Observes UserMutation mutation) {
+        if (!enabled) {
+            return;
+        }
+        String payload;
+        try {
+            payload = mapper.writeValueAsString(mutation);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(
+                    "Cannot serialize " + mutation.type() + " event for user " + mutation.id(), e);
+        }
+        repository.persist(
+                new UserOutboxEvent(
+                        mutation.id(), mutation.type().name(), payload, LocalDateTime.now()));
+    }
+
+    /**
+     * Claim up to {@code users.outbox.batch-size} events on the current shard, publish them and
+     * delete them with one statement, all in one transaction. If publishing fails the transaction
+     * rolls back and the events stay for the next attempt.
+     *
+     * @return Number of events published
+     * @throws UncheckedIOException if the sink rejects the batch
+     */
+    @Transactional
+    public int publishBatch() {
+        List<UserOutboxEvent> batch = repository.claimBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            sink.publish(batch);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot publish outbox batch", e);
+        }
+
+        List<Long> ids = new ArrayList<>(batch.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (UserOutboxEvent event : batch) {
+            ids.add(event.id);
+            lagHistogram.record(Duration.between(event.createdAt, now).toMillis());
+        }
+        repository.deleteByIds(ids);
+        publishedCounter.add(batch.size());
+
+        LOG.debugf("Published %d outbox events", batch.size());
+        return batch.size();
+    }
+}
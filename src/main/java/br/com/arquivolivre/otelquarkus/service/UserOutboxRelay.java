@@ -0,0 +1,129 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import br.com.arquivolivre.otelquarkus.datasource.RequestContexts;
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.repository.UserOutboxRepository;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Background relay of the {@link UserOutbox}. A daemon thread publishes one batch per shard per
+ * pass, and keeps going without pausing while there is work; once a pass finds nothing, or fails,
+ * it waits {@code users.outbox.poll-interval}. Several nodes can run the relay at once, since each
+ * batch is claimed with {@code SKIP LOCKED}.
+ */
+@ApplicationScoped
+public class UserOutboxRelay {
+
+    private static final Logger LOG = Logger.getLogger(UserOutboxRelay.class);
+
+    private final UserOutbox outbox;
+    private final UserOutboxRepository repository;
+    private final ShardRouter shardRouter;
+    private final Duration pollInterval;
+    private final AtomicLong depth = new AtomicLong();
+    private final ObservableLongGauge depthGauge;
+    private Thread relay;
+    private long depthRefreshedAt;
+
+    @Inject
+    public UserOutboxRelay(
+            UserOutbox outbox,
+            UserOutboxRepository repository,
+            ShardRouter shardRouter,
+            Meter meter,
+            @ConfigProperty(name = "users.outbox.poll-interval", defaultValue = "1s")
+                    Duration pollInterval) {
+        this.outbox = outbox;
+        this.repository = repository;
+        this.shardRouter = shardRouter;
+        this.pollInterval = pollInterval;
+
+        // Refreshed by the relay thread; the gauge callback has no request context to query with
+        this.depthGauge =
+                meter.gaugeBuilder("users.outbox.depth")
+                        .ofLongs()
+                        .setDescription("User change events written but not yet published")
+                        .setUnit("1")
+                        .buildWithCallback(m -> m.record(depth.get()));
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!outbox.isEnabled()) {
+            return;
+        }
+        LOG.infof("Relaying the user outbox every %s when idle", pollInterval);
+        relay = new Thread(this::relayLoop, "user-outbox-relay");
+        relay.setDaemon(true);
+        relay.start();
+    }
+
+    /**
+     * Publish one batch from every shard
+     *
+     * @return Number of events published
+     */
+    int relayOnce() {
+        if (!shardRouter.isSharded()) {
+            return outbox.publishBatch();
+        }
+        int published = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            published += shardRouter.onShard(shard, outbox::publishBatch);
+        }
+        return published;
+    }
+
+    long depth() {
+        return depth.get();
+    }
+
+    private void relayLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            int published = 0;
+            try {
+                published =
+                        RequestContexts.call(
+                                () -> {
+                                    int count = relayOnce();
+                                    refreshDepth(count == 0);
+                                    return count;
+                                });
+            } catch (RuntimeException e) {
+                LOG.error("Outbox relay pass failed, retrying", e);
+            }
+            if (published == 0) {
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /** Count the outbox when idle, and at most once per poll interval while busy. */
+    private void refreshDepth(boolean idle) {
+        long now = System.currentTimeMillis();
+        if (idle || now - depthRefreshedAt >= pollInterval.toMillis()) {
+            depth.set(repository.countPending());
+            depthRefreshedAt = now;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (relay != null) {
+            relay.interrupt();
+        }
+    }
+}
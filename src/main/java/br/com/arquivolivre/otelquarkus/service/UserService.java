@@ -1,5 +1,11 @@
 package br.com.arquivolivre.otelquarkus.service;
 
+import br.com.arquivolivre.otelquarkus.cache.UserCache;
+import br.com.arquivolivre.otelquarkus.cache.UserCacheSnapshot;
+import br.com.arquivolivre.otelquarkus.datasource.ReadReplica;
+import br.com.arquivolivre.otelquarkus.datasource.RequestContexts;
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.metrics.Timed;
 import br.com.arquivolivre.otelquarkus.model.User;
 import br.com.arquivolivre.otelquarkus.repository.UserRepository;
 import io.opentelemetry.api.common.AttributeKey;
@@ -9,41 +15,101 @@ import io.opentelemetry.api.metrics.LongHistogram;
 import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.metrics.ObservableLongGauge;
 import io.opentelemetry.api.trace.Span;
-import io.opentelemetry.instrumentation.annotations.SpanAttribute;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
+import io.quarkus.runtime.StartupEvent;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceException;
 import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import org.hibernate.exception.ConstraintViolationException;
 import org.jboss.logging.Logger;
 
 /**
  * Service layer for User business logic. Includes OpenTelemetry instrumentation for distributed
- * tracing and custom metrics via the OpenTelemetry Meter API.
+ * tracing and custom metrics via the OpenTelemetry Meter API. Read-only methods are marked with
+ * {@link ReadReplica} so they can be served by the replica datasource. Every create, update and
+ * delete fires a {@link UserMutation} event. Lookups by id go through the {@link UserCache} when
+ * it is enabled, then through the {@link UserCacheSnapshot} left by the previous run. Every
+ * public method is {@link Timed}.
+ *
+ * <p>Span attributes are set from the keys below, and only on spans that are recording: an
+ * unsampled request pays for neither the attribute values nor their keys.
  */
+@Timed
 @ApplicationScoped
 public class UserService {
 
     private static final Logger LOG = Logger.getLogger(UserService.class);
     private static final AttributeKey<String> ERROR_TYPE = AttributeKey.stringKey("error.type");
+    private static final AttributeKey<Boolean> ERROR = AttributeKey.booleanKey("error");
+    private static final AttributeKey<Long> USER_ID = AttributeKey.longKey("user.id");
+    private static final AttributeKey<String> USER_EMAIL = AttributeKey.stringKey("user.email");
+    private static final AttributeKey<String> USER_NAME = AttributeKey.stringKey("user.name");
+    private static final AttributeKey<Long> USER_COUNT = AttributeKey.longKey("user.count");
+    private static final AttributeKey<Boolean> USER_FOUND = AttributeKey.booleanKey("user.found");
+    private static final AttributeKey<Boolean> USER_CACHE_HIT =
+            AttributeKey.booleanKey("user.cache.hit");
+    private static final AttributeKey<Boolean> USER_CREATED =
+            AttributeKey.booleanKey("user.created");
+    private static final AttributeKey<Boolean> USER_UPDATED =
+            AttributeKey.booleanKey("user.updated");
+    private static final AttributeKey<Boolean> USER_DELETED =
+            AttributeKey.booleanKey("user.deleted");
+    private static final AttributeKey<String> USER_PATCH_FIELDS =
+            AttributeKey.stringKey("user.patch.fields");
+    private static final AttributeKey<Long> BATCH_SIZE = AttributeKey.longKey("batch.size");
+    private static final AttributeKey<Long> BATCH_CREATED = AttributeKey.longKey("batch.created");
+    private static final AttributeKey<String> SEARCH_QUERY = AttributeKey.stringKey("search.query");
+    private static final AttributeKey<Long> SEARCH_RESULTS = AttributeKey.longKey("search.results");
+    private static final AttributeKey<Long> DAYS = AttributeKey.longKey("days");
+    private static final long UNSEEDED = Long.MIN_VALUE;
+    private static final long SEED_INITIAL_BACKOFF_MS = 1_000;
+    private static final long SEED_MAX_BACKOFF_MS = 60_000;
 
     private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final Event<UserMutation> mutations;
+    private final UserCache userCache;
+    private final UserCacheSnapshot cacheSnapshot;
     private final LongCounter userCreatedCounter;
     private final LongCounter userErrorsCounter;
     private final LongHistogram userSearchDuration;
     private final ObservableLongGauge usersTotalGauge;
-    private final AtomicLong currentUserCount = new AtomicLong(0);
+    private final AtomicLong userCountChange = new AtomicLong(0);
+    private volatile long userCountBase = UNSEEDED;
 
     /**
-     * Constructor injection of the UserRepository and the OpenTelemetry Meter. All custom metrics
-     * are registered here so that the service is fully initialized once CDI returns, and so it can
-     * be unit-tested by passing a no-op Meter.
+     * Constructor injection of the UserRepository, the ShardRouter, the mutation event, the user
+     * cache and its snapshot, and the OpenTelemetry Meter. All custom metrics are registered here
+     * so that the service is fully initialized once CDI returns, and so it can be unit-tested by
+     * passing a no-op Meter.
      */
     @Inject
-    public UserService(UserRepository userRepository, Meter meter) {
+    public UserService(
+            UserRepository userRepository,
+            ShardRouter shardRouter,
+            Event<UserMutation> mutations,
+            UserCache userCache,
+            UserCacheSnapshot cacheSnapshot,
+            Meter meter) {
         this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+        this.mutations = mutations;
+        this.userCache = userCache;
+        this.cacheSnapshot = cacheSnapshot;
 
         this.userCreatedCounter =
                 meter.counterBuilder("users.created.total")
@@ -66,17 +132,48 @@ public class UserService {
 
         // The gauge callback runs on the OTel PeriodicMetricReader background thread,
         // which has no CDI request context or active transaction. Querying the DB here
-        // throws ContextNotActiveException. Instead, we maintain an in-memory AtomicLong
-        // that is updated on create/delete and seed it from the DB count at startup
-        // (which runs within a valid CDI context).
-        this.currentUserCount.set(userRepository.countUsers());
-
+        // throws ContextNotActiveException. Instead, creates and deletes are counted in
+        // memory and added to a base seeded from the DB in the background after startup;
+        // until then the gauge records nothing, rather than a misleading zero.
         this.usersTotalGauge =
                 meter.gaugeBuilder("users.total")
                         .ofLongs()
                         .setDescription("Current total number of users")
                         .setUnit("1")
-                        .buildWithCallback(m -> m.record(currentUserCount.get()));
+                        .buildWithCallback(m -> knownUserCount().ifPresent(m::record));
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        Thread seeder = new Thread(this::seedUserCountWithBackoff, "users-total-seed");
+        seeder.setDaemon(true);
+        seeder.start();
+    }
+
+    /**
+     * Seed the users.total gauge from the database's row count estimate
+     *
+     * @return Whether the gauge was seeded; false if the database could not be queried
+     */
+    boolean seedUserCount() {
+        // Changes made while the estimate is read may be counted twice; it is an estimate anyway
+        long changedBefore = userCountChange.get();
+        try {
+            long estimate = userRepository.estimateUserCount();
+            userCountBase = estimate - changedBefore;
+            LOG.infof("Seeded users.total with an estimate of %d users", estimate);
+            return true;
+        } catch (RuntimeException e) {
+            LOG.warnf("Could not seed users.total yet: %s", e.getMessage());
+            return false;
+        }
+    }
+
+    /** Current value of the users.total gauge, empty until it has been seeded. */
+    OptionalLong knownUserCount() {
+        long base = userCountBase;
+        return base == UNSEEDED
+                ? OptionalLong.empty()
+                : OptionalLong.of(base + userCountChange.get());
     }
 
     /**
@@ -84,13 +181,16 @@ public class UserService {
      *
      * @return List of all users
      */
+    @ReadReplica
     @WithSpan("UserService.getAllUsers")
     public List<User> getAllUsers() {
         LOG.info("Fetching all users");
         Span span = Span.current();
 
         List<User> users = userRepository.listAll();
-        span.setAttribute("user.count", users.size());
+        if (span.isRecording()) {
+            span.setAttribute(USER_COUNT, users.size());
+        }
 
         LOG.infof("Retrieved %d users", users.size());
         return users;
@@ -102,13 +202,31 @@ public class UserService {
      * @param id User ID
      * @return Optional containing user if found
      */
+    @ReadReplica
     @WithSpan("UserService.getUserById")
-    public Optional<User> getUserById(@SpanAttribute("user.id") Long id) {
+    public Optional<User> getUserById(Long id) {
         LOG.infof("Fetching user with id: %d", id);
         Span span = Span.current();
+        boolean recording = span.isRecording();
+        if (recording) {
+            span.setAttribute(USER_ID, id);
+        }
+
+        Optional<User> cached = userCache.get(id).or(() -> cacheSnapshot.restore(id));
+        if (cached.isPresent()) {
+            if (recording) {
+                span.setAttribute(USER_CACHE_HIT, true);
+                span.setAttribute(USER_FOUND, true);
+            }
+            return cached;
+        }
 
         Optional<User> user = userRepository.findByIdOptional(id);
-        span.setAttribute("user.found", user.isPresent());
+        if (recording) {
+            span.setAttribute(USER_CACHE_HIT, false);
+            span.setAttribute(USER_FOUND, user.isPresent());
+        }
+        user.ifPresent(userCache::put);
 
         if (user.isPresent()) {
             LOG.infof("Found user: %s", user.get().email);
@@ -125,13 +243,31 @@ public class UserService {
      * @param email User email
      * @return Optional containing user if found
      */
+    @ReadReplica
     @WithSpan("UserService.getUserByEmail")
-    public Optional<User> getUserByEmail(@SpanAttribute("user.email") String email) {
+    public Optional<User> getUserByEmail(String email) {
         LOG.infof("Fetching user with email: %s", email);
         Span span = Span.current();
+        boolean recording = span.isRecording();
+        if (recording) {
+            span.setAttribute(USER_EMAIL, email);
+        }
+
+        Optional<User> cached = userCache.getByEmail(email);
+        if (cached.isPresent()) {
+            if (recording) {
+                span.setAttribute(USER_CACHE_HIT, true);
+                span.setAttribute(USER_FOUND, true);
+            }
+            return cached;
+        }
 
         Optional<User> user = userRepository.findByEmail(email);
-        span.setAttribute("user.found", user.isPresent());
+        if (recording) {
+            span.setAttribute(USER_CACHE_HIT, false);
+            span.setAttribute(USER_FOUND, user.isPresent());
+        }
+        user.ifPresent(userCache::put);
 
         if (user.isPresent()) {
             LOG.infof("Found user with email: %s", email);
@@ -151,81 +287,214 @@ public class UserService {
      */
     @Transactional
     @WithSpan("UserService.createUser")
-    public User createUser(@SpanAttribute("user.email") User user) {
+    public User createUser(User user) {
+        return shardRouter.onEmailShard(user.email, () -> insertUser(user));
+    }
+
+    private User insertUser(User user) {
         LOG.infof("Creating new user with email: %s", user.email);
         Span span = Span.current();
-        span.setAttribute("user.name", user.name);
+        if (span.isRecording()) {
+            // The email field, not the entity: its toString() would be built on every call
+            span.setAttribute(USER_EMAIL, user.email);
+            span.setAttribute(USER_NAME, user.name);
+        }
 
         // Check if email already exists
         if (userRepository.existsByEmail(user.email)) {
-            LOG.errorf("Email already exists: %s", user.email);
-            span.setAttribute("error", true);
-            span.setAttribute("error.type", "duplicate_email");
-            userErrorsCounter.add(1, Attributes.of(ERROR_TYPE, "duplicate_email"));
-            throw new IllegalArgumentException("Email already exists: " + user.email);
+            throw duplicateEmail(span, user.email);
         }
 
         userRepository.persist(user);
-        if (user.id != null) {
-            span.setAttribute("user.id", user.id);
+        if (span.isRecording()) {
+            if (user.id != null) {
+                span.setAttribute(USER_ID, user.id);
+            }
+            span.setAttribute(USER_CREATED, true);
         }
-        span.setAttribute("user.created", true);
         userCreatedCounter.add(1);
-        currentUserCount.incrementAndGet();
+        userCountChange.incrementAndGet();
+        mutations.fire(UserMutation.created(user));
 
         LOG.infof("User created successfully with id: %d", user.id);
         return user;
     }
 
     /**
-     * Update an existing user
+     * Create several users in one transaction, as used by group commit. Users whose email already
+     * exists, or appears earlier in the same batch, are skipped and counted as duplicate_email.
+     * When sharded, all users must belong to the same shard.
+     *
+     * @param users Users to create
+     * @return The users that were inserted, in batch order
+     */
+    @Transactional
+    @WithSpan("UserService.createUsers")
+    public List<User> createUsers(List<User> users) {
+        if (users.isEmpty()) {
+            return insertUsers(users);
+        }
+        return shardRouter.onEmailShard(users.get(0).email, () -> insertUsers(users));
+    }
+
+    private List<User> insertUsers(List<User> users) {
+        LOG.infof("Creating %d users in one batch", users.size());
+        Span span = Span.current();
+        if (span.isRecording()) {
+            span.setAttribute(BATCH_SIZE, users.size());
+        }
+
+        List<String> emails = new ArrayList<>(users.size());
+        for (User user : users) {
+            emails.add(user.email);
+        }
+        Set<String> taken = new HashSet<>(userRepository.findExistingEmails(emails));
+
+        List<User> created = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (taken.add(user.email)) {
+                created.add(user);
+            } else {
+                LOG.warnf("Email already exists: %s", user.email);
+                userErrorsCounter.add(1, Attributes.of(ERROR_TYPE, "duplicate_email"));
+            }
+        }
+
+        // Flush here so constraint violations surface before the counters move
+        userRepository.persist(created);
+        userRepository.flush();
+        if (span.isRecording()) {
+            span.setAttribute(BATCH_CREATED, created.size());
+        }
+        userCreatedCounter.add(created.size());
+        userCountChange.addAndGet(created.size());
+        for (User user : created) {
+            mutations.fire(UserMutation.created(user));
+        }
+
+        LOG.infof("Batch created %d of %d users", created.size(), users.size());
+        return created;
+    }
+
+    /**
+     * Update an existing user with a single conditional UPDATE. The row is not written when nothing
+     * changed, and the email unique constraint replaces the separate lookup for conflicts. When
+     * {@code updatedUser.version} is set, the update only applies if the stored version still
+     * matches.
      *
      * @param id User ID
-     * @param updatedUser Updated user data
+     * @param updatedUser Updated user data, optionally carrying the version it was based on
      * @return Updated user
      * @throws IllegalArgumentException if user not found or email conflict
+     * @throws OptimisticLockException if the user was modified since {@code updatedUser.version}
      */
     @Transactional
     @WithSpan("UserService.updateUser")
-    public User updateUser(@SpanAttribute("user.id") Long id, User updatedUser) {
+    public User updateUser(Long id, User updatedUser) {
         LOG.infof("Updating user with id: %d", id);
         Span span = Span.current();
-        span.setAttribute("user.email", updatedUser.email);
+        if (span.isRecording()) {
+            span.setAttribute(USER_ID, id);
+            span.setAttribute(USER_EMAIL, updatedUser.email);
+        }
 
-        User existingUser =
+        return onIdShard(
+                id,
+                () ->
+                        applyUpdate(
+                                span,
+                                id,
+                                updatedUser.version,
+                                updatedUser.email,
+                                () ->
+                                        userRepository.updateIfChanged(
+                                                id, updatedUser.version, updatedUser)));
+    }
+
+    /**
+     * Partially update a user. Only the given fields are written, in a single conditional UPDATE
+     * that does not load the row first.
+     *
+     * @param id User ID
+     * @param expectedVersion Version the patch was based on, or null to skip the check
+     * @param fields New values keyed by field name, a subset of {@link User#UPDATABLE_FIELDS}
+     * @return Updated user
+     * @throws IllegalArgumentException if user not found or email conflict
+     * @throws OptimisticLockException if the user was modified since {@code expectedVersion}
+     */
+    @Transactional
+    @WithSpan("UserService.patchUser")
+    public User patchUser(Long id, Long expectedVersion, Map<String, Object> fields) {
+        LOG.infof("Patching %s of user with id: %d", fields.keySet(), id);
+        Span span = Span.current();
+        if (span.isRecording()) {
+            span.setAttribute(USER_ID, id);
+            span.setAttribute(USER_PATCH_FIELDS, String.join(",", fields.keySet()));
+        }
+
+        return onIdShard(
+                id,
+                () ->
+                        applyUpdate(
+                                span,
+                                id,
+                                expectedVersion,
+                                (String) fields.get("email"),
+                                () -> userRepository.patchIfChanged(id, expectedVersion, fields)));
+    }
+
+    /**
+     * Run a conditional update and read the row back. The read is the response, and it tells a
+     * missing user, an unchanged user and a version conflict apart when nothing was written.
+     */
+    private User applyUpdate(
+            Span span, Long id, Long expectedVersion, String email, BooleanSupplier update) {
+        boolean written;
+        try {
+            written = update.getAsBoolean();
+        } catch (PersistenceException e) {
+            if (isConstraintViolation(e)) {
+                throw duplicateEmail(span, email);
+            }
+            throw e;
+        }
+
+        User user =
                 userRepository
                         .findByIdOptional(id)
                         .orElseThrow(
                                 () -> {
-                                    LOG.errorf("User not found with id: %d", id);
-                                    span.setAttribute("error", true);
-                                    span.setAttribute("error.type", "not_found");
+                                    LOG.warnf("User not found with id: %d", id);
+                                    markError(span, "not_found");
                                     userErrorsCounter.add(
                                             1, Attributes.of(ERROR_TYPE, "not_found"));
                                     return new IllegalArgumentException(
                                             "User not found with id: " + id);
                                 });
 
-        // Check if email is being changed and if new email already exists
-        if (!existingUser.email.equals(updatedUser.email)
-                && userRepository.existsByEmailAndIdNot(updatedUser.email, id)) {
-            LOG.errorf("Email already exists: %s", updatedUser.email);
-            span.setAttribute("error", true);
-            span.setAttribute("error.type", "duplicate_email");
-            userErrorsCounter.add(1, Attributes.of(ERROR_TYPE, "duplicate_email"));
-            throw new IllegalArgumentException("Email already exists: " + updatedUser.email);
+        if (!written && expectedVersion != null && !expectedVersion.equals(user.version)) {
+            LOG.warnf(
+                    "Version conflict for user %d: expected %d, found %d",
+                    id, expectedVersion, user.version);
+            markError(span, "version_conflict");
+            userErrorsCounter.add(1, Attributes.of(ERROR_TYPE, "version_conflict"));
+            throw new OptimisticLockException(
+                    "User was modified concurrently: expected version "
+                            + expectedVersion
+                            + " but found "
+                            + user.version);
+        }
+        if (span.isRecording()) {
+            span.setAttribute(USER_UPDATED, written);
         }
 
-        // Update fields
-        existingUser.name = updatedUser.name;
-        existingUser.email = updatedUser.email;
-        existingUser.bio = updatedUser.bio;
-
-        userRepository.persist(existingUser);
-        span.setAttribute("user.updated", true);
-
-        LOG.infof("User updated successfully with id: %d", id);
-        return existingUser;
+        if (written) {
+            mutations.fire(UserMutation.updated(user));
+            LOG.infof("User updated successfully with id: %d", id);
+        } else {
+            LOG.infof("User unchanged, skipped update with id: %d", id);
+        }
+        return user;
     }
 
     /**
@@ -236,19 +505,29 @@ public class UserService {
      */
     @Transactional
     @WithSpan("UserService.deleteUser")
-    public boolean deleteUser(@SpanAttribute("user.id") Long id) {
+    public boolean deleteUser(Long id) {
+        return onIdShard(id, () -> removeUser(id));
+    }
+
+    private boolean removeUser(Long id) {
         LOG.infof("Deleting user with id: %d", id);
         Span span = Span.current();
 
         boolean deleted = userRepository.deleteUser(id);
-        span.setAttribute("user.deleted", deleted);
+        if (span.isRecording()) {
+            span.setAttribute(USER_ID, id);
+            span.setAttribute(USER_DELETED, deleted);
+        }
 
         if (deleted) {
-            currentUserCount.decrementAndGet();
+            userCountChange.decrementAndGet();
+            mutations.fire(UserMutation.deleted(id));
             LOG.infof("User deleted successfully with id: %d", id);
         } else {
             LOG.warnf("User not found for deletion with id: %d", id);
-            span.setAttribute("error.type", "not_found");
+            if (span.isRecording()) {
+                span.setAttribute(ERROR_TYPE, "not_found");
+            }
         }
 
         return deleted;
@@ -260,16 +539,22 @@ public class UserService {
      * @param name Name to search for
      * @return List of matching users
      */
+    @ReadReplica
     @WithSpan("UserService.searchUsers")
-    public List<User> searchUsers(@SpanAttribute("search.query") String name) {
+    public List<User> searchUsers(String name) {
         LOG.infof("Searching users with name: %s", name);
         Span span = Span.current();
+        if (span.isRecording()) {
+            span.setAttribute(SEARCH_QUERY, name);
+        }
 
         long start = System.nanoTime();
         List<User> users = userRepository.searchByName(name);
         userSearchDuration.record((System.nanoTime() - start) / 1_000_000);
 
-        span.setAttribute("search.results", users.size());
+        if (span.isRecording()) {
+            span.setAttribute(SEARCH_RESULTS, users.size());
+        }
 
         LOG.infof("Found %d users matching name: %s", users.size(), name);
         return users;
@@ -281,13 +566,17 @@ public class UserService {
      * @param days Number of days to look back
      * @return List of recent users
      */
+    @ReadReplica
     @WithSpan("UserService.getRecentUsers")
-    public List<User> getRecentUsers(@SpanAttribute("days") int days) {
+    public List<User> getRecentUsers(int days) {
         LOG.infof("Fetching users from last %d days", days);
         Span span = Span.current();
 
         List<User> users = userRepository.findRecentUsers(days);
-        span.setAttribute("user.count", users.size());
+        if (span.isRecording()) {
+            span.setAttribute(DAYS, days);
+            span.setAttribute(USER_COUNT, users.size());
+        }
 
         LOG.infof("Found %d users from last %d days", users.size(), days);
         return users;
@@ -298,14 +587,64 @@ public class UserService {
      *
      * @return Total number of users
      */
+    @ReadReplica
     @WithSpan("UserService.getUserCount")
     public long getUserCount() {
         LOG.info("Fetching user count");
 
         long count = userRepository.countUsers();
-        Span.current().setAttribute("user.count", count);
+        Span span = Span.current();
+        if (span.isRecording()) {
+            span.setAttribute(USER_COUNT, count);
+        }
 
         LOG.infof("Total user count: %d", count);
         return count;
     }
+
+    /**
+     * Run a transaction's work with the shard that owns an id bound before its first query, so the
+     * session the transaction opens is on that shard. An id of no shard is left to the repository,
+     * which reports it as missing.
+     */
+    private <T> T onIdShard(Long id, Supplier<T> work) {
+        int shard = shardRouter.isSharded() && id != null ? shardRouter.shardForId(id) : -1;
+        return shard < 0 ? work.get() : shardRouter.onShard(shard, work);
+    }
+
+    private IllegalArgumentException duplicateEmail(Span span, String email) {
+        LOG.warnf("Email already exists: %s", email);
+        markError(span, "duplicate_email");
+        userErrorsCounter.add(1, Attributes.of(ERROR_TYPE, "duplicate_email"));
+        return new IllegalArgumentException("Email already exists: " + email);
+    }
+
+    private static void markError(Span span, String errorType) {
+        if (span.isRecording()) {
+            span.setAttribute(ERROR, true);
+            span.setAttribute(ERROR_TYPE, errorType);
+        }
+    }
+
+    private static boolean isConstraintViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void seedUserCountWithBackoff() {
+        long backoff = SEED_INITIAL_BACKOFF_MS;
+        while (!RequestContexts.call(this::seedUserCount)) {
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoff = Math.min(backoff * 2, SEED_MAX_BACKOFF_MS);
+        }
+    }
 }
@@ -0,0 +1,414 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import br.com.arquivolivre.otelquarkus.datasource.RequestContexts;
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.service.UserCreateBatcher.PendingCreate;
+import br.com.arquivolivre.otelquarkus.service.WriteBehindLog.Entry;
+import br.com.arquivolivre.otelquarkus.service.WriteBehindLog.Position;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Write-behind user creation. When {@code users.write-behind.enabled=true}, {@link #submit} only
+ * reserves the email in memory and appends the user to a local {@link WriteBehindLog}, so the
+ * request can be answered with 202 before the database is touched. A background thread drains the
+ * log in batches of {@code users.write-behind.batch-size} through the group-commit writer and
+ * records each user's outcome under its ticket.
+ *
+ * <p>The log holds at most {@code users.write-behind.capacity} undrained users; beyond that {@link
+ * #submit} refuses new work. Entries survive a restart and are drained again, so a crash between a
+ * commit and its checkpoint can report an already created user as a duplicate. Database errors
+ * other than a taken email do not fail a user right away: it is put back at the end of the log and
+ * retried, until it has kept failing for {@code users.write-behind.retry-timeout}, when it is
+ * marked {@link State#FAILED} so a deterministic error cannot hold its email and slot forever.
+ */
+@ApplicationScoped
+public class UserWriteBehind {
+
+    private static final Logger LOG = Logger.getLogger(UserWriteBehind.class);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    /** Lifecycle of a user accepted in write-behind mode. */
+    public enum State {
+        PENDING,
+        CREATED,
+        FAILED
+    }
+
+    /**
+     * Outcome of a write-behind create, as served at its status URL
+     *
+     * @param ticket Ticket returned when the user was accepted
+     * @param state Current state
+     * @param userId Id of the created user, once created
+     * @param error Reason the user was not created, if failed
+     * @param acceptedAt When the user was accepted
+     * @param completedAt When the user was created or failed
+     */
+    @RegisterForReflection
+    public record Status(
+            String ticket,
+            State state,
+            Long userId,
+            String error,
+            Instant acceptedAt,
+            Instant completedAt) {}
+
+    private final UserCreateBatcher writer;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration statusRetention;
+    private final long retryTimeoutMillis;
+    private final Semaphore slots;
+    private final int capacity;
+    private final BlockingDeque<Position> queue = new LinkedBlockingDeque<>();
+    private final Set<String> reservedEmails = ConcurrentHashMap.newKeySet();
+    private final Map<String, Status> statuses = new ConcurrentHashMap<>();
+    // Ticket to when its first failed attempt was seen; only touched by the drainer
+    private final Map<String, Long> firstFailures = new ConcurrentHashMap<>();
+    private final LongCounter drainedCounter;
+    private final LongHistogram lagHistogram;
+    private final ObservableLongGauge queueDepthGauge;
+    private final WriteBehindLog log;
+    private Thread drainer;
+    private long lastSweepMillis;
+
+    @Inject
+    public UserWriteBehind(
+            UserCreateBatcher writer,
+            Meter meter,
+            ObjectMapper mapper,
+            @ConfigProperty(name = "users.write-behind.enabled", defaultValue = "false")
+                    boolean enabled,
+            @ConfigProperty(
+                            name = "users.write-behind.log-path",
+                            defaultValue = "write-behind/users.log")
+                    String logPath,
+            @ConfigProperty(name = "users.write-behind.capacity", defaultValue = "10000")
+                    int capacity,
+            @ConfigProperty(name = "users.write-behind.batch-size", defaultValue = "100")
+                    int batchSize,
+            @ConfigProperty(name = "users.write-behind.status-retention", defaultValue = "15m")
+                    Duration statusRetention,
+            @ConfigProperty(name = "users.write-behind.retry-timeout", defaultValue = "10m")
+                    Duration retryTimeout) {
+        this(
+                writer,
+                meter,
+                enabled ? openLog(Path.of(logPath), mapper) : null,
+                capacity,
+                batchSize,
+                statusRetention,
+                retryTimeout);
+        if (enabled) {
+            this.drainer = new Thread(this::drainLoop, "user-write-behind");
+            this.drainer.setDaemon(true);
+            this.drainer.start();
+        }
+    }
+
+    /** Recovers the log, if any, but leaves draining to the caller. */
+    UserWriteBehind(
+            UserCreateBatcher writer,
+            Meter meter,
+            WriteBehindLog log,
+            int capacity,
+            int batchSize,
+            Duration statusRetention,
+            Duration retryTimeout) {
+        this.writer = writer;
+        this.log = log;
+        this.enabled = log != null;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.statusRetention = statusRetention;
+        this.retryTimeoutMillis = retryTimeout.toMillis();
+        this.slots = new Semaphore(capacity);
+
+        this.drainedCounter =
+                meter.counterBuilder("users.write_behind.drained.total")
+                        .setDescription("Users drained from the write-behind log")
+                        .setUnit("1")
+                        .build();
+
+        this.lagHistogram =
+                meter.histogramBuilder("users.write_behind.lag")
+                        .ofLongs()
+                        .setDescription("Time from accepting a user to its insert being committed")
+                        .setUnit("ms")
+                        .build();
+
+        this.queueDepthGauge =
+                meter.gaugeBuilder("users.write_behind.queue.depth")
+                        .ofLongs()
+                        .setDescription("Users accepted but not yet written to the database")
+                        .setUnit("1")
+                        .buildWithCallback(m -> m.record(queueDepth()));
+
+        if (log == null) {
+            return;
+        }
+        try {
+            for (Position position : log.recover()) {
+                slots.tryAcquire();
+                track(position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot recover write-behind log", e);
+        }
+        if (!queue.isEmpty()) {
+            LOG.infof("Recovered %d undrained users from the write-behind log", queue.size());
+        }
+    }
+
+    private static WriteBehindLog openLog(Path logPath, ObjectMapper mapper) {
+        try {
+            return new WriteBehindLog(logPath, mapper);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-behind log " + logPath, e);
+        }
+    }
+
+    /** Create the bean at startup so entries left by a previous run are drained right away. */
+    void onStart(@Observes StartupEvent event) {
+        LOG.debugf("Write-behind enabled: %s", enabled);
+    }
+
+    /**
+     * Whether create requests should be accepted through {@link #submit}
+     *
+     * @return true if write-behind mode is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Accept a user for asynchronous creation
+     *
+     * @param user Validated user to create
+     * @return The pending status, carrying the ticket to poll
+     * @throws IllegalArgumentException if the email is already waiting to be written
+     * @throws IllegalStateException if the log is full
+     */
+    public Status submit(User user) {
+        String email = user.email.toLowerCase(Locale.ROOT);
+        if (!reservedEmails.add(email)) {
+            throw new IllegalArgumentException("Email already exists: " + user.email);
+        }
+        if (!slots.tryAcquire()) {
+            reservedEmails.remove(email);
+            throw new IllegalStateException("Write-behind queue is full");
+        }
+        Entry entry =
+                new Entry(
+                        UUID.randomUUID().toString(),
+                        System.currentTimeMillis(),
+                        user.name,
+                        user.email,
+                        user.bio);
+        try {
+            // Queue order must match log order, or a checkpoint could pass an undrained entry
+            synchronized (log) {
+                return track(log.append(entry));
+            }
+        } catch (IOException e) {
+            reservedEmails.remove(email);
+            slots.release();
+            throw new UncheckedIOException("Cannot append to write-behind log", e);
+        }
+    }
+
+    /**
+     * Look up the outcome of a write-behind create
+     *
+     * @param ticket Ticket returned by {@link #submit}
+     * @return Status, or empty if unknown or expired
+     */
+    public Optional<Status> status(String ticket) {
+        return Optional.ofNullable(statuses.get(ticket));
+    }
+
+    long queueDepth() {
+        return capacity - slots.availablePermits();
+    }
+
+    private Status track(Position position) {
+        Entry entry = position.entry();
+        reservedEmails.add(entry.email().toLowerCase(Locale.ROOT));
+        Status status =
+                new Status(
+                        entry.ticket(),
+                        State.PENDING,
+                        null,
+                        null,
+                        Instant.ofEpochMilli(entry.acceptedAt()),
+                        null);
+        statuses.put(entry.ticket(), status);
+        queue.add(position);
+        return status;
+    }
+
+    /** Wait for the oldest undrained user and take up to a batch of users with it. */
+    List<Position> nextBatch() throws InterruptedException {
+        List<Position> batch = new ArrayList<>(batchSize);
+        batch.add(queue.take());
+        queue.drainTo(batch, batchSize - 1);
+        return batch;
+    }
+
+    /**
+     * Write one batch, record every outcome and checkpoint the log past it
+     *
+     * @return true if some users hit a transient error and were put back in the log
+     */
+    boolean drain(List<Position> batch) {
+        List<PendingCreate> pending = new ArrayList<>(batch.size());
+        for (Position position : batch) {
+            Entry entry = position.entry();
+            User user = new User(entry.name(), entry.email(), entry.bio());
+            pending.add(new PendingCreate(user, System.nanoTime(), new CompletableFuture<>()));
+        }
+        writer.write(pending);
+
+        long now = System.currentTimeMillis();
+        int completed = 0;
+        List<Entry> retries = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Entry entry = batch.get(i).entry();
+            CompletableFuture<User> result = pending.get(i).result();
+            Status status;
+            if (!result.isCompletedExceptionally()) {
+                status = completed(entry, State.CREATED, result.join().id, null, now);
+            } else {
+                Throwable error = result.handle((user, e) -> e).join();
+                String reason = error.getMessage();
+                if (!(error instanceof IllegalArgumentException)) {
+                    long firstFailure = firstFailures.computeIfAbsent(entry.ticket(), t -> now);
+                    if (now - firstFailure < retryTimeoutMillis) {
+                        retries.add(entry);
+                        continue;
+                    }
+                    LOG.errorf(
+                            error,
+                            "Giving up on write-behind user %s after %d ms of failures",
+                            entry.ticket(),
+                            now - firstFailure);
+                    reason = "Could not be written: " + reason;
+                }
+                status = completed(entry, State.FAILED, null, reason, now);
+            }
+            firstFailures.remove(entry.ticket());
+            statuses.put(entry.ticket(), status);
+            reservedEmails.remove(entry.email().toLowerCase(Locale.ROOT));
+            lagHistogram.record(now - entry.acceptedAt());
+            completed++;
+        }
+
+        try {
+            synchronized (log) {
+                for (Entry entry : retries) {
+                    queue.add(log.append(entry));
+                }
+            }
+            log.checkpoint(batch.get(batch.size() - 1).end());
+        } catch (IOException e) {
+            LOG.error("Cannot checkpoint write-behind log; entries will be replayed", e);
+        }
+        slots.release(completed);
+        drainedCounter.add(completed);
+        sweepStatuses(now);
+        if (!retries.isEmpty()) {
+            LOG.warnf("%d users could not be written, retrying later", retries.size());
+        }
+        return !retries.isEmpty();
+    }
+
+    private static Status completed(
+            Entry entry, State state, Long userId, String error, long nowMillis) {
+        return new Status(
+                entry.ticket(),
+                state,
+                userId,
+                error,
+                Instant.ofEpochMilli(entry.acceptedAt()),
+                Instant.ofEpochMilli(nowMillis));
+    }
+
+    private void sweepStatuses(long nowMillis) {
+        if (nowMillis - lastSweepMillis < 1_000) {
+            return;
+        }
+        lastSweepMillis = nowMillis;
+        Instant cutoff = Instant.ofEpochMilli(nowMillis).minus(statusRetention);
+        statuses.values()
+                .removeIf(s -> s.completedAt() != null && s.completedAt().isBefore(cutoff));
+    }
+
+    private void drainLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<Position> batch = nextBatch();
+                boolean retrying;
+                try {
+                    retrying = RequestContexts.call(() -> drain(batch));
+                } catch (RuntimeException e) {
+                    // Nothing of the batch was recorded; put it back in log order and retry
+                    LOG.error("Write-behind drain failed; retrying the batch", e);
+                    requeue(batch);
+                    retrying = true;
+                }
+                if (retrying) {
+                    Thread.sleep(RETRY_DELAY.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Put a batch taken by {@link #nextBatch} back at the head of the queue, in order. */
+    void requeue(List<Position> batch) {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            queue.addFirst(batch.get(i));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        if (drainer != null) {
+            drainer.interrupt();
+        }
+        if (log != null) {
+            log.close();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Durable append-only log of users accepted in write-behind mode. Each entry is one JSON line and
+ * is forced to disk before {@link #append} returns. A sidecar {@code .offset} file records how far
+ * the log has been drained, and the log is truncated once everything in it has been drained. Under
+ * steady load the drainer may never catch up with the end, so once the drained prefix passes a
+ * threshold the undrained tail is copied to a fresh file that replaces the log.
+ *
+ * <p>{@link Position#end()} is a logical offset that keeps growing across truncations and
+ * compactions, so positions handed out before one stay valid for {@link #checkpoint} after it.
+ */
+final class WriteBehindLog implements Closeable {
+
+    /** A user accepted for creation, as stored in the log. */
+    @RegisterForReflection
+    record Entry(String ticket, long acceptedAt, String name, String email, String bio) {}
+
+    /** An entry together with the log offset just past it. */
+    record Position(Entry entry, long end) {}
+
+    /** Drained bytes at the head of the log that trigger a compaction. */
+    static final long COMPACT_THRESHOLD = 64L * 1024 * 1024;
+
+    private final Path file;
+    private final Path offsetFile;
+    private final ObjectMapper mapper;
+    private final long compactThreshold;
+    private FileChannel channel;
+
+    /** Logical offset of the first byte in the file. */
+    private long base;
+
+    WriteBehindLog(Path file, ObjectMapper mapper) throws IOException {
+        this(file, mapper, COMPACT_THRESHOLD);
+    }
+
+    WriteBehindLog(Path file, ObjectMapper mapper, long compactThreshold) throws IOException {
+        this.file = file;
+        this.compactThreshold = compactThreshold;
+        this.offsetFile = file.resolveSibling(file.getFileName() + ".offset");
+        this.mapper = mapper;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = open(file);
+    }
+
+    /**
+     * Append an entry and force it to disk
+     *
+     * @param entry Entry to append
+     * @return The entry and the offset to checkpoint once it has been drained
+     */
+    synchronized Position append(Entry entry) throws IOException {
+        byte[] bytes = (mapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer line = ByteBuffer.wrap(bytes);
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+        channel.force(false);
+        return new Position(entry, base + channel.position());
+    }
+
+    /**
+     * Read the entries after the checkpoint, oldest first. A partial last line left by a crash in
+     * the middle of an append was never acknowledged, so it is cut off.
+     *
+     * @return Entries still to be drained
+     */
+    synchronized List<Position> recover() throws IOException {
+        long offset = Math.min(readCheckpoint(), channel.size());
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(channel.size() - offset));
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        byte[] bytes = buffer.array();
+
+        List<Position> entries = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                Entry entry =
+                        mapper.readValue(Arrays.copyOfRange(bytes, lineStart, i), Entry.class);
+                entries.add(new Position(entry, base + offset + i + 1));
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < bytes.length) {
+            channel.truncate(offset + lineStart);
+        }
+        channel.position(channel.size());
+        return entries;
+    }
+
+    /**
+     * Record that every entry up to {@code end} has been drained. When that is the whole log, the
+     * log is truncated instead, and when the drained part passes the compaction threshold the rest
+     * is moved to a fresh file, so the log does not grow forever.
+     *
+     * @param end Offset just past the last drained entry
+     */
+    synchronized void checkpoint(long end) throws IOException {
+        long drained = end - base;
+        if (drained >= channel.size()) {
+            // Drop the checkpoint first: a crash in between replays drained entries, never skips
+            Files.deleteIfExists(offsetFile);
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(false);
+            base = end;
+            return;
+        }
+        if (drained >= compactThreshold) {
+            compact(drained);
+            return;
+        }
+        Path temp = offsetFile.resolveSibling(offsetFile.getFileName() + ".tmp");
+        Files.writeString(
+                temp,
+                Long.toString(drained),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.DSYNC);
+        Files.move(
+                temp,
+                offsetFile,
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Replace the log with a copy of everything after its first {@code drained} bytes. */
+    private void compact(long drained) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        try (FileChannel out =
+                FileChannel.open(
+                        temp,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)) {
+            long position = drained;
+            long size = channel.size();
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+            out.force(false);
+        }
+        // As with truncation, a crash before the move replays drained entries, never skips
+        Files.deleteIfExists(offsetFile);
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel = open(file);
+        base += drained;
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        FileChannel channel =
+                FileChannel.open(
+                        file,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(offsetFile)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(offsetFile).trim());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,262 @@
+package br.com.arquivolivre.otelquarkus.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Trace sampler replacing {@code always_on} when {@code users.tracing.sampler.enabled} is set.
+ * Quarkus uses a {@link Sampler} bean in place of {@code quarkus.otel.traces.sampler}, so while
+ * disabled this behaves as the configured {@code always_on}, ignoring upstream decisions.
+ *
+ * <p>Each trace starting here (no parent, or a remote one) is sampled with the ratio of the longest
+ * {@code users.tracing.sampler.route-ratios} prefix matching its {@code url.path}, or {@code
+ * users.tracing.sampler.default-ratio}. The decision is a pure function of the trace id, so it is
+ * consistent across spans. When {@code users.tracing.sampler.target-per-second} is positive, all
+ * ratios are scaled once a second so that sampled traces stay near that budget. Upstream sampled
+ * traces are always kept.
+ *
+ * <p>Traces that are not sampled are still recorded, marked as deferred in their trace state, when
+ * {@code users.tracing.sampler.defer} is set. {@link DeferredSpanProcessor} holds their spans until
+ * the local root ends, and exports them after all if the request failed or was slow. Deferring
+ * keeps every span recording, so it saves export cost but not the cost of building spans. Routes
+ * with a ratio of 0 are dropped outright instead.
+ */
+@ApplicationScoped
+public class AdaptiveSampler implements Sampler {
+
+    /** Trace state entry marking a trace whose sampling is decided when its local root ends. */
+    static final String DEFERRED_KEY = "defer";
+
+    private static final AttributeKey<String> URL_PATH = AttributeKey.stringKey("url.path");
+    private static final AttributeKey<String> HTTP_TARGET = AttributeKey.stringKey("http.target");
+    private static final double MIN_BUDGET_FACTOR = 0.0001;
+    private static final Sampler DISABLED = Sampler.alwaysOn();
+
+    private static final SamplingResult DEFERRED =
+            new SamplingResult() {
+                @Override
+                public SamplingDecision getDecision() {
+                    return SamplingDecision.RECORD_ONLY;
+                }
+
+                @Override
+                public Attributes getAttributes() {
+                    return Attributes.empty();
+                }
+
+                @Override
+                public TraceState getUpdatedTraceState(TraceState parentTraceState) {
+                    return parentTraceState.toBuilder().put(DEFERRED_KEY, "1").build();
+                }
+            };
+
+    private final boolean enabled;
+    private final double defaultRatio;
+    private final List<Map.Entry<String, Double>> routeRatios;
+    private final int targetPerSecond;
+    private final boolean defer;
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong window = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger sampledInWindow = new AtomicInteger();
+    private volatile double budgetFactor = 1.0;
+
+    @Inject
+    public AdaptiveSampler(
+            @ConfigProperty(name = "users.tracing.sampler.enabled", defaultValue = "false")
+                    boolean enabled,
+            @ConfigProperty(name = "users.tracing.sampler.default-ratio", defaultValue = "1.0")
+                    double defaultRatio,
+            @ConfigProperty(name = "users.tracing.sampler.route-ratios", defaultValue = "/q/=0")
+                    List<String> routeRatios,
+            @ConfigProperty(name = "users.tracing.sampler.target-per-second", defaultValue = "0")
+                    int targetPerSecond,
+            @ConfigProperty(name = "users.tracing.sampler.defer", defaultValue = "true")
+                    boolean defer) {
+        this.enabled = enabled;
+        this.defaultRatio = defaultRatio;
+        this.routeRatios = parseRouteRatios(routeRatios);
+        this.targetPerSecond = targetPerSecond;
+        this.defer = defer;
+    }
+
+    @Override
+    public SamplingResult shouldSample(
+            Context parentContext,
+            String traceId,
+            String name,
+            SpanKind spanKind,
+            Attributes attributes,
+            List<LinkData> parentLinks) {
+        if (!enabled) {
+            return DISABLED.shouldSample(
+                    parentContext, traceId, name, spanKind, attributes, parentLinks);
+        }
+        return decide(
+                Span.fromContext(parentContext).getSpanContext(),
+                traceId,
+                attributes,
+                System.nanoTime());
+    }
+
+    /**
+     * Decide for one span
+     *
+     * @param parent Parent span context, invalid for a new trace
+     * @param traceId Trace id in hex
+     * @param attributes Attributes known at span start
+     * @param nowNanos Current {@link System#nanoTime()}
+     * @return Sampling result
+     */
+    SamplingResult decide(
+            SpanContext parent, String traceId, Attributes attributes, long nowNanos) {
+        if (parent.isValid() && parent.isSampled()) {
+            return SamplingResult.recordAndSample();
+        }
+        if (parent.isValid() && !parent.isRemote()) {
+            // A child follows its local root: deferred with it, or not recorded at all
+            return isDeferred(parent.getTraceState()) ? DEFERRED : SamplingResult.drop();
+        }
+        double routeRatio = ratioFor(path(attributes));
+        if (routeRatio <= 0.0) {
+            // Routes configured with 0, e.g. health checks, are never wanted, not even deferred
+            dropped.increment();
+            return SamplingResult.drop();
+        }
+        double ratio = routeRatio * budgetFactor(nowNanos);
+        if (isChosen(traceId, ratio)) {
+            sampled.increment();
+            sampledInWindow.incrementAndGet();
+            return SamplingResult.recordAndSample();
+        }
+        if (defer) {
+            deferred.increment();
+            return DEFERRED;
+        }
+        dropped.increment();
+        return SamplingResult.drop();
+    }
+
+    /** Sampling ratio before the budget factor, by {@code url.path} prefix. */
+    double ratioFor(String path) {
+        if (path != null) {
+            for (Map.Entry<String, Double> route : routeRatios) {
+                if (path.startsWith(route.getKey())) {
+                    return route.getValue();
+                }
+            }
+        }
+        return defaultRatio;
+    }
+
+    /** Factor all ratios are currently scaled by to hold the spans-per-second budget. */
+    public double budgetFactor() {
+        return budgetFactor;
+    }
+
+    /** Traces sampled when they started. */
+    public long sampled() {
+        return sampled.sum();
+    }
+
+    /** Traces recorded to be decided when their local root ends. */
+    public long deferred() {
+        return deferred.sum();
+    }
+
+    /** Traces neither sampled nor deferred. */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public String getDescription() {
+        return enabled
+                ? "AdaptiveSampler{default=" + defaultRatio + ", routes=" + routeRatios + "}"
+                : DISABLED.getDescription();
+    }
+
+    static boolean isDeferred(TraceState traceState) {
+        return traceState.get(DEFERRED_KEY) != null;
+    }
+
+    private double budgetFactor(long nowNanos) {
+        if (targetPerSecond <= 0) {
+            return 1.0;
+        }
+        long second = nowNanos / 1_000_000_000L;
+        long current = window.get();
+        if (second != current && window.compareAndSet(current, second)) {
+            int lastSecond = sampledInWindow.getAndSet(0);
+            if (current != Long.MIN_VALUE) {
+                // Move towards the budget, by at most a factor of two per second
+                double correction =
+                        lastSecond == 0
+                                ? 2.0
+                                : Math.clamp((double) targetPerSecond / lastSecond, 0.5, 2.0);
+                budgetFactor = Math.clamp(budgetFactor * correction, MIN_BUDGET_FACTOR, 1.0);
+            }
+        }
+        return budgetFactor;
+    }
+
+    private static boolean isChosen(String traceId, double ratio) {
+        if (ratio >= 1.0) {
+            return true;
+        }
+        if (ratio <= 0.0) {
+            return false;
+        }
+        // Like TraceIdRatioBased: the random low half of the trace id against the ratio
+        long random = Long.parseUnsignedLong(traceId, 16, 32, 16) >>> 1;
+        return random < (long) (ratio * Long.MAX_VALUE);
+    }
+
+    private static String path(Attributes attributes) {
+        String path = attributes.get(URL_PATH);
+        if (path == null) {
+            path = attributes.get(HTTP_TARGET);
+        }
+        return path;
+    }
+
+    private static List<Map.Entry<String, Double>> parseRouteRatios(List<String> routeRatios) {
+        List<Map.Entry<String, Double>> parsed = new ArrayList<>();
+        for (String routeRatio : routeRatios) {
+            int separator = routeRatio.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException(
+                        "Route ratio must be <path prefix>=<ratio>: " + routeRatio);
+            }
+            parsed.add(
+                    Map.entry(
+                            routeRatio.substring(0, separator).trim(),
+                            Double.parseDouble(routeRatio.substring(separator + 1).trim())));
+        }
+        // Longest prefix first, so the most specific route wins
+        parsed.sort(
+                Comparator.comparingInt((Map.Entry<String, Double> e) -> e.getKey().length())
+                        .reversed());
+        return List.copyOf(parsed);
+    }
+}
@@ -0,0 +1,273 @@
+package br.com.arquivolivre.otelquarkus.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.InstrumentationLibraryInfo;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.DelegatingSpanData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Second half of {@link AdaptiveSampler}'s deferred decision. Spans of deferred traces are recorded
+ * but not sampled, so exporters ignore them; this processor buffers them by trace id until the
+ * trace's local root span ends. If any of them failed, the root answered a 5xx, or the root took at
+ * least {@code users.tracing.sampler.slow-threshold}, the trace is promoted: its spans are handed,
+ * marked sampled, to the other span processors, which include Quarkus' OTLP batch exporter.
+ * Otherwise the spans are discarded.
+ *
+ * <p>At most {@code users.tracing.sampler.max-deferred-traces} traces are buffered; spans of
+ * further traces, and spans ending after their root, are discarded.
+ */
+@ApplicationScoped
+public class DeferredSpanProcessor implements SpanProcessor {
+
+    private static final AttributeKey<Long> STATUS_CODE =
+            AttributeKey.longKey("http.response.status_code");
+    private static final int MAX_SPANS_PER_TRACE = 1000;
+    private static final long STALE_NANOS = Duration.ofMinutes(1).toNanos();
+
+    private record Buffered(long startedNanos, List<ReadableSpan> spans) {}
+
+    private final Supplier<List<SpanProcessor>> exporters;
+    private final long slowNanos;
+    private final int maxTraces;
+    private final Map<String, Buffered> traces = new ConcurrentHashMap<>();
+    private final LongAdder promoted = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+
+    @Inject
+    public DeferredSpanProcessor(
+            Instance<SpanProcessor> processors,
+            @ConfigProperty(name = "users.tracing.sampler.slow-threshold", defaultValue = "500ms")
+                    Duration slowThreshold,
+            @ConfigProperty(
+                            name = "users.tracing.sampler.max-deferred-traces",
+                            defaultValue = "10000")
+                    int maxTraces) {
+        // Looked up when promoting, not here: the other processors are created with the SDK
+        this(
+                () ->
+                        processors.stream()
+                                .filter(p -> !(p instanceof DeferredSpanProcessor))
+                                .toList(),
+                slowThreshold,
+                maxTraces);
+    }
+
+    DeferredSpanProcessor(
+            Supplier<List<SpanProcessor>> exporters, Duration slowThreshold, int maxTraces) {
+        this.exporters = exporters;
+        this.slowNanos = slowThreshold.toNanos();
+        this.maxTraces = maxTraces;
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        SpanContext context = span.getSpanContext();
+        if (context.isSampled() || !AdaptiveSampler.isDeferred(context.getTraceState())) {
+            return;
+        }
+        SpanContext parent = span.getParentSpanContext();
+        if (parent.isValid() && !parent.isRemote()) {
+            buffer(context.getTraceId(), span);
+            return;
+        }
+        Buffered trace = traces.remove(context.getTraceId());
+        List<ReadableSpan> spans = new ArrayList<>();
+        if (trace != null) {
+            synchronized (trace) {
+                spans.addAll(trace.spans());
+            }
+        }
+        spans.add(span);
+        if (!shouldPromote(span, spans)) {
+            discarded.increment();
+            return;
+        }
+        promoted.increment();
+        List<SpanProcessor> targets = exporters.get();
+        for (ReadableSpan deferred : spans) {
+            ReadableSpan sampled = new SampledSpan(deferred);
+            for (SpanProcessor target : targets) {
+                if (target.isEndRequired()) {
+                    target.onEnd(sampled);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        traces.clear();
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /** Deferred traces exported after all. */
+    public long promoted() {
+        return promoted.sum();
+    }
+
+    /** Deferred traces discarded when their root ended. */
+    public long discarded() {
+        return discarded.sum();
+    }
+
+    /** Traces waiting for their local root to end. */
+    public int pending() {
+        return traces.size();
+    }
+
+    private void buffer(String traceId, ReadableSpan span) {
+        Buffered trace = traces.get(traceId);
+        if (trace == null) {
+            if (traces.size() >= maxTraces && !evictStale()) {
+                return;
+            }
+            trace =
+                    traces.computeIfAbsent(
+                            traceId, t -> new Buffered(System.nanoTime(), new ArrayList<>()));
+        }
+        synchronized (trace) {
+            if (trace.spans().size() < MAX_SPANS_PER_TRACE) {
+                trace.spans().add(span);
+            }
+        }
+    }
+
+    /** Drop traces whose root never ended here; returns whether there is room again. */
+    private boolean evictStale() {
+        long now = System.nanoTime();
+        for (Iterator<Buffered> it = traces.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().startedNanos() > STALE_NANOS) {
+                it.remove();
+            }
+        }
+        return traces.size() < maxTraces;
+    }
+
+    private boolean shouldPromote(ReadableSpan root, List<ReadableSpan> spans) {
+        if (root.getLatencyNanos() >= slowNanos) {
+            return true;
+        }
+        Long status = root.getAttribute(STATUS_CODE);
+        if (status != null && status >= 500) {
+            return true;
+        }
+        for (ReadableSpan span : spans) {
+            if (span.toSpanData().getStatus().getStatusCode() == StatusCode.ERROR) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** A deferred span as exporters see a sampled one. */
+    private static final class SampledSpan implements ReadableSpan {
+
+        private final ReadableSpan delegate;
+        private final SpanContext spanContext;
+
+        SampledSpan(ReadableSpan delegate) {
+            this.delegate = delegate;
+            SpanContext context = delegate.getSpanContext();
+            this.spanContext =
+                    SpanContext.create(
+                            context.getTraceId(),
+                            context.getSpanId(),
+                            TraceFlags.getSampled(),
+                            context.getTraceState());
+        }
+
+        @Override
+        public SpanContext getSpanContext() {
+            return spanContext;
+        }
+
+        @Override
+        public SpanContext getParentSpanContext() {
+            return delegate.getParentSpanContext();
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public SpanData toSpanData() {
+            return new DelegatingSpanData(delegate.toSpanData()) {
+                @Override
+                public SpanContext getSpanContext() {
+                    return spanContext;
+                }
+            };
+        }
+
+        @SuppressWarnings("deprecation")
+        public InstrumentationLibraryInfo getInstrumentationLibraryInfo() {
+            return delegate.getInstrumentationLibraryInfo();
+        }
+
+        public InstrumentationScopeInfo getInstrumentationScopeInfo() {
+            return delegate.getInstrumentationScopeInfo();
+        }
+
+        @Override
+        public boolean hasEnded() {
+            return delegate.hasEnded();
+        }
+
+        @Override
+        public long getLatencyNanos() {
+            return delegate.getLatencyNanos();
+        }
+
+        @Override
+        public SpanKind getKind() {
+            return delegate.getKind();
+        }
+
+        @Override
+        public <T> T getAttribute(AttributeKey<T> key) {
+            return delegate.getAttribute(key);
+        }
+
+        public Attributes getAttributes() {
+            return delegate.getAttributes();
+        }
+    }
+}
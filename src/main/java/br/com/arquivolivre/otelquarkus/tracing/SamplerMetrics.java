@@ -0,0 +1,69 @@
+package br.com.arquivolivre.otelquarkus.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableDoubleGauge;
+import io.opentelemetry.api.metrics.ObservableLongCounter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Exports the decisions of {@link AdaptiveSampler} and {@link DeferredSpanProcessor}. They are
+ * part of the OpenTelemetry SDK the {@link Meter} comes from, so they cannot register metrics
+ * themselves.
+ */
+@ApplicationScoped
+public class SamplerMetrics {
+
+    private static final AttributeKey<String> DECISION = AttributeKey.stringKey("decision");
+
+    private final ObservableLongCounter decisionsCounter;
+    private final ObservableDoubleGauge budgetGauge;
+    private final ObservableLongGauge pendingGauge;
+
+    @Inject
+    public SamplerMetrics(
+            Meter meter, AdaptiveSampler sampler, DeferredSpanProcessor deferredProcessor) {
+        this.decisionsCounter =
+                meter.counterBuilder("tracing.sampler.decisions.total")
+                        .setDescription(
+                                "Traces by sampling decision: sampled at the start, dropped, or"
+                                        + " deferred and then promoted or discarded")
+                        .setUnit("1")
+                        .buildWithCallback(
+                                m -> {
+                                    m.record(sampler.sampled(), Attributes.of(DECISION, "sampled"));
+                                    m.record(sampler.dropped(), Attributes.of(DECISION, "dropped"));
+                                    m.record(
+                                            sampler.deferred(),
+                                            Attributes.of(DECISION, "deferred"));
+                                    m.record(
+                                            deferredProcessor.promoted(),
+                                            Attributes.of(DECISION, "promoted"));
+                                    m.record(
+                                            deferredProcessor.discarded(),
+                                            Attributes.of(DECISION, "discarded"));
+                                });
+
+        this.budgetGauge =
+                meter.gaugeBuilder("tracing.sampler.budget_factor")
+                        .setDescription("Factor sampling ratios are scaled by to hold the budget")
+                        .setUnit("1")
+                        .buildWithCallback(m -> m.record(sampler.budgetFactor()));
+
+        this.pendingGauge =
+                meter.gaugeBuilder("tracing.sampler.deferred.pending")
+                        .ofLongs()
+                        .setDescription("Deferred traces waiting for their local root span to end")
+                        .setUnit("1")
+                        .buildWithCallback(m -> m.record(deferredProcessor.pending()));
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        // Observing startup creates the bean, and with it the metrics
+    }
+}
@@ -0,0 +1,332 @@
+package br.com.arquivolivre.otelquarkus.warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Warms the JIT up before the instance reports ready, enabled with {@code
+ * users.jit-warmup.enabled}. Right after startup a synthetic request mix is replayed against the
+ * instance's own HTTP port, so Vert.x, RESTEasy, Jackson, validation and Hibernate code paths are
+ * compiled before real traffic arrives. The mix only reads, or sends a user that fails validation
+ * and is never written.
+ *
+ * <p>Requests run in rounds of {@code users.jit-warmup.requests-per-round} per endpoint on {@code
+ * users.jit-warmup.concurrency} threads. An endpoint has settled when its median latency moved by
+ * at most {@code users.jit-warmup.tolerance} since the previous round; warm-up ends once every
+ * endpoint stayed settled for {@code users.jit-warmup.stable-rounds} rounds, or after {@code
+ * users.jit-warmup.timeout}. {@link JitWarmupCheck} keeps the instance out of readiness until then.
+ */
+@ApplicationScoped
+public class JitWarmup {
+
+    private static final Logger LOG = Logger.getLogger(JitWarmup.class);
+    private static final AttributeKey<String> ENDPOINT = AttributeKey.stringKey("endpoint");
+
+    /** Latency changes below this are noise, however large relative to a fast endpoint. */
+    private static final long NOISE_MICROS = 200;
+
+    private static final int SAMPLE_USERS = 20;
+
+    /** Progress of the warm-up. */
+    public enum State {
+        DISABLED,
+        RUNNING,
+        SETTLED,
+        TIMED_OUT,
+        FAILED
+    }
+
+    /** One request of the mix; {@code endpoint} names it in metrics. */
+    record Request(String endpoint, String method, String path, String body) {
+
+        static Request get(String endpoint, String path) {
+            return new Request(endpoint, "GET", path, null);
+        }
+    }
+
+    private final ObjectMapper mapper;
+    private final URI baseUrl;
+    private final int requestsPerRound;
+    private final int concurrency;
+    private final double tolerance;
+    private final int stableRounds;
+    private final Duration timeout;
+    private final LongCounter requestsCounter;
+    private final LongHistogram latencyHistogram;
+    private final ObservableLongGauge roundsGauge;
+    private final ObservableLongGauge settledGauge;
+    private volatile State state;
+    private volatile int rounds;
+    private volatile int settledEndpoints;
+
+    @Inject
+    public JitWarmup(
+            ObjectMapper mapper,
+            Meter meter,
+            @ConfigProperty(name = "users.jit-warmup.enabled", defaultValue = "false")
+                    boolean enabled,
+            @ConfigProperty(
+                            name = "users.jit-warmup.base-url",
+                            defaultValue = "http://localhost:${quarkus.http.port}")
+                    String baseUrl,
+            @ConfigProperty(name = "users.jit-warmup.requests-per-round", defaultValue = "50")
+                    int requestsPerRound,
+            @ConfigProperty(name = "users.jit-warmup.concurrency", defaultValue = "4")
+                    int concurrency,
+            @ConfigProperty(name = "users.jit-warmup.tolerance", defaultValue = "0.1")
+                    double tolerance,
+            @ConfigProperty(name = "users.jit-warmup.stable-rounds", defaultValue = "3")
+                    int stableRounds,
+            @ConfigProperty(name = "users.jit-warmup.timeout", defaultValue = "120s")
+                    Duration timeout) {
+        this.mapper = mapper;
+        this.baseUrl = URI.create(baseUrl);
+        this.requestsPerRound = requestsPerRound;
+        this.concurrency = concurrency;
+        this.tolerance = tolerance;
+        this.stableRounds = stableRounds;
+        this.timeout = timeout;
+        // Not ready from the start, not only once the startup event arrives
+        this.state = enabled ? State.RUNNING : State.DISABLED;
+
+        this.requestsCounter =
+                meter.counterBuilder("users.jit_warmup.requests.total")
+                        .setDescription("Synthetic requests sent by the JIT warm-up, by endpoint")
+                        .setUnit("1")
+                        .build();
+
+        this.latencyHistogram =
+                meter.histogramBuilder("users.jit_warmup.latency")
+                        .ofLongs()
+                        .setDescription("Latency of JIT warm-up requests, by endpoint")
+                        .setUnit("us")
+                        .build();
+
+        this.roundsGauge =
+                meter.gaugeBuilder("users.jit_warmup.rounds")
+                        .ofLongs()
+                        .setDescription("JIT warm-up rounds run so far")
+                        .setUnit("1")
+                        .buildWithCallback(m -> m.record(rounds));
+
+        this.settledGauge =
+                meter.gaugeBuilder("users.jit_warmup.settled_endpoints")
+                        .ofLongs()
+                        .setDescription("Endpoints whose latency settled in the last round")
+                        .setUnit("1")
+                        .buildWithCallback(m -> m.record(settledEndpoints));
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (state != State.RUNNING) {
+            return;
+        }
+        Thread coordinator = new Thread(this::warmUp, "jit-warmup");
+        coordinator.setDaemon(true);
+        coordinator.start();
+    }
+
+    public State state() {
+        return state;
+    }
+
+    /** Whether readiness may be reported: the warm-up is over, or was never needed. */
+    public boolean isFinished() {
+        return state != State.RUNNING;
+    }
+
+    public int rounds() {
+        return rounds;
+    }
+
+    /**
+     * Build the request mix around sample users taken from the changes feed
+     *
+     * @param changes Body of {@code GET /api/users/changes}
+     * @return Requests to replay every round
+     */
+    List<Request> mix(JsonNode changes) {
+        List<Request> mix = new ArrayList<>();
+        mix.add(Request.get("count", "/api/users/count"));
+        mix.add(Request.get("changes", "/api/users/changes?limit=" + SAMPLE_USERS));
+        // Fails validation, so it exercises deserialization and validation without writing
+        mix.add(
+                new Request(
+                        "create-invalid",
+                        "POST",
+                        "/api/users",
+                        "{\"name\":\"\",\"email\":\"not-an-email\"}"));
+        JsonNode user = null;
+        for (JsonNode change : changes.path("changes")) {
+            if (change.hasNonNull("user")) {
+                user = change.get("user");
+                break;
+            }
+        }
+        if (user == null) {
+            mix.add(Request.get("by-id", "/api/users/0"));
+            return mix;
+        }
+        String name = user.path("name").asText();
+        mix.add(Request.get("by-id", "/api/users/" + user.path("id").asLong()));
+        mix.add(Request.get("by-email", "/api/users/email/" + encode(user.path("email").asText())));
+        mix.add(
+                Request.get(
+                        "search",
+                        "/api/users/search?name="
+                                + encode(name.substring(0, Math.min(3, name.length())))));
+        return mix;
+    }
+
+    /**
+     * Count the endpoints whose median latency stayed within the tolerance
+     *
+     * @param previous Median latency per endpoint in the previous round, in microseconds
+     * @param current Median latency per endpoint in this round, in microseconds
+     * @return Number of settled endpoints
+     */
+    int countSettled(Map<String, Long> previous, Map<String, Long> current) {
+        int settled = 0;
+        for (Map.Entry<String, Long> entry : current.entrySet()) {
+            Long before = previous.get(entry.getKey());
+            if (before != null
+                    && Math.abs(entry.getValue() - before)
+                            <= Math.max(NOISE_MICROS, (long) (before * tolerance))) {
+                settled++;
+            }
+        }
+        return settled;
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        AtomicInteger workers = new AtomicInteger();
+        ExecutorService executor =
+                Executors.newFixedThreadPool(
+                        concurrency,
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(runnable, "jit-warmup-" + workers.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        State outcome;
+        try {
+            Request sampleRequest =
+                    Request.get("sample", "/api/users/changes?limit=" + SAMPLE_USERS);
+            HttpResponse<String> sample =
+                    client.send(request(sampleRequest), HttpResponse.BodyHandlers.ofString());
+            List<Request> mix = mix(mapper.readTree(sample.body()));
+            Map<String, Long> previous = Map.of();
+            int stable = 0;
+            do {
+                if (System.nanoTime() > deadline) {
+                    break;
+                }
+                Map<String, Long> medians = round(client, executor, mix);
+                settledEndpoints = countSettled(previous, medians);
+                stable = settledEndpoints == medians.size() ? stable + 1 : 0;
+                previous = medians;
+                rounds++;
+            } while (stable < stableRounds);
+            outcome = stable >= stableRounds ? State.SETTLED : State.TIMED_OUT;
+            LOG.infof("JIT warm-up median latencies (us) after %d rounds: %s", rounds, previous);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = State.FAILED;
+        } catch (IOException | ExecutionException | RuntimeException e) {
+            LOG.error("JIT warm-up failed", e);
+            outcome = State.FAILED;
+        } finally {
+            executor.shutdownNow();
+        }
+        LOG.infof(
+                "JIT warm-up %s after %d rounds in %d ms",
+                outcome, rounds, (System.nanoTime() - start) / 1_000_000);
+        state = outcome;
+    }
+
+    /** Send every request of the mix {@code requestsPerRound} times; returns medians in us. */
+    private Map<String, Long> round(HttpClient client, ExecutorService executor, List<Request> mix)
+            throws InterruptedException, ExecutionException {
+        Map<String, List<Future<Long>>> pending = new LinkedHashMap<>();
+        for (int i = 0; i < requestsPerRound; i++) {
+            for (Request request : mix) {
+                pending.computeIfAbsent(request.endpoint(), e -> new ArrayList<>())
+                        .add(executor.submit(() -> send(client, request)));
+            }
+        }
+        Map<String, Long> medians = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Future<Long>>> entry : pending.entrySet()) {
+            long[] latencies = new long[entry.getValue().size()];
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = entry.getValue().get(i).get();
+            }
+            Arrays.sort(latencies);
+            medians.put(entry.getKey(), latencies[latencies.length / 2]);
+        }
+        return medians;
+    }
+
+    private long send(HttpClient client, Request request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<Void> response =
+                client.send(request(request), HttpResponse.BodyHandlers.discarding());
+        long micros = (System.nanoTime() - start) / 1_000;
+        if (response.statusCode() >= 500) {
+            LOG.debugf("JIT warm-up %s answered %d", request.path(), response.statusCode());
+        }
+        Attributes attributes = Attributes.of(ENDPOINT, request.endpoint());
+        requestsCounter.add(1, attributes);
+        latencyHistogram.record(micros, attributes);
+        return micros;
+    }
+
+    private HttpRequest request(Request request) {
+        HttpRequest.BodyPublisher body =
+                request.body() != null
+                        ? HttpRequest.BodyPublishers.ofString(request.body())
+                        : HttpRequest.BodyPublishers.noBody();
+        return HttpRequest.newBuilder(baseUrl.resolve(request.path()))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .method(request.method(), body)
+                .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,29 @@
+package br.com.arquivolivre.otelquarkus.warmup;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+/** Reports the instance not ready while {@link JitWarmup} is still replaying its request mix. */
+@Readiness
+@ApplicationScoped
+public class JitWarmupCheck implements HealthCheck {
+
+    private final JitWarmup warmup;
+
+    @Inject
+    public JitWarmupCheck(JitWarmup warmup) {
+        this.warmup = warmup;
+    }
+
+    @Override
+    public HealthCheckResponse call() {
+        return HealthCheckResponse.named("jit-warmup")
+                .status(warmup.isFinished())
+                .withData("state", warmup.state().name())
+                .withData("rounds", warmup.rounds())
+                .build();
+    }
+}
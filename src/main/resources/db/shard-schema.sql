@@ -0,0 +1,56 @@
+-- Schema for shard datasources (shard-1 .. shard-n). Hibernate only generates the schema of the
+-- default datasource (shard 0), so additional shards are provisioned with this script. It must stay
+-- in sync with the User, UserTombstone, UserOutboxEvent and UserInvalidation entities and be
+-- idempotent: H2 runs it through INIT on every new connection. MySQL does not accept CREATE INDEX
+-- IF NOT EXISTS; drop the IF NOT EXISTS when provisioning a MySQL shard, and declare identity
+-- columns as BIGINT NOT NULL AUTO_INCREMENT.
+-- The id counter row in user_id_blocks is seeded by PooledLoIdAllocator at (shard << 48) + 1.
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    bio VARCHAR(500),
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE INDEX IF NOT EXISTS idx_users_updated_at ON users (updated_at, id);
+
+CREATE TABLE IF NOT EXISTS user_tombstones (
+    id BIGINT NOT NULL,
+    deleted_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_tombstones_deleted_at ON user_tombstones (deleted_at, id);
+
+CREATE TABLE IF NOT EXISTS user_id_blocks (
+    name VARCHAR(64) NOT NULL,
+    next_val BIGINT NOT NULL,
+    PRIMARY KEY (name)
+);
+
+CREATE TABLE IF NOT EXISTS user_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id BIGINT NOT NULL,
+    type VARCHAR(16) NOT NULL,
+    payload VARCHAR(2000) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_outbox_created_at ON user_outbox (created_at, id);
+
+CREATE TABLE IF NOT EXISTS user_invalidations (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    origin VARCHAR(36) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_invalidations_created_at ON user_invalidations (created_at);
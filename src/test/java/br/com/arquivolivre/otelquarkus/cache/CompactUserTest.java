@@ -0,0 +1,65 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for CompactUser and NameInterner. */
+class CompactUserTest {
+
+    @Test
+    void testRoundTripKeepsEveryField() {
+        // Given
+        User user = user(1L, "Jöhn Doe");
+        user.bio = "Likes ☕";
+        user.createdAt = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000);
+
+        // When
+        User decoded = CompactUser.of(user, null).toUser();
+
+        // Then
+        assertThat(decoded).isNotSameAs(user);
+        assertThat(decoded.id).isEqualTo(1L);
+        assertThat(decoded.version).isEqualTo(2L);
+        assertThat(decoded.name).isEqualTo("Jöhn Doe");
+        assertThat(decoded.email).isEqualTo("user1@example.com");
+        assertThat(decoded.bio).isEqualTo("Likes ☕");
+        assertThat(decoded.createdAt).isEqualTo(user.createdAt);
+        assertThat(decoded.updatedAt).isNull();
+    }
+
+    @Test
+    void testFenceHasOnlyIdAndVersion() {
+        // When
+        CompactUser fence = CompactUser.fence(1L, 3L);
+
+        // Then
+        assertThat(fence.isFence()).isTrue();
+        assertThat(fence.id()).isEqualTo(1L);
+        assertThat(fence.version()).isEqualTo(3L);
+    }
+
+    @Test
+    void testInternerSharesEqualNames() {
+        // Given
+        NameInterner names = new NameInterner(16);
+        byte[] first = "John Doe".getBytes();
+        byte[] second = "John Doe".getBytes();
+
+        // When
+        byte[] interned = names.intern(first);
+
+        // Then
+        assertThat(names.intern(second)).isSameAs(interned).isSameAs(first);
+        assertThat(names.intern("Jane Doe".getBytes())).isNotSameAs(first);
+    }
+
+    private static User user(long id, String name) {
+        User user = new User(name, "user" + id + "@example.com", null);
+        user.id = id;
+        user.version = 2L;
+        return user;
+    }
+}
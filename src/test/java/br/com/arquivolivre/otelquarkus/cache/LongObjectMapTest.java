@@ -0,0 +1,96 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for LongObjectMap. */
+class LongObjectMapTest {
+
+    private final LongObjectMap<String> map = new LongObjectMap<>();
+
+    @Test
+    void testPutGetAndReplace() {
+        // When
+        String absent = map.put(1L, "one");
+        String replaced = map.put(1L, "uno");
+
+        // Then
+        assertThat(absent).isNull();
+        assertThat(replaced).isEqualTo("one");
+        assertThat(map.get(1L)).isEqualTo("uno");
+        assertThat(map.get(2L)).isNull();
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testGrowsAndKeepsEveryKey() {
+        // When
+        for (long key = 1; key <= 10_000; key++) {
+            map.put(key, "v" + key);
+        }
+
+        // Then
+        assertThat(map.size()).isEqualTo(10_000);
+        assertThat(map.get(1L)).isEqualTo("v1");
+        assertThat(map.get(10_000L)).isEqualTo("v10000");
+    }
+
+    @Test
+    void testRemoveKeepsCollidingKeysReachable() {
+        // Given
+        for (long key = 1; key <= 1_000; key++) {
+            map.put(key, "v" + key);
+        }
+
+        // When
+        for (long key = 1; key <= 1_000; key += 2) {
+            map.remove(key);
+        }
+
+        // Then
+        assertThat(map.size()).isEqualTo(500);
+        assertThat(map.remove(1L)).isNull();
+        for (long key = 2; key <= 1_000; key += 2) {
+            assertThat(map.get(key)).isEqualTo("v" + key);
+        }
+    }
+
+    @Test
+    void testKeyNearAndForEachValue() {
+        // Given
+        map.put(5L, "five");
+        map.put(7L, "seven");
+
+        // When
+        List<String> values = new ArrayList<>();
+        map.forEachValue(values::add);
+
+        // Then
+        assertThat(values).containsExactlyInAnyOrder("five", "seven");
+        assertThat(map.keyNear(123)).isIn(5L, 7L);
+        assertThat(new LongObjectMap<String>().keyNear(0)).isZero();
+    }
+
+    @Test
+    void testCanShiftBackOnlyTowardsHome() {
+        // Run without wrap-around: gap 3, cell 5
+        assertThat(LongObjectMap.canShiftBack(3, 5, 2)).isTrue();
+        assertThat(LongObjectMap.canShiftBack(3, 5, 3)).isTrue();
+        assertThat(LongObjectMap.canShiftBack(3, 5, 4)).isFalse();
+        assertThat(LongObjectMap.canShiftBack(3, 5, 7)).isTrue();
+
+        // Run wrapping around the end of the table: gap 14, cell 1
+        assertThat(LongObjectMap.canShiftBack(14, 1, 13)).isTrue();
+        assertThat(LongObjectMap.canShiftBack(14, 1, 15)).isFalse();
+        assertThat(LongObjectMap.canShiftBack(14, 1, 0)).isFalse();
+    }
+
+    @Test
+    void testRejectsReservedKey() {
+        assertThatThrownBy(() -> map.put(0L, "zero")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
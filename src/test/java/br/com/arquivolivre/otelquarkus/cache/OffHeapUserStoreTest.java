@@ -0,0 +1,158 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import io.opentelemetry.api.OpenTelemetry;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for OffHeapUserStore: encoding, chained slots, indexes and CLOCK eviction. */
+class OffHeapUserStoreTest {
+
+    private final OffHeapUserStore store = newStore(64 * 1024, 64);
+
+    @Test
+    void testRoundTripKeepsEveryField() {
+        // Given
+        User user = user(1L, 3L, "Jöhn", "john@example.com");
+        user.bio = "Likes ☕";
+        user.createdAt = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000);
+        user.updatedAt = null;
+
+        // When
+        store.put(user);
+        User stored = store.get(1L).orElseThrow();
+
+        // Then
+        assertThat(stored).isNotSameAs(user);
+        assertThat(stored.id).isEqualTo(1L);
+        assertThat(stored.version).isEqualTo(3L);
+        assertThat(stored.name).isEqualTo("Jöhn");
+        assertThat(stored.email).isEqualTo("john@example.com");
+        assertThat(stored.bio).isEqualTo("Likes ☕");
+        assertThat(stored.createdAt).isEqualTo(user.createdAt);
+        assertThat(stored.updatedAt).isNull();
+    }
+
+    @Test
+    void testRecordLargerThanASlotIsChained() {
+        // Given
+        User user = user(1L, 0L, "John", "john@example.com");
+        user.bio = "x".repeat(500);
+
+        // When
+        store.put(user);
+
+        // Then
+        assertThat(store.get(1L)).get().extracting(u -> u.bio).isEqualTo("x".repeat(500));
+        assertThat(store.usedBytes()).isGreaterThan(8 * 64);
+        store.remove(1L);
+        assertThat(store.usedBytes()).isZero();
+    }
+
+    @Test
+    void testLookupByEmailFollowsReplacement() {
+        // Given
+        store.put(user(1L, 0L, "John", "john@example.com"));
+
+        // When
+        store.put(user(1L, 1L, "John", "johnny@example.com"));
+
+        // Then
+        assertThat(store.getByEmail("john@example.com")).isEmpty();
+        assertThat(store.getByEmail("johnny@example.com"))
+                .get()
+                .extracting(u -> u.id)
+                .isEqualTo(1L);
+        assertThat(store.entryCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidateOnlyDropsOlderVersions() {
+        // Given
+        store.put(user(1L, 3L, "John", "john@example.com"));
+
+        // When
+        store.invalidate(1L, 3L);
+
+        // Then
+        assertThat(store.get(1L)).isPresent();
+        store.invalidate(1L, 4L);
+        assertThat(store.get(1L)).isEmpty();
+        assertThat(store.getByEmail("john@example.com")).isEmpty();
+    }
+
+    @Test
+    void testStaleCopyIsNotWrittenOverNewerVersionOrFence() {
+        // Given
+        store.put(user(1L, 2L, "John", "john@example.com"));
+        store.invalidate(2L, 5L);
+
+        // When
+        store.put(user(1L, 1L, "Old John", "john@example.com"));
+        store.put(user(2L, 4L, "Old Jane", "jane@example.com"));
+
+        // Then
+        assertThat(store.get(1L)).get().extracting(u -> u.version).isEqualTo(2L);
+        assertThat(store.get(2L)).isEmpty();
+        store.put(user(2L, 5L, "Jane", "jane@example.com"));
+        assertThat(store.get(2L)).get().extracting(u -> u.name).isEqualTo("Jane");
+    }
+
+    @Test
+    void testClockEvictionSparesReferencedEntries() {
+        // Given
+        OffHeapUserStore small = newStore(3 * 64, 64);
+        small.put(user(1L, 0L, "A", "a@example.com"));
+        small.put(user(2L, 0L, "B", "b@example.com"));
+        small.put(user(3L, 0L, "C", "c@example.com"));
+        small.get(1L);
+
+        // When
+        small.put(user(4L, 0L, "D", "d@example.com"));
+
+        // Then
+        assertThat(small.entryCount()).isEqualTo(3);
+        assertThat(small.get(1L)).isPresent();
+        assertThat(small.get(4L)).isPresent();
+        assertThat(small.get(2L).isPresent() && small.get(3L).isPresent()).isFalse();
+    }
+
+    @Test
+    void testIndexesSurviveChurn() {
+        // Given
+        OffHeapUserStore small = newStore(100 * 64, 64);
+
+        // When
+        for (long id = 1; id <= 1_000; id++) {
+            small.put(user(id, 0L, "User " + id, "user" + id + "@example.com"));
+            if (id % 3 == 0) {
+                small.remove(id - 1);
+            }
+        }
+
+        // Then
+        assertThat(small.entryCount()).isLessThanOrEqualTo(100);
+        assertThat(small.get(1_000L)).isPresent();
+        assertThat(small.getByEmail("user1000@example.com")).isPresent();
+        assertThat(small.get(998L)).isEmpty();
+    }
+
+    @Test
+    void testRejectsSlotsTooSmallForTheHeader() {
+        assertThatThrownBy(() -> newStore(1024, 32)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static OffHeapUserStore newStore(long capacity, int slotSize) {
+        return new OffHeapUserStore(capacity, slotSize, OpenTelemetry.noop().getMeter("test"));
+    }
+
+    private static User user(long id, long version, String name, String email) {
+        User user = new User(name, email, null);
+        user.id = id;
+        user.version = version;
+        return user;
+    }
+}
@@ -0,0 +1,168 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.model.UserInvalidation;
+import br.com.arquivolivre.otelquarkus.repository.UserInvalidationRepository;
+import br.com.arquivolivre.otelquarkus.service.UserMutation;
+import io.opentelemetry.api.OpenTelemetry;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for UserCacheInvalidator. Two invalidators sharing a mocked log stand in for two
+ * instances of the application.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserCacheInvalidatorTest {
+
+    @Mock private UserInvalidationRepository repository;
+
+    private UserCache cache;
+
+    private UserCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserCache(OpenTelemetry.noop().getMeter("test"), true, 100);
+        invalidator = newInvalidator(cache);
+    }
+
+    @Test
+    void testUpdateIsLoggedWithItsVersion() {
+        // Given
+        User user = new User("John", "john@example.com", null);
+        user.id = 1L;
+        user.version = 4L;
+
+        // When
+        invalidator.onMutation(
+                new UserMutation(UserMutation.Type.UPDATED, 1L, 4L, user, Instant.now()));
+
+        // Then
+        ArgumentCaptor<UserInvalidation> logged = ArgumentCaptor.forClass(UserInvalidation.class);
+        verify(repository).persist(logged.capture());
+        assertThat(logged.getValue().userId).isEqualTo(1L);
+        assertThat(logged.getValue().version).isEqualTo(4L);
+        assertThat(logged.getValue().origin).isEqualTo(invalidator.origin());
+    }
+
+    @Test
+    void testCreateIsNotLogged() {
+        // Given
+        User user = new User("John", "john@example.com", null);
+        user.id = 1L;
+
+        // When
+        invalidator.onMutation(
+                new UserMutation(UserMutation.Type.CREATED, 1L, 0L, user, Instant.now()));
+
+        // Then
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testPollAppliesOtherInstancesOnce() {
+        // Given
+        cache.put(user(1L, 1L));
+        cache.put(user(2L, 1L));
+        UserCacheInvalidator other = newInvalidator(cache);
+        UserInvalidation remote = entry(10L, 1L, 2L, other.origin());
+        UserInvalidation own = entry(11L, 2L, 2L, invalidator.origin());
+        when(repository.findSince(any())).thenReturn(List.of(remote, own));
+
+        // When
+        int first = invalidator.poll();
+        int second = invalidator.poll();
+
+        // Then
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        assertThat(cache.get(1L)).isEmpty();
+        assertThat(cache.get(2L)).isPresent();
+    }
+
+    @Test
+    void testPollReachesBackByTheOverlap() {
+        // Given
+        LocalDateTime late = LocalDateTime.now().minusSeconds(2);
+        UserInvalidation committedLate = entry(12L, 3L, 1L, "other");
+        committedLate.createdAt = late;
+        when(repository.findSince(any())).thenReturn(List.of(committedLate));
+
+        // When
+        int applied = invalidator.poll();
+
+        // Then
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).findSince(since.capture());
+        assertThat(since.getValue()).isBefore(late);
+        assertThat(applied).isEqualTo(1);
+    }
+
+    @Test
+    void testPollKeepsEntriesOfDifferentShardsWithTheSameId() {
+        // Given - each shard numbers its own entries
+        long onShard0 = ShardRouter.firstIdOf(0);
+        long onShard1 = ShardRouter.firstIdOf(1);
+        cache.put(user(onShard0, 1L));
+        cache.put(user(onShard1, 1L));
+        UserCacheInvalidator sharded = newInvalidator(cache, new ShardRouter(2));
+        when(repository.findSince(any()))
+                .thenReturn(
+                        List.of(
+                                entry(1L, onShard0, 2L, "other"),
+                                entry(1L, onShard1, 2L, "other")));
+
+        // When
+        int applied = sharded.poll();
+
+        // Then
+        assertThat(applied).isEqualTo(2);
+        assertThat(cache.get(onShard0)).isEmpty();
+        assertThat(cache.get(onShard1)).isEmpty();
+    }
+
+    private UserCacheInvalidator newInvalidator(UserCache userCache) {
+        return newInvalidator(userCache, new ShardRouter(1));
+    }
+
+    private UserCacheInvalidator newInvalidator(UserCache userCache, ShardRouter shardRouter) {
+        return new UserCacheInvalidator(
+                repository,
+                userCache,
+                shardRouter,
+                OpenTelemetry.noop().getMeter("test"),
+                Duration.ofMillis(500),
+                Duration.ofSeconds(5),
+                Duration.ofMinutes(10));
+    }
+
+    private static UserInvalidation entry(long id, long userId, long version, String origin) {
+        UserInvalidation entry =
+                new UserInvalidation(userId, version, origin, LocalDateTime.now());
+        entry.id = id;
+        return entry;
+    }
+
+    private static User user(long id, long version) {
+        User user = new User("User " + id, "user" + id + "@example.com", null);
+        user.id = id;
+        user.version = version;
+        return user;
+    }
+}
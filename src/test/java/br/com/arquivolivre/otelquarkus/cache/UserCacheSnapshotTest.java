@@ -0,0 +1,160 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.repository.UserRepository;
+import io.opentelemetry.api.OpenTelemetry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for UserCacheSnapshot. Each test saves from one cache and restores into a new one,
+ * as across a restart.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserCacheSnapshotTest {
+
+    @Mock private UserRepository repository;
+
+    @TempDir Path directory;
+
+    @Test
+    void testRestoresCurrentUsersLazily() throws IOException {
+        // Given
+        UserCache before = newCache();
+        before.put(user(1L, 2L));
+        before.put(user(2L, 0L));
+        newSnapshot(before).save();
+        UserCache after = newCache();
+        UserCacheSnapshot snapshot = newSnapshot(after);
+        when(repository.findVersion(1L)).thenReturn(Optional.of(2L));
+
+        // When
+        int indexed = snapshot.load();
+        Optional<User> restored = snapshot.restore(1L);
+
+        // Then
+        assertThat(indexed).isEqualTo(2);
+        assertThat(restored).get().extracting(u -> u.name).isEqualTo("User 1");
+        assertThat(restored.get().createdAt).isEqualTo(LocalDateTime.of(2024, 1, 1, 0, 0));
+        assertThat(after.get(1L)).isPresent();
+        assertThat(after.get(2L)).isEmpty();
+        verify(repository).findVersion(1L);
+    }
+
+    @Test
+    void testDropsStaleAndDeletedUsers() throws IOException {
+        // Given
+        UserCache before = newCache();
+        before.put(user(1L, 2L));
+        before.put(user(2L, 0L));
+        newSnapshot(before).save();
+        UserCache after = newCache();
+        UserCacheSnapshot snapshot = newSnapshot(after);
+        snapshot.load();
+        when(repository.findVersion(1L)).thenReturn(Optional.of(3L));
+        when(repository.findVersion(2L)).thenReturn(Optional.empty());
+
+        // When
+        Optional<User> changed = snapshot.restore(1L);
+        Optional<User> deleted = snapshot.restore(2L);
+
+        // Then
+        assertThat(changed).isEmpty();
+        assertThat(deleted).isEmpty();
+        assertThat(after.size()).isZero();
+    }
+
+    @Test
+    void testEachUserIsRestoredOnce() throws IOException {
+        // Given
+        UserCache before = newCache();
+        before.put(user(1L, 0L));
+        newSnapshot(before).save();
+        UserCacheSnapshot snapshot = newSnapshot(newCache());
+        snapshot.load();
+        when(repository.findVersion(1L)).thenReturn(Optional.of(0L));
+        snapshot.restore(1L);
+
+        // When
+        Optional<User> again = snapshot.restore(1L);
+
+        // Then
+        assertThat(again).isEmpty();
+    }
+
+    @Test
+    void testIgnoresMissingAndForeignFiles() throws IOException {
+        // Given
+        UserCacheSnapshot snapshot = newSnapshot(newCache());
+        int missing = snapshot.load();
+        Files.writeString(directory.resolve("users.snapshot"), "not a snapshot, but long enough");
+
+        // When
+        int foreign = snapshot.load();
+
+        // Then
+        assertThat(missing).isZero();
+        assertThat(foreign).isZero();
+        assertThat(snapshot.restore(1L)).isEmpty();
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testSavesAtMostMaxUsers() throws IOException {
+        // Given
+        UserCache before = newCache();
+        for (long id = 1; id <= 5; id++) {
+            before.put(user(id, 0L));
+        }
+        UserCacheSnapshot snapshot =
+                new UserCacheSnapshot(
+                        before,
+                        repository,
+                        OpenTelemetry.noop().getMeter("test"),
+                        true,
+                        directory.resolve("users.snapshot").toString(),
+                        3);
+
+        // When
+        int saved = snapshot.save();
+
+        // Then
+        assertThat(saved).isEqualTo(3);
+        assertThat(newSnapshot(newCache()).load()).isEqualTo(3);
+    }
+
+    private UserCacheSnapshot newSnapshot(UserCache cache) {
+        return new UserCacheSnapshot(
+                cache,
+                repository,
+                OpenTelemetry.noop().getMeter("test"),
+                true,
+                directory.resolve("users.snapshot").toString(),
+                100);
+    }
+
+    private static UserCache newCache() {
+        return new UserCache(OpenTelemetry.noop().getMeter("test"), true, 100);
+    }
+
+    private static User user(long id, long version) {
+        User user = new User("User " + id, "user" + id + "@example.com", null);
+        user.id = id;
+        user.version = version;
+        user.createdAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+        return user;
+    }
+}
@@ -0,0 +1,197 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.model.UserInvalidation;
+import br.com.arquivolivre.otelquarkus.service.UserMutation;
+import io.opentelemetry.api.OpenTelemetry;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the versioning rules of UserCache. */
+class UserCacheTest {
+
+    private final UserCache cache = new UserCache(OpenTelemetry.noop().getMeter("test"), true, 100);
+
+    @Test
+    void testPutAndGetReturnsCopy() {
+        // Given
+        User user = user(1L, 0L, "John");
+        cache.put(user);
+
+        // When
+        User cached = cache.get(1L).orElseThrow();
+
+        // Then
+        assertThat(cached).isNotSameAs(user);
+        assertThat(cached.name).isEqualTo("John");
+        assertThat(cached.version).isZero();
+    }
+
+    @Test
+    void testOlderVersionDoesNotReplaceNewer() {
+        // Given
+        cache.put(user(1L, 2L, "New"));
+
+        // When
+        cache.put(user(1L, 1L, "Old"));
+
+        // Then
+        assertThat(cache.get(1L)).get().extracting(u -> u.name).isEqualTo("New");
+    }
+
+    @Test
+    void testInvalidationFencesOutOlderCopies() {
+        // Given
+        cache.put(user(1L, 1L, "Old"));
+
+        // When
+        cache.invalidate(1L, 2L);
+        cache.put(user(1L, 1L, "Old"));
+
+        // Then
+        assertThat(cache.get(1L)).isEmpty();
+        cache.put(user(1L, 2L, "New"));
+        assertThat(cache.get(1L)).get().extracting(u -> u.name).isEqualTo("New");
+    }
+
+    @Test
+    void testLateInvalidationKeepsNewerEntry() {
+        // Given
+        cache.put(user(1L, 3L, "Newest"));
+
+        // When
+        cache.invalidate(1L, 2L);
+        cache.invalidate(1L, 3L);
+
+        // Then
+        assertThat(cache.get(1L)).get().extracting(u -> u.name).isEqualTo("Newest");
+    }
+
+    @Test
+    void testDeletedUserIsNeverCachedAgain() {
+        // Given
+        cache.put(user(1L, 5L, "John"));
+
+        // When
+        cache.invalidate(1L, UserInvalidation.DELETED);
+        cache.put(user(1L, 5L, "John"));
+
+        // Then
+        assertThat(cache.get(1L)).isEmpty();
+    }
+
+    @Test
+    void testCommittedMutationsAreApplied() {
+        // Given
+        cache.put(user(1L, 1L, "Old"));
+        cache.put(user(2L, 1L, "Gone"));
+
+        // When
+        cache.onMutation(
+                new UserMutation(
+                        UserMutation.Type.UPDATED,
+                        1L,
+                        2L,
+                        user(1L, 2L, "Updated"),
+                        Instant.now()));
+        cache.onMutation(
+                new UserMutation(
+                        UserMutation.Type.DELETED,
+                        2L,
+                        UserInvalidation.DELETED,
+                        null,
+                        Instant.now()));
+
+        // Then
+        assertThat(cache.get(1L)).get().extracting(u -> u.name).isEqualTo("Updated");
+        assertThat(cache.get(2L)).isEmpty();
+    }
+
+    @Test
+    void testEvictsWhenFull() {
+        // Given
+        UserCache small = new UserCache(OpenTelemetry.noop().getMeter("test"), true, 2);
+
+        // When
+        for (long id = 1; id <= 5; id++) {
+            small.put(user(id, 0L, "User " + id));
+        }
+
+        // Then
+        assertThat(small.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testEvictionGivesRecentlyReadUsersASecondChance() {
+        // Given
+        UserCache small = new UserCache(OpenTelemetry.noop().getMeter("test"), true, 2);
+        small.put(user(1L, 0L, "Hot"));
+        small.put(user(2L, 0L, "Cold"));
+        small.get(1L);
+
+        // When
+        small.put(user(3L, 0L, "New"));
+
+        // Then
+        assertThat(small.get(1L)).isPresent();
+        assertThat(small.get(2L)).isEmpty();
+    }
+
+    @Test
+    void testUsersListsRecentlyReadFirst() {
+        // Given
+        for (long id = 1; id <= 10; id++) {
+            cache.put(user(id, 0L, "User " + id));
+        }
+        cache.get(7L);
+        cache.get(4L);
+
+        // When
+        List<User> users = cache.users(2);
+
+        // Then
+        assertThat(users).extracting(u -> u.id).containsExactlyInAnyOrder(7L, 4L);
+    }
+
+    @Test
+    void testDisabledCacheHoldsNothing() {
+        // Given
+        UserCache disabled = new UserCache(OpenTelemetry.noop().getMeter("test"), false, 100);
+
+        // When
+        disabled.put(user(1L, 0L, "John"));
+
+        // Then
+        assertThat(disabled.get(1L)).isEmpty();
+        assertThat(disabled.size()).isZero();
+    }
+
+    @Test
+    void testOffHeapTierServesUsersEvictedFromHeap() {
+        // Given
+        var meter = OpenTelemetry.noop().getMeter("test");
+        UserCache tiered =
+                new UserCache(meter, true, 1, true, new OffHeapUserStore(64 * 1024, 256, meter));
+        tiered.put(user(1L, 0L, "John"));
+        tiered.put(user(2L, 0L, "Jane"));
+
+        // When
+        tiered.invalidate(2L, UserInvalidation.DELETED);
+
+        // Then
+        assertThat(tiered.get(1L)).get().extracting(u -> u.name).isEqualTo("John");
+        assertThat(tiered.getByEmail("user1@example.com")).isPresent();
+        assertThat(tiered.get(2L)).isEmpty();
+        assertThat(tiered.getByEmail("user2@example.com")).isEmpty();
+    }
+
+    private static User user(long id, long version, String name) {
+        User user = new User(name, "user" + id + "@example.com", null);
+        user.id = id;
+        user.version = version;
+        return user;
+    }
+}
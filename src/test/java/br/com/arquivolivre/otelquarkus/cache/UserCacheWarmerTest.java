@@ -0,0 +1,102 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.repository.UserRepository;
+import io.opentelemetry.api.OpenTelemetry;
+import java.time.Duration;
+import java.util.List;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** Unit tests for UserCacheWarmer and its readiness check. */
+@ExtendWith(MockitoExtension.class)
+class UserCacheWarmerTest {
+
+    @Mock private UserRepository repository;
+
+    private final UserCache cache = new UserCache(OpenTelemetry.noop().getMeter("test"), true, 100);
+
+    @Test
+    void testChunksAreSortedIdRangesOnOneShard() {
+        // Given
+        UserCacheWarmer warmer = newWarmer(new ShardRouter(2), true);
+        long shard1 = ShardRouter.firstIdOf(1);
+
+        // When
+        List<List<Long>> chunks = warmer.chunks(List.of(shard1 + 2, 5L, 1L, shard1, 3L, 4L));
+
+        // Then
+        assertThat(chunks)
+                .containsExactly(
+                        List.of(1L, 3L), List.of(4L, 5L), List.of(shard1, shard1 + 2));
+    }
+
+    @Test
+    void testLoadPutsChunkInCache() {
+        // Given
+        UserCacheWarmer warmer = newWarmer(new ShardRouter(1), true);
+        when(repository.findByIds(List.of(1L, 2L))).thenReturn(List.of(user(1L), user(2L)));
+
+        // When
+        int loaded = warmer.load(List.of(1L, 2L));
+
+        // Then
+        assertThat(loaded).isEqualTo(2);
+        assertThat(warmer.loaded()).isEqualTo(2);
+        assertThat(cache.get(1L)).isPresent();
+        assertThat(cache.get(2L)).isPresent();
+    }
+
+    @Test
+    void testNotReadyWhileRunning() {
+        // Given
+        UserCacheWarmer warmer = newWarmer(new ShardRouter(1), true);
+
+        // When
+        HealthCheckResponse response = new UserCacheWarmupCheck(warmer).call();
+
+        // Then
+        assertThat(warmer.state()).isEqualTo(UserCacheWarmer.State.RUNNING);
+        assertThat(response.getStatus()).isEqualTo(HealthCheckResponse.Status.DOWN);
+    }
+
+    @Test
+    void testReadyWhenDisabled() {
+        // Given
+        UserCacheWarmer warmer = newWarmer(new ShardRouter(1), false);
+
+        // When
+        HealthCheckResponse response = new UserCacheWarmupCheck(warmer).call();
+
+        // Then
+        assertThat(warmer.state()).isEqualTo(UserCacheWarmer.State.DISABLED);
+        assertThat(response.getStatus()).isEqualTo(HealthCheckResponse.Status.UP);
+    }
+
+    private UserCacheWarmer newWarmer(ShardRouter shardRouter, boolean enabled) {
+        return new UserCacheWarmer(
+                repository,
+                cache,
+                shardRouter,
+                OpenTelemetry.noop().getMeter("test"),
+                enabled,
+                100,
+                2,
+                2,
+                Duration.ofSeconds(10));
+    }
+
+    private static User user(long id) {
+        User user = new User("User " + id, "user" + id + "@example.com", null);
+        user.id = id;
+        user.version = 0L;
+        return user;
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.arquivolivre.otelquarkus.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Measures the retained bytes per cached user with JOL: entities in a {@code ConcurrentHashMap}
+ * against {@link CompactUser}s in a {@link LongObjectMap}. Tagged {@code footprint} and excluded
+ * from the default build; run it with {@code mvn test -Pfootprint -Dtest=UserFootprintTest}.
+ *
+ * <p>Outside Quarkus the entity is not bytecode-enhanced, so in the application it carries a few
+ * more fields than measured here.
+ */
+@Tag("footprint")
+class UserFootprintTest {
+
+    private static final int USERS = 100_000;
+    private static final String[] FIRST_NAMES = {"Ana", "Bruno", "Carla", "Diego", "Elisa"};
+    private static final String[] LAST_NAMES = {"Silva", "Santos", "Oliveira", "Souza", "Lima"};
+
+    @Test
+    void testCompactUsersTakeLessThanHalfTheMemory() {
+        // Given
+        ConcurrentHashMap<Long, User> entities = new ConcurrentHashMap<>();
+        LongObjectMap<CompactUser> compact = new LongObjectMap<>();
+        LongObjectMap<CompactUser> deduped = new LongObjectMap<>();
+        NameInterner names = new NameInterner(1 << 16);
+
+        // When
+        for (int i = 1; i <= USERS; i++) {
+            User user = user(i);
+            entities.put(user.id, user);
+            compact.put(user.id, CompactUser.of(user, null));
+            deduped.put(user.id, CompactUser.of(user, names));
+        }
+
+        // Then
+        long entityBytes = GraphLayout.parseInstance(entities).totalSize() / USERS;
+        long compactBytes = GraphLayout.parseInstance(compact).totalSize() / USERS;
+        long dedupedBytes = GraphLayout.parseInstance(deduped).totalSize() / USERS;
+        assertThat(compactBytes)
+                .as("compact bytes per user against %d for an entity", entityBytes)
+                .isLessThan(entityBytes / 2);
+        assertThat(dedupedBytes)
+                .as("bytes per user with deduplicated names against %d without", compactBytes)
+                .isLessThan(compactBytes);
+    }
+
+    private static User user(int i) {
+        String name = FIRST_NAMES[i % FIRST_NAMES.length] + " " + LAST_NAMES[i / 7 % 5];
+        User user = new User(name, "user" + i + "@example.com", i % 2 == 0 ? "Bio " + i : null);
+        user.id = 1_000_000L + i;
+        user.version = (long) (i % 3);
+        user.createdAt = LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(i);
+        user.updatedAt = user.createdAt.plusMinutes(i % 60);
+        return user;
+    }
+}
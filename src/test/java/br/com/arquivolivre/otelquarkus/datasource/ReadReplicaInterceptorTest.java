@@ -0,0 +1,68 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+import jakarta.interceptor.InvocationContext;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** Unit tests for ReadReplicaInterceptor's datasource binding. */
+@ExtendWith(MockitoExtension.class)
+class ReadReplicaInterceptorTest {
+
+    @Mock private ReadReplicaRouter router;
+
+    @Mock private InvocationContext context;
+
+    private ReadReplicaInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new ReadReplicaInterceptor();
+        interceptor.router = router;
+    }
+
+    @Test
+    void testBindsRoutedDataSourceDuringInvocation() throws Exception {
+        // Given
+        AtomicReference<String> seen = new AtomicReference<>();
+        when(router.route()).thenReturn(DataSourceRouting.REPLICA);
+        when(context.proceed())
+                .thenAnswer(
+                        invocation -> {
+                            seen.set(DataSourceRouting.current());
+                            return "result";
+                        });
+
+        // When
+        Object result = interceptor.route(context);
+
+        // Then
+        assertThat(result).isEqualTo("result");
+        assertThat(seen.get()).isEqualTo(DataSourceRouting.REPLICA);
+        assertThat(DataSourceRouting.current()).isEqualTo(DataSourceRouting.PRIMARY);
+    }
+
+    @Test
+    void testRestoresOuterBindingWhenInvocationFails() throws Exception {
+        // Given
+        when(router.route()).thenReturn(DataSourceRouting.REPLICA);
+        when(context.proceed()).thenThrow(new IllegalStateException("boom"));
+        String previous = DataSourceRouting.bind("outer");
+
+        // When / Then
+        try {
+            assertThatThrownBy(() -> interceptor.route(context))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThat(DataSourceRouting.current()).isEqualTo("outer");
+        } finally {
+            DataSourceRouting.restore(previous);
+        }
+    }
+}
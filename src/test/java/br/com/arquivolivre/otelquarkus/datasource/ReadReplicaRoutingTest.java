@@ -0,0 +1,77 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests which datasource serves {@link ReadReplica} reads. The test replica is a separate database
+ * seeded with a user the primary does not have (see {@code db/replica-seed.sql}), so the outcome of
+ * a lookup shows where it ran.
+ */
+@QuarkusTest
+@TestProfile(ReadReplicaRoutingTest.ReplicaEnabled.class)
+class ReadReplicaRoutingTest {
+
+    private static final String REPLICA_ONLY_EMAIL = "replica-only@example.com";
+
+    /** Turns replica routing on. */
+    public static class ReplicaEnabled implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("users.read-replica.enabled", "true");
+        }
+    }
+
+    @Test
+    void testReadReplicaMethodIsServedByReplica() {
+        given().header(ReadYourWritesFilter.CLIENT_ID_HEADER, "reader")
+                .pathParam("email", REPLICA_ONLY_EMAIL)
+                .when()
+                .get("/api/users/email/{email}")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Replica Only"));
+    }
+
+    @Test
+    void testRecentWriterIsServedByPrimary() {
+        // Given: the user is only written to the primary
+        given().header(ReadYourWritesFilter.CLIENT_ID_HEADER, "writer")
+                .contentType(ContentType.JSON)
+                .body(new User("Primary Only", "primary-only@example.com", null))
+                .when()
+                .post("/api/users")
+                .then()
+                .statusCode(201);
+
+        // When/Then: the writer is pinned to the primary, which has its user but not the seed
+        given().header(ReadYourWritesFilter.CLIENT_ID_HEADER, "writer")
+                .pathParam("email", "primary-only@example.com")
+                .when()
+                .get("/api/users/email/{email}")
+                .then()
+                .statusCode(200);
+        given().header(ReadYourWritesFilter.CLIENT_ID_HEADER, "writer")
+                .pathParam("email", REPLICA_ONLY_EMAIL)
+                .when()
+                .get("/api/users/email/{email}")
+                .then()
+                .statusCode(404);
+
+        // Other clients still read from the replica, which never saw the write
+        given().header(ReadYourWritesFilter.CLIENT_ID_HEADER, "other")
+                .pathParam("email", "primary-only@example.com")
+                .when()
+                .get("/api/users/email/{email}")
+                .then()
+                .statusCode(404);
+    }
+}
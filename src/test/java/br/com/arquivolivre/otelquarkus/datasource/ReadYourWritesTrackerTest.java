@@ -0,0 +1,79 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for ReadYourWritesTracker using a manual clock. */
+class ReadYourWritesTrackerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private ReadYourWritesTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new ReadYourWritesTracker(Duration.ofSeconds(5), clock::get);
+    }
+
+    @Test
+    void testUnknownClientIsNotPinned() {
+        assertThat(tracker.wroteRecently("client-a")).isFalse();
+    }
+
+    @Test
+    void testClientIsPinnedWithinWindow() {
+        // Given
+        tracker.recordWrite("client-a");
+
+        // When
+        clock.addAndGet(Duration.ofSeconds(4).toNanos());
+
+        // Then
+        assertThat(tracker.wroteRecently("client-a")).isTrue();
+        assertThat(tracker.wroteRecently("client-b")).isFalse();
+    }
+
+    @Test
+    void testPinExpiresAfterWindow() {
+        // Given
+        tracker.recordWrite("client-a");
+
+        // When
+        clock.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        // Then
+        assertThat(tracker.wroteRecently("client-a")).isFalse();
+        assertThat(tracker.trackedClients()).isZero();
+    }
+
+    @Test
+    void testNullClientIsIgnored() {
+        // When
+        tracker.recordWrite(null);
+
+        // Then
+        assertThat(tracker.wroteRecently(null)).isFalse();
+        assertThat(tracker.trackedClients()).isZero();
+    }
+
+    @Test
+    void testExpiredEntriesAreSweptWhenMapGrows() {
+        // Given
+        for (int i = 0; i < ReadYourWritesTracker.SWEEP_THRESHOLD; i++) {
+            tracker.recordWrite("client-" + i);
+        }
+        clock.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        // When
+        tracker.recordWrite("late-client");
+        tracker.recordWrite("another-late-client");
+
+        // Then
+        assertThat(tracker.trackedClients()).isEqualTo(2);
+        assertThat(tracker.wroteRecently("late-client")).isTrue();
+    }
+}
@@ -0,0 +1,91 @@
+package br.com.arquivolivre.otelquarkus.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for ShardRouter's placement and routing rules. */
+class ShardRouterTest {
+
+    private final ShardRouter unsharded = new ShardRouter(1);
+
+    private final ShardRouter sharded = new ShardRouter(4);
+
+    @Test
+    void testRejectsInvalidShardCount() {
+        assertThatThrownBy(() -> new ShardRouter(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("shard-count");
+    }
+
+    @Test
+    void testEmailShardIsStableAndCaseInsensitive() {
+        int shard = sharded.shardForEmail("John.Doe@Example.com");
+
+        assertThat(shard).isBetween(0, 3);
+        assertThat(sharded.shardForEmail("john.doe@example.com")).isEqualTo(shard);
+    }
+
+    @Test
+    void testEmailsSpreadAcrossShards() {
+        Set<Integer> shards = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            shards.add(sharded.shardForEmail("user" + i + "@example.com"));
+        }
+
+        assertThat(shards).containsExactlyInAnyOrder(0, 1, 2, 3);
+    }
+
+    @Test
+    void testIdShardMatchesSequenceRange() {
+        assertThat(sharded.shardForId(ShardRouter.firstIdOf(0))).isZero();
+        assertThat(sharded.shardForId(5L)).isZero();
+        assertThat(sharded.shardForId(ShardRouter.firstIdOf(3) + 1_000)).isEqualTo(3);
+    }
+
+    @Test
+    void testForeignIdsBelongToNoShard() {
+        assertThat(sharded.shardForId(ShardRouter.firstIdOf(4))).isEqualTo(-1);
+        assertThat(sharded.shardForId(-1L)).isEqualTo(-1);
+    }
+
+    @Test
+    void testUnshardedRoutingDoesNotBindDataSource() {
+        String seen = unsharded.onEmailShard("john@example.com", DataSourceRouting::current);
+
+        assertThat(seen).isEqualTo(DataSourceRouting.PRIMARY);
+        assertThat(unsharded.onIdShard(ShardRouter.firstIdOf(7), () -> "found", "missing"))
+                .isEqualTo("found");
+    }
+
+    @Test
+    void testShardedRoutingBindsShardTenant() {
+        long id = ShardRouter.firstIdOf(2);
+
+        String seen = sharded.onIdShard(id, DataSourceRouting::current, null);
+
+        assertThat(seen).isEqualTo("shard-2");
+        assertThat(DataSourceRouting.current()).isEqualTo(DataSourceRouting.PRIMARY);
+    }
+
+    @Test
+    void testShardedRoutingReturnsMissingForForeignId() {
+        assertThat(sharded.onIdShard(ShardRouter.firstIdOf(9), () -> "found", "missing"))
+                .isEqualTo("missing");
+    }
+
+    @Test
+    void testShardZeroKeepsReplicaRouting() {
+        String previous = DataSourceRouting.bind(DataSourceRouting.REPLICA);
+        try {
+            assertThat(sharded.tenantFor(0)).isEqualTo(DataSourceRouting.REPLICA);
+            assertThat(sharded.tenantFor(1)).isEqualTo("shard-1");
+        } finally {
+            DataSourceRouting.restore(previous);
+        }
+        assertThat(sharded.tenantFor(0)).isEqualTo(DataSourceRouting.PRIMARY);
+    }
+}
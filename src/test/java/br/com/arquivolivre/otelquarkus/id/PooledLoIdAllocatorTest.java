@@ -0,0 +1,64 @@
+package br.com.arquivolivre.otelquarkus.id;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests PooledLoIdAllocator's block reservation against an in-memory H2 database. */
+class PooledLoIdAllocatorTest {
+
+    private Connection connection;
+
+    private PooledLoIdAllocator allocator;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:id-blocks");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id BIGINT PRIMARY KEY)");
+            statement.execute(
+                    "CREATE TABLE user_id_blocks (name VARCHAR(64) PRIMARY KEY, next_val BIGINT"
+                            + " NOT NULL)");
+        }
+        allocator = new PooledLoIdAllocator(100, tenant -> 1L);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void testFirstBlockStartsAtFirstId() throws SQLException {
+        assertThat(allocator.reserveBlock(connection, 1L)).isEqualTo(1L);
+        assertThat(allocator.reserveBlock(connection, 1L)).isEqualTo(101L);
+    }
+
+    @Test
+    void testFirstBlockStartsAboveExistingIds() throws SQLException {
+        // Given
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (id) VALUES (5)");
+        }
+
+        // When
+        long start = allocator.reserveBlock(connection, 1L);
+
+        // Then
+        assertThat(start).isEqualTo(6L);
+        assertThat(allocator.reserveBlock(connection, 1L)).isEqualTo(106L);
+    }
+
+    @Test
+    void testShardRangeWinsOverLowerExistingIds() throws SQLException {
+        long shardStart = (1L << 48) + 1;
+
+        assertThat(allocator.reserveBlock(connection, shardStart)).isEqualTo(shardStart);
+    }
+}
@@ -0,0 +1,96 @@
+package br.com.arquivolivre.otelquarkus.id;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for SnowflakeIdAllocator's bit layout and ordering. */
+class SnowflakeIdAllocatorTest {
+
+    private final AtomicLong clock = new AtomicLong(SnowflakeIdAllocator.EPOCH + 1_000);
+
+    @Test
+    void testRejectsOutOfRangeNodeId() {
+        assertThatThrownBy(() -> new SnowflakeIdAllocator(1024))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("node-id");
+    }
+
+    @Test
+    void testEncodesTimestampNodeAndSequence() {
+        // Given
+        SnowflakeIdAllocator allocator = new SnowflakeIdAllocator(7, clock::get);
+
+        // When
+        long first = allocator.next();
+        long second = allocator.next();
+
+        // Then
+        assertThat(first >>> 22).isEqualTo(1_000L);
+        assertThat((first >>> 12) & SnowflakeIdAllocator.MAX_NODE_ID).isEqualTo(7L);
+        assertThat(first & SnowflakeIdAllocator.SEQUENCE_MASK).isZero();
+        assertThat(second).isEqualTo(first + 1);
+    }
+
+    @Test
+    void testSequenceOverflowMovesToNextMillisecond() {
+        // Given
+        SnowflakeIdAllocator allocator = new SnowflakeIdAllocator(1, clock::get);
+        long last = 0;
+        for (int i = 0; i <= SnowflakeIdAllocator.SEQUENCE_MASK; i++) {
+            last = allocator.next();
+        }
+
+        // When
+        long overflow = allocator.next();
+
+        // Then
+        assertThat(overflow).isGreaterThan(last);
+        assertThat(overflow >>> 22).isEqualTo(1_001L);
+    }
+
+    @Test
+    void testClockSteppingBackKeepsIdsIncreasing() {
+        // Given
+        SnowflakeIdAllocator allocator = new SnowflakeIdAllocator(1, clock::get);
+        long before = allocator.next();
+
+        // When
+        clock.addAndGet(-500);
+        long after = allocator.next();
+
+        // Then
+        assertThat(after).isGreaterThan(before);
+    }
+
+    @Test
+    void testIdsAreUniqueAcrossThreads() throws InterruptedException {
+        // Given
+        SnowflakeIdAllocator allocator = new SnowflakeIdAllocator(3);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] =
+                    new Thread(
+                            () -> {
+                                for (int i = 0; i < 10_000; i++) {
+                                    ids.add(allocator.next());
+                                }
+                            });
+            threads[t].start();
+        }
+
+        // When
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertThat(ids).hasSize(40_000);
+        assertThat(ids).allMatch(id -> id > 0);
+    }
+}
@@ -0,0 +1,108 @@
+package br.com.arquivolivre.otelquarkus.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import org.jboss.logmanager.ExtLogRecord;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for AsyncLogHandler. */
+class AsyncLogHandlerTest {
+
+    @Test
+    void testDropsWhenQueueIsFullAndWritesQueuedOnClose() throws InterruptedException {
+        // Given
+        BlockingHandler delegate = new BlockingHandler();
+        AsyncLogHandler handler =
+                new AsyncLogHandler(new Handler[] {delegate}, 1, Level.SEVERE, null);
+        handler.publish(record(Level.INFO, "first"));
+        assertThat(delegate.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When - the writer is stuck on the first record, so one more fits and one is dropped
+        handler.publish(record(Level.INFO, "queued"));
+        handler.publish(record(Level.INFO, "dropped"));
+        delegate.release.countDown();
+        handler.close();
+
+        // Then
+        assertThat(handler.dropped()).isEqualTo(1);
+        assertThat(delegate.records)
+                .extracting(LogRecord::getMessage)
+                .containsExactly("first", "queued");
+    }
+
+    @Test
+    void testRateLimitsCallSitesWithoutQueue() {
+        // Given
+        BlockingHandler delegate = new BlockingHandler();
+        delegate.release.countDown();
+        LogRateLimiter limiter = new LogRateLimiter(2);
+        AsyncLogHandler handler =
+                new AsyncLogHandler(new Handler[] {delegate}, 0, Level.SEVERE, limiter);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            handler.publish(record(Level.WARNING, "User not found: %d"));
+        }
+
+        // Then - at most a second boundary in between lets a second allowance through
+        assertThat(delegate.records).hasSizeBetween(2, 4);
+        assertThat(delegate.records.size() + limiter.suppressed()).isEqualTo(10);
+    }
+
+    @Test
+    void testNeverRateLimitsRecordsAtBlockLevel() {
+        // Given
+        BlockingHandler delegate = new BlockingHandler();
+        delegate.release.countDown();
+        LogRateLimiter limiter = new LogRateLimiter(2);
+        AsyncLogHandler handler =
+                new AsyncLogHandler(new Handler[] {delegate}, 0, Level.SEVERE, limiter);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            handler.publish(record(Level.SEVERE, "Cannot write user %d"));
+        }
+
+        // Then
+        assertThat(delegate.records).hasSize(10);
+        assertThat(limiter.suppressed()).isZero();
+    }
+
+    private static ExtLogRecord record(Level level, String message) {
+        ExtLogRecord record = new ExtLogRecord(level, message, AsyncLogHandlerTest.class.getName());
+        record.setLoggerName("test");
+        return record;
+    }
+
+    /** Collects records; the first publish waits until {@code release} opens. */
+    private static final class BlockingHandler extends Handler {
+
+        final List<LogRecord> records = new CopyOnWriteArrayList<>();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void publish(LogRecord record) {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
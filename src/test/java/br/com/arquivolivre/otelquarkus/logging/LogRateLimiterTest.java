@@ -0,0 +1,74 @@
+package br.com.arquivolivre.otelquarkus.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for LogRateLimiter. */
+class LogRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testSuppressesCallSiteOverLimit() {
+        // Given
+        LogRateLimiter limiter = new LogRateLimiter(2);
+
+        // When
+        boolean first = limiter.tryAcquire("UserService\0User not found: %d", 5 * SECOND);
+        boolean second = limiter.tryAcquire("UserService\0User not found: %d", 5 * SECOND + 1);
+        boolean third = limiter.tryAcquire("UserService\0User not found: %d", 5 * SECOND + 2);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(limiter.suppressed()).isEqualTo(1);
+    }
+
+    @Test
+    void testAllowanceRenewsEverySecond() {
+        // Given
+        LogRateLimiter limiter = new LogRateLimiter(1);
+        limiter.tryAcquire("site", 5 * SECOND);
+
+        // When
+        boolean sameSecond = limiter.tryAcquire("site", 6 * SECOND - 1);
+        boolean nextSecond = limiter.tryAcquire("site", 6 * SECOND);
+
+        // Then
+        assertThat(sameSecond).isFalse();
+        assertThat(nextSecond).isTrue();
+    }
+
+    @Test
+    void testCallSitesAreLimitedSeparately() {
+        // Given
+        LogRateLimiter limiter = new LogRateLimiter(1);
+        limiter.tryAcquire("UserService\0User not found: %d", SECOND);
+
+        // When
+        boolean other = limiter.tryAcquire("UserService\0Fetching user with id: %d", SECOND);
+
+        // Then
+        assertThat(other).isTrue();
+        assertThat(limiter.suppressed()).isZero();
+    }
+
+    @Test
+    void testCallSitesBeyondCapAlwaysPass() {
+        // Given
+        LogRateLimiter limiter = new LogRateLimiter(1);
+        for (int i = 0; i < LogRateLimiter.MAX_CALL_SITES; i++) {
+            limiter.tryAcquire("site " + i, SECOND);
+        }
+
+        // When
+        boolean first = limiter.tryAcquire("one more", SECOND);
+        boolean second = limiter.tryAcquire("one more", SECOND);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+    }
+}
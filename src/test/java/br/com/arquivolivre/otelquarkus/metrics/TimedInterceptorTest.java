@@ -0,0 +1,123 @@
+package br.com.arquivolivre.otelquarkus.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+import br.com.arquivolivre.otelquarkus.service.UserService;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.MetricDataType;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import jakarta.interceptor.InvocationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** Unit tests for TimedInterceptor. */
+@ExtendWith(MockitoExtension.class)
+class TimedInterceptorTest {
+
+    @Mock private InvocationContext context;
+
+    private InMemoryMetricReader reader;
+    private SdkMeterProvider meterProvider;
+    private TimedInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        reader = InMemoryMetricReader.create();
+        meterProvider =
+                ExponentialHistogramCustomizer.registerViews(
+                                SdkMeterProvider.builder().registerMetricReader(reader))
+                        .build();
+        interceptor = new TimedInterceptor(meterProvider.get("test"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        meterProvider.close();
+    }
+
+    @Test
+    void testRecordsExponentialHistogramWithTraceExemplar() throws Exception {
+        // Given
+        when(context.getMethod())
+                .thenReturn(UserService.class.getMethod("getUserById", Long.class));
+        when(context.proceed()).thenReturn("user");
+        Span span;
+        Object result;
+
+        // When
+        try (SdkTracerProvider tracerProvider = SdkTracerProvider.builder().build()) {
+            span = tracerProvider.get("test").spanBuilder("UserService.getUserById").startSpan();
+            try (Scope scope = span.makeCurrent()) {
+                result = interceptor.time(context);
+            } finally {
+                span.end();
+            }
+        }
+
+        // Then
+        assertThat(result).isEqualTo("user");
+        ExponentialHistogramPointData point = point("getUserById", "success");
+        assertThat(point.getCount()).isEqualTo(1);
+        assertThat(point.getSum()).isPositive().isLessThan(1.0);
+        assertThat(point.getExemplars())
+                .singleElement()
+                .satisfies(
+                        exemplar ->
+                                assertThat(exemplar.getSpanContext().getTraceId())
+                                        .isEqualTo(span.getSpanContext().getTraceId()));
+    }
+
+    @Test
+    void testRecordsFailedCallAsError() throws Exception {
+        // Given
+        when(context.getMethod())
+                .thenReturn(UserService.class.getMethod("deleteUser", Long.class));
+        when(context.proceed()).thenThrow(new IllegalStateException("boom"));
+
+        // When
+        assertThatThrownBy(() -> interceptor.time(context))
+                .isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(point("deleteUser", "error").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testSkipsNonPublicMethods() throws Exception {
+        // Given
+        when(context.getMethod())
+                .thenReturn(UserService.class.getDeclaredMethod("knownUserCount"));
+        when(context.proceed()).thenReturn(null);
+
+        // When
+        interceptor.time(context);
+
+        // Then
+        assertThat(reader.collectAllMetrics()).isEmpty();
+    }
+
+    private ExponentialHistogramPointData point(String operation, String outcome) {
+        Attributes attributes =
+                Attributes.of(
+                        TimedInterceptor.OPERATION, operation, TimedInterceptor.OUTCOME, outcome);
+        MetricData metric = reader.collectAllMetrics().iterator().next();
+        assertThat(metric.getName()).isEqualTo(TimedInterceptor.DURATION);
+        assertThat(metric.getType()).isEqualTo(MetricDataType.EXPONENTIAL_HISTOGRAM);
+        return metric.getExponentialHistogramData().getPoints().stream()
+                .filter(p -> p.getAttributes().equals(attributes))
+                .findFirst()
+                .orElseThrow();
+    }
+}
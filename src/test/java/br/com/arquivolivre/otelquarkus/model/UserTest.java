@@ -210,6 +210,7 @@ class UserTest {
         user.id = 1L;
         user.createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
         user.updatedAt = LocalDateTime.of(2024, 1, 2, 12, 0);
+        user.version = 3L;
 
         // When
         String result = user.toString();
@@ -221,6 +222,7 @@ class UserTest {
         assertThat(result).contains("email='john@example.com'");
         assertThat(result).contains("createdAt=2024-01-01T12:00");
         assertThat(result).contains("updatedAt=2024-01-02T12:00");
+        assertThat(result).contains("version=3");
     }
 
     @Test
@@ -0,0 +1,64 @@
+package br.com.arquivolivre.otelquarkus.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.arquivolivre.otelquarkus.model.UserOutboxEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for FileOutboxSink. */
+class FileOutboxSinkTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir Path dir;
+
+    @Test
+    void testPublishAppendsOneJsonLinePerEvent() throws IOException {
+        // Given
+        Path file = dir.resolve("outbox/events.jsonl");
+
+        // When
+        try (FileOutboxSink sink = new FileOutboxSink(file, mapper)) {
+            sink.publish(List.of(event(1L, "{\"type\":\"CREATED\"}")));
+            sink.publish(List.of(event(2L, "{\"type\":\"DELETED\"}")));
+        }
+
+        // Then
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(2);
+        JsonNode first = mapper.readTree(lines.get(0));
+        assertThat(first.get("id").asLong()).isEqualTo(1L);
+        assertThat(first.get("userId").asLong()).isEqualTo(10L);
+        assertThat(first.get("payload").get("type").asText()).isEqualTo("CREATED");
+        assertThat(mapper.readTree(lines.get(1)).get("id").asLong()).isEqualTo(2L);
+    }
+
+    @Test
+    void testPublishKeepsExistingFile() throws IOException {
+        // Given
+        Path file = dir.resolve("events.jsonl");
+        Files.writeString(file, "{\"id\":0}\n");
+
+        // When
+        try (FileOutboxSink sink = new FileOutboxSink(file, mapper)) {
+            sink.publish(List.of(event(1L, "{}")));
+        }
+
+        // Then
+        assertThat(Files.readAllLines(file)).hasSize(2).first().isEqualTo("{\"id\":0}");
+    }
+
+    private static UserOutboxEvent event(long id, String payload) {
+        UserOutboxEvent event = new UserOutboxEvent(10L, "CREATED", payload, LocalDateTime.now());
+        event.id = id;
+        return event;
+    }
+}
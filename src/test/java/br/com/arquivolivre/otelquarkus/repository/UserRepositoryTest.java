@@ -1,12 +1,16 @@
 package br.com.arquivolivre.otelquarkus.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.model.UserTombstone;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.*;
 
@@ -240,4 +244,183 @@ class UserRepositoryTest {
         assertThat(found).isPresent();
         assertThat(found.get().id).isEqualTo(user.id);
     }
+
+    @Test
+    @Order(15)
+    @Transactional
+    void testUpdateIfChanged() {
+        // Given
+        User user = new User("John Doe", "john@example.com", "Bio");
+        userRepository.persist(user);
+        User changes = new User("John Updated", "john@example.com", "Bio");
+
+        // When
+        boolean written = userRepository.updateIfChanged(user.id, user.version, changes);
+
+        // Then
+        assertThat(written).isTrue();
+        userRepository.getEntityManager().refresh(user);
+        assertThat(user.name).isEqualTo("John Updated");
+        assertThat(user.version).isEqualTo(1L);
+    }
+
+    @Test
+    @Order(16)
+    @Transactional
+    void testUpdateIfChangedSkipsUnchangedRow() {
+        // Given
+        User user = new User("John Doe", "john@example.com", null);
+        userRepository.persist(user);
+
+        // When
+        boolean written =
+                userRepository.updateIfChanged(
+                        user.id, null, new User("John Doe", "john@example.com", null));
+
+        // Then
+        assertThat(written).isFalse();
+        userRepository.getEntityManager().refresh(user);
+        assertThat(user.version).isZero();
+    }
+
+    @Test
+    @Order(17)
+    @Transactional
+    void testUpdateIfChangedRejectsStaleVersion() {
+        // Given
+        User user = new User("John Doe", "john@example.com", "Bio");
+        userRepository.persist(user);
+        long staleVersion = user.version;
+        userRepository.updateIfChanged(user.id, null, new User("Jane", "john@example.com", "Bio"));
+
+        // When
+        boolean written =
+                userRepository.updateIfChanged(
+                        user.id, staleVersion, new User("Bob", "john@example.com", "Bio"));
+
+        // Then
+        assertThat(written).isFalse();
+        userRepository.getEntityManager().refresh(user);
+        assertThat(user.name).isEqualTo("Jane");
+    }
+
+    @Test
+    @Order(17)
+    @Transactional
+    void testUpdateIfChangedWritesChangeInCaseOnly() {
+        // Given
+        User user = new User("ana", "Ana@example.com", "Bio");
+        userRepository.persist(user);
+
+        // When
+        boolean written =
+                userRepository.updateIfChanged(
+                        user.id, user.version, new User("Ana", "ana@example.com", "Bio"));
+
+        // Then
+        assertThat(written).isTrue();
+        userRepository.getEntityManager().refresh(user);
+        assertThat(user.name).isEqualTo("Ana");
+        assertThat(user.email).isEqualTo("ana@example.com");
+        assertThat(user.version).isEqualTo(1L);
+    }
+
+    @Test
+    @Order(17)
+    @Transactional
+    void testPatchIfChangedWritesChangeInCaseOnly() {
+        // Given
+        User user = new User("John Doe", "john@example.com", "bio");
+        userRepository.persist(user);
+
+        // When
+        boolean written = userRepository.patchIfChanged(user.id, null, Map.of("bio", "Bio"));
+
+        // Then
+        assertThat(written).isTrue();
+        userRepository.getEntityManager().refresh(user);
+        assertThat(user.bio).isEqualTo("Bio");
+        assertThat(user.version).isEqualTo(1L);
+    }
+
+    @Test
+    @Order(18)
+    @Transactional
+    void testPatchIfChangedSetsOnlyGivenFields() {
+        // Given
+        User user = new User("John Doe", "john@example.com", "Bio");
+        userRepository.persist(user);
+
+        // When
+        boolean written = userRepository.patchIfChanged(user.id, null, Map.of("bio", "New bio"));
+
+        // Then
+        assertThat(written).isTrue();
+        userRepository.getEntityManager().refresh(user);
+        assertThat(user.bio).isEqualTo("New bio");
+        assertThat(user.name).isEqualTo("John Doe");
+        assertThat(user.version).isEqualTo(1L);
+    }
+
+    @Test
+    @Order(19)
+    @Transactional
+    void testPatchIfChangedRejectsNonUpdatableField() {
+        assertThatThrownBy(() -> userRepository.patchIfChanged(1L, null, Map.of("id", 2L)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Field cannot be updated: id");
+    }
+
+    @Test
+    @Order(20)
+    @Transactional
+    void testDeleteUserLeavesTombstone() {
+        // Given
+        User user = new User("John Doe", "john@example.com", "Bio");
+        userRepository.persist(user);
+
+        // When
+        userRepository.deleteUser(user.id);
+
+        // Then
+        UserTombstone tombstone =
+                userRepository.getEntityManager().find(UserTombstone.class, user.id);
+        assertThat(tombstone).isNotNull();
+        assertThat(tombstone.deletedAt).isNotNull();
+        assertThat(
+                        userRepository.findDeletedSince(
+                                tombstone.deletedAt.minusSeconds(1),
+                                0,
+                                LocalDateTime.now().plusMinutes(1),
+                                10))
+                .extracting(t -> t.id)
+                .contains(user.id);
+    }
+
+    @Test
+    @Order(21)
+    @Transactional
+    void testFindChangedSinceOrdersAndResumes() {
+        // Given
+        User first = new User("First", "first@example.com", null);
+        User second = new User("Second", "second@example.com", null);
+        userRepository.persist(first);
+        userRepository.persist(second);
+        userRepository.flush();
+        userRepository.getEntityManager().refresh(first);
+        LocalDateTime start = LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime until = LocalDateTime.now().plusMinutes(1);
+
+        // When
+        List<User> all = userRepository.findChangedSince(start, 0, until, 10);
+        List<User> afterFirst =
+                userRepository.findChangedSince(first.updatedAt, first.id, until, 10);
+
+        // Then
+        assertThat(all)
+                .extracting(u -> u.email)
+                .containsExactly("first@example.com", "second@example.com");
+        assertThat(afterFirst).extracting(u -> u.email).containsExactly("second@example.com");
+        assertThat(userRepository.findChangedSince(start, 0, until, 1)).hasSize(1);
+    }
 }
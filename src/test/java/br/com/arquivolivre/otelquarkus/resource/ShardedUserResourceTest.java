@@ -0,0 +1,108 @@
+package br.com.arquivolivre.otelquarkus.resource;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.hasItems;
+
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.model.User;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the user lifecycle with two shards: shard 0 is the default datasource and shard 1 the
+ * {@code shard-1} datasource. One user is placed on each shard, so every step has to reach both.
+ */
+@QuarkusTest
+@TestProfile(ShardedUserResourceTest.TwoShards.class)
+class ShardedUserResourceTest {
+
+    private static final ShardRouter SHARDS = new ShardRouter(2);
+
+    /** Splits users across two shards. */
+    public static class TwoShards implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("users.sharding.shard-count", "2");
+        }
+    }
+
+    @Test
+    void testUserLifecycleAcrossShards() {
+        String[] emails = {emailOnShard(0), emailOnShard(1)};
+        long[] ids = new long[emails.length];
+
+        for (int shard = 0; shard < emails.length; shard++) {
+            ids[shard] =
+                    given().contentType(ContentType.JSON)
+                            .body(new User("Sharded User", emails[shard], null))
+                            .when()
+                            .post("/api/users")
+                            .then()
+                            .statusCode(201)
+                            .extract()
+                            .jsonPath()
+                            .getLong("id");
+            assertThat(SHARDS.shardForId(ids[shard]))
+                    .as("shard of %s", emails[shard])
+                    .isEqualTo(shard);
+        }
+
+        for (int shard = 0; shard < emails.length; shard++) {
+            given().pathParam("id", ids[shard])
+                    .when()
+                    .get("/api/users/{id}")
+                    .then()
+                    .statusCode(200)
+                    .body("email", equalTo(emails[shard]));
+            given().pathParam("email", emails[shard])
+                    .when()
+                    .get("/api/users/email/{email}")
+                    .then()
+                    .statusCode(200)
+                    .body("name", equalTo("Sharded User"));
+            given().pathParam("id", ids[shard])
+                    .contentType(ContentType.JSON)
+                    .body(new User("Renamed User", emails[shard], null))
+                    .when()
+                    .put("/api/users/{id}")
+                    .then()
+                    .statusCode(200)
+                    .body("name", equalTo("Renamed User"))
+                    .body("version", equalTo(1));
+        }
+
+        given().when()
+                .get("/api/users")
+                .then()
+                .statusCode(200)
+                .body("email", hasItems(emails[0], emails[1]));
+
+        for (int shard = 0; shard < emails.length; shard++) {
+            given().pathParam("id", ids[shard])
+                    .when()
+                    .delete("/api/users/{id}")
+                    .then()
+                    .statusCode(204);
+            given().pathParam("id", ids[shard])
+                    .when()
+                    .get("/api/users/{id}")
+                    .then()
+                    .statusCode(404);
+        }
+    }
+
+    private static String emailOnShard(int shard) {
+        for (int i = 0; ; i++) {
+            String email = "sharded" + i + "@example.com";
+            if (SHARDS.shardForEmail(email) == shard) {
+                return email;
+            }
+        }
+    }
+}
@@ -240,4 +240,259 @@ class UserResourceTest {
                 .then()
                 .statusCode(400);
     }
+
+    @Test
+    @Order(19)
+    void testUpdateUserWithStaleVersion() {
+        Number id =
+                given().contentType(ContentType.JSON)
+                        .body(new User("Versioned User", "versioned@example.com", "Bio"))
+                        .when()
+                        .post("/api/users")
+                        .then()
+                        .statusCode(201)
+                        .extract()
+                        .path("id");
+        User update = new User("Versioned Update", "versioned@example.com", "Bio");
+        update.version = 0L;
+
+        given().pathParam("id", id.longValue())
+                .contentType(ContentType.JSON)
+                .body(update)
+                .when()
+                .put("/api/users/{id}")
+                .then()
+                .statusCode(200)
+                .body("version", equalTo(1));
+
+        update.name = "Lost Update";
+        given().pathParam("id", id.longValue())
+                .contentType(ContentType.JSON)
+                .body(update)
+                .when()
+                .put("/api/users/{id}")
+                .then()
+                .statusCode(409)
+                .body("error", containsString("modified concurrently"));
+    }
+
+    @Test
+    @Order(20)
+    void testPatchUserBio() {
+        Number id =
+                given().contentType(ContentType.JSON)
+                        .body(new User("Patched User", "patched@example.com", "Old bio"))
+                        .when()
+                        .post("/api/users")
+                        .then()
+                        .statusCode(201)
+                        .extract()
+                        .path("id");
+
+        given().pathParam("id", id.longValue())
+                .contentType(UserResource.MERGE_PATCH_JSON)
+                .body("{\"bio\": \"New bio\"}")
+                .when()
+                .patch("/api/users/{id}")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Patched User"))
+                .body("bio", equalTo("New bio"));
+
+        given().pathParam("id", id.longValue())
+                .contentType(UserResource.MERGE_PATCH_JSON)
+                .body("{\"email\": \"not-an-email\"}")
+                .when()
+                .patch("/api/users/{id}")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @Order(20)
+    void testPatchUserChangesCaseOnly() {
+        Number id =
+                given().contentType(ContentType.JSON)
+                        .body(new User("case user", "Case.User@example.com", null))
+                        .when()
+                        .post("/api/users")
+                        .then()
+                        .statusCode(201)
+                        .extract()
+                        .path("id");
+
+        given().pathParam("id", id.longValue())
+                .contentType(UserResource.MERGE_PATCH_JSON)
+                .body("{\"name\": \"Case User\", \"email\": \"case.user@example.com\"}")
+                .when()
+                .patch("/api/users/{id}")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Case User"))
+                .body("email", equalTo("case.user@example.com"))
+                .body("version", equalTo(1));
+    }
+
+    @Test
+    @Order(21)
+    void testImportUsersFromCsv() throws InterruptedException {
+        String csv =
+                "name,email,bio\n"
+                        + "Imported One,imported1@example.com,First\n"
+                        + "Imported Two,imported2@example.com,\n"
+                        + "Not Valid,not-an-email,\n"
+                        + "Repeated,imported1@example.com,\n";
+
+        String jobId =
+                given().contentType(UserResource.TEXT_CSV)
+                        .body(csv)
+                        .when()
+                        .post("/api/users/import")
+                        .then()
+                        .statusCode(202)
+                        .extract()
+                        .path("jobId");
+
+        String state = "QUEUED";
+        for (int attempt = 0; attempt < 100 && !state.equals("COMPLETED"); attempt++) {
+            Thread.sleep(100);
+            state =
+                    given().pathParam("jobId", jobId)
+                            .when()
+                            .get("/api/users/import/{jobId}")
+                            .then()
+                            .statusCode(200)
+                            .extract()
+                            .path("state");
+        }
+
+        given().pathParam("jobId", jobId)
+                .when()
+                .get("/api/users/import/{jobId}")
+                .then()
+                .statusCode(200)
+                .body("state", equalTo("COMPLETED"))
+                .body("rowsRead", equalTo(4))
+                .body("imported", equalTo(2))
+                .body("rejected", equalTo(2));
+
+        given().pathParam("email", "imported1@example.com")
+                .when()
+                .get("/api/users/email/{email}")
+                .then()
+                .statusCode(200)
+                .body("bio", equalTo("First"));
+    }
+
+    @Test
+    @Order(21)
+    void testImportRejectsUploadAboveMaxSize() {
+        // %test.users.import.max-size is 64K, well below the 10M body limit of other routes
+        String csv = "name,email\n" + "Too Big,too-big@example.com\n".repeat(4096);
+
+        given().contentType(UserResource.TEXT_CSV)
+                .body(csv)
+                .when()
+                .post("/api/users/import")
+                .then()
+                .statusCode(413)
+                .body("error", containsString("import limit"));
+    }
+
+    @Test
+    @Order(22)
+    void testExportUsersToCsv() throws InterruptedException {
+        String exportId =
+                given().when()
+                        .post("/api/users/exports")
+                        .then()
+                        .statusCode(202)
+                        .extract()
+                        .path("exportId");
+
+        String state = "QUEUED";
+        for (int attempt = 0; attempt < 100 && !state.equals("COMPLETED"); attempt++) {
+            Thread.sleep(100);
+            state =
+                    given().pathParam("exportId", exportId)
+                            .when()
+                            .get("/api/users/exports/{exportId}")
+                            .then()
+                            .statusCode(200)
+                            .extract()
+                            .path("state");
+        }
+
+        given().pathParam("exportId", exportId)
+                .when()
+                .get("/api/users/exports/{exportId}/file")
+                .then()
+                .statusCode(200)
+                .contentType(containsString("text/csv"))
+                .body(startsWith("id,name,email,bio,createdAt,updatedAt,version"))
+                .body(containsString("imported1@example.com"));
+    }
+
+    @Test
+    @Order(23)
+    void testChangesSinceToken() {
+        String token = null;
+        boolean hasMore = true;
+        while (hasMore) {
+            var page =
+                    given().queryParam("limit", 1000)
+                            .queryParam("since", token == null ? "" : token)
+                            .when()
+                            .get("/api/users/changes")
+                            .then()
+                            .statusCode(200)
+                            .extract()
+                            .jsonPath();
+            token = page.getString("next");
+            hasMore = page.getBoolean("hasMore");
+        }
+
+        Number keptId =
+                given().contentType(ContentType.JSON)
+                        .body(new User("Changed User", "changed@example.com", null))
+                        .when()
+                        .post("/api/users")
+                        .then()
+                        .statusCode(201)
+                        .extract()
+                        .path("id");
+        Number deletedId =
+                given().contentType(ContentType.JSON)
+                        .body(new User("Removed User", "removed@example.com", null))
+                        .when()
+                        .post("/api/users")
+                        .then()
+                        .statusCode(201)
+                        .extract()
+                        .path("id");
+        given().pathParam("id", deletedId.longValue())
+                .when()
+                .delete("/api/users/{id}")
+                .then()
+                .statusCode(204);
+
+        given().queryParam("since", token)
+                .when()
+                .get("/api/users/changes")
+                .then()
+                .statusCode(200)
+                .body("changes.size()", is(2))
+                .body("changes[0].type", equalTo("UPSERT"))
+                .body("changes[0].id", equalTo(keptId))
+                .body("changes[0].user.email", equalTo("changed@example.com"))
+                .body("changes[1].type", equalTo("DELETE"))
+                .body("changes[1].id", equalTo(deletedId))
+                .body("hasMore", is(false));
+
+        given().queryParam("since", "not a token")
+                .when()
+                .get("/api/users/changes")
+                .then()
+                .statusCode(400);
+    }
 }
@@ -5,13 +5,28 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.service.UserChangeFeed;
+import br.com.arquivolivre.otelquarkus.service.UserCreateBatcher;
+import br.com.arquivolivre.otelquarkus.service.UserEventBroadcaster;
+import br.com.arquivolivre.otelquarkus.service.UserExportService;
+import br.com.arquivolivre.otelquarkus.service.UserImportService;
 import br.com.arquivolivre.otelquarkus.service.UserService;
+import br.com.arquivolivre.otelquarkus.service.UserWriteBehind;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,6 +43,20 @@ class UserResourceUnitTest {
 
     @Mock private UserService userService;
 
+    @Mock private UserCreateBatcher createBatcher;
+
+    @Mock private UserWriteBehind writeBehind;
+
+    @Mock private UserImportService importService;
+
+    @Mock private UserExportService exportService;
+
+    @Mock private UserChangeFeed changeFeed;
+
+    @Mock private UserEventBroadcaster eventBroadcaster;
+
+    @Mock private Validator validator;
+
     @InjectMocks private UserResource userResource;
 
     private User testUser;
@@ -174,6 +203,248 @@ class UserResourceUnitTest {
         verify(userService).createUser(newUser);
     }
 
+    @Test
+    void testCreateUserWithGroupCommit() {
+        // Given
+        User newUser = new User("New User", "new@example.com", "Bio");
+        when(createBatcher.isEnabled()).thenReturn(true);
+        when(createBatcher.createUser(newUser)).thenReturn(newUser);
+
+        // When
+        Response response = userResource.createUser(newUser);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.CREATED.getStatusCode());
+        verify(createBatcher).createUser(newUser);
+        verify(userService, never()).createUser(any(User.class));
+    }
+
+    @Test
+    void testCreateUserWithGroupCommitTimeout() {
+        // Given
+        User newUser = new User("New User", "new@example.com", "Bio");
+        when(createBatcher.isEnabled()).thenReturn(true);
+        when(createBatcher.createUser(newUser))
+                .thenThrow(new IllegalStateException("Group commit timed out, user not created"));
+
+        // When
+        Response response = userResource.createUser(newUser);
+
+        // Then
+        assertThat(response.getStatus())
+                .isEqualTo(Response.Status.SERVICE_UNAVAILABLE.getStatusCode());
+    }
+
+    @Test
+    void testCreateUserWithWriteBehind() {
+        // Given
+        User newUser = new User("New User", "new@example.com", "Bio");
+        UserWriteBehind.Status pending = pendingStatus("ticket-1");
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(writeBehind.submit(newUser)).thenReturn(pending);
+
+        // When
+        Response response = userResource.createUser(newUser);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.ACCEPTED.getStatusCode());
+        @SuppressWarnings("unchecked")
+        Map<String, String> body = (Map<String, String>) response.getEntity();
+        assertThat(body)
+                .containsEntry("ticket", "ticket-1")
+                .containsEntry("status", "PENDING")
+                .containsEntry("statusUrl", "/api/users/pending/ticket-1");
+        verify(userService, never()).createUser(any(User.class));
+        verify(createBatcher, never()).createUser(any(User.class));
+    }
+
+    @Test
+    void testCreateUserWithWriteBehindDuplicateEmail() {
+        // Given
+        User newUser = new User("New User", "new@example.com", "Bio");
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(writeBehind.submit(newUser))
+                .thenThrow(new IllegalArgumentException("Email already exists: new@example.com"));
+
+        // When
+        Response response = userResource.createUser(newUser);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.BAD_REQUEST.getStatusCode());
+    }
+
+    @Test
+    void testCreateUserWithWriteBehindQueueFull() {
+        // Given
+        User newUser = new User("New User", "new@example.com", "Bio");
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(writeBehind.submit(newUser))
+                .thenThrow(new IllegalStateException("Write-behind queue is full"));
+
+        // When
+        Response response = userResource.createUser(newUser);
+
+        // Then
+        assertThat(response.getStatus())
+                .isEqualTo(Response.Status.SERVICE_UNAVAILABLE.getStatusCode());
+        @SuppressWarnings("unchecked")
+        Map<String, String> error = (Map<String, String>) response.getEntity();
+        assertThat(error).containsEntry("error", "Write-behind queue is full");
+    }
+
+    @Test
+    void testGetPendingUserFound() {
+        // Given
+        UserWriteBehind.Status pending = pendingStatus("ticket-1");
+        when(writeBehind.status("ticket-1")).thenReturn(Optional.of(pending));
+
+        // When
+        Response response = userResource.getPendingUser("ticket-1");
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.OK.getStatusCode());
+        assertThat(response.getEntity()).isEqualTo(pending);
+    }
+
+    @Test
+    void testGetPendingUserUnknownTicket() {
+        // Given
+        when(writeBehind.status("missing")).thenReturn(Optional.empty());
+
+        // When
+        Response response = userResource.getPendingUser("missing");
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.NOT_FOUND.getStatusCode());
+        @SuppressWarnings("unchecked")
+        Map<String, String> error = (Map<String, String>) response.getEntity();
+        assertThat(error).containsEntry("error", "Unknown ticket: missing");
+    }
+
+    @Test
+    void testGetImportStatusUnknownJob() {
+        // Given
+        when(importService.status("missing")).thenReturn(Optional.empty());
+
+        // When
+        Response response = userResource.getImportStatus("missing");
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.NOT_FOUND.getStatusCode());
+        @SuppressWarnings("unchecked")
+        Map<String, String> error = (Map<String, String>) response.getEntity();
+        assertThat(error).containsEntry("error", "Unknown import job: missing");
+    }
+
+    @Test
+    void testExportUsersAccepted() {
+        // Given
+        when(exportService.submit())
+                .thenReturn(
+                        new UserExportService.Status(
+                                "export-1",
+                                UserExportService.State.QUEUED,
+                                0,
+                                0,
+                                0,
+                                null,
+                                Instant.now(),
+                                null,
+                                null,
+                                null));
+
+        // When
+        Response response = userResource.exportUsers();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.ACCEPTED.getStatusCode());
+        @SuppressWarnings("unchecked")
+        Map<String, String> body = (Map<String, String>) response.getEntity();
+        assertThat(body)
+                .containsEntry("exportId", "export-1")
+                .containsEntry("statusUrl", "/api/users/exports/export-1");
+    }
+
+    @Test
+    void testDownloadExportServesFile() {
+        // Given
+        Path file = Path.of("exports", "users-20260101T000000Z.csv");
+        when(exportService.file("export-1")).thenReturn(Optional.of(file));
+
+        // When
+        Response response = userResource.downloadExport("export-1");
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.OK.getStatusCode());
+        assertThat(response.getEntity()).isEqualTo(file);
+        assertThat(response.getHeaderString("Content-Disposition"))
+                .isEqualTo("attachment; filename=\"users-20260101T000000Z.csv\"");
+    }
+
+    @Test
+    void testDownloadExportNotReady() {
+        // Given
+        when(exportService.file("export-1")).thenReturn(Optional.empty());
+
+        // When
+        Response response = userResource.downloadExport("export-1");
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.NOT_FOUND.getStatusCode());
+    }
+
+    @Test
+    void testGetChangesSuccess() {
+        // Given
+        UserChangeFeed.Page page =
+                new UserChangeFeed.Page(
+                        List.of(
+                                new UserChangeFeed.Change(
+                                        UserChangeFeed.ChangeType.UPSERT,
+                                        1L,
+                                        testUser.updatedAt,
+                                        testUser)),
+                        "next-token",
+                        false);
+        when(changeFeed.changesSince("token", 100)).thenReturn(page);
+
+        // When
+        Response response = userResource.getChanges("token", 100);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.OK.getStatusCode());
+        assertThat(response.getEntity()).isEqualTo(page);
+    }
+
+    @Test
+    void testGetChangesInvalidToken() {
+        // Given
+        when(changeFeed.changesSince("bad", 100))
+                .thenThrow(new IllegalArgumentException("Invalid change token: bad"));
+
+        // When
+        Response response = userResource.getChanges("bad", 100);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.BAD_REQUEST.getStatusCode());
+        @SuppressWarnings("unchecked")
+        Map<String, String> error = (Map<String, String>) response.getEntity();
+        assertThat(error).containsEntry("error", "Invalid change token: bad");
+    }
+
+    @Test
+    void testStreamEventsSubscribesWithLastEventId() {
+        // Given
+        SseEventSink sink = mock(SseEventSink.class);
+        Sse sse = mock(Sse.class);
+
+        // When
+        userResource.streamEvents(sink, sse, "abc-42");
+
+        // Then
+        verify(eventBroadcaster).subscribe(sink, sse, "abc-42");
+    }
+
     @Test
     void testUpdateUserSuccess() {
         // Given
@@ -228,6 +499,88 @@ class UserResourceUnitTest {
         verify(userService).updateUser(1L, updatedData);
     }
 
+    @Test
+    void testUpdateUserVersionConflict() {
+        // Given
+        User updatedData = new User("John", "john@example.com", "Bio");
+        updatedData.version = 1L;
+        when(userService.updateUser(eq(1L), any(User.class)))
+                .thenThrow(new OptimisticLockException("User was modified concurrently"));
+
+        // When
+        Response response = userResource.updateUser(1L, updatedData);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.CONFLICT.getStatusCode());
+        @SuppressWarnings("unchecked")
+        Map<String, String> error = (Map<String, String>) response.getEntity();
+        assertThat(error).containsEntry("error", "User was modified concurrently");
+    }
+
+    @Test
+    void testPatchUserSuccess() {
+        // Given
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("bio", null);
+        patch.put("version", 2);
+        when(validator.validateValue(User.class, "bio", null)).thenReturn(Set.of());
+        when(userService.patchUser(eq(1L), eq(2L), anyMap())).thenReturn(testUser);
+
+        // When
+        Response response = userResource.patchUser(1L, patch);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.OK.getStatusCode());
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("bio", null);
+        verify(userService).patchUser(1L, 2L, fields);
+    }
+
+    @Test
+    void testPatchUserRejectsUnknownField() {
+        // When
+        Response response = userResource.patchUser(1L, Map.of("createdAt", "2024-01-01"));
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.BAD_REQUEST.getStatusCode());
+        @SuppressWarnings("unchecked")
+        Map<String, String> error = (Map<String, String>) response.getEntity();
+        assertThat(error).containsEntry("error", "Field cannot be patched: createdAt");
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPatchUserRejectsInvalidValue() {
+        // Given
+        ConstraintViolation<User> violation = mock(ConstraintViolation.class);
+        when(violation.getMessage()).thenReturn("Name is required");
+        when(validator.validateValue(User.class, "name", "")).thenReturn(Set.of(violation));
+
+        // When
+        Response response = userResource.patchUser(1L, Map.of("name", ""));
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.BAD_REQUEST.getStatusCode());
+        Map<String, String> error = (Map<String, String>) response.getEntity();
+        assertThat(error).containsEntry("error", "Name is required");
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void testPatchUserNotFound() {
+        // Given
+        when(validator.validateValue(User.class, "bio", "Bio")).thenReturn(Set.of());
+        when(userService.patchUser(eq(999L), isNull(), anyMap()))
+                .thenThrow(new IllegalArgumentException("User not found with id: 999"));
+
+        // When
+        Response response = userResource.patchUser(999L, Map.of("bio", "Bio"));
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(Response.Status.NOT_FOUND.getStatusCode());
+    }
+
     @Test
     void testDeleteUserSuccess() {
         // Given
@@ -424,4 +777,9 @@ class UserResourceUnitTest {
         assertThat(health).containsEntry("service", "UserService");
         assertThat(health).containsKey("timestamp");
     }
+
+    private static UserWriteBehind.Status pendingStatus(String ticket) {
+        return new UserWriteBehind.Status(
+                ticket, UserWriteBehind.State.PENDING, null, null, Instant.now(), null);
+    }
 }
@@ -0,0 +1,63 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the streaming CSV reader used by the user import. */
+class CsvReaderTest {
+
+    @Test
+    void testReadsPlainAndQuotedFields() throws IOException {
+        // Given
+        String csv =
+                "name,email,bio\r\n"
+                        + "John,john@example.com,\"Likes \"\"Java\"\", coffee\"\r\n"
+                        + "\n"
+                        + "Jane,jane@example.com,\"Line one\nLine two\"\n"
+                        + "Bob,bob@example.com,";
+
+        // When
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            // Then
+            assertThat(reader.next()).containsExactly("name", "email", "bio");
+            assertThat(reader.next())
+                    .containsExactly("John", "john@example.com", "Likes \"Java\", coffee");
+            assertThat(reader.recordLine()).isEqualTo(2);
+            assertThat(reader.next())
+                    .containsExactly("Jane", "jane@example.com", "Line one\nLine two");
+            assertThat(reader.recordLine()).isEqualTo(4);
+            assertThat(reader.next()).containsExactly("Bob", "bob@example.com", "");
+            assertThat(reader.recordLine()).isEqualTo(6);
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    void testRejectsUnterminatedQuote() throws IOException {
+        // Given
+        try (CsvReader reader = new CsvReader(new StringReader("name\n\"John\n"))) {
+            reader.next();
+
+            // When/Then
+            assertThatThrownBy(reader::next)
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("Unterminated");
+        }
+    }
+
+    @Test
+    void testRejectsOverlongField() throws IOException {
+        // Given
+        String field = "x".repeat(CsvReader.MAX_FIELD_LENGTH + 1);
+        try (CsvReader reader = new CsvReader(new StringReader(field))) {
+            // When/Then
+            assertThatThrownBy(reader::next)
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("Field longer than");
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-call cost of the span attributes of {@link UserService#createUser}, on a real SDK span that
+ * is either sampled or not. {@code before} is the previous instrumentation: the entity passed to
+ * {@code @SpanAttribute} (which stringifies it) and attributes set by name whether or not the span
+ * records. {@code after} is the current one: precomputed keys behind {@link Span#isRecording()}.
+ *
+ * <p>Not run by the build; run it with {@code make jmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpanAttributeBenchmark {
+
+    private static final AttributeKey<Long> USER_ID = AttributeKey.longKey("user.id");
+    private static final AttributeKey<String> USER_EMAIL = AttributeKey.stringKey("user.email");
+    private static final AttributeKey<String> USER_NAME = AttributeKey.stringKey("user.name");
+    private static final AttributeKey<Boolean> USER_CREATED =
+            AttributeKey.booleanKey("user.created");
+
+    @Param({"true", "false"})
+    public boolean sampled;
+
+    private SdkTracerProvider tracerProvider;
+    private Tracer tracer;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // No span processors: what is measured is the instrumentation, not the export
+        tracerProvider =
+                SdkTracerProvider.builder()
+                        .setSampler(sampled ? Sampler.alwaysOn() : Sampler.alwaysOff())
+                        .build();
+        tracer = tracerProvider.get("benchmark");
+        user = new User("Ana Silva", "ana.silva@example.com", "Bio");
+        user.id = 1_000_042L;
+        user.version = 0L;
+        user.createdAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+        user.updatedAt = user.createdAt;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tracerProvider.close();
+    }
+
+    @Benchmark
+    public Span before() {
+        Span span =
+                tracer.spanBuilder("UserService.createUser")
+                        .setAttribute("user.email", String.valueOf(user))
+                        .startSpan();
+        span.setAttribute("user.name", user.name);
+        span.setAttribute("user.id", user.id);
+        span.setAttribute("user.created", true);
+        span.end();
+        return span;
+    }
+
+    @Benchmark
+    public Span after() {
+        Span span = tracer.spanBuilder("UserService.createUser").startSpan();
+        if (span.isRecording()) {
+            span.setAttribute(USER_EMAIL, user.email);
+            span.setAttribute(USER_NAME, user.name);
+        }
+        if (span.isRecording()) {
+            span.setAttribute(USER_ID, user.id);
+            span.setAttribute(USER_CREATED, true);
+        }
+        span.end();
+        return span;
+    }
+}
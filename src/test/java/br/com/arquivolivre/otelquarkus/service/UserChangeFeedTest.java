@@ -0,0 +1,144 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.model.UserTombstone;
+import br.com.arquivolivre.otelquarkus.repository.UserRepository;
+import br.com.arquivolivre.otelquarkus.service.UserChangeFeed.ChangeType;
+import br.com.arquivolivre.otelquarkus.service.UserChangeFeed.Page;
+import br.com.arquivolivre.otelquarkus.service.UserChangeFeed.Position;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** Unit tests for UserChangeFeed's merging, paging and tokens. */
+@ExtendWith(MockitoExtension.class)
+class UserChangeFeedTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2026, 1, 1, 10, 0, 0, 1_000);
+    private static final LocalDateTime T2 = T1.plusSeconds(1);
+
+    @Mock private UserRepository userRepository;
+
+    private UserChangeFeed changeFeed;
+
+    @BeforeEach
+    void setUp() {
+        changeFeed = newChangeFeed(1000);
+    }
+
+    @Test
+    void testMergesUpdatesAndDeletesInOrder() {
+        // Given
+        when(userRepository.findChangedSince(any(), anyLong(), any(), anyInt()))
+                .thenReturn(List.of(user(3L, T1), user(1L, T2)));
+        when(userRepository.findDeletedSince(any(), anyLong(), any(), anyInt()))
+                .thenReturn(List.of(new UserTombstone(2L, T1)));
+
+        // When
+        Page page = changeFeed.changesSince(null, 10);
+
+        // Then
+        assertThat(page.changes())
+                .extracting(change -> change.type() + ":" + change.id())
+                .containsExactly("DELETE:2", "UPSERT:3", "UPSERT:1");
+        assertThat(page.hasMore()).isFalse();
+        assertThat(Position.decode(page.next())).isEqualTo(new Position(T2, 1L));
+    }
+
+    @Test
+    void testPagesWithContinuationToken() {
+        // Given
+        String since = new Position(T1, 7L).encode();
+        when(userRepository.findChangedSince(eq(T1), eq(7L), any(), eq(3)))
+                .thenReturn(List.of(user(8L, T1), user(4L, T2), user(5L, T2)));
+        when(userRepository.findDeletedSince(eq(T1), eq(7L), any(), eq(3))).thenReturn(List.of());
+
+        // When
+        Page page = changeFeed.changesSince(since, 2);
+
+        // Then
+        assertThat(page.changes()).extracting(UserChangeFeed.Change::id).containsExactly(8L, 4L);
+        assertThat(page.changes().get(0).type()).isEqualTo(ChangeType.UPSERT);
+        assertThat(page.hasMore()).isTrue();
+        assertThat(Position.decode(page.next())).isEqualTo(new Position(T2, 4L));
+    }
+
+    @Test
+    void testEmptyPageKeepsToken() {
+        // Given
+        String since = new Position(T2, 9L).encode();
+        when(userRepository.findChangedSince(any(), anyLong(), any(), anyInt()))
+                .thenReturn(List.of());
+        when(userRepository.findDeletedSince(any(), anyLong(), any(), anyInt()))
+                .thenReturn(List.of());
+
+        // When
+        Page page = changeFeed.changesSince(since, 10);
+
+        // Then
+        assertThat(page.changes()).isEmpty();
+        assertThat(page.next()).isEqualTo(since);
+    }
+
+    @Test
+    void testCapsPageSizeAndHoldsBackRecentChanges() {
+        // Given
+        UserChangeFeed capped = newChangeFeed(50);
+        LocalDateTime before = LocalDateTime.now().minusSeconds(5);
+
+        // When
+        capped.changesSince(null, 500);
+
+        // Then
+        verify(userRepository)
+                .findChangedSince(
+                        eq(LocalDateTime.of(1970, 1, 1, 0, 0)),
+                        eq(0L),
+                        argThat(
+                                until ->
+                                        !until.isBefore(before)
+                                                && until.isBefore(LocalDateTime.now())),
+                        eq(51));
+    }
+
+    @Test
+    void testRejectsInvalidTokenAndLimit() {
+        assertThatThrownBy(() -> changeFeed.changesSince("not a token", 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid change token");
+        assertThatThrownBy(() -> changeFeed.changesSince(null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private UserChangeFeed newChangeFeed(int maxPageSize) {
+        return new UserChangeFeed(
+                userRepository,
+                new ShardRouter(1),
+                Duration.ofSeconds(5),
+                maxPageSize,
+                Duration.ofDays(7));
+    }
+
+    private static User user(Long id, LocalDateTime updatedAt) {
+        User user = new User("User " + id, "user" + id + "@example.com", null);
+        user.id = id;
+        user.updatedAt = updatedAt;
+        return user;
+    }
+}
@@ -0,0 +1,188 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.service.UserCreateBatcher.PendingCreate;
+import io.opentelemetry.api.OpenTelemetry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for UserCreateBatcher. Group commit stays disabled so no flusher thread runs and the
+ * tests drive batching and flushing directly.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserCreateBatcherTest {
+
+    private static final Duration TRANSACTION_TIMEOUT = Duration.ofMillis(50);
+
+    @Mock private UserService userService;
+
+    @Mock private ShardRouter shardRouter;
+
+    private UserCreateBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        batcher = newBatcher(Duration.ofMillis(1), 2);
+    }
+
+    @Test
+    void testNextBatchStopsAtMaxBatchSize() throws InterruptedException {
+        // Given
+        batcher.enqueue(new User("A", "a@example.com", null));
+        batcher.enqueue(new User("B", "b@example.com", null));
+        batcher.enqueue(new User("C", "c@example.com", null));
+
+        // When
+        List<PendingCreate> first = batcher.nextBatch();
+        List<PendingCreate> second = batcher.nextBatch();
+
+        // Then
+        assertThat(first).hasSize(2);
+        assertThat(second).hasSize(1);
+        assertThat(second.get(0).user().email).isEqualTo("c@example.com");
+    }
+
+    @Test
+    void testFlushCompletesCreatedAndDuplicateUsers() {
+        // Given
+        User created = new User("A", "a@example.com", null);
+        User duplicate = new User("B", "taken@example.com", null);
+        PendingCreate first = batcher.enqueue(created);
+        PendingCreate second = batcher.enqueue(duplicate);
+        when(userService.createUsers(List.of(created, duplicate))).thenReturn(List.of(created));
+
+        // When
+        batcher.flush(List.of(first, second));
+
+        // Then
+        assertThat(first.result()).isCompletedWithValue(created);
+        assertThatThrownBy(() -> second.result().join())
+                .hasCauseInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Email already exists: taken@example.com");
+        verify(userService, never()).createUser(any(User.class));
+    }
+
+    @Test
+    void testFlushRetriesOneByOneWhenBatchFails() {
+        // Given
+        User good = new User("A", "a@example.com", null);
+        User bad = new User("B", "b@example.com", null);
+        good.id = 10L;
+        PendingCreate first = batcher.enqueue(good);
+        PendingCreate second = batcher.enqueue(bad);
+        when(userService.createUsers(any())).thenThrow(new RuntimeException("batch failed"));
+        when(userService.createUser(good)).thenReturn(good);
+        when(userService.createUser(bad))
+                .thenThrow(new IllegalArgumentException("Email already exists: b@example.com"));
+
+        // When
+        batcher.flush(List.of(first, second));
+
+        // Then
+        assertThat(first.result()).isCompletedWithValue(good);
+        assertThat(good.id).isNull();
+        assertThat(second.result()).isCompletedExceptionally();
+    }
+
+    @Test
+    void testFlushWritesOneTransactionPerShard() {
+        // Given
+        User onShard0 = new User("A", "a@example.com", null);
+        User onShard1 = new User("B", "b@example.com", null);
+        when(shardRouter.isSharded()).thenReturn(true);
+        when(shardRouter.shardForEmail("a@example.com")).thenReturn(0);
+        when(shardRouter.shardForEmail("b@example.com")).thenReturn(1);
+        when(userService.createUsers(List.of(onShard0))).thenReturn(List.of(onShard0));
+        when(userService.createUsers(List.of(onShard1))).thenReturn(List.of(onShard1));
+
+        // When
+        batcher.flush(List.of(batcher.enqueue(onShard0), batcher.enqueue(onShard1)));
+
+        // Then
+        verify(userService).createUsers(List.of(onShard0));
+        verify(userService).createUsers(List.of(onShard1));
+    }
+
+    @Test
+    void testCreateUserRethrowsCallerOutcome() throws InterruptedException {
+        // Given
+        User user = new User("A", "a@example.com", null);
+        when(userService.createUsers(List.of(user))).thenReturn(List.of());
+        Thread flusher =
+                new Thread(
+                        () -> {
+                            try {
+                                batcher.flush(batcher.nextBatch());
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+        flusher.start();
+
+        // When/Then
+        assertThatThrownBy(() -> batcher.createUser(user))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Email already exists: a@example.com");
+        flusher.join();
+    }
+
+    @Test
+    void testCreateUserTimesOutWhenBatchIsNotCommitted() throws InterruptedException {
+        // Given: nothing drains the queue
+        User user = new User("A", "a@example.com", null);
+
+        // When/Then
+        assertThatThrownBy(() -> batcher.createUser(user))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Group commit timed out, user not created");
+        PendingCreate next = batcher.enqueue(new User("B", "b@example.com", null));
+        assertThat(batcher.nextBatch()).containsExactly(next);
+    }
+
+    @Test
+    @Timeout(5)
+    void testCreateUserFailsFastOnceFlusherHasDied() {
+        // Given
+        UserCreateBatcher enabled = newBatcher(true, Duration.ofMillis(1), 2);
+        User user = new User("A", "a@example.com", null);
+
+        // When: the flusher exits once interrupted
+        enabled.shutdown();
+
+        // Then
+        String message;
+        do {
+            message = catchThrowable(() -> enabled.createUser(user)).getMessage();
+        } while (message.startsWith("Group commit timed out"));
+        assertThat(message).isEqualTo("Group commit flusher is not running");
+    }
+
+    private UserCreateBatcher newBatcher(Duration window, int maxBatchSize) {
+        return newBatcher(false, window, maxBatchSize);
+    }
+
+    private UserCreateBatcher newBatcher(boolean enabled, Duration window, int maxBatchSize) {
+        return new UserCreateBatcher(
+                userService,
+                shardRouter,
+                OpenTelemetry.noop().getMeter("test"),
+                enabled,
+                window,
+                maxBatchSize,
+                TRANSACTION_TIMEOUT);
+    }
+}
@@ -0,0 +1,196 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.service.UserEventBroadcaster.SlowConsumerPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.OpenTelemetry;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for UserEventBroadcaster. Each subscriber is a mocked sink whose sends complete, or
+ * stay pending, as the test needs; the events it received are read back from its event builder.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserEventBroadcasterTest {
+
+    @Test
+    void testPublishesCommittedMutationAsJson() {
+        // Given
+        UserEventBroadcaster broadcaster = newBroadcaster(10, 10, SlowConsumerPolicy.DISCONNECT);
+        Client client = new Client(CompletableFuture.completedFuture(null));
+        broadcaster.subscribe(client.sink, client.sse, null);
+        User user = new User("John", "john@example.com", null);
+        user.id = 7L;
+
+        // When
+        broadcaster.onMutation(UserMutation.created(user));
+
+        // Then
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+        assertThat(client.names()).containsExactly("created");
+        assertThat(client.ids()).singleElement().asString().endsWith("-1");
+        ArgumentCaptor<Object> data = ArgumentCaptor.forClass(Object.class);
+        verify(client.builder).data(data.capture());
+        assertThat(data.getValue().toString())
+                .contains("\"type\":\"CREATED\"")
+                .contains("john@example.com");
+    }
+
+    @Test
+    void testResumeReplaysEventsAfterLastEventId() {
+        // Given
+        UserEventBroadcaster broadcaster = newBroadcaster(10, 10, SlowConsumerPolicy.DISCONNECT);
+        Client first = new Client(CompletableFuture.completedFuture(null));
+        broadcaster.subscribe(first.sink, first.sse, null);
+        broadcaster.publish("created", "{}");
+        broadcaster.publish("updated", "{}");
+        broadcaster.publish("deleted", "{}");
+        Client resumed = new Client(CompletableFuture.completedFuture(null));
+
+        // When
+        broadcaster.subscribe(resumed.sink, resumed.sse, first.ids().get(0));
+
+        // Then
+        assertThat(resumed.names()).containsExactly("updated", "deleted");
+        assertThat(resumed.ids()).isEqualTo(first.ids().subList(1, 3));
+        assertThat(broadcaster.subscriberCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testResumeFromUnknownIdSendsReset() {
+        // Given
+        UserEventBroadcaster broadcaster = newBroadcaster(10, 10, SlowConsumerPolicy.DISCONNECT);
+        broadcaster.publish("created", "{}");
+        Client client = new Client(CompletableFuture.completedFuture(null));
+
+        // When
+        broadcaster.subscribe(client.sink, client.sse, "previous-process-1");
+
+        // Then
+        assertThat(client.names()).containsExactly(UserEventBroadcaster.RESET);
+    }
+
+    @Test
+    void testResumeFromEvictedIdSendsReset() {
+        // Given
+        UserEventBroadcaster broadcaster = newBroadcaster(2, 10, SlowConsumerPolicy.DISCONNECT);
+        Client first = new Client(CompletableFuture.completedFuture(null));
+        broadcaster.subscribe(first.sink, first.sse, null);
+        for (int i = 0; i < 4; i++) {
+            broadcaster.publish("created", "{}");
+        }
+        Client resumed = new Client(CompletableFuture.completedFuture(null));
+
+        // When
+        broadcaster.subscribe(resumed.sink, resumed.sse, first.ids().get(0));
+
+        // Then
+        assertThat(resumed.names()).containsExactly(UserEventBroadcaster.RESET);
+        assertThat(resumed.ids()).containsExactly(first.ids().get(3));
+    }
+
+    @Test
+    void testDisconnectsSlowSubscriber() {
+        // Given
+        UserEventBroadcaster broadcaster = newBroadcaster(10, 2, SlowConsumerPolicy.DISCONNECT);
+        Client slow = new Client(new CompletableFuture<>());
+        broadcaster.subscribe(slow.sink, slow.sse, null);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            broadcaster.publish("created", "{}");
+        }
+
+        // Then
+        verify(slow.sink).close();
+        assertThat(slow.names()).hasSize(2);
+        assertThat(broadcaster.subscriberCount()).isZero();
+    }
+
+    @Test
+    void testDropSkipsEventsThenSendsReset() {
+        // Given
+        UserEventBroadcaster broadcaster = newBroadcaster(10, 1, SlowConsumerPolicy.DROP);
+        CompletableFuture<Void> flushed = new CompletableFuture<>();
+        Client slow = new Client(flushed);
+        broadcaster.subscribe(slow.sink, slow.sse, null);
+        broadcaster.publish("a", "{}");
+        broadcaster.publish("b", "{}");
+
+        // When
+        flushed.complete(null);
+        broadcaster.publish("c", "{}");
+
+        // Then
+        assertThat(slow.names()).containsExactly("a", UserEventBroadcaster.RESET, "c");
+        verify(slow.sink, never()).close();
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testFailedSendRemovesSubscriber() {
+        // Given
+        UserEventBroadcaster broadcaster = newBroadcaster(10, 10, SlowConsumerPolicy.DISCONNECT);
+        Client gone =
+                new Client(CompletableFuture.failedFuture(new IllegalStateException("closed")));
+        broadcaster.subscribe(gone.sink, gone.sse, null);
+
+        // When
+        broadcaster.publish("created", "{}");
+
+        // Then
+        assertThat(broadcaster.subscriberCount()).isZero();
+    }
+
+    private static UserEventBroadcaster newBroadcaster(
+            int replaySize, int bufferSize, SlowConsumerPolicy policy) {
+        return new UserEventBroadcaster(
+                new ObjectMapper().findAndRegisterModules(),
+                OpenTelemetry.noop().getMeter("test"),
+                replaySize,
+                bufferSize,
+                policy);
+    }
+
+    /** A subscriber whose sends all return the given stage. */
+    private static final class Client {
+        final SseEventSink sink = mock(SseEventSink.class);
+        final Sse sse = mock(Sse.class);
+        final OutboundSseEvent.Builder builder = mock(OutboundSseEvent.Builder.class, RETURNS_SELF);
+
+        Client(CompletableFuture<?> sent) {
+            lenient().when(sse.newEventBuilder()).thenReturn(builder);
+            lenient().doReturn(sent).when(sink).send(any());
+        }
+
+        List<String> names() {
+            ArgumentCaptor<String> names = ArgumentCaptor.forClass(String.class);
+            verify(builder, atLeast(0)).name(names.capture());
+            return names.getAllValues();
+        }
+
+        List<String> ids() {
+            ArgumentCaptor<String> ids = ArgumentCaptor.forClass(String.class);
+            verify(builder, atLeast(0)).id(ids.capture());
+            return ids.getAllValues();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.repository.UserRepository;
+import br.com.arquivolivre.otelquarkus.service.UserExportService.Export;
+import br.com.arquivolivre.otelquarkus.service.UserExportService.State;
+import br.com.arquivolivre.otelquarkus.service.UserExportService.Status;
+import io.opentelemetry.api.OpenTelemetry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for UserExportService. Exports run on the test thread against a mocked repository and
+ * write into a temporary directory.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserExportServiceTest {
+
+    @Mock private UserRepository userRepository;
+
+    @TempDir Path dir;
+
+    private UserExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        // A tiny buffer so every export flushes it several times
+        exportService =
+                new UserExportService(
+                        userRepository,
+                        OpenTelemetry.noop().getMeter("test"),
+                        dir.toString(),
+                        500,
+                        64,
+                        2,
+                        Optional.empty());
+    }
+
+    @Test
+    void testExportWritesCsvFile() throws IOException {
+        // Given
+        User john = new User("John Doe", "john@example.com", "Likes \"Java\", coffee");
+        john.id = 1L;
+        john.version = 0L;
+        User jane = new User("Jane", "jane@example.com", null);
+        jane.id = 2L;
+        jane.version = 3L;
+        streamUsers(List.of(john, jane));
+        Export export = exportService.newExport();
+
+        // When
+        exportService.run(export);
+
+        // Then
+        Status status = exportService.status(export.id).orElseThrow();
+        assertThat(status.state()).isEqualTo(State.COMPLETED);
+        assertThat(status.rows()).isEqualTo(2);
+        Path file = exportService.file(export.id).orElseThrow();
+        assertThat(file.getFileName().toString()).isEqualTo(status.fileName());
+        assertThat(status.bytes()).isEqualTo(Files.size(file));
+        assertThat(Files.readAllLines(file))
+                .containsExactly(
+                        "id,name,email,bio,createdAt,updatedAt,version",
+                        "1,John Doe,john@example.com,\"Likes \"\"Java\"\", coffee\",,,0",
+                        "2,Jane,jane@example.com,,,,3");
+        assertThat(Files.list(dir)).containsExactly(file);
+    }
+
+    @Test
+    void testFailedExportLeavesNoFile() throws IOException {
+        // Given
+        doThrow(new IllegalStateException("Connection lost"))
+                .when(userRepository)
+                .forEachUser(anyInt(), any());
+        Export export = exportService.newExport();
+
+        // When
+        exportService.run(export);
+
+        // Then
+        Status status = exportService.status(export.id).orElseThrow();
+        assertThat(status.state()).isEqualTo(State.FAILED);
+        assertThat(status.error()).isEqualTo("Connection lost");
+        assertThat(exportService.file(export.id)).isEmpty();
+        assertThat(Files.list(dir)).isEmpty();
+    }
+
+    @Test
+    void testKeepsOnlyNewestExports() {
+        // Given
+        streamUsers(List.of());
+        Export first = exportService.newExport();
+        Export second = exportService.newExport();
+        Export third = exportService.newExport();
+
+        // When
+        exportService.run(first);
+        exportService.run(second);
+        exportService.run(third);
+
+        // Then
+        assertThat(exportService.status(first.id)).isEmpty();
+        assertThat(exportService.file(second.id)).isPresent();
+        assertThat(exportService.file(third.id)).isPresent();
+        assertThat(exportService.list())
+                .extracting(Status::exportId)
+                .containsExactly(third.id, second.id);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void streamUsers(List<User> users) {
+        doAnswer(
+                        invocation -> {
+                            Consumer<User> action = invocation.getArgument(1);
+                            users.forEach(action);
+                            return (long) users.size();
+                        })
+                .when(userRepository)
+                .forEachUser(eq(500), any(Consumer.class));
+    }
+}
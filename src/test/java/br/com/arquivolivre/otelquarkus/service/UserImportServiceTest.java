@@ -0,0 +1,144 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.service.UserCreateBatcher.PendingCreate;
+import br.com.arquivolivre.otelquarkus.service.UserImportService.Job;
+import br.com.arquivolivre.otelquarkus.service.UserImportService.Rejection;
+import br.com.arquivolivre.otelquarkus.service.UserImportService.State;
+import br.com.arquivolivre.otelquarkus.service.UserImportService.Status;
+import io.opentelemetry.api.OpenTelemetry;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for UserImportService. Rows are fed to the import directly, without spooling or the
+ * background executor, against a mocked group-commit writer.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    private static final int MAX_UPLOAD_BYTES = 16;
+
+    @Mock private UserCreateBatcher writer;
+
+    @Mock private Validator validator;
+
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService =
+                new UserImportService(
+                        writer,
+                        validator,
+                        OpenTelemetry.noop().getMeter("test"),
+                        2,
+                        100,
+                        Duration.ofHours(1),
+                        new MemorySize(BigInteger.valueOf(MAX_UPLOAD_BYTES)));
+    }
+
+    @Test
+    void testImportsRowsInChunks() throws IOException {
+        // Given
+        String csv =
+                "email,name\n"
+                        + "a@example.com,User A\n"
+                        + "b@example.com,User B\n"
+                        + "taken@example.com,User C\n";
+        when(validator.validate(any(User.class))).thenReturn(Set.of());
+        doAnswer(
+                        invocation -> {
+                            List<PendingCreate> chunk = invocation.getArgument(0);
+                            for (PendingCreate pending : chunk) {
+                                if (pending.user().email.startsWith("taken")) {
+                                    pending.result()
+                                            .completeExceptionally(
+                                                    new IllegalArgumentException(
+                                                            "Email already exists"));
+                                } else {
+                                    pending.result().complete(pending.user());
+                                }
+                            }
+                            return null;
+                        })
+                .when(writer)
+                .write(anyList());
+        Job job = importService.newJob();
+
+        // When
+        importService.importRows(job, new StringReader(csv));
+
+        // Then
+        verify(writer, times(2)).write(anyList());
+        Status status = importService.status(job.id).orElseThrow();
+        assertThat(status.state()).isEqualTo(State.COMPLETED);
+        assertThat(status.rowsRead()).isEqualTo(3);
+        assertThat(status.imported()).isEqualTo(2);
+        assertThat(status.rejected()).isEqualTo(1);
+        assertThat(status.rejections()).containsExactly(new Rejection(4, "Email already exists"));
+        assertThat(importService.activeJobs()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRejectsInvalidRowsWithoutWritingThem() throws IOException {
+        // Given
+        String csv = "name,email,bio\n,blank@example.com,\n";
+        ConstraintViolation<User> violation = mock(ConstraintViolation.class);
+        when(violation.getMessage()).thenReturn("Name is required");
+        when(validator.validate(any(User.class))).thenReturn(Set.of(violation));
+        Job job = importService.newJob();
+
+        // When
+        importService.importRows(job, new StringReader(csv));
+
+        // Then
+        verify(writer, times(0)).write(anyList());
+        Status status = job.status();
+        assertThat(status.state()).isEqualTo(State.COMPLETED);
+        assertThat(status.rejected()).isEqualTo(1);
+        assertThat(status.rejections()).containsExactly(new Rejection(2, "Name is required"));
+    }
+
+    @Test
+    void testRequiresNameAndEmailColumns() {
+        // Given
+        Job job = importService.newJob();
+
+        // When/Then
+        assertThatThrownBy(() -> importService.importRows(job, new StringReader("name,bio\n")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("name and email");
+        assertThat(importService.status(job.id)).isPresent();
+        assertThat(importService.status("unknown")).isEmpty();
+    }
+
+    @Test
+    void testMaxBytesIsTheConfiguredLimit() {
+        // When/Then
+        assertThat(importService.maxBytes()).isEqualTo(MAX_UPLOAD_BYTES);
+    }
+}
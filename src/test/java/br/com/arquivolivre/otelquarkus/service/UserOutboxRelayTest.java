@@ -0,0 +1,71 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.arquivolivre.otelquarkus.datasource.DataSourceRouting;
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
+import br.com.arquivolivre.otelquarkus.repository.UserOutboxRepository;
+import io.opentelemetry.api.OpenTelemetry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** Unit tests for UserOutboxRelay passes, without starting its thread. */
+@ExtendWith(MockitoExtension.class)
+class UserOutboxRelayTest {
+
+    @Mock private UserOutbox outbox;
+
+    @Mock private UserOutboxRepository repository;
+
+    @Test
+    void testRelayOncePublishesUnshardedOutbox() {
+        // Given
+        UserOutboxRelay relay = newRelay(new ShardRouter(1));
+        when(outbox.publishBatch()).thenReturn(3);
+
+        // When
+        int published = relay.relayOnce();
+
+        // Then
+        assertThat(published).isEqualTo(3);
+        verify(outbox).publishBatch();
+    }
+
+    @Test
+    void testRelayOnceVisitsEveryShard() {
+        // Given
+        UserOutboxRelay relay = newRelay(new ShardRouter(2));
+        List<String> tenants = new ArrayList<>();
+        when(outbox.publishBatch())
+                .then(
+                        invocation -> {
+                            tenants.add(DataSourceRouting.current());
+                            return tenants.size();
+                        });
+
+        // When
+        int published = relay.relayOnce();
+
+        // Then
+        assertThat(published).isEqualTo(3);
+        assertThat(tenants).containsExactly(DataSourceRouting.PRIMARY, "shard-1");
+        verify(outbox, times(2)).publishBatch();
+    }
+
+    private UserOutboxRelay newRelay(ShardRouter shardRouter) {
+        return new UserOutboxRelay(
+                outbox,
+                repository,
+                shardRouter,
+                OpenTelemetry.noop().getMeter("test"),
+                Duration.ofSeconds(1));
+    }
+}
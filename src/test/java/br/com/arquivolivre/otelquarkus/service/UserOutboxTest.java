@@ -0,0 +1,149 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.model.UserInvalidation;
+import br.com.arquivolivre.otelquarkus.model.UserOutboxEvent;
+import br.com.arquivolivre.otelquarkus.outbox.MemoryOutboxSink;
+import br.com.arquivolivre.otelquarkus.outbox.OutboxSink;
+import br.com.arquivolivre.otelquarkus.repository.UserOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.OpenTelemetry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** Unit tests for UserOutbox against a mocked repository and an in-memory sink. */
+@ExtendWith(MockitoExtension.class)
+class UserOutboxTest {
+
+    @Mock private UserOutboxRepository repository;
+
+    private final MemoryOutboxSink sink = new MemoryOutboxSink();
+
+    @Test
+    void testMutationIsWrittenToOutbox() {
+        // Given
+        UserOutbox outbox = newOutbox(sink, true);
+        User user = new User("John", "john@example.com", null);
+        user.id = 7L;
+        user.version = 3L;
+
+        // When
+        outbox.onMutation(UserMutation.created(user));
+
+        // Then
+        ArgumentCaptor<UserOutboxEvent> row = ArgumentCaptor.forClass(UserOutboxEvent.class);
+        verify(repository).persist(row.capture());
+        assertThat(row.getValue().userId).isEqualTo(7L);
+        assertThat(row.getValue().type).isEqualTo("CREATED");
+        assertThat(row.getValue().payload).contains("john@example.com", "\"version\":3");
+        assertThat(row.getValue().createdAt).isNotNull();
+    }
+
+    @Test
+    void testDeletePayloadCarriesVersion() {
+        // Given
+        UserOutbox outbox = newOutbox(sink, true);
+
+        // When
+        outbox.onMutation(UserMutation.deleted(7L));
+
+        // Then
+        ArgumentCaptor<UserOutboxEvent> row = ArgumentCaptor.forClass(UserOutboxEvent.class);
+        verify(repository).persist(row.capture());
+        assertThat(row.getValue().type).isEqualTo("DELETED");
+        assertThat(row.getValue().payload)
+                .contains("\"version\":" + UserInvalidation.DELETED);
+    }
+
+    @Test
+    void testMutationIsIgnoredWhenDisabled() {
+        // Given
+        UserOutbox outbox = newOutbox(sink, false);
+
+        // When
+        outbox.onMutation(UserMutation.deleted(7L));
+
+        // Then
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testPublishBatchPublishesThenDeletes() {
+        // Given
+        UserOutbox outbox = newOutbox(sink, true);
+        List<UserOutboxEvent> batch = List.of(event(1L), event(2L));
+        when(repository.claimBatch(500)).thenReturn(batch);
+
+        // When
+        int published = outbox.publishBatch();
+
+        // Then
+        assertThat(published).isEqualTo(2);
+        assertThat(sink.published()).containsExactlyElementsOf(batch);
+        verify(repository).deleteByIds(List.of(1L, 2L));
+    }
+
+    @Test
+    void testPublishBatchWithEmptyOutbox() {
+        // Given
+        UserOutbox outbox = newOutbox(sink, true);
+        when(repository.claimBatch(500)).thenReturn(List.of());
+
+        // When
+        int published = outbox.publishBatch();
+
+        // Then
+        assertThat(published).isZero();
+        assertThat(sink.published()).isEmpty();
+        verify(repository, never()).deleteByIds(anyCollection());
+    }
+
+    @Test
+    void testPublishBatchKeepsEventsWhenSinkFails() {
+        // Given
+        OutboxSink failing =
+                events -> {
+                    throw new IOException("disk full");
+                };
+        UserOutbox outbox = newOutbox(failing, true);
+        when(repository.claimBatch(500)).thenReturn(List.of(event(1L)));
+
+        // When/Then
+        assertThatThrownBy(outbox::publishBatch)
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining("Cannot publish outbox batch");
+        verify(repository, never()).deleteByIds(any());
+    }
+
+    private UserOutbox newOutbox(OutboxSink outboxSink, boolean enabled) {
+        return new UserOutbox(
+                repository,
+                outboxSink,
+                new ObjectMapper().findAndRegisterModules(),
+                OpenTelemetry.noop().getMeter("test"),
+                enabled,
+                500);
+    }
+
+    private static UserOutboxEvent event(long id) {
+        UserOutboxEvent event = new UserOutboxEvent(id, "UPDATED", "{}", LocalDateTime.now());
+        event.id = id;
+        return event;
+    }
+}
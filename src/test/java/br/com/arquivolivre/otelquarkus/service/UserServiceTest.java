@@ -10,9 +10,12 @@ import br.com.arquivolivre.otelquarkus.repository.UserRepository;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -139,9 +142,8 @@ class UserServiceTest {
     void testUpdateUserSuccess() {
         // Given
         User updatedData = new User("Updated Name", "updated@example.com", "Updated bio");
-        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(testUser));
-        when(userRepository.existsByEmailAndIdNot("updated@example.com", 1L)).thenReturn(false);
-        doAnswer(invocation -> null).when(userRepository).persist(any(User.class));
+        when(userRepository.updateIfChanged(1L, null, updatedData)).thenReturn(true);
+        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(updatedData));
 
         // When
         User result = userService.updateUser(1L, updatedData);
@@ -149,13 +151,14 @@ class UserServiceTest {
         // Then
         assertThat(result.name).isEqualTo("Updated Name");
         assertThat(result.email).isEqualTo("updated@example.com");
-        verify(userRepository).findByIdOptional(1L);
-        verify(userRepository).persist(testUser);
+        verify(userRepository).updateIfChanged(1L, null, updatedData);
+        verify(userRepository, never()).persist(any(User.class));
     }
 
     @Test
     void testUpdateUserNotFound() {
         // Given
+        when(userRepository.updateIfChanged(999L, null, testUser)).thenReturn(false);
         when(userRepository.findByIdOptional(999L)).thenReturn(Optional.empty());
 
         // When/Then
@@ -171,34 +174,52 @@ class UserServiceTest {
     void testUpdateUserEmailConflict() {
         // Given
         User updatedData = new User("Updated", "conflict@example.com", "Bio");
-        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(testUser));
-        when(userRepository.existsByEmailAndIdNot("conflict@example.com", 1L)).thenReturn(true);
+        when(userRepository.updateIfChanged(1L, null, updatedData))
+                .thenThrow(
+                        new ConstraintViolationException(
+                                "Unique index violation", new SQLException(), "uk_users_email"));
 
         // When/Then
         assertThatThrownBy(() -> userService.updateUser(1L, updatedData))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Email already exists");
 
-        verify(userRepository).existsByEmailAndIdNot("conflict@example.com", 1L);
         verify(userRepository, never()).persist(any(User.class));
     }
 
     @Test
     void testUpdateUserSameEmail() {
-        // Given
+        // Given - keeping its own email must not be reported as taken
         User updatedData = new User("Updated Name", "john@example.com", "Updated bio");
-        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(testUser));
-        when(userRepository.existsByEmailAndIdNot("john@example.com", 1L)).thenReturn(false);
-        doAnswer(invocation -> null).when(userRepository).persist(any(User.class));
+        User stored = new User("Updated Name", "john@example.com", "Updated bio");
+        stored.id = 1L;
+        when(userRepository.updateIfChanged(1L, null, updatedData)).thenReturn(true);
+        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(stored));
 
         // When
         User result = userService.updateUser(1L, updatedData);
 
         // Then
         assertThat(result.name).isEqualTo("Updated Name");
+        assertThat(result.email).isEqualTo("john@example.com");
+        verify(userRepository).updateIfChanged(1L, null, updatedData);
         verify(userRepository, never()).existsByEmailAndIdNot(anyString(), anyLong());
     }
 
+    @Test
+    void testUpdateUserVersionConflict() {
+        // Given
+        User updatedData = new User("Updated Name", "john@example.com", "Updated bio");
+        updatedData.version = 0L;
+        testUser.version = 1L;
+        when(userRepository.updateIfChanged(1L, 0L, updatedData)).thenReturn(false);
+        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(testUser));
+
+        // When/Then
+        assertThatThrownBy(() -> userService.updateUser(1L, updatedData))
+                .isInstanceOf(OptimisticLockException.class);
+    }
+
     @Test
     void testDeleteUserSuccess() {
         // Given
@@ -5,16 +5,27 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import br.com.arquivolivre.otelquarkus.cache.UserCache;
+import br.com.arquivolivre.otelquarkus.cache.UserCacheSnapshot;
+import br.com.arquivolivre.otelquarkus.datasource.ShardRouter;
 import br.com.arquivolivre.otelquarkus.model.User;
 import br.com.arquivolivre.otelquarkus.repository.UserRepository;
 import io.opentelemetry.api.OpenTelemetry;
+import jakarta.enterprise.event.Event;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceException;
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -27,16 +38,18 @@ class UserServiceUnitTest {
 
     @Mock private UserRepository userRepository;
 
+    @Mock private Event<UserMutation> mutations;
+
+    @Mock private UserCacheSnapshot cacheSnapshot;
+
     private UserService userService;
 
     private User testUser;
 
     @BeforeEach
     void setUp() {
-        userService = new UserService(userRepository, OpenTelemetry.noop().getMeter("test"));
-        // The constructor seeds the users.total gauge by calling countUsers() once;
-        // clear that interaction so each test only asserts its own calls.
-        clearInvocations(userRepository);
+        userService =
+                newUserService(new UserCache(OpenTelemetry.noop().getMeter("test"), false, 0));
         testUser = new User("John Doe", "john@example.com", "Software Developer");
         testUser.id = 1L;
     }
@@ -86,6 +99,38 @@ class UserServiceUnitTest {
         verify(userRepository).findByIdOptional(1L);
     }
 
+    @Test
+    void testGetUserByIdServedFromCache() {
+        // Given
+        UserService cachingService =
+                newUserService(new UserCache(OpenTelemetry.noop().getMeter("test"), true, 10));
+        testUser.version = 0L;
+        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(testUser));
+        cachingService.getUserById(1L);
+
+        // When
+        Optional<User> result = cachingService.getUserById(1L);
+
+        // Then
+        assertThat(result).isPresent();
+        assertThat(result.get().email).isEqualTo("john@example.com");
+        assertThat(result.get()).isNotSameAs(testUser);
+        verify(userRepository, times(1)).findByIdOptional(1L);
+    }
+
+    @Test
+    void testGetUserByIdServedFromSnapshot() {
+        // Given
+        when(cacheSnapshot.restore(1L)).thenReturn(Optional.of(testUser));
+
+        // When
+        Optional<User> result = userService.getUserById(1L);
+
+        // Then
+        assertThat(result).contains(testUser);
+        verify(userRepository, never()).findByIdOptional(any());
+    }
+
     @Test
     void testGetUserByIdNotFound() {
         // Given
@@ -149,6 +194,11 @@ class UserServiceUnitTest {
         assertThat(result.name).isEqualTo("Alice Smith");
         verify(userRepository).existsByEmail("alice@example.com");
         verify(userRepository).persist(newUser);
+        ArgumentCaptor<UserMutation> mutation = ArgumentCaptor.forClass(UserMutation.class);
+        verify(mutations).fire(mutation.capture());
+        assertThat(mutation.getValue().type()).isEqualTo(UserMutation.Type.CREATED);
+        assertThat(mutation.getValue().id()).isEqualTo(5L);
+        assertThat(mutation.getValue().user()).isSameAs(newUser);
     }
 
     @Test
@@ -164,6 +214,7 @@ class UserServiceUnitTest {
 
         verify(userRepository).existsByEmail("john@example.com");
         verify(userRepository, never()).persist(any(User.class));
+        verify(mutations, never()).fire(any());
     }
 
     @Test
@@ -181,14 +232,35 @@ class UserServiceUnitTest {
         verify(userRepository).persist(newUser);
     }
 
+    @Test
+    void testCreateUsersSkipsTakenAndRepeatedEmails() {
+        // Given
+        User fresh = new User("Fresh", "fresh@example.com", null);
+        User taken = new User("Taken", "taken@example.com", null);
+        User repeated = new User("Repeated", "fresh@example.com", null);
+        when(userRepository.findExistingEmails(
+                        List.of("fresh@example.com", "taken@example.com", "fresh@example.com")))
+                .thenReturn(List.of("taken@example.com"));
+
+        // When
+        List<User> created = userService.createUsers(List.of(fresh, taken, repeated));
+
+        // Then
+        assertThat(created).containsExactly(fresh);
+        verify(userRepository).persist(List.of(fresh));
+        verify(userRepository).flush();
+        verify(mutations).fire(argThat(m -> m.user() == fresh));
+    }
+
     @Test
     void testUpdateUserSuccess() {
         // Given
         User updatedData = new User("John Updated", "john.updated@example.com", "Senior Developer");
-        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(testUser));
-        when(userRepository.existsByEmailAndIdNot("john.updated@example.com", 1L))
-                .thenReturn(false);
-        doNothing().when(userRepository).persist(any(User.class));
+        User stored = new User("John Updated", "john.updated@example.com", "Senior Developer");
+        stored.id = 1L;
+        stored.version = 1L;
+        when(userRepository.updateIfChanged(1L, null, updatedData)).thenReturn(true);
+        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(stored));
 
         // When
         User result = userService.updateUser(1L, updatedData);
@@ -197,15 +269,19 @@ class UserServiceUnitTest {
         assertThat(result.name).isEqualTo("John Updated");
         assertThat(result.email).isEqualTo("john.updated@example.com");
         assertThat(result.bio).isEqualTo("Senior Developer");
+        assertThat(result.version).isEqualTo(1L);
+        verify(userRepository).updateIfChanged(1L, null, updatedData);
         verify(userRepository).findByIdOptional(1L);
-        verify(userRepository).existsByEmailAndIdNot("john.updated@example.com", 1L);
-        verify(userRepository).persist(testUser);
+        verify(userRepository, never()).existsByEmailAndIdNot(anyString(), anyLong());
+        verify(userRepository, never()).persist(any(User.class));
+        verify(mutations).fire(argThat(m -> m.type() == UserMutation.Type.UPDATED));
     }
 
     @Test
     void testUpdateUserNotFound() {
         // Given
         User updatedData = new User("Test", "test@example.com", "Bio");
+        when(userRepository.updateIfChanged(999L, null, updatedData)).thenReturn(false);
         when(userRepository.findByIdOptional(999L)).thenReturn(Optional.empty());
 
         // When/Then
@@ -221,25 +297,45 @@ class UserServiceUnitTest {
     void testUpdateUserEmailConflict() {
         // Given
         User updatedData = new User("John", "taken@example.com", "Bio");
-        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(testUser));
-        when(userRepository.existsByEmailAndIdNot("taken@example.com", 1L)).thenReturn(true);
+        when(userRepository.updateIfChanged(1L, null, updatedData))
+                .thenThrow(
+                        new ConstraintViolationException(
+                                "Unique index violation", new SQLException(), "uk_users_email"));
 
         // When/Then
         assertThatThrownBy(() -> userService.updateUser(1L, updatedData))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Email already exists: taken@example.com");
 
-        verify(userRepository).findByIdOptional(1L);
-        verify(userRepository).existsByEmailAndIdNot("taken@example.com", 1L);
+        verify(userRepository, never()).findByIdOptional(anyLong());
         verify(userRepository, never()).persist(any(User.class));
     }
 
     @Test
-    void testUpdateUserSameEmail() {
+    void testUpdateUserUnchangedSkipsWrite() {
         // Given
-        User updatedData = new User("John Updated", "john@example.com", "New Bio");
+        User updatedData = new User("John Doe", "john@example.com", "Software Developer");
+        when(userRepository.updateIfChanged(1L, null, updatedData)).thenReturn(false);
         when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(testUser));
-        doNothing().when(userRepository).persist(any(User.class));
+
+        // When
+        User result = userService.updateUser(1L, updatedData);
+
+        // Then
+        assertThat(result).isSameAs(testUser);
+        verify(userRepository, never()).persist(any(User.class));
+        verify(mutations, never()).fire(any());
+    }
+
+    @Test
+    void testUpdateUserSameEmail() {
+        // Given - keeping its own email must not be reported as taken
+        User updatedData = new User("John Updated", "john@example.com", "New Bio");
+        User stored = new User("John Updated", "john@example.com", "New Bio");
+        stored.id = 1L;
+        stored.version = 1L;
+        when(userRepository.updateIfChanged(1L, null, updatedData)).thenReturn(true);
+        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(stored));
 
         // When
         User result = userService.updateUser(1L, updatedData);
@@ -248,9 +344,73 @@ class UserServiceUnitTest {
         assertThat(result.name).isEqualTo("John Updated");
         assertThat(result.email).isEqualTo("john@example.com");
         assertThat(result.bio).isEqualTo("New Bio");
+        verify(userRepository).updateIfChanged(1L, null, updatedData);
         verify(userRepository).findByIdOptional(1L);
         verify(userRepository, never()).existsByEmailAndIdNot(anyString(), anyLong());
-        verify(userRepository).persist(testUser);
+        verify(userRepository, never()).persist(any(User.class));
+    }
+
+    @Test
+    void testUpdateUserMatchingVersion() {
+        // Given
+        User updatedData = new User("John Updated", "john@example.com", "New Bio");
+        updatedData.version = 3L;
+        testUser.version = 4L;
+        when(userRepository.updateIfChanged(1L, 3L, updatedData)).thenReturn(true);
+        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(testUser));
+
+        // When
+        User result = userService.updateUser(1L, updatedData);
+
+        // Then
+        assertThat(result.version).isEqualTo(4L);
+        verify(userRepository).updateIfChanged(1L, 3L, updatedData);
+    }
+
+    @Test
+    void testUpdateUserVersionConflict() {
+        // Given
+        User updatedData = new User("John Updated", "john@example.com", "New Bio");
+        updatedData.version = 3L;
+        testUser.version = 5L;
+        when(userRepository.updateIfChanged(1L, 3L, updatedData)).thenReturn(false);
+        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(testUser));
+
+        // When/Then
+        assertThatThrownBy(() -> userService.updateUser(1L, updatedData))
+                .isInstanceOf(OptimisticLockException.class)
+                .hasMessageContaining("expected version 3 but found 5");
+    }
+
+    @Test
+    void testPatchUserWritesOnlyGivenFields() {
+        // Given
+        Map<String, Object> fields = Map.of("bio", "Architect");
+        testUser.bio = "Architect";
+        when(userRepository.patchIfChanged(1L, null, fields)).thenReturn(true);
+        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(testUser));
+
+        // When
+        User result = userService.patchUser(1L, null, fields);
+
+        // Then
+        assertThat(result.bio).isEqualTo("Architect");
+        verify(userRepository).patchIfChanged(1L, null, fields);
+        verify(userRepository, never()).updateIfChanged(anyLong(), any(), any(User.class));
+        verify(userRepository, never()).persist(any(User.class));
+    }
+
+    @Test
+    void testPatchUserVersionConflict() {
+        // Given
+        Map<String, Object> fields = Map.of("name", "John Patched");
+        testUser.version = 2L;
+        when(userRepository.patchIfChanged(1L, 1L, fields)).thenReturn(false);
+        when(userRepository.findByIdOptional(1L)).thenReturn(Optional.of(testUser));
+
+        // When/Then
+        assertThatThrownBy(() -> userService.patchUser(1L, 1L, fields))
+                .isInstanceOf(OptimisticLockException.class);
     }
 
     @Test
@@ -264,6 +424,8 @@ class UserServiceUnitTest {
         // Then
         assertThat(result).isTrue();
         verify(userRepository).deleteUser(1L);
+        verify(mutations)
+                .fire(argThat(m -> m.type() == UserMutation.Type.DELETED && m.id() == 1L));
     }
 
     @Test
@@ -277,6 +439,7 @@ class UserServiceUnitTest {
         // Then
         assertThat(result).isFalse();
         verify(userRepository).deleteUser(999L);
+        verify(mutations, never()).fire(any());
     }
 
     @Test
@@ -391,4 +554,54 @@ class UserServiceUnitTest {
         assertThat(result).isEqualTo(1L);
         verify(userRepository).countUsers();
     }
+
+    @Test
+    void testUserCountUnknownUntilSeeded() {
+        // Given - a service that was just constructed
+
+        // When
+        OptionalLong count = userService.knownUserCount();
+
+        // Then
+        assertThat(count).isEmpty();
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testSeedUserCountUsesEstimate() {
+        // Given
+        when(userRepository.estimateUserCount()).thenReturn(1_000L);
+
+        // When
+        boolean seeded = userService.seedUserCount();
+
+        // Then
+        assertThat(seeded).isTrue();
+        assertThat(userService.knownUserCount()).hasValue(1_000L);
+        verify(userRepository, never()).countUsers();
+    }
+
+    @Test
+    void testSeedUserCountFailsWhileDatabaseUnavailable() {
+        // Given
+        when(userRepository.estimateUserCount())
+                .thenThrow(new PersistenceException("Connection refused"));
+
+        // When
+        boolean seeded = userService.seedUserCount();
+
+        // Then
+        assertThat(seeded).isFalse();
+        assertThat(userService.knownUserCount()).isEmpty();
+    }
+
+    private UserService newUserService(UserCache cache) {
+        return new UserService(
+                userRepository,
+                new ShardRouter(1),
+                mutations,
+                cache,
+                cacheSnapshot,
+                OpenTelemetry.noop().getMeter("test"));
+    }
 }
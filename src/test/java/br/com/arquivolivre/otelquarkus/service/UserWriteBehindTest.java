@@ -0,0 +1,222 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+import br.com.arquivolivre.otelquarkus.model.User;
+import br.com.arquivolivre.otelquarkus.service.UserCreateBatcher.PendingCreate;
+import br.com.arquivolivre.otelquarkus.service.UserWriteBehind.State;
+import br.com.arquivolivre.otelquarkus.service.UserWriteBehind.Status;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.OpenTelemetry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for UserWriteBehind. The bean is built without its drainer thread, so each test
+ * drains explicitly against a mocked group-commit writer.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserWriteBehindTest {
+
+    private static final Duration RETRY_TIMEOUT = Duration.ofMinutes(10);
+
+    @Mock private UserCreateBatcher writer;
+
+    @TempDir Path dir;
+
+    private WriteBehindLog log;
+
+    private UserWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        log = new WriteBehindLog(dir.resolve("users.log"), new ObjectMapper());
+        writeBehind = newWriteBehind(log, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        log.close();
+    }
+
+    @Test
+    void testSubmitReservesEmail() {
+        // When
+        Status status = writeBehind.submit(new User("John", "john@example.com", null));
+
+        // Then
+        assertThat(status.state()).isEqualTo(State.PENDING);
+        assertThat(writeBehind.status(status.ticket())).contains(status);
+        assertThat(writeBehind.queueDepth()).isEqualTo(1);
+        assertThatThrownBy(() -> writeBehind.submit(new User("Other", "JOHN@example.com", null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Email already exists");
+    }
+
+    @Test
+    void testSubmitRejectsWhenFull() {
+        // Given
+        writeBehind.submit(new User("A", "a@example.com", null));
+        writeBehind.submit(new User("B", "b@example.com", null));
+
+        // When/Then
+        assertThatThrownBy(() -> writeBehind.submit(new User("C", "c@example.com", null)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> writeBehind.submit(new User("A2", "c@example.com", null)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testDrainRecordsOutcomesAndReleasesReservations() throws InterruptedException {
+        // Given
+        Status created = writeBehind.submit(new User("A", "a@example.com", null));
+        Status duplicate = writeBehind.submit(new User("B", "taken@example.com", null));
+        answerWrite(
+                pending -> {
+                    if (pending.user().email.equals("a@example.com")) {
+                        pending.user().id = 42L;
+                        pending.result().complete(pending.user());
+                    } else {
+                        pending.result()
+                                .completeExceptionally(
+                                        new IllegalArgumentException("Email already exists"));
+                    }
+                });
+
+        // When
+        boolean retrying = writeBehind.drain(writeBehind.nextBatch());
+
+        // Then
+        assertThat(retrying).isFalse();
+        assertThat(writeBehind.status(created.ticket()))
+                .hasValueSatisfying(
+                        status -> {
+                            assertThat(status.state()).isEqualTo(State.CREATED);
+                            assertThat(status.userId()).isEqualTo(42L);
+                        });
+        assertThat(writeBehind.status(duplicate.ticket()))
+                .hasValueSatisfying(status -> assertThat(status.state()).isEqualTo(State.FAILED));
+        assertThat(writeBehind.queueDepth()).isZero();
+        assertThat(writeBehind.submit(new User("A", "a@example.com", null))).isNotNull();
+    }
+
+    @Test
+    void testDrainKeepsUsersAfterTransientErrors() throws InterruptedException, IOException {
+        // Given
+        Status status = writeBehind.submit(new User("A", "a@example.com", null));
+        answerWrite(
+                pending ->
+                        pending.result()
+                                .completeExceptionally(new IllegalStateException("DB down")));
+
+        // When
+        boolean retrying = writeBehind.drain(writeBehind.nextBatch());
+
+        // Then
+        assertThat(retrying).isTrue();
+        assertThat(writeBehind.status(status.ticket()))
+                .hasValueSatisfying(s -> assertThat(s.state()).isEqualTo(State.PENDING));
+        assertThat(writeBehind.queueDepth()).isEqualTo(1);
+        assertThat(log.recover())
+                .extracting(position -> position.entry().ticket())
+                .containsExactly(status.ticket());
+    }
+
+    @Test
+    void testDrainFailsUsersThatKeepFailingPastRetryTimeout() throws InterruptedException {
+        // Given
+        writeBehind = newWriteBehind(log, 2, Duration.ZERO);
+        Status status = writeBehind.submit(new User("A", "a@example.com", null));
+        answerWrite(
+                pending ->
+                        pending.result()
+                                .completeExceptionally(new IllegalStateException("Data too long")));
+
+        // When
+        boolean retrying = writeBehind.drain(writeBehind.nextBatch());
+
+        // Then
+        assertThat(retrying).isFalse();
+        assertThat(writeBehind.status(status.ticket()))
+                .hasValueSatisfying(
+                        s -> {
+                            assertThat(s.state()).isEqualTo(State.FAILED);
+                            assertThat(s.error()).contains("Data too long");
+                        });
+        assertThat(writeBehind.queueDepth()).isZero();
+        assertThat(writeBehind.submit(new User("A", "a@example.com", null))).isNotNull();
+    }
+
+    @Test
+    void testRequeuedBatchKeepsLogOrder() throws InterruptedException {
+        // Given
+        Status first = writeBehind.submit(new User("A", "a@example.com", null));
+        Status second = writeBehind.submit(new User("B", "b@example.com", null));
+
+        // When
+        writeBehind.requeue(writeBehind.nextBatch());
+
+        // Then
+        assertThat(writeBehind.nextBatch())
+                .extracting(position -> position.entry().ticket())
+                .containsExactly(first.ticket(), second.ticket());
+    }
+
+    @Test
+    void testRecoversUndrainedUsersFromLog() throws IOException {
+        // Given
+        Status status = writeBehind.submit(new User("A", "a@example.com", null));
+        log.close();
+        log = new WriteBehindLog(dir.resolve("users.log"), new ObjectMapper());
+
+        // When
+        UserWriteBehind restarted = newWriteBehind(log, 2);
+
+        // Then
+        assertThat(restarted.status(status.ticket()))
+                .hasValueSatisfying(s -> assertThat(s.state()).isEqualTo(State.PENDING));
+        assertThat(restarted.queueDepth()).isEqualTo(1);
+        assertThatThrownBy(() -> restarted.submit(new User("B", "a@example.com", null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void answerWrite(Consumer<PendingCreate> outcome) {
+        doAnswer(
+                        invocation -> {
+                            List<PendingCreate> batch = invocation.getArgument(0);
+                            batch.forEach(outcome);
+                            return null;
+                        })
+                .when(writer)
+                .write(anyList());
+    }
+
+    private UserWriteBehind newWriteBehind(WriteBehindLog log, int capacity) {
+        return newWriteBehind(log, capacity, RETRY_TIMEOUT);
+    }
+
+    private UserWriteBehind newWriteBehind(
+            WriteBehindLog log, int capacity, Duration retryTimeout) {
+        return new UserWriteBehind(
+                writer,
+                OpenTelemetry.noop().getMeter("test"),
+                log,
+                capacity,
+                100,
+                Duration.ofMinutes(15),
+                retryTimeout);
+    }
+}
@@ -0,0 +1,127 @@
+package br.com.arquivolivre.otelquarkus.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import br.com.arquivolivre.otelquarkus.service.WriteBehindLog.Entry;
+import br.com.arquivolivre.otelquarkus.service.WriteBehindLog.Position;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests WriteBehindLog's durability and checkpointing against a temporary directory. */
+class WriteBehindLogTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir Path dir;
+
+    @Test
+    void testRecoverReturnsEntriesAfterCheckpoint() throws IOException {
+        // Given
+        Path file = dir.resolve("users.log");
+        try (WriteBehindLog log = new WriteBehindLog(file, mapper)) {
+            Position first = log.append(entry("t1", "a@example.com"));
+            log.append(entry("t2", "b@example.com"));
+            log.append(entry("t3", "c@example.com"));
+            log.checkpoint(first.end());
+        }
+
+        // When
+        List<Position> recovered;
+        try (WriteBehindLog log = new WriteBehindLog(file, mapper)) {
+            recovered = log.recover();
+        }
+
+        // Then
+        assertThat(recovered)
+                .extracting(position -> position.entry().ticket())
+                .containsExactly("t2", "t3");
+        assertThat(recovered.get(1).end()).isEqualTo(Files.size(file));
+    }
+
+    @Test
+    void testFullCheckpointTruncatesLog() throws IOException {
+        // Given
+        Path file = dir.resolve("users.log");
+        try (WriteBehindLog log = new WriteBehindLog(file, mapper)) {
+            log.append(entry("t1", "a@example.com"));
+            Position last = log.append(entry("t2", "b@example.com"));
+
+            // When
+            log.checkpoint(last.end());
+
+            // Then
+            assertThat(Files.size(file)).isZero();
+            assertThat(log.recover()).isEmpty();
+            assertThat(log.append(entry("t3", "c@example.com")).end()).isPositive();
+            assertThat(log.recover()).hasSize(1);
+        }
+    }
+
+    @Test
+    void testCompactionBoundsLogThatIsNeverFullyDrained() throws IOException {
+        // Given
+        Path file = dir.resolve("users.log");
+        long threshold = 1024;
+        try (WriteBehindLog log = new WriteBehindLog(file, mapper, threshold)) {
+            Position pending = log.append(entry("t0", "u0@example.com"));
+            long maxSize = 0;
+
+            // When: every checkpoint leaves the entry appended just before it undrained
+            for (int i = 1; i <= 500; i++) {
+                Position next = log.append(entry("t" + i, "u" + i + "@example.com"));
+                log.checkpoint(pending.end());
+                pending = next;
+                maxSize = Math.max(maxSize, Files.size(file));
+            }
+
+            // Then
+            assertThat(maxSize).isLessThan(threshold + 2 * pending.end() / 500);
+            assertThat(log.recover())
+                    .extracting(position -> position.entry().ticket())
+                    .containsExactly("t500");
+        }
+
+        // A reopened log replays only the undrained tail
+        try (WriteBehindLog log = new WriteBehindLog(file, mapper, threshold)) {
+            assertThat(log.recover())
+                    .extracting(position -> position.entry().ticket())
+                    .containsExactly("t500");
+        }
+    }
+
+    @Test
+    void testRecoverCutsOffTornLastLine() throws IOException {
+        // Given
+        Path file = dir.resolve("users.log");
+        long intact;
+        try (WriteBehindLog log = new WriteBehindLog(file, mapper)) {
+            intact = log.append(entry("t1", "a@example.com")).end();
+        }
+        Files.write(
+                file,
+                "{\"ticket\":\"t2\"".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        // When
+        List<Position> recovered;
+        try (WriteBehindLog log = new WriteBehindLog(file, mapper)) {
+            recovered = log.recover();
+        }
+
+        // Then
+        assertThat(recovered).hasSize(1);
+        assertThat(recovered.get(0).entry().email()).isEqualTo("a@example.com");
+        assertThat(Files.size(file)).isEqualTo(intact);
+    }
+
+    private static Entry entry(String ticket, String email) {
+        return new Entry(ticket, 1_000L, "User " + ticket, email, null);
+    }
+}
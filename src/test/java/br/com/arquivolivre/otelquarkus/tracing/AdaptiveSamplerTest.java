@@ -0,0 +1,138 @@
+package br.com.arquivolivre.otelquarkus.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for AdaptiveSampler. */
+class AdaptiveSamplerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+    private static final String SPAN_ID = "b7ad6b7169203331";
+
+    @Test
+    void testLongestRoutePrefixWins() {
+        // Given
+        AdaptiveSampler sampler =
+                newSampler(0.5, List.of("/q/=0", "/api/users=1", "/api/users/count=0.01"), 0);
+
+        // When / Then
+        assertThat(sampler.ratioFor("/q/health/ready")).isEqualTo(0.0);
+        assertThat(sampler.ratioFor("/api/users/count")).isEqualTo(0.01);
+        assertThat(sampler.ratioFor("/api/users/42")).isEqualTo(1.0);
+        assertThat(sampler.ratioFor("/other")).isEqualTo(0.5);
+        assertThat(sampler.ratioFor(null)).isEqualTo(0.5);
+    }
+
+    @Test
+    void testUnsampledRouteIsDeferredAndChildrenFollow() {
+        // Given
+        AdaptiveSampler sampler = newSampler(1.0, List.of("/api/users=0.000001"), 0);
+
+        // When
+        SamplingResult root =
+                sampler.decide(SpanContext.getInvalid(), TRACE_ID, path("/api/users"), SECOND);
+        TraceState traceState = root.getUpdatedTraceState(TraceState.getDefault());
+        SamplingResult child =
+                sampler.decide(
+                        SpanContext.create(TRACE_ID, SPAN_ID, TraceFlags.getDefault(), traceState),
+                        TRACE_ID,
+                        Attributes.empty(),
+                        SECOND);
+
+        // Then
+        assertThat(root.getDecision()).isEqualTo(SamplingDecision.RECORD_ONLY);
+        assertThat(AdaptiveSampler.isDeferred(traceState)).isTrue();
+        assertThat(child.getDecision()).isEqualTo(SamplingDecision.RECORD_ONLY);
+        assertThat(sampler.deferred()).isEqualTo(1);
+    }
+
+    @Test
+    void testZeroRatioRouteIsDroppedEvenWithDefer() {
+        // Given
+        AdaptiveSampler sampler = newSampler(1.0, List.of("/q/=0"), 0);
+
+        // When
+        SamplingResult result =
+                sampler.decide(SpanContext.getInvalid(), TRACE_ID, path("/q/health"), SECOND);
+
+        // Then
+        assertThat(result.getDecision()).isEqualTo(SamplingDecision.DROP);
+        assertThat(sampler.dropped()).isEqualTo(1);
+        assertThat(sampler.deferred()).isZero();
+    }
+
+    @Test
+    void testUpstreamSampledTraceIsKept() {
+        // Given
+        AdaptiveSampler sampler = newSampler(0.0, List.of(), 0);
+        SpanContext remote =
+                SpanContext.createFromRemoteParent(
+                        TRACE_ID, SPAN_ID, TraceFlags.getSampled(), TraceState.getDefault());
+
+        // When
+        SamplingResult result = sampler.decide(remote, TRACE_ID, path("/api/users"), SECOND);
+
+        // Then
+        assertThat(result.getDecision()).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+    }
+
+    @Test
+    void testDisabledSamplesEverythingLikeAlwaysOn() {
+        // Given
+        AdaptiveSampler sampler = new AdaptiveSampler(false, 0.0, List.of("/q/=0"), 0, true);
+        SpanContext remote =
+                SpanContext.createFromRemoteParent(
+                        TRACE_ID, SPAN_ID, TraceFlags.getDefault(), TraceState.getDefault());
+
+        // When
+        SamplingResult result =
+                sampler.shouldSample(
+                        Context.root().with(Span.wrap(remote)),
+                        TRACE_ID,
+                        "GET /q/health",
+                        SpanKind.SERVER,
+                        path("/q/health"),
+                        List.of());
+
+        // Then
+        assertThat(result.getDecision()).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+        assertThat(sampler.getDescription()).isEqualTo("AlwaysOnSampler");
+    }
+
+    @Test
+    void testBudgetScalesRatioDown() {
+        // Given
+        AdaptiveSampler sampler = newSampler(1.0, List.of(), 10);
+        for (int i = 0; i < 40; i++) {
+            sampler.decide(SpanContext.getInvalid(), TRACE_ID, path("/api/users"), SECOND);
+        }
+
+        // When - the next second sees 40 sampled traces against a budget of 10
+        sampler.decide(SpanContext.getInvalid(), TRACE_ID, path("/api/users"), 2 * SECOND);
+
+        // Then - corrected by at most half per second
+        assertThat(sampler.budgetFactor()).isEqualTo(0.5);
+    }
+
+    private static AdaptiveSampler newSampler(
+            double defaultRatio, List<String> routeRatios, int targetPerSecond) {
+        return new AdaptiveSampler(true, defaultRatio, routeRatios, targetPerSecond, true);
+    }
+
+    private static Attributes path(String path) {
+        return Attributes.of(AttributeKey.stringKey("url.path"), path);
+    }
+}
@@ -0,0 +1,107 @@
+package br.com.arquivolivre.otelquarkus.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** Unit tests for DeferredSpanProcessor. */
+@ExtendWith(MockitoExtension.class)
+class DeferredSpanProcessorTest {
+
+    private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+    private static final TraceState DEFERRED =
+            TraceState.builder().put(AdaptiveSampler.DEFERRED_KEY, "1").build();
+
+    @Mock private SpanProcessor exporter;
+
+    private DeferredSpanProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new DeferredSpanProcessor(() -> List.of(exporter), Duration.ofMillis(500), 10);
+    }
+
+    @Test
+    void testFailedTraceIsPromotedAsSampled() {
+        // Given
+        ReadableSpan root = span("b7ad6b7169203331", SpanContext.getInvalid(), StatusCode.UNSET);
+        ReadableSpan child = span("00f067aa0ba902b7", root.getSpanContext(), StatusCode.ERROR);
+        when(exporter.isEndRequired()).thenReturn(true);
+        processor.onEnd(child);
+
+        // When
+        processor.onEnd(root);
+
+        // Then
+        ArgumentCaptor<ReadableSpan> exported = ArgumentCaptor.forClass(ReadableSpan.class);
+        verify(exporter, times(2)).onEnd(exported.capture());
+        assertThat(exported.getAllValues())
+                .allMatch(span -> span.getSpanContext().isSampled())
+                .extracting(span -> span.getSpanContext().getSpanId())
+                .containsExactly("00f067aa0ba902b7", "b7ad6b7169203331");
+        assertThat(processor.promoted()).isEqualTo(1);
+        assertThat(processor.pending()).isZero();
+    }
+
+    @Test
+    void testFastSuccessfulTraceIsDiscarded() {
+        // Given
+        ReadableSpan root = span("b7ad6b7169203331", SpanContext.getInvalid(), StatusCode.OK);
+
+        // When
+        processor.onEnd(root);
+
+        // Then
+        verify(exporter, never()).onEnd(any());
+        assertThat(processor.discarded()).isEqualTo(1);
+    }
+
+    @Test
+    void testSlowTraceIsPromoted() {
+        // Given
+        ReadableSpan root = span("b7ad6b7169203331", SpanContext.getInvalid(), StatusCode.OK);
+        when(root.getLatencyNanos()).thenReturn(Duration.ofSeconds(1).toNanos());
+
+        // When
+        processor.onEnd(root);
+
+        // Then
+        assertThat(processor.promoted()).isEqualTo(1);
+    }
+
+    private static ReadableSpan span(String spanId, SpanContext parent, StatusCode status) {
+        // Only the root's latency is read, and statuses only until one failed
+        ReadableSpan span = mock(ReadableSpan.class);
+        SpanData data = mock(SpanData.class);
+        SpanContext context =
+                SpanContext.create(TRACE_ID, spanId, TraceFlags.getDefault(), DEFERRED);
+        when(span.getSpanContext()).thenReturn(context);
+        when(span.getParentSpanContext()).thenReturn(parent);
+        lenient().when(span.getLatencyNanos()).thenReturn(Duration.ofMillis(10).toNanos());
+        lenient().when(span.toSpanData()).thenReturn(data);
+        lenient().when(data.getStatus()).thenReturn(StatusData.create(status, null));
+        return span;
+    }
+}
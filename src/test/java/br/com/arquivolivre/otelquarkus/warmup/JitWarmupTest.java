@@ -0,0 +1,114 @@
+package br.com.arquivolivre.otelquarkus.warmup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.OpenTelemetry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for JitWarmup and its readiness check. */
+class JitWarmupTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void testMixUsesSampledUser() throws Exception {
+        // Given
+        JitWarmup warmup = newWarmup(true);
+        JsonNode changes =
+                mapper.readTree(
+                        "{\"changes\":[{\"type\":\"DELETED\",\"id\":7,\"user\":null},"
+                                + "{\"type\":\"UPSERTED\",\"id\":42,\"user\":{\"id\":42,"
+                                + "\"name\":\"Ana Silva\",\"email\":\"ana+1@example.com\"}}]}");
+
+        // When
+        List<JitWarmup.Request> mix = warmup.mix(changes);
+
+        // Then
+        assertThat(mix)
+                .extracting(JitWarmup.Request::endpoint)
+                .containsExactly(
+                        "count", "changes", "create-invalid", "by-id", "by-email", "search");
+        assertThat(mix)
+                .extracting(JitWarmup.Request::path)
+                .contains(
+                        "/api/users/42",
+                        "/api/users/email/ana%2B1%40example.com",
+                        "/api/users/search?name=Ana");
+        assertThat(mix).filteredOn(r -> !r.method().equals("GET")).hasSize(1);
+    }
+
+    @Test
+    void testMixWithoutUsers() throws Exception {
+        // Given
+        JitWarmup warmup = newWarmup(true);
+
+        // When
+        List<JitWarmup.Request> mix = warmup.mix(mapper.readTree("{\"changes\":[]}"));
+
+        // Then
+        assertThat(mix)
+                .extracting(JitWarmup.Request::endpoint)
+                .containsExactly("count", "changes", "create-invalid", "by-id");
+    }
+
+    @Test
+    void testCountSettledWithinTolerance() {
+        // Given
+        JitWarmup warmup = newWarmup(true);
+        Map<String, Long> previous = Map.of("count", 10_000L, "by-id", 10_000L, "search", 100L);
+        Map<String, Long> current =
+                Map.of("count", 10_900L, "by-id", 12_000L, "search", 250L, "changes", 500L);
+
+        // When
+        int settled = warmup.countSettled(previous, current);
+
+        // Then
+        // count moved 9%, search only by noise; by-id moved 20% and changes has no previous round
+        assertThat(settled).isEqualTo(2);
+    }
+
+    @Test
+    void testNotReadyWhileRunning() {
+        // Given
+        JitWarmup warmup = newWarmup(true);
+
+        // When
+        HealthCheckResponse response = new JitWarmupCheck(warmup).call();
+
+        // Then
+        assertThat(warmup.state()).isEqualTo(JitWarmup.State.RUNNING);
+        assertThat(response.getStatus()).isEqualTo(HealthCheckResponse.Status.DOWN);
+    }
+
+    @Test
+    void testReadyWhenDisabled() {
+        // Given
+        JitWarmup warmup = newWarmup(false);
+
+        // When
+        HealthCheckResponse response = new JitWarmupCheck(warmup).call();
+
+        // Then
+        assertThat(warmup.state()).isEqualTo(JitWarmup.State.DISABLED);
+        assertThat(response.getStatus()).isEqualTo(HealthCheckResponse.Status.UP);
+    }
+
+    private JitWarmup newWarmup(boolean enabled) {
+        return new JitWarmup(
+                mapper,
+                OpenTelemetry.noop().getMeter("test"),
+                enabled,
+                "http://localhost:8080",
+                10,
+                2,
+                0.1,
+                3,
+                Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,7 @@
+-- Test replica: the shard schema plus a user the primary does not have, so tests can tell which
+-- datasource served a read. H2 runs it through INIT on every new connection, hence MERGE.
+RUNSCRIPT FROM 'classpath:db/shard-schema.sql';
+
+MERGE INTO users (id, name, email, bio, created_at, updated_at, version) KEY (id)
+VALUES (900000, 'Replica Only', 'replica-only@example.com', NULL, CURRENT_TIMESTAMP,
+        CURRENT_TIMESTAMP, 0);